@@ -2,6 +2,9 @@ package com.example.immutability;
 
 import java.util.*;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -131,15 +134,12 @@ public class PersistentDataStructuresDemo {
             return new PersistentList<>(head.next, size - 1);
         }
         
-        // O(n) で要素を末尾に追加
+        // O(n) で要素を末尾に追加（全ノードを作り直す。末尾への追加が続く場合は PersistentVector を使う）
         public PersistentList<T> append(T value) {
-            if (isEmpty()) {
-                return prepend(value);
-            }
-            return prepend(head.value).append(value).tail().prepend(head.value);
+            return appendEfficient(value);
         }
         
-        // より効率的なappend実装
+        // 再帰を使わないappend実装（長いリストでもスタックオーバーフローしない）
         public PersistentList<T> appendEfficient(T value) {
             List<T> elements = new ArrayList<>();
             Node<T> current = head;
@@ -156,7 +156,7 @@ public class PersistentDataStructuresDemo {
             return result;
         }
         
-        // O(n) で指定位置の要素を取得
+        // O(n) で指定位置の要素を取得（インデックスでのアクセスが多い場合は PersistentVector を使う）
         public Optional<T> get(int index) {
             if (index < 0 || index >= size) {
                 return Optional.empty();
@@ -282,204 +282,1168 @@ public class PersistentDataStructuresDemo {
     }
     
     /**
-     * 簡易的な永続的ハッシュマップ（Trie構造）
+     * 永続的ハッシュマップ（HAMT: Hash Array Mapped Trie）
+     *
+     * ハッシュ値を5ビットずつ区切って32分木をたどる。各ノードは32ビットのビットマップと、
+     * 存在する子だけを詰めた配列を持つ（空きスロットを確保しない）。配列は [キー, 値] の組で、
+     * キーが null の組は値の位置に子ノードを持つ。32ビットのハッシュ値が完全に一致するキーは
+     * 衝突ノードにまとめる。
+     *
+     * put/remove は根から葉までの経路（高々 log32(n) 個のノード）だけを複製し、
+     * それ以外の部分木は元のマップと共有する。CopyOnWriteMap のようにマップ全体は複製しない。
+     * トランジェント（{@link #asTransient()}）は、自分が作ったノードをその場で書き換えるため、
+     * まとめて更新する時に経路の複製も省ける。
+     * merge/diff は同じノードを共有する部分木を参照の比較だけで飛ばす。
+     *
+     * null キーと null 値は格納できない（get の null が「キーなし」を意味するため）。
      */
-    public static class PersistentHashMap<K, V> {
+    public static final class PersistentHashMap<K, V> {
         private static final int SHIFT = 5;
-        private static final int BUCKET_SIZE = 1 << SHIFT; // 32
-        private static final int MASK = BUCKET_SIZE - 1;
+        private static final int MASK = (1 << SHIFT) - 1;
         
-        private interface Node<K, V> {
-            V find(int hash, K key);
-            Node<K, V> insert(int shift, int hash, K key, V value);
-            Node<K, V> remove(int shift, int hash, K key);
-            boolean isEmpty();
-            int size();
+        private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(BitmapIndexedNode.EMPTY, 0);
+        
+        private final Node root;
+        private final int size;
+        
+        private PersistentHashMap(Node root, int size) {
+            this.root = root;
+            this.size = size;
         }
         
-        private static class LeafNode<K, V> implements Node<K, V> {
-            final int hash;
-            final K key;
-            final V value;
+        @SuppressWarnings("unchecked")
+        public static <K, V> PersistentHashMap<K, V> empty() {
+            return (PersistentHashMap<K, V>) EMPTY;
+        }
+        
+        /**
+         * 通常のマップから構築（トランジェントで一括挿入）
+         */
+        public static <K, V> PersistentHashMap<K, V> fromMap(Map<? extends K, ? extends V> map) {
+            TransientHashMap<K, V> builder = PersistentHashMap.<K, V>empty().asTransient();
+            map.forEach(builder::put);
+            return builder.persistent();
+        }
+        
+        @SuppressWarnings("unchecked")
+        public V get(K key) {
+            return (V) root.find(0, hash(key), key);
+        }
+        
+        public boolean containsKey(K key) {
+            return get(key) != null;
+        }
+        
+        public PersistentHashMap<K, V> put(K key, V value) {
+            Objects.requireNonNull(value, "value");
+            Box box = new Box();
+            Node newRoot = root.assoc(null, 0, hash(key), key, value, box);
+            if (newRoot == root) {
+                return this;
+            }
+            return new PersistentHashMap<>(newRoot, box.added ? size + 1 : size);
+        }
+        
+        public PersistentHashMap<K, V> remove(K key) {
+            Box box = new Box();
+            Node newRoot = root.without(null, 0, hash(key), key, box);
+            if (!box.removed) {
+                return this;
+            }
+            return new PersistentHashMap<>(newRoot == null ? BitmapIndexedNode.EMPTY : newRoot, size - 1);
+        }
+        
+        /**
+         * 変更可能なビルダーを作成（このマップ自体は変わらない）
+         */
+        public TransientHashMap<K, V> asTransient() {
+            return new TransientHashMap<>(root, size);
+        }
+        
+        /**
+         * other の全エントリを追加したマップ（キーが重なれば other の値を使う）
+         */
+        public PersistentHashMap<K, V> putAll(PersistentHashMap<? extends K, ? extends V> other) {
+            return merge(other, (mine, theirs) -> theirs);
+        }
+        
+        /**
+         * 2つのマップの和
+         * 両方にあるキーの値が等しくない時だけ resolver(この値, other の値) を呼ぶ。
+         * 両方のマップが共有している部分木は、中を見ずにそのまま使う
+         */
+        @SuppressWarnings("unchecked")
+        public PersistentHashMap<K, V> merge(PersistentHashMap<? extends K, ? extends V> other,
+                                             BiFunction<? super V, ? super V, ? extends V> resolver) {
+            if (other.size == 0 || other.root == root) {
+                return this;
+            }
+            if (size == 0) {
+                return (PersistentHashMap<K, V>) other;
+            }
+            int[] added = new int[1];
+            Node merged = mergeNodes(0, root, other.root,
+                    (BiFunction<Object, Object, Object>) (BiFunction<?, ?, ?>) resolver, added);
+            return merged == root ? this : new PersistentHashMap<>(merged, size + added[0]);
+        }
+        
+        /**
+         * このマップから other への差分
+         * 共有している部分木は参照の比較だけで飛ばすため、1つのマップから派生した
+         * スナップショット同士なら、変更された経路の大きさに比例する時間で済む
+         */
+        public Diff<K, V> diff(PersistentHashMap<K, V> other) {
+            TransientHashMap<K, V> added = PersistentHashMap.<K, V>empty().asTransient();
+            TransientHashMap<K, V> removed = PersistentHashMap.<K, V>empty().asTransient();
+            TransientHashMap<K, V> changed = PersistentHashMap.<K, V>empty().asTransient();
+            diffNodes(0, root, other.root, removed, added, changed);
+            return new Diff<>(added.persistent(), removed.persistent(), changed.persistent());
+        }
+        
+        @SuppressWarnings("unchecked")
+        public void forEach(BiConsumer<? super K, ? super V> action) {
+            root.forEach((BiConsumer<Object, Object>) (BiConsumer<?, ?>) action);
+        }
+        
+        public Map<K, V> toMap() {
+            Map<K, V> map = new HashMap<>();
+            forEach(map::put);
+            return map;
+        }
+        
+        public int size() {
+            return size;
+        }
+        
+        public boolean isEmpty() {
+            return size == 0;
+        }
+        
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof PersistentHashMap)) return false;
             
-            LeafNode(int hash, K key, V value) {
-                this.hash = hash;
-                this.key = key;
-                this.value = value;
+            PersistentHashMap<K, V> other = (PersistentHashMap<K, V>) obj;
+            return size == other.size && diff(other).isEmpty();
+        }
+        
+        @Override
+        public int hashCode() {
+            int[] hash = new int[1];
+            forEach((k, v) -> hash[0] += k.hashCode() ^ v.hashCode()); // Map.hashCode と同じ定義
+            return hash[0];
+        }
+        
+        @Override
+        public String toString() {
+            return "{size=" + size + "}";
+        }
+        
+        /**
+         * diff の結果（removed は元の値、changed は新しい値を持つ）
+         */
+        public static final class Diff<K, V> {
+            public final PersistentHashMap<K, V> added;
+            public final PersistentHashMap<K, V> removed;
+            public final PersistentHashMap<K, V> changed;
+            
+            Diff(PersistentHashMap<K, V> added, PersistentHashMap<K, V> removed, PersistentHashMap<K, V> changed) {
+                this.added = added;
+                this.removed = removed;
+                this.changed = changed;
+            }
+            
+            public boolean isEmpty() {
+                return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
             }
             
             @Override
-            public V find(int hash, K key) {
-                return this.hash == hash && Objects.equals(this.key, key) ? value : null;
+            public String toString() {
+                return "Diff{added=" + added.toMap() + ", removed=" + removed.toMap()
+                    + ", changed=" + changed.toMap() + "}";
+            }
+        }
+        
+        /**
+         * 一括更新用の変更可能なマップ
+         * 自分が作ったノードだけをその場で書き換え、元のマップと共有しているノードは複製する。
+         * persistent() の後は使えない。スレッドセーフではない
+         */
+        public static final class TransientHashMap<K, V> {
+            private Object edit = new Object(); // このトランジェントが作ったノードの印
+            private Node root;
+            private int size;
+            private final Box box = new Box();
+            
+            private TransientHashMap(Node root, int size) {
+                this.root = root;
+                this.size = size;
+            }
+            
+            @SuppressWarnings("unchecked")
+            public V get(K key) {
+                ensureEditable();
+                return (V) root.find(0, hash(key), key);
+            }
+            
+            public TransientHashMap<K, V> put(K key, V value) {
+                ensureEditable();
+                Objects.requireNonNull(value, "value");
+                box.reset();
+                root = root.assoc(edit, 0, hash(key), key, value, box);
+                if (box.added) {
+                    size++;
+                }
+                return this;
+            }
+            
+            public TransientHashMap<K, V> remove(K key) {
+                ensureEditable();
+                box.reset();
+                Node newRoot = root.without(edit, 0, hash(key), key, box);
+                root = newRoot == null ? BitmapIndexedNode.EMPTY : newRoot;
+                if (box.removed) {
+                    size--;
+                }
+                return this;
+            }
+            
+            public int size() {
+                ensureEditable();
+                return size;
+            }
+            
+            /**
+             * 不変のマップに変換
+             * 印を無効にするため、以後このトランジェントのノードが書き換えられることはない
+             * （PersistentHashMap の final フィールド経由で安全に公開される）
+             */
+            public PersistentHashMap<K, V> persistent() {
+                ensureEditable();
+                edit = null;
+                return size == 0 ? empty() : new PersistentHashMap<>(root, size);
+            }
+            
+            private void ensureEditable() {
+                if (edit == null) {
+                    throw new IllegalStateException("Transient used after persistent() call");
+                }
+            }
+        }
+        
+        // --- ノード ---
+        
+        private static int hash(Object key) {
+            int h = key.hashCode(); // null キーは NullPointerException
+            return h ^ (h >>> 16);
+        }
+        
+        private static int bitpos(int hash, int shift) {
+            return 1 << ((hash >>> shift) & MASK);
+        }
+        
+        /**
+         * 更新結果（キーが追加されたか、削除されたか）
+         */
+        private static final class Box {
+            boolean added;
+            boolean removed;
+            
+            void reset() {
+                added = false;
+                removed = false;
+            }
+        }
+        
+        private abstract static class Node {
+            final Object edit; // 作成したトランジェントの印（null なら常に複製する）
+            
+            Node(Object edit) {
+                this.edit = edit;
+            }
+            
+            boolean isEditable(Object edit) {
+                return edit != null && this.edit == edit;
+            }
+            
+            abstract Object find(int shift, int hash, Object key);
+            
+            abstract Node assoc(Object edit, int shift, int hash, Object key, Object value, Box box);
+            
+            abstract Node without(Object edit, int shift, int hash, Object key, Box box);
+            
+            abstract void forEach(BiConsumer<Object, Object> action);
+            
+            int count() {
+                int[] count = new int[1];
+                forEach((k, v) -> count[0]++);
+                return count[0];
+            }
+        }
+        
+        /**
+         * ビットマップで存在する子を示し、配列には存在する子だけを詰める
+         */
+        private static final class BitmapIndexedNode extends Node {
+            static final BitmapIndexedNode EMPTY = new BitmapIndexedNode(null, 0, new Object[0]);
+            
+            int bitmap;
+            Object[] array; // [キー, 値] の組。キーが null なら値は子ノード
+            
+            BitmapIndexedNode(Object edit, int bitmap, Object[] array) {
+                super(edit);
+                this.bitmap = bitmap;
+                this.array = array;
+            }
+            
+            /**
+             * bit より下位の立っているビットの数 = 配列上の組の位置
+             */
+            int index(int bit) {
+                return Integer.bitCount(bitmap & (bit - 1));
             }
             
             @Override
-            public Node<K, V> insert(int shift, int hash, K key, V value) {
-                if (this.hash == hash && Objects.equals(this.key, key)) {
-                    return new LeafNode<>(hash, key, value);
+            Object find(int shift, int hash, Object key) {
+                int bit = bitpos(hash, shift);
+                if ((bitmap & bit) == 0) {
+                    return null;
+                }
+                int i = 2 * index(bit);
+                Object k = array[i];
+                Object v = array[i + 1];
+                if (k == null) {
+                    return ((Node) v).find(shift + SHIFT, hash, key);
                 }
-                
-                // 衝突時は分岐ノードを作成
-                return BranchNode.<K, V>empty()
-                    .insert(shift, this.hash, this.key, this.value)
-                    .insert(shift, hash, key, value);
+                return key.equals(k) ? v : null;
             }
             
             @Override
-            public Node<K, V> remove(int shift, int hash, K key) {
-                return this.hash == hash && Objects.equals(this.key, key) ? null : this;
+            Node assoc(Object edit, int shift, int hash, Object key, Object value, Box box) {
+                int bit = bitpos(hash, shift);
+                int i = 2 * index(bit);
+                if ((bitmap & bit) == 0) {
+                    box.added = true;
+                    Object[] newArray = new Object[array.length + 2];
+                    System.arraycopy(array, 0, newArray, 0, i);
+                    newArray[i] = key;
+                    newArray[i + 1] = value;
+                    System.arraycopy(array, i, newArray, i + 2, array.length - i);
+                    if (isEditable(edit)) {
+                        array = newArray;
+                        bitmap |= bit;
+                        return this;
+                    }
+                    return new BitmapIndexedNode(edit, bitmap | bit, newArray);
+                }
+                Object k = array[i];
+                Object v = array[i + 1];
+                if (k == null) {
+                    Node child = (Node) v;
+                    Node newChild = child.assoc(edit, shift + SHIFT, hash, key, value, box);
+                    return newChild == child ? this : withPair(edit, i, null, newChild);
+                }
+                if (key.equals(k)) {
+                    return v == value ? this : withPair(edit, i, k, value);
+                }
+                // 同じスロットに別のキー: 2つを子ノードへ下ろす
+                box.added = true;
+                return withPair(edit, i, null, createNode(edit, shift + SHIFT, k, v, hash, key, value));
             }
             
             @Override
-            public boolean isEmpty() {
-                return false;
+            Node without(Object edit, int shift, int hash, Object key, Box box) {
+                int bit = bitpos(hash, shift);
+                if ((bitmap & bit) == 0) {
+                    return this;
+                }
+                int i = 2 * index(bit);
+                Object k = array[i];
+                Object v = array[i + 1];
+                if (k == null) {
+                    Node child = (Node) v;
+                    Node newChild = child.without(edit, shift + SHIFT, hash, key, box);
+                    if (newChild == child) {
+                        return this;
+                    }
+                    if (newChild == null) {
+                        return removePair(edit, bit, i);
+                    }
+                    // 1組だけになった子はこの階層へ引き上げる（木を浅く保ち、diff で比較しやすくする）
+                    if (newChild instanceof BitmapIndexedNode) {
+                        Object[] childArray = ((BitmapIndexedNode) newChild).array;
+                        if (childArray.length == 2 && childArray[0] != null) {
+                            return withPair(edit, i, childArray[0], childArray[1]);
+                        }
+                    }
+                    return withPair(edit, i, null, newChild);
+                }
+                if (!key.equals(k)) {
+                    return this;
+                }
+                box.removed = true;
+                return removePair(edit, bit, i);
             }
             
             @Override
-            public int size() {
-                return 1;
+            void forEach(BiConsumer<Object, Object> action) {
+                for (int i = 0; i < array.length; i += 2) {
+                    if (array[i] == null) {
+                        ((Node) array[i + 1]).forEach(action);
+                    } else {
+                        action.accept(array[i], array[i + 1]);
+                    }
+                }
+            }
+            
+            private Node withPair(Object edit, int i, Object key, Object value) {
+                if (isEditable(edit)) {
+                    array[i] = key;
+                    array[i + 1] = value;
+                    return this;
+                }
+                Object[] newArray = array.clone();
+                newArray[i] = key;
+                newArray[i + 1] = value;
+                return new BitmapIndexedNode(edit, bitmap, newArray);
+            }
+            
+            private Node removePair(Object edit, int bit, int i) {
+                if (bitmap == bit) {
+                    return null;
+                }
+                Object[] newArray = new Object[array.length - 2];
+                System.arraycopy(array, 0, newArray, 0, i);
+                System.arraycopy(array, i + 2, newArray, i, array.length - i - 2);
+                if (isEditable(edit)) {
+                    array = newArray;
+                    bitmap ^= bit;
+                    return this;
+                }
+                return new BitmapIndexedNode(edit, bitmap ^ bit, newArray);
             }
         }
         
-        private static class BranchNode<K, V> implements Node<K, V> {
-            final Node<K, V>[] children;
-            final int population;
+        /**
+         * 32ビットのハッシュ値が完全に一致するキーの集まり（線形探索）
+         */
+        private static final class CollisionNode extends Node {
+            final int hash;
+            Object[] array; // [キー, 値] の組
             
-            @SuppressWarnings("unchecked")
-            BranchNode(Node<K, V>[] children) {
-                this.children = children;
-                this.population = (int) Arrays.stream(children)
-                    .filter(Objects::nonNull)
-                    .count();
+            CollisionNode(Object edit, int hash, Object[] array) {
+                super(edit);
+                this.hash = hash;
+                this.array = array;
             }
             
-            @SuppressWarnings("unchecked")
-            static <K, V> BranchNode<K, V> empty() {
-                return new BranchNode<>(new Node[BUCKET_SIZE]);
+            int indexOf(Object key) {
+                for (int i = 0; i < array.length; i += 2) {
+                    if (key.equals(array[i])) {
+                        return i;
+                    }
+                }
+                return -1;
             }
             
             @Override
-            public V find(int hash, K key) {
-                int index = (hash >>> 0) & MASK; // 最初のレベルは shift = 0
-                Node<K, V> child = children[index];
-                return child == null ? null : child.find(hash, key);
+            Object find(int shift, int hash, Object key) {
+                if (hash != this.hash) {
+                    return null;
+                }
+                int i = indexOf(key);
+                return i < 0 ? null : array[i + 1];
             }
             
             @Override
-            public Node<K, V> insert(int shift, int hash, K key, V value) {
-                int index = (hash >>> shift) & MASK;
-                Node<K, V> child = children[index];
-                Node<K, V> newChild = child == null 
-                    ? new LeafNode<>(hash, key, value)
-                    : child.insert(shift + SHIFT, hash, key, value);
-                
-                if (newChild == child) {
+            Node assoc(Object edit, int shift, int hash, Object key, Object value, Box box) {
+                if (hash != this.hash) {
+                    // ハッシュ値が異なるキーは、この衝突ノードを子に持つビットマップノードで分ける
+                    return new BitmapIndexedNode(edit, bitpos(this.hash, shift), new Object[] {null, this})
+                        .assoc(edit, shift, hash, key, value, box);
+                }
+                int i = indexOf(key);
+                Object[] newArray;
+                if (i >= 0) {
+                    if (array[i + 1] == value) {
+                        return this;
+                    }
+                    newArray = isEditable(edit) ? array : array.clone();
+                    newArray[i + 1] = value;
+                } else {
+                    box.added = true;
+                    newArray = Arrays.copyOf(array, array.length + 2);
+                    newArray[array.length] = key;
+                    newArray[array.length + 1] = value;
+                }
+                if (isEditable(edit)) {
+                    array = newArray;
                     return this;
                 }
-                
-                Node<K, V>[] newChildren = Arrays.copyOf(children, children.length);
-                newChildren[index] = newChild;
-                return new BranchNode<>(newChildren);
+                return new CollisionNode(edit, hash, newArray);
             }
             
             @Override
-            public Node<K, V> remove(int shift, int hash, K key) {
-                int index = (hash >>> shift) & MASK;
-                Node<K, V> child = children[index];
-                if (child == null) return this;
-                
-                Node<K, V> newChild = child.remove(shift + SHIFT, hash, key);
-                if (newChild == child) return this;
-                
-                Node<K, V>[] newChildren = Arrays.copyOf(children, children.length);
-                newChildren[index] = newChild;
-                
-                BranchNode<K, V> newBranch = new BranchNode<>(newChildren);
-                
-                // 子ノードが1つだけの場合は最適化を検討
-                if (newBranch.population == 1) {
-                    for (Node<K, V> remainingChild : newChildren) {
-                        if (remainingChild != null) {
-                            return remainingChild instanceof LeafNode ? remainingChild : newBranch;
-                        }
-                    }
+            Node without(Object edit, int shift, int hash, Object key, Box box) {
+                int i = hash == this.hash ? indexOf(key) : -1;
+                if (i < 0) {
+                    return this;
+                }
+                box.removed = true;
+                if (array.length == 4) {
+                    // 残り1組は通常の組に戻す（親が自分の階層へ引き上げる）
+                    int j = i == 0 ? 2 : 0;
+                    return new BitmapIndexedNode(edit, bitpos(this.hash, shift), new Object[] {array[j], array[j + 1]});
                 }
-                
-                return newBranch;
+                Object[] newArray = new Object[array.length - 2];
+                System.arraycopy(array, 0, newArray, 0, i);
+                System.arraycopy(array, i + 2, newArray, i, array.length - i - 2);
+                if (isEditable(edit)) {
+                    array = newArray;
+                    return this;
+                }
+                return new CollisionNode(edit, hash, newArray);
             }
             
             @Override
-            public boolean isEmpty() {
-                return population == 0;
+            void forEach(BiConsumer<Object, Object> action) {
+                for (int i = 0; i < array.length; i += 2) {
+                    action.accept(array[i], array[i + 1]);
+                }
             }
-            
-            @Override
-            public int size() {
-                return Arrays.stream(children)
-                    .filter(Objects::nonNull)
-                    .mapToInt(Node::size)
-                    .sum();
+        }
+        
+        private static Node createNode(Object edit, int shift, Object key1, Object value1,
+                                       int hash2, Object key2, Object value2) {
+            int hash1 = hash(key1);
+            if (hash1 == hash2) {
+                return new CollisionNode(edit, hash1, new Object[] {key1, value1, key2, value2});
             }
+            Box box = new Box();
+            return BitmapIndexedNode.EMPTY
+                .assoc(edit, shift, hash1, key1, value1, box)
+                .assoc(edit, shift, hash2, key2, value2, box);
         }
         
-        private final Node<K, V> root;
-        private final int size;
+        // --- merge / diff ---
         
-        private PersistentHashMap(Node<K, V> root, int size) {
-            this.root = root;
-            this.size = size;
+        private static Object resolve(Object mine, Object theirs, BiFunction<Object, Object, Object> resolver) {
+            return Objects.equals(mine, theirs) ? mine
+                : Objects.requireNonNull(resolver.apply(mine, theirs), "resolved value");
         }
         
-        public static <K, V> PersistentHashMap<K, V> empty() {
-            return new PersistentHashMap<>(null, 0);
+        /**
+         * 同じ階層（shift）の2つのノードを合わせる。added[0] には b にだけあったキーの数を加える
+         */
+        private static Node mergeNodes(int shift, Node a, Node b, BiFunction<Object, Object, Object> resolver,
+                                       int[] added) {
+            if (a == b) {
+                return a; // 共有している部分木
+            }
+            if (!(a instanceof BitmapIndexedNode) || !(b instanceof BitmapIndexedNode)) {
+                // 衝突ノードを含む場合は b の要素を1つずつ追加する
+                Node[] result = {a};
+                Box box = new Box();
+                b.forEach((k, v) -> {
+                    int h = hash(k);
+                    Object existing = result[0].find(shift, h, k);
+                    box.reset();
+                    result[0] = result[0].assoc(null, shift, h, k,
+                        existing == null ? v : resolve(existing, v, resolver), box);
+                    if (box.added) {
+                        added[0]++;
+                    }
+                });
+                return result[0];
+            }
+            BitmapIndexedNode x = (BitmapIndexedNode) a;
+            BitmapIndexedNode y = (BitmapIndexedNode) b;
+            int union = x.bitmap | y.bitmap;
+            Object[] out = new Object[2 * Integer.bitCount(union)];
+            boolean sameAsA = union == x.bitmap; // 結果が a と同じなら a をそのまま返して共有を保つ
+            int o = 0;
+            for (int bits = union; bits != 0; bits &= bits - 1, o += 2) {
+                int bit = bits & -bits;
+                if ((y.bitmap & bit) == 0) {
+                    int i = 2 * x.index(bit);
+                    out[o] = x.array[i];
+                    out[o + 1] = x.array[i + 1];
+                    continue;
+                }
+                int j = 2 * y.index(bit);
+                Object yk = y.array[j];
+                Object yv = y.array[j + 1];
+                if ((x.bitmap & bit) == 0) {
+                    added[0] += yk == null ? ((Node) yv).count() : 1;
+                    out[o] = yk;
+                    out[o + 1] = yv;
+                    continue;
+                }
+                int i = 2 * x.index(bit);
+                Object xk = x.array[i];
+                Object xv = x.array[i + 1];
+                if (xk == null && yk == null) {
+                    out[o + 1] = mergeNodes(shift + SHIFT, (Node) xv, (Node) yv, resolver, added);
+                } else if (xk == null) {
+                    Node sub = (Node) xv;
+                    int h = hash(yk);
+                    Object existing = sub.find(shift + SHIFT, h, yk);
+                    if (existing == null) {
+                        added[0]++;
+                    }
+                    out[o + 1] = sub.assoc(null, shift + SHIFT, h, yk,
+                        existing == null ? yv : resolve(existing, yv, resolver), new Box());
+                } else if (yk == null) {
+                    Node sub = (Node) yv;
+                    int h = hash(xk);
+                    Object existing = sub.find(shift + SHIFT, h, xk);
+                    added[0] += sub.count() - (existing == null ? 0 : 1);
+                    out[o + 1] = sub.assoc(null, shift + SHIFT, h, xk,
+                        existing == null ? xv : resolve(xv, existing, resolver), new Box());
+                } else if (xk.equals(yk)) {
+                    out[o] = xk;
+                    out[o + 1] = resolve(xv, yv, resolver);
+                } else {
+                    added[0]++;
+                    out[o + 1] = createNode(null, shift + SHIFT, xk, xv, hash(yk), yk, yv);
+                }
+                if (sameAsA && (out[o] != x.array[o] || out[o + 1] != x.array[o + 1])) {
+                    sameAsA = false;
+                }
+            }
+            return sameAsA ? a : new BitmapIndexedNode(null, union, out);
         }
         
-        public V get(K key) {
-            if (root == null) return null;
-            return root.find(key.hashCode(), key);
+        private static <K, V> void diffNodes(int shift, Node a, Node b, TransientHashMap<K, V> removed,
+                                             TransientHashMap<K, V> added, TransientHashMap<K, V> changed) {
+            if (a == b) {
+                return; // 共有している部分木は変化なし
+            }
+            if (!(a instanceof BitmapIndexedNode) || !(b instanceof BitmapIndexedNode)) {
+                diffByLookup(shift, a, b, removed, added, changed);
+                return;
+            }
+            BitmapIndexedNode x = (BitmapIndexedNode) a;
+            BitmapIndexedNode y = (BitmapIndexedNode) b;
+            for (int bits = x.bitmap | y.bitmap; bits != 0; bits &= bits - 1) {
+                int bit = bits & -bits;
+                if ((y.bitmap & bit) == 0) {
+                    int i = 2 * x.index(bit);
+                    putEntries(x.array[i], x.array[i + 1], removed);
+                } else if ((x.bitmap & bit) == 0) {
+                    int j = 2 * y.index(bit);
+                    putEntries(y.array[j], y.array[j + 1], added);
+                } else {
+                    int i = 2 * x.index(bit);
+                    int j = 2 * y.index(bit);
+                    Object xk = x.array[i];
+                    Object xv = x.array[i + 1];
+                    Object yk = y.array[j];
+                    Object yv = y.array[j + 1];
+                    if (xk != null && xk.equals(yk)) {
+                        if (!Objects.equals(xv, yv)) {
+                            putEntry(changed, xk, yv);
+                        }
+                    } else if (xk == null && yk == null) {
+                        diffNodes(shift + SHIFT, (Node) xv, (Node) yv, removed, added, changed);
+                    } else {
+                        diffByLookup(shift + SHIFT, asNode(xk, xv, shift + SHIFT), asNode(yk, yv, shift + SHIFT),
+                            removed, added, changed);
+                    }
+                }
+            }
         }
         
-        public boolean containsKey(K key) {
-            return get(key) != null;
+        /**
+         * 形の異なるノード同士の差分（互いに検索して求める）
+         */
+        private static <K, V> void diffByLookup(int shift, Node a, Node b, TransientHashMap<K, V> removed,
+                                                TransientHashMap<K, V> added, TransientHashMap<K, V> changed) {
+            a.forEach((k, v) -> {
+                Object other = b.find(shift, hash(k), k);
+                if (other == null) {
+                    putEntry(removed, k, v);
+                } else if (!Objects.equals(v, other)) {
+                    putEntry(changed, k, other);
+                }
+            });
+            b.forEach((k, v) -> {
+                if (a.find(shift, hash(k), k) == null) {
+                    putEntry(added, k, v);
+                }
+            });
         }
         
-        public PersistentHashMap<K, V> put(K key, V value) {
-            int hash = key.hashCode();
-            boolean existed = containsKey(key);
-            
-            Node<K, V> newRoot = root == null 
-                ? new LeafNode<>(hash, key, value)
-                : root.insert(0, hash, key, value);
+        private static Node asNode(Object key, Object value, int shift) {
+            if (key == null) {
+                return (Node) value;
+            }
+            return new BitmapIndexedNode(null, bitpos(hash(key), shift), new Object[] {key, value});
+        }
+        
+        private static <K, V> void putEntries(Object key, Object value, TransientHashMap<K, V> target) {
+            if (key == null) {
+                ((Node) value).forEach((k, v) -> putEntry(target, k, v));
+            } else {
+                putEntry(target, key, value);
+            }
+        }
+        
+        @SuppressWarnings("unchecked")
+        private static <K, V> void putEntry(TransientHashMap<K, V> target, Object key, Object value) {
+            target.put((K) key, (V) value);
+        }
+    }
+    
+    /**
+     * 永続的ベクター（32分木＋末尾バッファ）
+     *
+     * 要素は32個ずつの葉に入れ、インデックスを5ビットずつ区切って32分木をたどる。
+     * get/with は O(log32 n)（100万要素でも4段）で、with は根から葉までの経路だけを複製する。
+     * 末尾の最大32要素は木の外の配列（tail）に置くため、append は通常 tail の複製だけで済み、
+     * 32回に1回だけ満杯の tail を葉として木に押し込む（償却 O(1)）。
+     * 大量の追加は {@link #asTransient()} でまとめて行うと、tail や経路の複製も省ける。
+     *
+     * slice は木の前後を切り詰めて部分木を共有する。切り出した先頭の葉と tail には、
+     * 範囲外の要素が最大31個ずつ残る（参照は保持されるが、見えることはない）。
+     */
+    public static final class PersistentVector<E> extends AbstractList<E> implements RandomAccess {
+        private static final int SHIFT = 5;
+        private static final int WIDTH = 1 << SHIFT;
+        private static final int MASK = WIDTH - 1;
+        
+        private static final VectorNode EMPTY_NODE = new VectorNode(null, new Object[WIDTH]);
+        private static final PersistentVector<?> EMPTY =
+            new PersistentVector<>(0, 0, SHIFT, EMPTY_NODE, new Object[0]);
+        
+        /**
+         * 内部ノード（子ノードの配列）または葉（要素の配列）
+         */
+        private static final class VectorNode {
+            final Object edit; // 作成したトランジェントの印（null なら常に複製する）
+            final Object[] array;
             
-            return new PersistentHashMap<>(newRoot, existed ? size : size + 1);
+            VectorNode(Object edit, Object[] array) {
+                this.edit = edit;
+                this.array = array;
+            }
         }
         
-        public PersistentHashMap<K, V> remove(K key) {
-            if (root == null) return this;
+        // 木の中の位置は [offset, end)。slice で先頭を切り落としても位置は振り直さない
+        private final int offset;
+        private final int end;
+        private final int shift; // 根の階層（根が1段なら5）
+        private final VectorNode root;
+        private final Object[] tail; // 位置 [tailOffset(end), end) の要素
+        
+        private PersistentVector(int offset, int end, int shift, VectorNode root, Object[] tail) {
+            this.offset = offset;
+            this.end = end;
+            this.shift = shift;
+            this.root = root;
+            this.tail = tail;
+        }
+        
+        @SuppressWarnings("unchecked")
+        public static <E> PersistentVector<E> empty() {
+            return (PersistentVector<E>) EMPTY;
+        }
+        
+        @SafeVarargs
+        public static <E> PersistentVector<E> of(E... elements) {
+            // 配列を外へ渡さずに読むだけにする（Arrays.asList に渡すと -Xlint:varargs の警告になる）
+            TransientVector<E> builder = PersistentVector.<E>empty().asTransient();
+            for (E element : elements) {
+                builder.add(element);
+            }
+            return builder.persistent();
+        }
+        
+        public static <E> PersistentVector<E> copyOf(Iterable<? extends E> elements) {
+            return PersistentVector.<E>empty().appendAll(elements);
+        }
+        
+        @Override
+        @SuppressWarnings("unchecked")
+        public E get(int index) {
+            Objects.checkIndex(index, size());
+            int i = offset + index;
+            return (E) arrayFor(i)[i & MASK];
+        }
+        
+        @Override
+        public int size() {
+            return end - offset;
+        }
+        
+        // 変更操作は例外をスロー
+        @Override
+        public E set(int index, E element) {
+            throw new UnsupportedOperationException("PersistentVector cannot be modified");
+        }
+        
+        /**
+         * 末尾に追加（償却 O(1)）
+         */
+        public PersistentVector<E> append(E element) {
+            int tailOffset = tailOffset(end);
+            if (end - tailOffset < WIDTH) {
+                Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+                newTail[tail.length] = element;
+                return new PersistentVector<>(offset, end + 1, shift, root, newTail);
+            }
+            // tail が満杯: 葉として木に押し込み、新しい tail を始める
+            int newShift = shift;
+            VectorNode newRoot = root;
+            while (needsNewLevel(tailOffset, newShift)) {
+                Object[] array = new Object[WIDTH];
+                array[0] = newRoot;
+                newRoot = new VectorNode(null, array);
+                newShift += SHIFT;
+            }
+            newRoot = pushTail(null, newShift, newRoot, tailOffset, new VectorNode(null, tail));
+            return new PersistentVector<>(offset, end + 1, newShift, newRoot, new Object[] {element});
+        }
+        
+        /**
+         * 複数の要素を末尾に追加（トランジェントで一括して行う）
+         */
+        public PersistentVector<E> appendAll(Iterable<? extends E> elements) {
+            TransientVector<E> builder = asTransient();
+            for (E element : elements) {
+                builder.add(element);
+            }
+            return builder.persistent();
+        }
+        
+        /**
+         * index の要素を置き換えたベクター（O(log32 n)、経路上のノードだけを複製）
+         */
+        public PersistentVector<E> with(int index, E element) {
+            Objects.checkIndex(index, size());
+            int i = offset + index;
+            if (i >= tailOffset(end)) {
+                Object[] newTail = tail.clone();
+                newTail[i & MASK] = element;
+                return new PersistentVector<>(offset, end, shift, root, newTail);
+            }
+            return new PersistentVector<>(offset, end, shift, assoc(null, shift, root, i, element), tail);
+        }
+        
+        /**
+         * [fromIndex, toIndex) の部分（要素を複製せず、木の経路だけを作り直す）
+         * subList と異なり、元のベクターから独立した永続的ベクターを返す
+         */
+        public PersistentVector<E> slice(int fromIndex, int toIndex) {
+            Objects.checkFromToIndex(fromIndex, toIndex, size());
+            if (fromIndex == toIndex) {
+                return empty();
+            }
+            if (fromIndex == 0 && toIndex == size()) {
+                return this;
+            }
+            int newOffset = offset + fromIndex;
+            int newEnd = offset + toIndex;
+            int newTailOffset = tailOffset(newEnd);
             
-            boolean existed = containsKey(key);
-            if (!existed) return this;
+            Object[] newTail = newTailOffset == tailOffset(end)
+                ? Arrays.copyOf(tail, newEnd - newTailOffset)
+                : Arrays.copyOf(arrayFor(newTailOffset), newEnd - newTailOffset);
+            if (newOffset >= newTailOffset) {
+                // 範囲がすべて tail に収まる
+                return new PersistentVector<>(newOffset, newEnd, SHIFT, EMPTY_NODE, newTail);
+            }
             
-            Node<K, V> newRoot = root.remove(0, key.hashCode(), key);
-            return new PersistentHashMap<>(newRoot, size - 1);
+            // 後ろを切り詰め、使わなくなった上の階層を外す
+            VectorNode newRoot = root;
+            int newShift = shift;
+            if (newTailOffset != tailOffset(end)) {
+                newRoot = trimRight(shift, root, newTailOffset - 1);
+                while (newShift > SHIFT && ((newTailOffset - 1) >>> newShift) == 0) { // 葉がすべて先頭の子の下にある
+                    newRoot = (VectorNode) newRoot.array[0];
+                    newShift -= SHIFT;
+                }
+            }
+            // 前を切り落とす（範囲より前の部分木を手放す）
+            if (newOffset >= WIDTH) {
+                newRoot = trimLeft(newShift, newRoot, newOffset);
+            }
+            return new PersistentVector<>(newOffset, newEnd, newShift, newRoot, newTail);
         }
         
-        public int size() {
-            return size;
+        /**
+         * 変更可能なビルダーを作成（このベクター自体は変わらない）
+         */
+        public TransientVector<E> asTransient() {
+            return new TransientVector<>(this);
         }
         
-        public boolean isEmpty() {
-            return size == 0;
+        /**
+         * 葉の配列を直接たどる Spliterator
+         * 分割は葉の境界で行うため、parallelStream() でもスレッドごとに葉を連続して読める
+         */
+        @Override
+        public Spliterator<E> spliterator() {
+            return new VectorSpliterator<>(this, offset, end);
         }
         
         @Override
-        public String toString() {
-            return "{size=" + size + "}";
+        public Iterator<E> iterator() {
+            return Spliterators.iterator(spliterator());
+        }
+        
+        @Override
+        public void forEach(Consumer<? super E> action) {
+            spliterator().forEachRemaining(action);
+        }
+        
+        /**
+         * 木の段数（根から葉まで、葉を含む。tail は含まない）
+         */
+        public int depth() {
+            return shift / SHIFT + 1;
+        }
+        
+        // --- 木の操作 ---
+        
+        private static int tailOffset(int end) {
+            return end < WIDTH ? 0 : ((end - 1) >>> SHIFT) << SHIFT;
+        }
+        
+        /**
+         * 位置 leafStart から始まる葉を入れるには、根の上にもう1段必要か
+         */
+        private static boolean needsNewLevel(int leafStart, int shift) {
+            return shift + SHIFT < Integer.SIZE && (leafStart >>> (shift + SHIFT)) != 0;
+        }
+        
+        private Object[] arrayFor(int i) {
+            if (i >= tailOffset(end)) {
+                return tail;
+            }
+            return leafFor(root, shift, i);
+        }
+        
+        private static Object[] leafFor(VectorNode root, int shift, int i) {
+            VectorNode node = root;
+            for (int level = shift; level > 0; level -= SHIFT) {
+                node = (VectorNode) node.array[(i >>> level) & MASK];
+            }
+            return node.array;
+        }
+        
+        private static VectorNode editable(Object edit, VectorNode node) {
+            if (edit != null && node.edit == edit) {
+                return node;
+            }
+            return new VectorNode(edit, node.array.clone());
+        }
+        
+        private static VectorNode pushTail(Object edit, int level, VectorNode parent, int leafStart,
+                                           VectorNode leaf) {
+            VectorNode node = editable(edit, parent);
+            int sub = (leafStart >>> level) & MASK;
+            if (level == SHIFT) {
+                node.array[sub] = leaf;
+            } else {
+                // 子がなければ空のノードから作る（slice 後の木では leafStart が部分木の先頭とは限らない）
+                VectorNode child = (VectorNode) node.array[sub];
+                node.array[sub] = pushTail(edit, level - SHIFT, child != null ? child : EMPTY_NODE, leafStart, leaf);
+            }
+            return node;
+        }
+        
+        private static VectorNode assoc(Object edit, int level, VectorNode node, int i, Object element) {
+            VectorNode copy = editable(edit, node);
+            if (level == 0) {
+                copy.array[i & MASK] = element;
+            } else {
+                int sub = (i >>> level) & MASK;
+                copy.array[sub] = assoc(edit, level - SHIFT, (VectorNode) node.array[sub], i, element);
+            }
+            return copy;
+        }
+        
+        /**
+         * 位置 last までの葉だけを残す（それより後ろの子は null にする）
+         */
+        private static VectorNode trimRight(int level, VectorNode node, int last) {
+            int sub = (last >>> level) & MASK;
+            Object[] array = new Object[WIDTH];
+            System.arraycopy(node.array, 0, array, 0, sub);
+            array[sub] = level == SHIFT
+                ? node.array[sub]
+                : trimRight(level - SHIFT, (VectorNode) node.array[sub], last);
+            return new VectorNode(null, array);
+        }
+        
+        /**
+         * 位置 first を含む葉より前の子を null にする
+         */
+        private static VectorNode trimLeft(int level, VectorNode node, int first) {
+            int sub = (first >>> level) & MASK;
+            Object[] array = new Object[WIDTH];
+            System.arraycopy(node.array, sub, array, sub, WIDTH - sub);
+            if (level > SHIFT) {
+                array[sub] = trimLeft(level - SHIFT, (VectorNode) node.array[sub], first);
+            }
+            return new VectorNode(null, array);
+        }
+        
+        /**
+         * 一括追加・更新用の変更可能なベクター
+         * tail を32要素の配列のまま使い、自分が作ったノードだけをその場で書き換える。
+         * persistent() の後は使えない。スレッドセーフではない
+         */
+        public static final class TransientVector<E> {
+            private Object edit = new Object(); // このトランジェントが作ったノードの印
+            private final int offset;
+            private int end;
+            private int shift;
+            private VectorNode root;
+            private Object[] tail;
+            
+            private TransientVector(PersistentVector<E> vector) {
+                this.offset = vector.offset;
+                this.end = vector.end;
+                this.shift = vector.shift;
+                this.root = editable(edit, vector.root);
+                this.tail = Arrays.copyOf(vector.tail, WIDTH);
+            }
+            
+            @SuppressWarnings("unchecked")
+            public E get(int index) {
+                ensureEditable();
+                Objects.checkIndex(index, end - offset);
+                int i = offset + index;
+                Object[] array = i >= tailOffset(end) ? tail : leafFor(root, shift, i);
+                return (E) array[i & MASK];
+            }
+            
+            public TransientVector<E> add(E element) {
+                ensureEditable();
+                int tailOffset = tailOffset(end);
+                if (end - tailOffset < WIDTH) {
+                    tail[end & MASK] = element;
+                    end++;
+                    return this;
+                }
+                VectorNode leaf = new VectorNode(edit, tail);
+                tail = new Object[WIDTH];
+                tail[0] = element;
+                while (needsNewLevel(tailOffset, shift)) {
+                    Object[] array = new Object[WIDTH];
+                    array[0] = root;
+                    root = new VectorNode(edit, array);
+                    shift += SHIFT;
+                }
+                root = pushTail(edit, shift, root, tailOffset, leaf);
+                end++;
+                return this;
+            }
+            
+            public TransientVector<E> set(int index, E element) {
+                ensureEditable();
+                Objects.checkIndex(index, end - offset);
+                int i = offset + index;
+                if (i >= tailOffset(end)) {
+                    tail[i & MASK] = element;
+                } else {
+                    root = assoc(edit, shift, root, i, element);
+                }
+                return this;
+            }
+            
+            public int size() {
+                ensureEditable();
+                return end - offset;
+            }
+            
+            /**
+             * 不変のベクターに変換
+             * 印を無効にするため、以後このトランジェントのノードが書き換えられることはない
+             */
+            public PersistentVector<E> persistent() {
+                ensureEditable();
+                edit = null;
+                if (end == offset) {
+                    return empty();
+                }
+                Object[] trimmedTail = Arrays.copyOf(tail, end - tailOffset(end));
+                return new PersistentVector<>(offset, end, shift, root, trimmedTail);
+            }
+            
+            private void ensureEditable() {
+                if (edit == null) {
+                    throw new IllegalStateException("Transient used after persistent() call");
+                }
+            }
+        }
+        
+        private static final class VectorSpliterator<E> implements Spliterator<E> {
+            private final PersistentVector<E> vector;
+            private int index; // 木の中の位置
+            private final int fence;
+            
+            VectorSpliterator(PersistentVector<E> vector, int origin, int fence) {
+                this.vector = vector;
+                this.index = origin;
+                this.fence = fence;
+            }
+            
+            @Override
+            @SuppressWarnings("unchecked")
+            public boolean tryAdvance(Consumer<? super E> action) {
+                if (index >= fence) {
+                    return false;
+                }
+                action.accept((E) vector.arrayFor(index)[index & MASK]);
+                index++;
+                return true;
+            }
+            
+            @Override
+            @SuppressWarnings("unchecked")
+            public void forEachRemaining(Consumer<? super E> action) {
+                int i = index;
+                index = fence;
+                while (i < fence) {
+                    Object[] leaf = vector.arrayFor(i); // 葉ごとに1回だけ木をたどる
+                    int leafEnd = Math.min(fence, (i | MASK) + 1);
+                    for (; i < leafEnd; i++) {
+                        action.accept((E) leaf[i & MASK]);
+                    }
+                }
+            }
+            
+            @Override
+            public Spliterator<E> trySplit() {
+                int mid = ((index + fence) >>> 1) & ~MASK; // 葉の境界で分ける
+                if (mid <= index) {
+                    return null;
+                }
+                Spliterator<E> prefix = new VectorSpliterator<>(vector, index, mid);
+                index = mid;
+                return prefix;
+            }
+            
+            @Override
+            public long estimateSize() {
+                return fence - index;
+            }
+            
+            @Override
+            public int characteristics() {
+                return ORDERED | SIZED | SUBSIZED | IMMUTABLE;
+            }
         }
     }
     
     /**
      * カスタム不変ArrayList
+     * with/append は配列全体を複製する（O(n)）。要素数が多く更新が続く場合は PersistentVector を使う
      */
     public static final class ImmutableArrayList<E> extends AbstractList<E> 
                                             implements RandomAccess {
@@ -560,13 +1524,15 @@ public class PersistentDataStructuresDemo {
      * パフォーマンステスト
      */
     public static class PerformanceComparison {
+        private static final int SNAPSHOT_RUNS = 10;
+        private static volatile Object sink;
         
         public static void compareDataStructures() {
             System.out.println("=== Data Structure Performance Comparison ===");
             
             int iterations = 10_000;
             
-            // ArrayList vs ImmutableArrayList
+            // ArrayList vs ImmutableArrayList vs PersistentVector
             compareArrayLists(iterations);
             
             // HashMap vs CopyOnWriteMap
@@ -574,10 +1540,16 @@ public class PersistentDataStructuresDemo {
             
             // LinkedList vs PersistentList
             compareLists(iterations);
+            
+            // CopyOnWriteMap vs PersistentHashMap（設定スナップショット）
+            compareSnapshotMaps();
+            
+            // ArrayList vs PersistentVector（イベント履歴）
+            compareEventHistory();
         }
         
         private static void compareArrayLists(int iterations) {
-            System.out.println("\n--- ArrayList vs ImmutableArrayList ---");
+            System.out.println("\n--- ArrayList vs ImmutableArrayList vs PersistentVector ---");
             
             // ArrayList
             long mutableTime = measureTime(() -> {
@@ -597,8 +1569,18 @@ public class PersistentDataStructuresDemo {
                 return list;
             });
             
+            // PersistentVector（追加ごとに新しいベクター）
+            long vectorTime = measureTime(() -> {
+                PersistentVector<Integer> vector = PersistentVector.empty();
+                for (int i = 0; i < iterations; i++) {
+                    vector = vector.append(i);
+                }
+                return vector;
+            });
+            
             System.out.printf("ArrayList:          %d ms%n", mutableTime);
             System.out.printf("ImmutableArrayList: %d ms%n", immutableTime);
+            System.out.printf("PersistentVector:   %d ms%n", vectorTime);
             System.out.printf("Ratio: %.2fx%n", (double) immutableTime / mutableTime);
         }
         
@@ -654,6 +1636,205 @@ public class PersistentDataStructuresDemo {
             System.out.printf("Ratio: %.2fx%n", (double) persistentListTime / linkedListTime);
         }
         
+        private static void compareSnapshotMaps() {
+            System.out.println("\n--- CopyOnWriteMap vs PersistentHashMap (config snapshots) ---");
+            
+            int entries = 10_000;
+            int updates = 1_000;
+            Map<Integer, String> initial = new HashMap<>();
+            for (int i = 0; i < entries; i++) {
+                initial.put(i, "value" + i);
+            }
+            
+            CopyOnWriteMap<Integer, String> cowConfig = new CopyOnWriteMap<>();
+            cowConfig.putAll(initial);
+            PersistentHashMap<Integer, String> baseConfig = PersistentHashMap.fromMap(initial);
+            
+            // 更新のたびに新しいスナップショットを公開する（読み手は常に一貫した全体を見る）
+            Supplier<Object> copyOnWrite = () -> {
+                for (int i = 0; i < updates; i++) {
+                    cowConfig.put(i * 7 % entries, "updated" + i); // 毎回 entries 件を複製
+                }
+                return cowConfig;
+            };
+            Supplier<Object> persistent = () -> {
+                PersistentHashMap<Integer, String> config = baseConfig;
+                for (int i = 0; i < updates; i++) {
+                    config = config.put(i * 7 % entries, "updated" + i); // 経路上のノードだけを複製
+                }
+                return config;
+            };
+            // 途中のスナップショットが不要な一括更新はトランジェントで行う
+            Supplier<Object> transientBatch = () -> {
+                PersistentHashMap.TransientHashMap<Integer, String> builder = baseConfig.asTransient();
+                for (int i = 0; i < updates; i++) {
+                    builder.put(i * 7 % entries, "updated" + i);
+                }
+                return builder.persistent();
+            };
+            
+            // JIT のウォームアップ（このモジュールには JMH がないため手動で計測する）
+            for (int i = 0; i < 5; i++) {
+                copyOnWrite.get();
+                persistent.get();
+                transientBatch.get();
+            }
+            // 1回の実行は数ミリ秒未満なので、ナノ秒で複数回測って最速の回を1操作あたりに換算する
+            System.out.printf("%d entries, %d updates (each publishes a snapshot), best of %d runs%n",
+                entries, updates, SNAPSHOT_RUNS);
+            System.out.printf("CopyOnWriteMap:              %,10.1f ns/update%n",
+                nanosPerOperation(copyOnWrite, updates));
+            System.out.printf("PersistentHashMap:           %,10.1f ns/update%n",
+                nanosPerOperation(persistent, updates));
+            System.out.printf("PersistentHashMap transient: %,10.1f ns/update%n",
+                nanosPerOperation(transientBatch, updates));
+            
+            // 読み込みと、同じ元から派生したスナップショット同士の差分
+            PersistentHashMap<Integer, String> before = baseConfig;
+            PersistentHashMap<Integer, String> after = before;
+            for (int i = 0; i < 10; i++) {
+                after = after.put(i * 997 % entries, "changed" + i);
+            }
+            Map<Integer, String> hashMap = new HashMap<>(initial);
+            PersistentHashMap<Integer, String> readMap = before;
+            PersistentHashMap<Integer, String> changedMap = after;
+            Supplier<Object> hashMapReads = () -> readAll(hashMap::get, entries);
+            Supplier<Object> persistentReads = () -> readAll(readMap::get, entries);
+            Supplier<Object> diffs = () -> {
+                int changes = 0;
+                for (int i = 0; i < updates; i++) {
+                    changes += readMap.diff(changedMap).changed.size();
+                }
+                return changes;
+            };
+            for (int i = 0; i < 5; i++) {
+                hashMapReads.get();
+                persistentReads.get();
+                diffs.get();
+            }
+            System.out.printf("HashMap reads:               %,10.1f ns/get%n",
+                nanosPerOperation(hashMapReads, 100 * entries));
+            System.out.printf("PersistentHashMap reads:     %,10.1f ns/get%n",
+                nanosPerOperation(persistentReads, 100 * entries));
+            System.out.printf("diff of snapshots:           %,10.1f ns/diff (%d changed keys)%n",
+                nanosPerOperation(diffs, updates), before.diff(after).changed.size());
+        }
+        
+        /**
+         * task を SNAPSHOT_RUNS 回実行し、最速の回の経過時間を operations で割った値（ナノ秒）
+         * 最速の回を使うのは、GC や他プロセスによる割り込みを含む回を除くため
+         */
+        private static double nanosPerOperation(Supplier<Object> task, int operations) {
+            long best = Long.MAX_VALUE;
+            for (int run = 0; run < SNAPSHOT_RUNS; run++) {
+                long start = System.nanoTime();
+                sink = task.get(); // 結果を捨てずに JIT による除去を防ぐ
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            return (double) best / operations;
+        }
+        
+        private static Object readAll(Function<Integer, String> lookup, int entries) {
+            int found = 0;
+            for (int round = 0; round < 100; round++) {
+                for (int i = 0; i < entries; i++) {
+                    if (lookup.apply(i) != null) {
+                        found++;
+                    }
+                }
+            }
+            return found;
+        }
+        
+        private static void compareEventHistory() {
+            System.out.println("\n--- ArrayList vs PersistentVector (event history) ---");
+            
+            int events = 1_000_000;
+            
+            // 追加のたびに新しい版を公開する（過去の版はそのまま読める）
+            Supplier<Object> arrayListAppend = () -> {
+                List<Integer> history = new ArrayList<>();
+                for (int i = 0; i < events; i++) {
+                    history.add(i);
+                }
+                return history;
+            };
+            Supplier<Object> vectorAppend = () -> {
+                PersistentVector<Integer> history = PersistentVector.empty();
+                for (int i = 0; i < events; i++) {
+                    history = history.append(i);
+                }
+                return history;
+            };
+            Supplier<Object> transientAppend = () -> {
+                PersistentVector.TransientVector<Integer> builder = PersistentVector.<Integer>empty().asTransient();
+                for (int i = 0; i < events; i++) {
+                    builder.add(i);
+                }
+                return builder.persistent();
+            };
+            
+            List<Integer> arrayList = new ArrayList<>();
+            for (int i = 0; i < events; i++) {
+                arrayList.add(i);
+            }
+            PersistentVector<Integer> vector = PersistentVector.copyOf(arrayList);
+            int[] indexes = ThreadLocalRandom.current().ints(events, 0, events).toArray();
+            Supplier<Object> arrayListGet = () -> sumAt(arrayList, indexes);
+            Supplier<Object> vectorGet = () -> sumAt(vector, indexes);
+            Supplier<Object> vectorWith = () -> {
+                PersistentVector<Integer> updated = vector;
+                for (int i = 0; i < 100_000; i++) {
+                    updated = updated.with(indexes[i], -1);
+                }
+                return updated;
+            };
+            Supplier<Object> vectorSlice = () -> {
+                PersistentVector<Integer> window = vector;
+                for (int i = 0; i < 10_000; i++) {
+                    window = vector.slice(indexes[i] / 2, events / 2 + indexes[i] / 2);
+                }
+                return window;
+            };
+            Supplier<Object> sequentialSum = () -> vector.stream().mapToLong(Integer::longValue).sum();
+            Supplier<Object> parallelSum = () -> vector.parallelStream().mapToLong(Integer::longValue).sum();
+            
+            // JIT のウォームアップ
+            for (int i = 0; i < 3; i++) {
+                arrayListAppend.get();
+                vectorAppend.get();
+                transientAppend.get();
+                arrayListGet.get();
+                vectorGet.get();
+                vectorWith.get();
+                vectorSlice.get();
+                sequentialSum.get();
+                parallelSum.get();
+            }
+            
+            System.out.printf("%d events (ImmutableArrayList/PersistentList.append would copy all of them per event)%n",
+                events);
+            System.out.printf("ArrayList append:                  %d ms%n", measureTime(arrayListAppend));
+            System.out.printf("PersistentVector append:           %d ms%n", measureTime(vectorAppend));
+            System.out.printf("PersistentVector transient append: %d ms%n", measureTime(transientAppend));
+            System.out.printf("ArrayList random get:              %d ms%n", measureTime(arrayListGet));
+            System.out.printf("PersistentVector random get:       %d ms (depth %d)%n",
+                measureTime(vectorGet), vector.depth());
+            System.out.printf("PersistentVector with x100000:     %d ms%n", measureTime(vectorWith));
+            System.out.printf("PersistentVector slice x10000:     %d ms%n", measureTime(vectorSlice));
+            System.out.printf("PersistentVector stream sum:       %d ms%n", measureTime(sequentialSum));
+            System.out.printf("PersistentVector parallel sum:     %d ms (%d cores)%n",
+                measureTime(parallelSum), Runtime.getRuntime().availableProcessors());
+        }
+        
+        private static long sumAt(List<Integer> list, int[] indexes) {
+            long sum = 0;
+            for (int index : indexes) {
+                sum += list.get(index);
+            }
+            return sum;
+        }
+        
         private static long measureTime(Supplier<Object> task) {
             long start = System.currentTimeMillis();
             task.get();
@@ -679,6 +1860,9 @@ public class PersistentDataStructuresDemo {
         // 永続的リストのデモ
         demonstratePersistentList();
         
+        // 永続的ベクターのデモ
+        demonstratePersistentVector();
+        
         // 永続的ハッシュマップのデモ
         demonstratePersistentHashMap();
         
@@ -698,6 +1882,7 @@ public class PersistentDataStructuresDemo {
         System.out.println("\n⚡ Use Cases:");
         System.out.println("• Copy-on-Write: Read-heavy concurrent scenarios");
         System.out.println("• Persistent Lists: Functional programming, undo operations");
+        System.out.println("• Persistent Vectors: Event histories, indexed access to versions");
         System.out.println("• Persistent Maps: Configuration management, versioning");
         System.out.println("• Immutable Arrays: Mathematical computations, caching");
         System.out.println("• All: When thread safety and immutability are priorities");
@@ -769,6 +1954,39 @@ public class PersistentDataStructuresDemo {
         System.out.println("Doubled (as ArrayList): " + doubled);
     }
     
+    private static void demonstratePersistentVector() {
+        System.out.println("\n=== Persistent Vector Demo ===");
+        
+        // 末尾への追加（tail が満杯になるまでは tail だけを複製）
+        PersistentVector<String> v1 = PersistentVector.of("created", "paid");
+        PersistentVector<String> v2 = v1.append("shipped");
+        System.out.println("v1: " + v1);
+        System.out.println("v2: " + v2);
+        
+        // 要素の置き換え（経路上のノードだけを複製）
+        PersistentVector<String> v3 = v2.with(1, "refunded");
+        System.out.println("v3 (index 1 replaced): " + v3);
+        System.out.println("v2 unchanged: " + v2);
+        
+        // イベント履歴の一括構築
+        PersistentVector.TransientVector<Integer> builder = PersistentVector.<Integer>empty().asTransient();
+        for (int i = 0; i < 100_000; i++) {
+            builder.add(i);
+        }
+        PersistentVector<Integer> history = builder.persistent();
+        System.out.println("History size: " + history.size() + ", depth: " + history.depth()
+            + ", get(54321): " + history.get(54321));
+        
+        // 部分の切り出し（要素は複製しない）
+        PersistentVector<Integer> window = history.slice(99_990, 100_000);
+        System.out.println("Last 10 events: " + window);
+        System.out.println("Window + 1 event: " + window.append(100_000).size() + " events");
+        
+        // 葉の境界で分割する Spliterator による並列処理
+        long evenCount = history.parallelStream().filter(n -> n % 2 == 0).count();
+        System.out.println("Even events (parallel): " + evenCount);
+    }
+    
     private static void demonstratePersistentHashMap() {
         System.out.println("\n=== Persistent Hash Map Demo ===");
         
@@ -803,6 +2021,36 @@ public class PersistentDataStructuresDemo {
         }
         System.out.println("Large map size: " + largeMap.size());
         System.out.println("Random access test: " + largeMap.get(500));
+        
+        // トランジェントによる一括構築（自分が作ったノードはその場で書き換える）
+        PersistentHashMap.TransientHashMap<Integer, String> builder = largeMap.asTransient();
+        for (int i = 1000; i < 2000; i++) {
+            builder.put(i, "value" + i);
+        }
+        PersistentHashMap<Integer, String> batched = builder.persistent();
+        System.out.println("Batched map size: " + batched.size() + " (original: " + largeMap.size() + ")");
+        
+        // 設定のスナップショット: 共有している部分木を飛ばしてマージ・差分を取る
+        PersistentHashMap<String, Integer> defaults = PersistentHashMap.fromMap(
+            Map.of("timeout", 30, "retries", 3, "poolSize", 10));
+        PersistentHashMap<String, Integer> overrides = PersistentHashMap.<String, Integer>empty()
+            .put("timeout", 60)
+            .put("debug", 1);
+        PersistentHashMap<String, Integer> effective = defaults.putAll(overrides);
+        System.out.println("Effective config: " + new TreeMap<>(effective.toMap()));
+        
+        PersistentHashMap<String, Integer> summed = defaults.merge(overrides, Integer::sum);
+        System.out.println("Merged with sum: timeout=" + summed.get("timeout"));
+        
+        PersistentHashMap<String, Integer> next = effective.remove("debug").put("retries", 5).put("region", 1);
+        System.out.println("Diff: " + effective.diff(next));
+        
+        // ハッシュ値が衝突するキー（"Aa" と "BB" の hashCode は同じ）
+        PersistentHashMap<String, Integer> collided = PersistentHashMap.<String, Integer>empty()
+            .put("Aa", 1)
+            .put("BB", 2);
+        System.out.println("Collision: Aa=" + collided.get("Aa") + ", BB=" + collided.get("BB")
+            + ", without Aa: " + collided.remove("Aa").toMap());
     }
     
     private static void demonstrateImmutableArrayList() {
@@ -0,0 +1,287 @@
+package com.example.immutability;
+
+import com.example.immutability.PersistentDataStructuresDemo.PersistentHashMap;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.BiFunction;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PersistentHashMap（HAMT）の差分テスト
+ *
+ * 同じ乱数列の操作を java.util.HashMap にも適用し、戻り値と中身が常に一致することを確かめる。
+ * hashCode を少数の値に固定したキーで、32ビットのハッシュ値が完全に一致する衝突ノードと、
+ * その削除による解消を多く通す。
+ * 派生したスナップショットが変わらないこと（永続性）、トランジェントが元のマップを
+ * 書き換えないこと、共有部分木を持つスナップショット同士の diff/merge も確かめる。
+ */
+class PersistentHashMapDifferentialTest {
+    private static final int OPERATIONS = 20_000;
+    private static final long[] SEEDS = {1L, 42L, 20240601L};
+    
+    /**
+     * hashCode を指定できるキー（id が同じなら hash も同じになるように作る）
+     */
+    record Key(int id, int hash) {
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+        
+        @Override
+        public String toString() {
+            return "Key(" + id + ", #" + Integer.toHexString(hash) + ")";
+        }
+    }
+    
+    /**
+     * キーの作り方：ハッシュ値の散らばった通常のキー、ハッシュ値が完全に一致するキー、上位ビットだけが異なるキー
+     */
+    private static final Map<String, IntFunction<Key>> KEY_SPACES = Map.of(
+        "distinct", id -> new Key(id, id * 0x9E3779B9),
+        "full-collisions", id -> new Key(id, id / 16), // 16個ずつ同じハッシュ値
+        "prefix-collisions", id -> new Key(id, (id % 8) << 29 | (id / 8 % 4) << 20 | 0x15)); // 途中の階層まで同じ経路
+    
+    @Test
+    @DisplayName("PersistentHashMap は HashMap と同じ結果を返し、スナップショットは変わらない")
+    void persistentHashMapMatchesHashMap() {
+        for (long seed : SEEDS) {
+            for (Map.Entry<String, IntFunction<Key>> space : KEY_SPACES.entrySet()) {
+                for (int keyRange : new int[] {64, 4_096}) {
+                    runRandomOperations(seed, space.getValue(), keyRange,
+                        "seed=" + seed + ", keys=" + space.getKey() + ", keyRange=" + keyRange);
+                }
+            }
+        }
+    }
+    
+    private static void runRandomOperations(long seed, IntFunction<Key> keys, int keyRange, String context) {
+        SplittableRandom random = new SplittableRandom(seed);
+        PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+        Map<Key, Integer> expected = new HashMap<>();
+        List<PersistentHashMap<Key, Integer>> snapshots = new ArrayList<>();
+        List<Map<Key, Integer>> expectedSnapshots = new ArrayList<>();
+        
+        for (int op = 0; op < OPERATIONS; op++) {
+            Key key = keys.apply(random.nextInt(keyRange));
+            int action = random.nextInt(64);
+            if (action == 0) {
+                map = applyTransientBatch(map, expected, keys, keyRange, random, context);
+                continue;
+            }
+            switch (action % 8) {
+                case 0, 1, 2 -> {
+                    int value = random.nextInt(1_000);
+                    PersistentHashMap<Key, Integer> updated = map.put(key, value);
+                    Integer previous = expected.put(key, value);
+                    assertEquals(previous == null ? 1 : 0, updated.size() - map.size(), context);
+                    map = updated;
+                }
+                case 3, 4 -> {
+                    PersistentHashMap<Key, Integer> updated = map.remove(key);
+                    boolean removed = expected.remove(key) != null;
+                    assertEquals(removed, updated != map, context);
+                    map = updated;
+                }
+                case 5 -> assertEquals(expected.containsKey(key), map.containsKey(key), context);
+                default -> assertEquals(expected.get(key), map.get(key), context);
+            }
+            assertEquals(expected.size(), map.size(), context);
+            if (op % 1_000 == 0) {
+                snapshots.add(map);
+                expectedSnapshots.add(new HashMap<>(expected));
+                assertContents(expected, map, context);
+            }
+        }
+        assertContents(expected, map, context);
+        // 後の更新は経路を複製するだけなので、以前のスナップショットは変わっていない
+        for (int i = 0; i < snapshots.size(); i++) {
+            assertContents(expectedSnapshots.get(i), snapshots.get(i), context + ", snapshot=" + i);
+        }
+    }
+    
+    /**
+     * トランジェントで続けて更新し、元のマップが書き換わっていないことを確かめる
+     * 書き換えが起きるのは更新したキーの経路上のノードなので、そのキーの値と件数を比べる
+     */
+    private static PersistentHashMap<Key, Integer> applyTransientBatch(
+            PersistentHashMap<Key, Integer> source, Map<Key, Integer> expected, IntFunction<Key> keys,
+            int keyRange, SplittableRandom random, String context) {
+        Map<Key, Integer> before = new HashMap<>(); // 更新したキーの元の値（なければ null）
+        int sizeBefore = expected.size();
+        PersistentHashMap.TransientHashMap<Key, Integer> builder = source.asTransient();
+        int updates = random.nextInt(1, 64);
+        for (int i = 0; i < updates; i++) {
+            Key key = keys.apply(random.nextInt(keyRange));
+            if (!before.containsKey(key)) {
+                before.put(key, expected.get(key));
+            }
+            if (random.nextInt(3) == 0) {
+                builder.remove(key);
+                expected.remove(key);
+            } else {
+                int value = random.nextInt(1_000);
+                builder.put(key, value);
+                expected.put(key, value);
+            }
+            assertEquals(expected.get(key), builder.get(key), context);
+            assertEquals(expected.size(), builder.size(), context);
+        }
+        PersistentHashMap<Key, Integer> result = builder.persistent();
+        assertThrows(IllegalStateException.class, () -> builder.put(keys.apply(0), 0), context);
+        before.forEach((key, value) -> assertEquals(value, source.get(key), context + ", transient source"));
+        assertEquals(sizeBefore, source.size(), context + ", transient source");
+        return result;
+    }
+    
+    @Test
+    @DisplayName("衝突ノードから削除していくと通常の組に戻り、以後の操作も正しい")
+    void removeCollapsesCollisionNodes() {
+        Key a = new Key(1, 42);
+        Key b = new Key(2, 42);
+        Key c = new Key(3, 42);
+        Key other = new Key(4, 42 | 1 << 30); // 根では同じスロットに入り、3段目で分かれる
+        
+        PersistentHashMap<Key, String> full = PersistentHashMap.<Key, String>empty()
+            .put(a, "a").put(b, "b").put(c, "c").put(other, "other");
+        PersistentHashMap<Key, String> two = full.remove(b);
+        PersistentHashMap<Key, String> one = two.remove(c);
+        PersistentHashMap<Key, String> none = one.remove(a);
+        
+        assertContents(Map.of(a, "a", b, "b", c, "c", other, "other"), full, "full");
+        assertContents(Map.of(a, "a", c, "c", other, "other"), two, "two");
+        assertContents(Map.of(a, "a", other, "other"), one, "one");
+        assertContents(Map.of(other, "other"), none, "none");
+        assertTrue(none.remove(other).isEmpty());
+        assertSame(one, one.remove(b)); // もうないキーの削除は同じマップを返す
+        
+        // 1組に戻ったキーへ同じハッシュ値のキーを足すと、再び衝突ノードになる
+        PersistentHashMap<Key, String> again = one.put(b, "b2");
+        assertContents(Map.of(a, "a", b, "b2", other, "other"), again, "again");
+        
+        // 直接作ったマップとは形が違っても等しい
+        PersistentHashMap<Key, String> fresh = PersistentHashMap.fromMap(Map.of(a, "a", other, "other"));
+        assertEquals(fresh, one);
+        assertTrue(one.diff(fresh).isEmpty());
+        assertEquals(fresh.hashCode(), one.hashCode());
+        
+        // トランジェントでも同じように解消する
+        PersistentHashMap.TransientHashMap<Key, String> builder = full.asTransient();
+        builder.remove(b).remove(c).remove(a);
+        assertContents(Map.of(other, "other"), builder.persistent(), "transient");
+        assertContents(Map.of(a, "a", b, "b", c, "c", other, "other"), full, "full after transient");
+    }
+    
+    @Test
+    @DisplayName("派生したスナップショット同士の diff と merge は HashMap で求めた結果と一致する")
+    void diffAndMergeOfDerivedSnapshots() {
+        BiFunction<Integer, Integer, Integer> resolver = (mine, theirs) -> mine * 1_000 + theirs;
+        for (long seed : SEEDS) {
+            for (Map.Entry<String, IntFunction<Key>> space : KEY_SPACES.entrySet()) {
+                SplittableRandom random = new SplittableRandom(seed);
+                IntFunction<Key> keys = space.getValue();
+                String context = "seed=" + seed + ", keys=" + space.getKey();
+                
+                Map<Key, Integer> baseExpected = new HashMap<>();
+                for (int i = 0; i < 2_000; i++) {
+                    baseExpected.put(keys.apply(random.nextInt(4_096)), random.nextInt(100));
+                }
+                PersistentHashMap<Key, Integer> base = PersistentHashMap.fromMap(baseExpected);
+                
+                for (int round = 0; round < 12; round++) {
+                    // 同じ base から派生させるので、変更していない部分木は共有される
+                    int changes = round == 0 ? 0 : random.nextInt(1, 1 << Math.min(round, 11));
+                    Map<Key, Integer> leftExpected = new HashMap<>(baseExpected);
+                    Map<Key, Integer> rightExpected = new HashMap<>(baseExpected);
+                    PersistentHashMap<Key, Integer> left = derive(base, leftExpected, keys, changes, random);
+                    PersistentHashMap<Key, Integer> right = derive(base, rightExpected, keys, changes, random);
+                    
+                    assertDiff(leftExpected, rightExpected, left.diff(right), context);
+                    assertDiff(baseExpected, rightExpected, base.diff(right), context);
+                    assertEquals(leftExpected.equals(rightExpected), left.equals(right), context);
+                    
+                    Map<Key, Integer> mergedExpected = new HashMap<>(leftExpected);
+                    rightExpected.forEach((key, value) -> mergedExpected.merge(key, value,
+                        (mine, theirs) -> mine.equals(theirs) ? mine : resolver.apply(mine, theirs)));
+                    PersistentHashMap<Key, Integer> merged = left.merge(right, resolver);
+                    assertContents(mergedExpected, merged, context + ", round=" + round);
+                    
+                    Map<Key, Integer> putAllExpected = new HashMap<>(leftExpected);
+                    putAllExpected.putAll(rightExpected);
+                    assertContents(putAllExpected, left.putAll(right), context + ", putAll");
+                    
+                    // 入力のマップは変わらない
+                    assertContents(leftExpected, left, context);
+                    assertContents(rightExpected, right, context);
+                }
+                assertContents(baseExpected, base, context);
+                assertSame(base, base.merge(base, resolver));
+                assertTrue(base.diff(base).isEmpty());
+            }
+        }
+    }
+    
+    private static PersistentHashMap<Key, Integer> derive(PersistentHashMap<Key, Integer> base,
+                                                          Map<Key, Integer> expected, IntFunction<Key> keys,
+                                                          int changes, SplittableRandom random) {
+        PersistentHashMap<Key, Integer> map = base;
+        for (int i = 0; i < changes; i++) {
+            Key key = keys.apply(random.nextInt(4_096));
+            if (random.nextInt(3) == 0) {
+                map = map.remove(key);
+                expected.remove(key);
+            } else {
+                int value = random.nextInt(100);
+                map = map.put(key, value);
+                expected.put(key, value);
+            }
+        }
+        return map;
+    }
+    
+    private static void assertDiff(Map<Key, Integer> from, Map<Key, Integer> to,
+                                   PersistentHashMap.Diff<Key, Integer> diff, String context) {
+        Map<Key, Integer> added = new HashMap<>();
+        Map<Key, Integer> removed = new HashMap<>();
+        Map<Key, Integer> changed = new HashMap<>();
+        to.forEach((key, value) -> {
+            Integer old = from.get(key);
+            if (old == null) {
+                added.put(key, value);
+            } else if (!old.equals(value)) {
+                changed.put(key, value); // changed は新しい値を持つ
+            }
+        });
+        from.forEach((key, value) -> {
+            if (!to.containsKey(key)) {
+                removed.put(key, value); // removed は元の値を持つ
+            }
+        });
+        assertContents(added, diff.added, context + ", added");
+        assertContents(removed, diff.removed, context + ", removed");
+        assertContents(changed, diff.changed, context + ", changed");
+    }
+    
+    private static <V> void assertContents(Map<Key, V> expected, PersistentHashMap<Key, V> map, String context) {
+        Map<Key, V> actual = new HashMap<>();
+        Set<Key> seen = new HashSet<>();
+        map.forEach((key, value) -> {
+            assertTrue(seen.add(key), "Duplicate key " + key + ", " + context);
+            actual.put(key, value);
+        });
+        assertEquals(expected, actual, context);
+        assertEquals(expected.size(), map.size(), context);
+        assertEquals(expected.hashCode(), map.hashCode(), context); // Map.hashCode と同じ定義
+        expected.forEach((key, value) -> assertEquals(value, map.get(key), context));
+    }
+}
@@ -0,0 +1,375 @@
+package com.example.immutability;
+
+import com.example.immutability.PersistentDataStructuresDemo.PersistentVector;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PersistentVector の差分テスト
+ *
+ * 同じ乱数列の append/with/slice/トランジェント操作を java.util.ArrayList にも適用し、中身が常に一致することを確かめる。
+ * 木の段数が変わる 32・1024・32768 の前後を多く通すように、位置の一部は境界の近くから選ぶ。
+ * slice は木の中の位置（offset）を振り直さないため、切り出したベクターへの追加・置き換え・
+ * 再度の slice と、葉の境界で分ける trySplit・並列ストリームも確かめる。
+ */
+class PersistentVectorDifferentialTest {
+    private static final int OPERATIONS = 2_000;
+    private static final long[] SEEDS = {1L, 42L, 20240601L};
+    private static final int[] BOUNDARIES = {32, 1_024, 32_768};
+    
+    /**
+     * 境界の前後の位置（slice の両端に使う）
+     */
+    private static final int[] POINTS = {
+        0, 1, 31, 32, 33, 1_023, 1_024, 1_025, 2_049, 32_767, 32_768, 32_769, 33_824, 40_000};
+    
+    @Test
+    @DisplayName("ランダムな append/with/slice/トランジェント操作の結果が ArrayList と一致する")
+    void persistentVectorMatchesArrayList() {
+        for (long seed : SEEDS) {
+            SplittableRandom random = new SplittableRandom(seed);
+            PersistentVector<Integer> vector = PersistentVector.empty();
+            List<Integer> expected = new ArrayList<>();
+            List<PersistentVector<Integer>> snapshots = new ArrayList<>();
+            List<List<Integer>> expectedSnapshots = new ArrayList<>();
+            
+            for (int op = 0; op < OPERATIONS; op++) {
+                String context = "seed=" + seed + ", op=" + op;
+                int action = random.nextInt(16);
+                if (action == 0 && expected.size() > 40_000) {
+                    action = 1; // 大きくなりすぎたら切り詰める
+                }
+                switch (action) {
+                    case 0 -> { // 次の境界を越えるくらいまとめて追加
+                        List<Integer> elements = randomElements(random, random.nextInt(1, 36_000));
+                        vector = vector.appendAll(elements);
+                        expected.addAll(elements);
+                    }
+                    case 1, 2 -> {
+                        int from = boundaryIndex(random, expected.size());
+                        int to = from + boundaryIndex(random, expected.size() - from);
+                        vector = vector.slice(from, to);
+                        expected = new ArrayList<>(expected.subList(from, to));
+                    }
+                    case 3 -> vector = applyTransientBatch(vector, expected, random, context);
+                    case 4, 5 -> {
+                        if (!expected.isEmpty()) {
+                            int index = Math.min(boundaryIndex(random, expected.size()), expected.size() - 1);
+                            int element = random.nextInt();
+                            PersistentVector<Integer> updated = vector.with(index, element);
+                            assertEquals(expected.get(index), vector.get(index), context); // 元のベクターは変わらない
+                            expected.set(index, element);
+                            vector = updated;
+                        }
+                    }
+                    default -> {
+                        int element = random.nextInt();
+                        vector = vector.append(element);
+                        expected.add(element);
+                    }
+                }
+                assertSpotChecks(expected, vector, random, context);
+                if (op % 32 == 0) {
+                    assertContents(expected, vector, context);
+                }
+                if (op % 200 == 0) {
+                    snapshots.add(vector);
+                    expectedSnapshots.add(new ArrayList<>(expected));
+                }
+            }
+            assertContents(expected, vector, "seed=" + seed);
+            // 後の更新は経路を複製するだけなので、以前のスナップショットは変わっていない
+            for (int i = 0; i < snapshots.size(); i++) {
+                assertContents(expectedSnapshots.get(i), snapshots.get(i), "seed=" + seed + ", snapshot=" + i);
+            }
+        }
+    }
+    
+    /**
+     * トランジェントで追加と置き換えを続け、元のベクターが書き換わっていないことを確かめる
+     * 書き換えが起きるのは置き換えた位置の経路と末尾なので、その位置の値と末尾・件数を比べる
+     */
+    private static PersistentVector<Integer> applyTransientBatch(
+            PersistentVector<Integer> source, List<Integer> expected, SplittableRandom random, String context) {
+        Map<Integer, Integer> before = new HashMap<>(); // 置き換えた位置の元の値
+        int sizeBefore = expected.size();
+        Integer lastBefore = expected.isEmpty() ? null : expected.get(sizeBefore - 1);
+        PersistentVector.TransientVector<Integer> builder = source.asTransient();
+        int updates = random.nextInt(4) == 0 ? random.nextInt(1, 40_000) : random.nextInt(1, 100);
+        for (int i = 0; i < updates; i++) {
+            int element = random.nextInt();
+            if (expected.isEmpty() || random.nextInt(3) != 0) {
+                builder.add(element);
+                expected.add(element);
+            } else {
+                int index = Math.min(boundaryIndex(random, expected.size()), expected.size() - 1);
+                if (index < sizeBefore && !before.containsKey(index)) {
+                    before.put(index, expected.get(index));
+                }
+                builder.set(index, element);
+                expected.set(index, element);
+                assertEquals(element, builder.get(index), context);
+            }
+            assertEquals(expected.size(), builder.size(), context);
+        }
+        assertEquals(expected.get(expected.size() - 1), builder.get(expected.size() - 1), context);
+        PersistentVector<Integer> result = builder.persistent();
+        assertThrows(IllegalStateException.class, () -> builder.add(0), context);
+        assertThrows(IllegalStateException.class, () -> builder.set(0, 0), context);
+        
+        before.forEach((index, element) -> assertEquals(element, source.get(index), context + ", transient source"));
+        assertEquals(sizeBefore, source.size(), context + ", transient source");
+        if (lastBefore != null) {
+            assertEquals(lastBefore, source.get(sizeBefore - 1), context + ", transient source");
+        }
+        return result;
+    }
+    
+    @Test
+    @DisplayName("slice を重ねても木の中の位置（offset）がずれず、切り出した後の with/slice も正しい")
+    void sliceWithAbsoluteOffsets() {
+        PersistentVector<Integer> base = PersistentVector.copyOf(positions(70_000));
+        for (long seed : SEEDS) {
+            SplittableRandom random = new SplittableRandom(seed);
+            PersistentVector<Integer> vector = base;
+            List<Integer> expected = positions(70_000);
+            while (expected.size() > 1) {
+                String context = "seed=" + seed + ", size=" + expected.size();
+                // 先頭を少なくとも1つ落とし、offset を積み重ねる
+                int from = Math.max(1, boundaryIndex(random, expected.size() - 1));
+                int to = from + boundaryIndex(random, expected.size() - from);
+                vector = vector.slice(from, to);
+                expected = new ArrayList<>(expected.subList(from, to));
+                assertContents(expected, vector, context);
+                
+                if (!expected.isEmpty()) {
+                    int index = random.nextInt(expected.size());
+                    PersistentVector<Integer> updated = vector.with(index, -1);
+                    List<Integer> updatedExpected = new ArrayList<>(expected);
+                    updatedExpected.set(index, -1);
+                    assertContents(updatedExpected, updated, context + ", with " + index);
+                    assertEquals(expected, vector, context); // slice したベクターは変わらない
+                }
+            }
+        }
+        assertContents(positions(70_000), base, "base"); // subList と異なり元のベクターと独立している
+    }
+    
+    @Test
+    @DisplayName("境界の前後で切り出し（trimLeft/trimRight）、その後の追加で空の部分木に葉を押し込む")
+    void slicesAroundBoundariesAcceptAppends() {
+        PersistentVector<Integer> base = PersistentVector.copyOf(positions(40_000));
+        List<Integer> all = positions(40_000);
+        for (int from : POINTS) {
+            for (int to : POINTS) {
+                if (from > to) {
+                    continue;
+                }
+                String context = "slice(" + from + ", " + to + ")";
+                PersistentVector<Integer> slice = base.slice(from, to);
+                List<Integer> expected = new ArrayList<>(all.subList(from, to));
+                assertContents(expected, slice, context);
+                
+                // 後ろを切り詰めた木では、右側の子が null になっている
+                // 1つずつの append（経路の複製）と appendAll（トランジェント）の両方で 1024 の境界を越える
+                List<Integer> appended = new ArrayList<>(expected);
+                PersistentVector<Integer> grown = slice;
+                for (int i = 0; i < 1_100; i++) {
+                    grown = grown.append(-i);
+                    appended.add(-i);
+                }
+                assertContents(appended, grown, context + ", append");
+                assertContents(appended, slice.appendAll(appended.subList(expected.size(), appended.size())),
+                    context + ", appendAll");
+                assertContents(expected, slice, context + ", after append");
+            }
+        }
+        
+        // 使わなくなった上の階層は外れる
+        assertEquals(4, base.depth());
+        assertEquals(3, base.slice(0, 32_800).depth());
+        assertEquals(2, base.slice(0, 1_000).depth());
+        assertEquals(2, base.slice(0, 32).depth());
+    }
+    
+    @Test
+    @DisplayName("トランジェントの add/set は境界を越えても正しく、元のベクターや他のトランジェントに影響しない")
+    void transientAddAndSet() {
+        for (long seed : SEEDS) {
+            SplittableRandom random = new SplittableRandom(seed);
+            PersistentVector<Integer> source = PersistentVector.copyOf(positions(34_000)).slice(100, 32_700);
+            List<Integer> sourceExpected = new ArrayList<>(positions(34_000).subList(100, 32_700));
+            
+            // 同じベクターから作った2つのトランジェントを交互に更新する
+            PersistentVector.TransientVector<Integer> first = source.asTransient();
+            PersistentVector.TransientVector<Integer> second = source.asTransient();
+            List<Integer> firstExpected = new ArrayList<>(sourceExpected);
+            List<Integer> secondExpected = new ArrayList<>(sourceExpected);
+            for (int i = 0; i < 5_000; i++) { // 32768 の境界を越える
+                PersistentVector.TransientVector<Integer> builder = i % 2 == 0 ? first : second;
+                List<Integer> expected = i % 2 == 0 ? firstExpected : secondExpected;
+                if (random.nextBoolean()) {
+                    builder.add(-i);
+                    expected.add(-i);
+                } else {
+                    int index = random.nextInt(expected.size());
+                    builder.set(index, -i);
+                    expected.set(index, -i);
+                }
+            }
+            PersistentVector<Integer> firstResult = first.persistent();
+            PersistentVector<Integer> secondResult = second.persistent();
+            String context = "seed=" + seed;
+            assertContents(firstExpected, firstResult, context + ", first");
+            assertContents(secondExpected, secondResult, context + ", second");
+            assertContents(sourceExpected, source, context + ", source");
+            
+            // persistent() の後は使えず、結果も書き換わらない
+            assertThrows(IllegalStateException.class, () -> first.add(0));
+            assertThrows(IllegalStateException.class, () -> first.set(0, 0));
+            assertThrows(IllegalStateException.class, () -> first.get(0));
+            assertThrows(IllegalStateException.class, first::size);
+            PersistentVector.TransientVector<Integer> again = firstResult.asTransient();
+            again.set(0, 1).add(2);
+            assertContents(firstExpected, firstResult, context + ", first after another transient");
+        }
+    }
+    
+    @Test
+    @DisplayName("trySplit は葉の境界で分け、分割した断片を順に読むと元の並びになる")
+    void trySplitOnLeafBoundaries() {
+        PersistentVector<Integer> base = PersistentVector.copyOf(positions(40_000));
+        List<Integer> all = positions(40_000);
+        for (int from : POINTS) {
+            for (int to : POINTS) {
+                if (from > to) {
+                    continue;
+                }
+                // 要素の値は木の中の位置そのもの
+                String context = "slice(" + from + ", " + to + ")";
+                List<List<Integer>> chunks = new ArrayList<>();
+                splitFully(base.slice(from, to).spliterator(), chunks);
+                
+                List<Integer> concatenated = new ArrayList<>();
+                for (int i = 0; i < chunks.size(); i++) {
+                    List<Integer> chunk = chunks.get(i);
+                    if (i > 0) {
+                        assertFalse(chunk.isEmpty(), context);
+                        assertEquals(0, chunk.get(0) % 32, context + ", chunk " + i + " starts inside a leaf");
+                    }
+                    concatenated.addAll(chunk);
+                }
+                assertEquals(all.subList(from, to), concatenated, context);
+                if (to - from >= 64) {
+                    assertTrue(chunks.size() > 1, context + " was not split");
+                }
+            }
+        }
+    }
+    
+    /**
+     * 分割できなくなるまで再帰的に分割し、前半から順に読む
+     * 断片は最初の1要素を tryAdvance、残りを forEachRemaining で読む
+     */
+    private static void splitFully(Spliterator<Integer> spliterator, List<List<Integer>> chunks) {
+        long size = spliterator.estimateSize();
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        if (prefix == null) {
+            List<Integer> chunk = new ArrayList<>();
+            spliterator.tryAdvance(chunk::add);
+            spliterator.forEachRemaining(chunk::add);
+            assertEquals(size, chunk.size());
+            assertEquals(0, spliterator.estimateSize());
+            chunks.add(chunk);
+            return;
+        }
+        assertEquals(size, prefix.estimateSize() + spliterator.estimateSize());
+        splitFully(prefix, chunks);
+        splitFully(spliterator, chunks);
+    }
+    
+    @Test
+    @DisplayName("並列ストリームと逐次ストリームの合計・並びが ArrayList と一致する")
+    void parallelStreamMatchesSequential() {
+        for (long seed : SEEDS) {
+            SplittableRandom random = new SplittableRandom(seed);
+            List<Integer> all = randomElements(random, 70_000);
+            PersistentVector<Integer> base = PersistentVector.copyOf(all);
+            for (int i = 0; i < 20; i++) {
+                int from = boundaryIndex(random, all.size());
+                int to = from + boundaryIndex(random, all.size() - from);
+                PersistentVector<Integer> vector = base.slice(from, to);
+                List<Integer> expected = all.subList(from, to);
+                String context = "seed=" + seed + ", slice(" + from + ", " + to + ")";
+                
+                long sum = expected.stream().mapToLong(Integer::longValue).sum();
+                assertEquals(sum, vector.stream().mapToLong(Integer::longValue).sum(), context);
+                assertEquals(sum, vector.parallelStream().mapToLong(Integer::longValue).sum(), context);
+                assertEquals(expected, vector.parallelStream().collect(Collectors.toList()), context);
+            }
+        }
+    }
+    
+    /**
+     * 半分の確率で 32・1024・32768 の倍数の前後、残りは一様に選んだ [0, limit] の位置
+     */
+    private static int boundaryIndex(SplittableRandom random, int limit) {
+        if (random.nextBoolean()) {
+            int boundary = BOUNDARIES[random.nextInt(BOUNDARIES.length)] * random.nextInt(1, 3);
+            int index = boundary + random.nextInt(-1, 2);
+            if (index <= limit) {
+                return index;
+            }
+        }
+        return random.nextInt(limit + 1);
+    }
+    
+    private static List<Integer> positions(int size) {
+        return IntStream.range(0, size).boxed().collect(Collectors.toCollection(ArrayList::new));
+    }
+    
+    private static List<Integer> randomElements(SplittableRandom random, int size) {
+        return random.ints(size).boxed().collect(Collectors.toCollection(ArrayList::new));
+    }
+    
+    /**
+     * 件数と、先頭・末尾・ランダムな位置の要素だけを比べる（毎回の操作の後に使う）
+     */
+    private static void assertSpotChecks(List<Integer> expected, PersistentVector<Integer> vector,
+                                         SplittableRandom random, String context) {
+        assertEquals(expected.size(), vector.size(), context);
+        if (!expected.isEmpty()) {
+            int last = expected.size() - 1;
+            int index = random.nextInt(expected.size());
+            assertEquals(expected.get(0), vector.get(0), context);
+            assertEquals(expected.get(last), vector.get(last), context);
+            assertEquals(expected.get(index), vector.get(index), context + ", index=" + index);
+        }
+    }
+    
+    private static void assertContents(List<Integer> expected, PersistentVector<Integer> vector, String context) {
+        assertEquals(expected.size(), vector.size(), context);
+        for (int i = 0; i < expected.size(); i++) {
+            int index = i;
+            assertEquals(expected.get(i), vector.get(i), () -> context + ", index=" + index);
+        }
+        List<Integer> iterated = new ArrayList<>();
+        vector.forEach(iterated::add);
+        assertEquals(expected, iterated, context + ", forEach");
+        assertEquals(expected, vector, context + ", iterator"); // AbstractList.equals は iterator で比べる
+        assertEquals(expected.hashCode(), vector.hashCode(), context);
+        assertThrows(IndexOutOfBoundsException.class, () -> vector.get(expected.size()), context);
+        assertThrows(IndexOutOfBoundsException.class, () -> vector.get(-1), context);
+    }
+}
@@ -0,0 +1,478 @@
+package com.example.collections;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * メモリ上の B+ 木による順序付きマップ
+ *
+ * 赤黒木（{@link TreeMapInternals.SimpleRedBlackTree}）は1エントリごとに親・左・右の
+ * ポインタを持つノードを割り当てるため、範囲走査はヒープ上を飛び回る。
+ * B+ 木は1ノードに最大 nodeCapacity 個のキーを配列で持ち、値はすべて葉に置く。
+ * 葉は昇順に連結されているので、範囲走査は開始位置を1回探索した後、
+ * 配列を順に読み進めるだけになる。木の高さは log_{nodeCapacity}(n) 程度に抑えられる。
+ *
+ * 内部ノードの keys[i] は children[i + 1] の部分木の最小キー。
+ * ノードが満杯になったら半分に分割し、分割キーを親へ挿入する。
+ * 削除は未対応（SimpleRedBlackTree と同じ）。null キーは格納できない。スレッドセーフではない。
+ *
+ * @param <K> キーの型
+ * @param <V> 値の型
+ */
+public class BPlusTreeMap<K extends Comparable<K>, V> {
+    static final int DEFAULT_NODE_CAPACITY = 64;
+    
+    private final int nodeCapacity;
+    private Node root;
+    private Leaf firstLeaf;
+    private int size;
+    private int height = 1;
+    
+    // 分割時に親へ渡す分割キーと、put の戻り値（再帰の戻り値を1つに抑えるためのフィールド）
+    private Object splitKey;
+    private Object previousValue;
+    
+    abstract static class Node {
+        final Object[] keys;
+        int size; // キー数
+        
+        Node(int capacity) {
+            keys = new Object[capacity];
+        }
+    }
+    
+    static final class Leaf extends Node {
+        final Object[] values;
+        Leaf next;
+        
+        Leaf(int capacity) {
+            super(capacity);
+            values = new Object[capacity];
+        }
+    }
+    
+    static final class Internal extends Node {
+        final Node[] children;
+        
+        Internal(int capacity) {
+            super(capacity);
+            children = new Node[capacity + 1];
+        }
+    }
+    
+    public BPlusTreeMap() {
+        this(DEFAULT_NODE_CAPACITY);
+    }
+    
+    /**
+     * @param nodeCapacity 1ノードあたりの最大キー数
+     */
+    public BPlusTreeMap(int nodeCapacity) {
+        if (nodeCapacity < 3) {
+            throw new IllegalArgumentException("Node capacity must be at least 3: " + nodeCapacity);
+        }
+        this.nodeCapacity = nodeCapacity;
+        this.firstLeaf = new Leaf(nodeCapacity);
+        this.root = firstLeaf;
+    }
+    
+    /**
+     * 昇順に並んだエントリから一括構築する
+     * 下の層から順に、各ノードへ均等にキーを詰めて作るため、1件ずつの put より速く、
+     * 葉の充填率もほぼ100%になる（その後の put では分割が起きやすい）
+     *
+     * @throws IllegalArgumentException キーが狭義の昇順でない場合
+     */
+    public static <K extends Comparable<K>, V> BPlusTreeMap<K, V> fromSorted(
+            Iterable<? extends Map.Entry<K, V>> sortedEntries) {
+        return fromSorted(sortedEntries, DEFAULT_NODE_CAPACITY);
+    }
+    
+    public static <K extends Comparable<K>, V> BPlusTreeMap<K, V> fromSorted(
+            Iterable<? extends Map.Entry<K, V>> sortedEntries, int nodeCapacity) {
+        BPlusTreeMap<K, V> tree = new BPlusTreeMap<>(nodeCapacity);
+        ArrayList<Object> keys = new ArrayList<>();
+        ArrayList<Object> values = new ArrayList<>();
+        K previous = null;
+        for (Map.Entry<K, V> entry : sortedEntries) {
+            K key = Objects.requireNonNull(entry.getKey(), "key");
+            if (previous != null && previous.compareTo(key) >= 0) {
+                throw new IllegalArgumentException("Keys are not strictly ascending: " + previous + ", " + key);
+            }
+            keys.add(key);
+            values.add(entry.getValue());
+            previous = key;
+        }
+        tree.bulkLoad(keys.toArray(), values.toArray());
+        return tree;
+    }
+    
+    /**
+     * 値の検索
+     */
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        Objects.requireNonNull(key, "key");
+        Leaf leaf = findLeaf(key);
+        int index = search(leaf.keys, leaf.size, key);
+        return index >= 0 ? (V) leaf.values[index] : null;
+    }
+    
+    public boolean containsKey(K key) {
+        Objects.requireNonNull(key, "key");
+        Leaf leaf = findLeaf(key);
+        return search(leaf.keys, leaf.size, key) >= 0;
+    }
+    
+    /**
+     * 値の挿入（以前の値、なければ null を返す）
+     */
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        Objects.requireNonNull(key, "key");
+        previousValue = null;
+        Node right = insert(root, key, value);
+        if (right != null) {
+            // ルートが分割されたら1段高くなる
+            Internal newRoot = new Internal(nodeCapacity);
+            newRoot.keys[0] = splitKey;
+            newRoot.children[0] = root;
+            newRoot.children[1] = right;
+            newRoot.size = 1;
+            root = newRoot;
+            height++;
+        }
+        splitKey = null;
+        V previous = (V) previousValue;
+        previousValue = null;
+        return previous;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public int getHeight() {
+        return height;
+    }
+    
+    @SuppressWarnings("unchecked")
+    public K firstKey() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return (K) firstLeaf.keys[0];
+    }
+    
+    @SuppressWarnings("unchecked")
+    public K lastKey() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        Node node = root;
+        while (node instanceof Internal) {
+            node = ((Internal) node).children[node.size];
+        }
+        return (K) node.keys[node.size - 1];
+    }
+    
+    /**
+     * [fromKey, toKey) の範囲のエントリをキーの昇順で処理する
+     * 開始位置の探索は1回だけで、あとは連結された葉の配列を順に読む
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachInRange(K fromKey, K toKey, BiConsumer<? super K, ? super V> action) {
+        Objects.requireNonNull(fromKey, "fromKey");
+        Objects.requireNonNull(toKey, "toKey");
+        Leaf leaf = findLeaf(fromKey);
+        int index = lowerBound(leaf, fromKey);
+        while (leaf != null) {
+            for (; index < leaf.size; index++) {
+                K key = (K) leaf.keys[index];
+                if (key.compareTo(toKey) >= 0) {
+                    return;
+                }
+                action.accept(key, (V) leaf.values[index]);
+            }
+            leaf = leaf.next;
+            index = 0;
+        }
+    }
+    
+    /**
+     * 全エントリをキーの昇順で処理する
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (Leaf leaf = firstLeaf; leaf != null; leaf = leaf.next) {
+            for (int i = 0; i < leaf.size; i++) {
+                action.accept((K) leaf.keys[i], (V) leaf.values[i]);
+            }
+        }
+    }
+    
+    /**
+     * [fromKey, toKey) の範囲のエントリを昇順に返すイテレータ
+     */
+    public Iterator<Map.Entry<K, V>> rangeIterator(K fromKey, K toKey) {
+        Objects.requireNonNull(fromKey, "fromKey");
+        Objects.requireNonNull(toKey, "toKey");
+        Leaf start = findLeaf(fromKey);
+        int startIndex = lowerBound(start, fromKey);
+        return new Iterator<>() {
+            private Leaf leaf = start;
+            private int index = startIndex;
+            
+            @Override
+            @SuppressWarnings("unchecked")
+            public boolean hasNext() {
+                while (leaf != null && index >= leaf.size) {
+                    leaf = leaf.next;
+                    index = 0;
+                }
+                return leaf != null && ((K) leaf.keys[index]).compareTo(toKey) < 0;
+            }
+            
+            @Override
+            @SuppressWarnings("unchecked")
+            public Map.Entry<K, V> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Map.Entry<K, V> entry = new AbstractMap.SimpleImmutableEntry<>(
+                        (K) leaf.keys[index], (V) leaf.values[index]);
+                index++;
+                return entry;
+            }
+        };
+    }
+    
+    /**
+     * 統計情報を取得
+     */
+    public TreeMapInternals.BPlusTreeStats getStats() {
+        long[] counts = new long[4]; // 葉の数、葉のキー数、内部ノードの数、内部ノードの子の数
+        collectStats(root, counts);
+        return new TreeMapInternals.BPlusTreeStats(size, height, nodeCapacity,
+                (int) counts[0], (int) counts[2],
+                counts[0] > 0 ? (double) counts[1] / (counts[0] * nodeCapacity) : 0,
+                counts[2] > 0 ? (double) counts[3] / (counts[2] * (nodeCapacity + 1)) : 0);
+    }
+    
+    private void collectStats(Node node, long[] counts) {
+        if (node instanceof Leaf) {
+            counts[0]++;
+            counts[1] += node.size;
+            return;
+        }
+        Internal internal = (Internal) node;
+        counts[2]++;
+        counts[3] += internal.size + 1;
+        for (int i = 0; i <= internal.size; i++) {
+            collectStats(internal.children[i], counts);
+        }
+    }
+    
+    // --- 内部処理 ---
+    
+    /**
+     * 二分探索（見つかれば位置、なければ -(挿入位置 + 1)）
+     */
+    @SuppressWarnings("unchecked")
+    private static <K extends Comparable<K>> int search(Object[] keys, int size, K key) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = ((K) keys[mid]).compareTo(key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+    
+    /**
+     * key を含む部分木の子の位置（keys[i] <= key となる i の数）
+     */
+    private static <K extends Comparable<K>> int childIndex(Internal node, K key) {
+        int index = search(node.keys, node.size, key);
+        return index >= 0 ? index + 1 : -(index + 1);
+    }
+    
+    private static <K extends Comparable<K>> int lowerBound(Leaf leaf, K key) {
+        int index = search(leaf.keys, leaf.size, key);
+        return index >= 0 ? index : -(index + 1);
+    }
+    
+    private Leaf findLeaf(K key) {
+        Node node = root;
+        while (node instanceof Internal) {
+            Internal internal = (Internal) node;
+            node = internal.children[childIndex(internal, key)];
+        }
+        return (Leaf) node;
+    }
+    
+    /**
+     * 挿入（ノードが分割されたら右側の新ノードを返し、分割キーを splitKey に置く）
+     */
+    private Node insert(Node node, K key, V value) {
+        if (node instanceof Leaf) {
+            return insertIntoLeaf((Leaf) node, key, value);
+        }
+        Internal internal = (Internal) node;
+        int index = childIndex(internal, key);
+        Node right = insert(internal.children[index], key, value);
+        return right == null ? null : insertChild(internal, index, splitKey, right);
+    }
+    
+    private Node insertIntoLeaf(Leaf leaf, K key, V value) {
+        int index = search(leaf.keys, leaf.size, key);
+        if (index >= 0) {
+            previousValue = leaf.values[index];
+            leaf.values[index] = value;
+            return null;
+        }
+        index = -(index + 1);
+        size++;
+        if (leaf.size < nodeCapacity) {
+            insertAt(leaf, index, key, value);
+            return null;
+        }
+        
+        // 満杯の葉を分割（分割後に左が leftCount 個になるよう先に移してから挿入）
+        Leaf right = new Leaf(nodeCapacity);
+        int leftCount = (nodeCapacity + 1) / 2;
+        int moveFrom = index < leftCount ? leftCount - 1 : leftCount;
+        int moved = nodeCapacity - moveFrom;
+        System.arraycopy(leaf.keys, moveFrom, right.keys, 0, moved);
+        System.arraycopy(leaf.values, moveFrom, right.values, 0, moved);
+        Arrays.fill(leaf.keys, moveFrom, nodeCapacity, null);
+        Arrays.fill(leaf.values, moveFrom, nodeCapacity, null);
+        leaf.size = moveFrom;
+        right.size = moved;
+        if (index < leftCount) {
+            insertAt(leaf, index, key, value);
+        } else {
+            insertAt(right, index - leftCount, key, value);
+        }
+        right.next = leaf.next;
+        leaf.next = right;
+        splitKey = right.keys[0];
+        return right;
+    }
+    
+    private static void insertAt(Leaf leaf, int index, Object key, Object value) {
+        System.arraycopy(leaf.keys, index, leaf.keys, index + 1, leaf.size - index);
+        System.arraycopy(leaf.values, index, leaf.values, index + 1, leaf.size - index);
+        leaf.keys[index] = key;
+        leaf.values[index] = value;
+        leaf.size++;
+    }
+    
+    /**
+     * 子 index の右に separator と child を追加（満杯なら分割し、中央のキーを親へ上げる）
+     */
+    private Node insertChild(Internal node, int index, Object separator, Node child) {
+        if (node.size < nodeCapacity) {
+            System.arraycopy(node.keys, index, node.keys, index + 1, node.size - index);
+            System.arraycopy(node.children, index + 1, node.children, index + 2, node.size - index);
+            node.keys[index] = separator;
+            node.children[index + 1] = child;
+            node.size++;
+            return null;
+        }
+        
+        // 内部ノードの分割は葉の分割の 1/nodeCapacity 程度しか起きないので、一時配列で単純に行う
+        Object[] keys = new Object[nodeCapacity + 1];
+        Node[] children = new Node[nodeCapacity + 2];
+        System.arraycopy(node.keys, 0, keys, 0, index);
+        keys[index] = separator;
+        System.arraycopy(node.keys, index, keys, index + 1, nodeCapacity - index);
+        System.arraycopy(node.children, 0, children, 0, index + 1);
+        children[index + 1] = child;
+        System.arraycopy(node.children, index + 1, children, index + 2, nodeCapacity - index);
+        
+        int mid = (nodeCapacity + 1) / 2;
+        Internal right = new Internal(nodeCapacity);
+        Arrays.fill(node.keys, null);
+        Arrays.fill(node.children, null);
+        System.arraycopy(keys, 0, node.keys, 0, mid);
+        System.arraycopy(children, 0, node.children, 0, mid + 1);
+        node.size = mid;
+        System.arraycopy(keys, mid + 1, right.keys, 0, nodeCapacity - mid);
+        System.arraycopy(children, mid + 1, right.children, 0, nodeCapacity - mid + 1);
+        right.size = nodeCapacity - mid;
+        splitKey = keys[mid];
+        return right;
+    }
+    
+    /**
+     * 葉の層を作り、子の最小キーを分割キーにして上の層を順に作る
+     */
+    private void bulkLoad(Object[] keys, Object[] values) {
+        int count = keys.length;
+        if (count == 0) {
+            return;
+        }
+        int leafCount = (count + nodeCapacity - 1) / nodeCapacity;
+        Node[] level = new Node[leafCount];
+        Object[] minKeys = new Object[leafCount];
+        Leaf previous = null;
+        for (int i = 0, offset = 0; i < leafCount; i++) {
+            // 端数を最後の葉に寄せず、全ての葉へ均等に配る
+            int n = (count - offset) / (leafCount - i);
+            Leaf leaf = new Leaf(nodeCapacity);
+            System.arraycopy(keys, offset, leaf.keys, 0, n);
+            System.arraycopy(values, offset, leaf.values, 0, n);
+            leaf.size = n;
+            if (previous == null) {
+                firstLeaf = leaf;
+            } else {
+                previous.next = leaf;
+            }
+            previous = leaf;
+            level[i] = leaf;
+            minKeys[i] = keys[offset];
+            offset += n;
+        }
+        int levels = 1;
+        while (level.length > 1) {
+            int fanout = nodeCapacity + 1;
+            int parentCount = (level.length + fanout - 1) / fanout;
+            Node[] parents = new Node[parentCount];
+            Object[] parentMinKeys = new Object[parentCount];
+            for (int i = 0, offset = 0; i < parentCount; i++) {
+                int n = (level.length - offset) / (parentCount - i);
+                Internal parent = new Internal(nodeCapacity);
+                System.arraycopy(level, offset, parent.children, 0, n);
+                System.arraycopy(minKeys, offset + 1, parent.keys, 0, n - 1);
+                parent.size = n - 1;
+                parents[i] = parent;
+                parentMinKeys[i] = minKeys[offset];
+                offset += n;
+            }
+            level = parents;
+            minKeys = parentMinKeys;
+            levels++;
+        }
+        root = level[0];
+        height = levels;
+        size = count;
+    }
+}
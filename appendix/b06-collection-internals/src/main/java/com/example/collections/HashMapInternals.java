@@ -407,56 +407,44 @@ public class HashMapInternals {
     
     /**
      * 標準HashMap vs カスタム実装の比較
+     * 実行時間は benchmark.HashMapBenchmark（JMH）で計測する。
+     * ここでは同じキー集合での衝突統計と、1エントリあたりのメモリ量の見積もりを比べる
      */
     public static void compareWithStandardHashMap() {
         System.out.println("\n=== Standard HashMap vs Custom Implementation ===");
         
         int itemCount = 100_000;
         
-        // 標準HashMap
-        Map<Integer, String> standardMap = new HashMap<>();
-        long startTime = System.nanoTime();
-        for (int i = 0; i < itemCount; i++) {
-            standardMap.put(i, "Value" + i);
-        }
-        long standardInsertTime = System.nanoTime() - startTime;
-        
-        startTime = System.nanoTime();
-        for (int i = 0; i < itemCount; i++) {
-            standardMap.get(i);
-        }
-        long standardRetrieveTime = System.nanoTime() - startTime;
-        
-        // カスタム実装
-        SimpleHashMap<Integer, String> customMap = new SimpleHashMap<>();
-        startTime = System.nanoTime();
-        for (int i = 0; i < itemCount; i++) {
-            customMap.put(i, "Value" + i);
-        }
-        long customInsertTime = System.nanoTime() - startTime;
-        
-        startTime = System.nanoTime();
-        for (int i = 0; i < itemCount; i++) {
-            customMap.get(i);
-        }
-        long customRetrieveTime = System.nanoTime() - startTime;
-        
-        System.out.println("Standard HashMap:");
-        System.out.println("  Insert: " + standardInsertTime / 1_000_000 + "ms");
-        System.out.println("  Retrieve: " + standardRetrieveTime / 1_000_000 + "ms");
-        
-        System.out.println("Custom HashMap:");
-        System.out.println("  Insert: " + customInsertTime / 1_000_000 + "ms");
-        System.out.println("  Retrieve: " + customRetrieveTime / 1_000_000 + "ms");
-        
-        CollisionStats stats = customMap.getCollisionStats();
-        System.out.println("Custom HashMap Stats: " + stats);
-        
-        System.out.println("Performance ratio (Standard/Custom):");
-        System.out.println("  Insert: " + String.format("%.2f", 
-                         (double) standardInsertTime / customInsertTime));
-        System.out.println("  Retrieve: " + String.format("%.2f", 
-                         (double) standardRetrieveTime / customRetrieveTime));
+        Map<Long, Long> standardMap = new HashMap<>();
+        SimpleHashMap<Long, Long> chainedMap = new SimpleHashMap<>();
+        LongLongHashMap primitiveMap = new LongLongHashMap();
+        for (long i = 0; i < itemCount; i++) {
+            long key = i * 1_000_003L; // 連続値ではないキー
+            standardMap.put(key, i);
+            chainedMap.put(key, i);
+            primitiveMap.put(key, i);
+        }
+        
+        boolean consistent = true;
+        for (long i = 0; i < itemCount; i++) {
+            long key = i * 1_000_003L;
+            consistent &= standardMap.get(key) == primitiveMap.get(key)
+                    && chainedMap.get(key) == primitiveMap.get(key);
+        }
+        System.out.println("Lookups consistent: " + consistent);
+        
+        System.out.println("SimpleHashMap (chaining):        " + chainedMap.getCollisionStats());
+        System.out.println("LongLongHashMap (Robin Hood):    " + primitiveMap.getCollisionStats());
+        
+        // 圧縮参照（12バイトヘッダ）を前提にした見積もり
+        // HashMap: Node 32バイト + Long 2個 32バイト + バケット参照 4バイト/スロット
+        // LongLongHashMap: long 2本 16バイト/スロット
+        int standardBuckets = Integer.highestOneBit(itemCount * 4 / 3) << 1;
+        long standardBytes = itemCount * 64L + standardBuckets * 4L;
+        long primitiveBytes = primitiveMap.capacity() * 16L;
+        System.out.printf("Estimated footprint: HashMap<Long, Long> %.1f bytes/entry, LongLongHashMap %.1f bytes/entry%n",
+                (double) standardBytes / itemCount, (double) primitiveBytes / itemCount);
+        System.out.println("Timings: run benchmark.HashMapBenchmark (JMH)");
     }
     
     /**
@@ -0,0 +1,373 @@
+package com.example.collections;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.IntFunction;
+
+/**
+ * int キーとオブジェクト値のオープンアドレス法ハッシュマップ
+ * ID から オブジェクトを引く用途で、HashMap&lt;Integer, V&gt; のキーのボクシングとノードを省く
+ *
+ * 探索・削除・段階的リサイズの仕組みは {@link LongLongHashMap} と同じ
+ * （Robin Hood 線形探索、backward-shift deletion、クラスタ単位の移行）。
+ * null 値は格納できない（get の null が「キーなし」を意味するため）。
+ * キー 0 は空きスロットの印として使うため、テーブルとは別のフィールドに保持する。
+ * スレッドセーフではない。
+ *
+ * @param <V> 値の型
+ */
+public class IntObjectHashMap<V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final double DEFAULT_LOAD_FACTOR = 0.75;
+    private static final int MIGRATION_STEP = 16;
+    private static final int EMPTY = 0;
+    
+    private final double loadFactor;
+    
+    private int[] keys;
+    private Object[] values;
+    private int shift; // 32 - log2(容量)
+    private int tableSize;
+    private int threshold;
+    
+    private int[] oldKeys;
+    private Object[] oldValues;
+    private int oldShift;
+    private int oldSize;
+    private int migrateIndex;
+    private int migrateRemaining;
+    
+    private V zeroValue; // null ならキー 0 はない
+    
+    public IntObjectHashMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+    
+    public IntObjectHashMap(int expectedSize, double loadFactor) {
+        if (!(loadFactor >= 0.5 && loadFactor <= 0.9)) {
+            throw new IllegalArgumentException("Load factor must be between 0.5 and 0.9: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        allocate(LongLongHashMap.tableSizeFor(expectedSize, loadFactor));
+    }
+    
+    /**
+     * 値の取得（存在しなければ null）
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        if (key == EMPTY) {
+            return zeroValue;
+        }
+        int slot = find(keys, shift, key);
+        if (slot >= 0) {
+            return (V) values[slot];
+        }
+        if (oldKeys != null) {
+            slot = find(oldKeys, oldShift, key);
+            if (slot >= 0) {
+                return (V) oldValues[slot];
+            }
+        }
+        return null;
+    }
+    
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+    
+    /**
+     * 値の設定（以前の値、なければ null を返す）
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        Objects.requireNonNull(value, "value");
+        if (key == EMPTY) {
+            V previous = zeroValue;
+            zeroValue = value;
+            return previous;
+        }
+        migrateStep();
+        int slot = find(keys, shift, key);
+        if (slot >= 0) {
+            V previous = (V) values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        if (oldKeys != null && (slot = find(oldKeys, oldShift, key)) >= 0) {
+            V previous = (V) oldValues[slot];
+            moveToCurrent(slot, value);
+            return previous;
+        }
+        insert(key, value);
+        return null;
+    }
+    
+    /**
+     * キーがなければ mappingFunction の結果を格納して返す（探索は1回）
+     */
+    public V computeIfAbsent(int key, IntFunction<? extends V> mappingFunction) {
+        V value = get(key);
+        if (value == null) {
+            value = Objects.requireNonNull(mappingFunction.apply(key), "mapped value");
+            if (key == EMPTY) {
+                zeroValue = value;
+            } else {
+                migrateStep();
+                insert(key, value);
+            }
+        }
+        return value;
+    }
+    
+    /**
+     * 削除（以前の値、なければ null を返す）
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        if (key == EMPTY) {
+            V previous = zeroValue;
+            zeroValue = null;
+            return previous;
+        }
+        migrateStep();
+        int slot = find(keys, shift, key);
+        if (slot >= 0) {
+            V previous = (V) values[slot];
+            removeAt(keys, values, shift, slot);
+            tableSize--;
+            return previous;
+        }
+        if (oldKeys != null && (slot = find(oldKeys, oldShift, key)) >= 0) {
+            V previous = (V) oldValues[slot];
+            removeAt(oldKeys, oldValues, oldShift, slot);
+            oldSize--;
+            return previous;
+        }
+        return null;
+    }
+    
+    public int size() {
+        return tableSize + oldSize + (zeroValue != null ? 1 : 0);
+    }
+    
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+    
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        tableSize = 0;
+        oldKeys = null;
+        oldValues = null;
+        oldSize = 0;
+        zeroValue = null;
+    }
+    
+    /**
+     * 全エントリの走査（順序は不定）
+     */
+    public void forEach(EntryConsumer<? super V> action) {
+        if (zeroValue != null) {
+            action.accept(EMPTY, zeroValue);
+        }
+        forEachIn(keys, values, action);
+        if (oldKeys != null) {
+            forEachIn(oldKeys, oldValues, action);
+        }
+    }
+    
+    /**
+     * 衝突統計の取得（チェーン長は探索長として数える）
+     */
+    public HashMapInternals.CollisionStats getCollisionStats() {
+        int totalSlots = 0;
+        int used = 0;
+        int totalProbeLength = 0;
+        int maxProbeLength = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            int[] ks = pass == 0 ? keys : oldKeys;
+            if (ks == null) {
+                continue;
+            }
+            int s = pass == 0 ? shift : oldShift;
+            int mask = ks.length - 1;
+            totalSlots += ks.length;
+            for (int slot = 0; slot < ks.length; slot++) {
+                if (ks[slot] != EMPTY) {
+                    int probeLength = ((slot - home(ks[slot], s)) & mask) + 1;
+                    used++;
+                    totalProbeLength += probeLength;
+                    maxProbeLength = Math.max(maxProbeLength, probeLength);
+                }
+            }
+        }
+        return new HashMapInternals.CollisionStats(
+            totalSlots,
+            used,
+            totalSlots - used,
+            totalProbeLength,
+            maxProbeLength,
+            used > 0 ? (double) totalProbeLength / used : 0
+        );
+    }
+    
+    /**
+     * キーと値を受け取るコールバック
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(int key, V value);
+    }
+    
+    // --- 内部処理（LongLongHashMap と同じ手順） ---
+    
+    private static int home(int key, int shift) {
+        return (key * 0x9E3779B9) >>> shift;
+    }
+    
+    private static int find(int[] ks, int shift, int key) {
+        int mask = ks.length - 1;
+        int slot = home(key, shift);
+        for (int distance = 0; ; distance++) {
+            int k = ks[slot];
+            if (k == key) {
+                return slot;
+            }
+            if (k == EMPTY || ((slot - home(k, shift)) & mask) < distance) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+    
+    private static void insertAbsent(int[] ks, Object[] vs, int shift, int key, Object value) {
+        int mask = ks.length - 1;
+        int slot = home(key, shift);
+        int distance = 0;
+        while (true) {
+            int k = ks[slot];
+            if (k == EMPTY) {
+                ks[slot] = key;
+                vs[slot] = value;
+                return;
+            }
+            int residentDistance = (slot - home(k, shift)) & mask;
+            if (residentDistance < distance) {
+                Object v = vs[slot];
+                ks[slot] = key;
+                vs[slot] = value;
+                key = k;
+                value = v;
+                distance = residentDistance;
+            }
+            slot = (slot + 1) & mask;
+            distance++;
+        }
+    }
+    
+    private static void removeAt(int[] ks, Object[] vs, int shift, int slot) {
+        int mask = ks.length - 1;
+        int next = (slot + 1) & mask;
+        while (true) {
+            int k = ks[next];
+            if (k == EMPTY || ((next - home(k, shift)) & mask) == 0) {
+                break;
+            }
+            ks[slot] = k;
+            vs[slot] = vs[next];
+            slot = next;
+            next = (next + 1) & mask;
+        }
+        ks[slot] = EMPTY;
+        vs[slot] = null; // 値への参照を残さない
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <V> void forEachIn(int[] ks, Object[] vs, EntryConsumer<? super V> action) {
+        for (int slot = 0; slot < ks.length; slot++) {
+            if (ks[slot] != EMPTY) {
+                action.accept(ks[slot], (V) vs[slot]);
+            }
+        }
+    }
+    
+    private void insert(int key, Object value) {
+        if (tableSize + oldSize + 1 > threshold) {
+            grow();
+        }
+        insertAbsent(keys, values, shift, key, value);
+        tableSize++;
+    }
+    
+    private void moveToCurrent(int oldSlot, Object value) {
+        int key = oldKeys[oldSlot];
+        removeAt(oldKeys, oldValues, oldShift, oldSlot);
+        oldSize--;
+        insertAbsent(keys, values, shift, key, value);
+        tableSize++;
+    }
+    
+    private void grow() {
+        if (oldKeys != null) {
+            finishMigration();
+        }
+        int[] previousKeys = keys;
+        Object[] previousValues = values;
+        int previousShift = shift;
+        allocate(keys.length * 2);
+        oldKeys = previousKeys;
+        oldValues = previousValues;
+        oldShift = previousShift;
+        oldSize = tableSize;
+        tableSize = 0;
+        int start = 0;
+        while (previousKeys[start] != EMPTY) {
+            start++;
+        }
+        migrateIndex = (start + 1) & (previousKeys.length - 1);
+        migrateRemaining = previousKeys.length;
+    }
+    
+    private void migrateStep() {
+        if (oldKeys == null) {
+            return;
+        }
+        int mask = oldKeys.length - 1;
+        int budget = MIGRATION_STEP;
+        while (true) {
+            int slot = migrateIndex;
+            int key = oldKeys[slot];
+            if (key != EMPTY) {
+                insertAbsent(keys, values, shift, key, oldValues[slot]);
+                oldKeys[slot] = EMPTY;
+                oldValues[slot] = null;
+                oldSize--;
+                tableSize++;
+            }
+            migrateIndex = (slot + 1) & mask;
+            if (--migrateRemaining == 0) {
+                oldKeys = null;
+                oldValues = null;
+                return;
+            }
+            if (--budget <= 0 && key == EMPTY) {
+                return;
+            }
+        }
+    }
+    
+    private void finishMigration() {
+        while (oldKeys != null) {
+            migrateStep();
+        }
+    }
+    
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        threshold = (int) (capacity * loadFactor);
+    }
+}
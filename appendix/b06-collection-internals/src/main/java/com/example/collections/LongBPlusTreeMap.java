@@ -0,0 +1,406 @@
+package com.example.collections;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * long キーの B+ 木（タイムスタンプで索引する時系列データ向け）
+ *
+ * 構造と分割の手順は {@link BPlusTreeMap} と同じ。キーを long[] に直接持つため、
+ * 探索中の比較で Long の参照をたどらず、ノード内の二分探索がキャッシュライン内で完結しやすい。
+ * 削除は未対応。スレッドセーフではない。
+ *
+ * @param <V> 値の型
+ */
+public class LongBPlusTreeMap<V> {
+    private final int nodeCapacity;
+    private Node root;
+    private Leaf firstLeaf;
+    private int size;
+    private int height = 1;
+    
+    private long splitKey;
+    private Object previousValue;
+    
+    abstract static class Node {
+        final long[] keys;
+        int size;
+        
+        Node(int capacity) {
+            keys = new long[capacity];
+        }
+    }
+    
+    static final class Leaf extends Node {
+        final Object[] values;
+        Leaf next;
+        
+        Leaf(int capacity) {
+            super(capacity);
+            values = new Object[capacity];
+        }
+    }
+    
+    static final class Internal extends Node {
+        final Node[] children;
+        
+        Internal(int capacity) {
+            super(capacity);
+            children = new Node[capacity + 1];
+        }
+    }
+    
+    public LongBPlusTreeMap() {
+        this(BPlusTreeMap.DEFAULT_NODE_CAPACITY);
+    }
+    
+    /**
+     * @param nodeCapacity 1ノードあたりの最大キー数
+     */
+    public LongBPlusTreeMap(int nodeCapacity) {
+        if (nodeCapacity < 3) {
+            throw new IllegalArgumentException("Node capacity must be at least 3: " + nodeCapacity);
+        }
+        this.nodeCapacity = nodeCapacity;
+        this.firstLeaf = new Leaf(nodeCapacity);
+        this.root = firstLeaf;
+    }
+    
+    /**
+     * 昇順のキーと対応する値から一括構築する
+     *
+     * @throws IllegalArgumentException キーが狭義の昇順でない、または値の数が異なる場合
+     */
+    public static <V> LongBPlusTreeMap<V> fromSorted(long[] sortedKeys, List<? extends V> values) {
+        return fromSorted(sortedKeys, values, BPlusTreeMap.DEFAULT_NODE_CAPACITY);
+    }
+    
+    public static <V> LongBPlusTreeMap<V> fromSorted(long[] sortedKeys, List<? extends V> values, int nodeCapacity) {
+        if (sortedKeys.length != values.size()) {
+            throw new IllegalArgumentException(
+                "Key and value counts differ: " + sortedKeys.length + ", " + values.size());
+        }
+        for (int i = 1; i < sortedKeys.length; i++) {
+            if (sortedKeys[i - 1] >= sortedKeys[i]) {
+                throw new IllegalArgumentException(
+                    "Keys are not strictly ascending: " + sortedKeys[i - 1] + ", " + sortedKeys[i]);
+            }
+        }
+        LongBPlusTreeMap<V> tree = new LongBPlusTreeMap<>(nodeCapacity);
+        tree.bulkLoad(sortedKeys, values.toArray());
+        return tree;
+    }
+    
+    /**
+     * 値の検索（存在しなければ null）
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        Leaf leaf = findLeaf(key);
+        int index = Arrays.binarySearch(leaf.keys, 0, leaf.size, key);
+        return index >= 0 ? (V) leaf.values[index] : null;
+    }
+    
+    public boolean containsKey(long key) {
+        Leaf leaf = findLeaf(key);
+        return Arrays.binarySearch(leaf.keys, 0, leaf.size, key) >= 0;
+    }
+    
+    /**
+     * 値の挿入（以前の値、なければ null を返す）
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        previousValue = null;
+        Node right = insert(root, key, value);
+        if (right != null) {
+            Internal newRoot = new Internal(nodeCapacity);
+            newRoot.keys[0] = splitKey;
+            newRoot.children[0] = root;
+            newRoot.children[1] = right;
+            newRoot.size = 1;
+            root = newRoot;
+            height++;
+        }
+        V previous = (V) previousValue;
+        previousValue = null;
+        return previous;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public int getHeight() {
+        return height;
+    }
+    
+    public long firstKey() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return firstLeaf.keys[0];
+    }
+    
+    public long lastKey() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        Node node = root;
+        while (node instanceof Internal) {
+            node = ((Internal) node).children[node.size];
+        }
+        return node.keys[node.size - 1];
+    }
+    
+    /**
+     * [fromKey, toKey) の範囲のエントリをキーの昇順で処理する
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachInRange(long fromKey, long toKey, EntryConsumer<? super V> action) {
+        Objects.requireNonNull(action, "action");
+        Leaf leaf = findLeaf(fromKey);
+        int index = lowerBound(leaf, fromKey);
+        while (leaf != null) {
+            for (; index < leaf.size; index++) {
+                long key = leaf.keys[index];
+                if (key >= toKey) {
+                    return;
+                }
+                action.accept(key, (V) leaf.values[index]);
+            }
+            leaf = leaf.next;
+            index = 0;
+        }
+    }
+    
+    /**
+     * [fromKey, toKey) の範囲のキー数（値を読まずに葉のキー配列だけをたどる）
+     * fromKey >= toKey なら forEachInRange と同じく空の範囲として 0 を返す
+     */
+    public int countInRange(long fromKey, long toKey) {
+        if (fromKey >= toKey) {
+            return 0;
+        }
+        Leaf leaf = findLeaf(fromKey);
+        int index = lowerBound(leaf, fromKey);
+        int count = 0;
+        while (leaf != null) {
+            if (leaf.size > 0 && leaf.keys[leaf.size - 1] < toKey) {
+                count += leaf.size - index; // 葉全体が範囲内
+            } else {
+                return count + lowerBound(leaf, toKey) - index;
+            }
+            leaf = leaf.next;
+            index = 0;
+        }
+        return count;
+    }
+    
+    /**
+     * 全エントリをキーの昇順で処理する
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> action) {
+        for (Leaf leaf = firstLeaf; leaf != null; leaf = leaf.next) {
+            for (int i = 0; i < leaf.size; i++) {
+                action.accept(leaf.keys[i], (V) leaf.values[i]);
+            }
+        }
+    }
+    
+    /**
+     * 統計情報を取得
+     */
+    public TreeMapInternals.BPlusTreeStats getStats() {
+        long[] counts = new long[4]; // 葉の数、葉のキー数、内部ノードの数、内部ノードの子の数
+        collectStats(root, counts);
+        return new TreeMapInternals.BPlusTreeStats(size, height, nodeCapacity,
+                (int) counts[0], (int) counts[2],
+                counts[0] > 0 ? (double) counts[1] / (counts[0] * nodeCapacity) : 0,
+                counts[2] > 0 ? (double) counts[3] / (counts[2] * (nodeCapacity + 1)) : 0);
+    }
+    
+    /**
+     * キーと値を受け取るコールバック（キーのボクシングを避ける）
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        void accept(long key, V value);
+    }
+    
+    // --- 内部処理（BPlusTreeMap と同じ手順） ---
+    
+    private void collectStats(Node node, long[] counts) {
+        if (node instanceof Leaf) {
+            counts[0]++;
+            counts[1] += node.size;
+            return;
+        }
+        Internal internal = (Internal) node;
+        counts[2]++;
+        counts[3] += internal.size + 1;
+        for (int i = 0; i <= internal.size; i++) {
+            collectStats(internal.children[i], counts);
+        }
+    }
+    
+    private static int childIndex(Internal node, long key) {
+        int index = Arrays.binarySearch(node.keys, 0, node.size, key);
+        return index >= 0 ? index + 1 : -(index + 1);
+    }
+    
+    private static int lowerBound(Leaf leaf, long key) {
+        int index = Arrays.binarySearch(leaf.keys, 0, leaf.size, key);
+        return index >= 0 ? index : -(index + 1);
+    }
+    
+    private Leaf findLeaf(long key) {
+        Node node = root;
+        while (node instanceof Internal) {
+            Internal internal = (Internal) node;
+            node = internal.children[childIndex(internal, key)];
+        }
+        return (Leaf) node;
+    }
+    
+    private Node insert(Node node, long key, V value) {
+        if (node instanceof Leaf) {
+            return insertIntoLeaf((Leaf) node, key, value);
+        }
+        Internal internal = (Internal) node;
+        int index = childIndex(internal, key);
+        Node right = insert(internal.children[index], key, value);
+        return right == null ? null : insertChild(internal, index, splitKey, right);
+    }
+    
+    private Node insertIntoLeaf(Leaf leaf, long key, V value) {
+        int index = Arrays.binarySearch(leaf.keys, 0, leaf.size, key);
+        if (index >= 0) {
+            previousValue = leaf.values[index];
+            leaf.values[index] = value;
+            return null;
+        }
+        index = -(index + 1);
+        size++;
+        if (leaf.size < nodeCapacity) {
+            insertAt(leaf, index, key, value);
+            return null;
+        }
+        
+        Leaf right = new Leaf(nodeCapacity);
+        int leftCount = (nodeCapacity + 1) / 2;
+        int moveFrom = index < leftCount ? leftCount - 1 : leftCount;
+        int moved = nodeCapacity - moveFrom;
+        System.arraycopy(leaf.keys, moveFrom, right.keys, 0, moved);
+        System.arraycopy(leaf.values, moveFrom, right.values, 0, moved);
+        Arrays.fill(leaf.values, moveFrom, nodeCapacity, null);
+        leaf.size = moveFrom;
+        right.size = moved;
+        if (index < leftCount) {
+            insertAt(leaf, index, key, value);
+        } else {
+            insertAt(right, index - leftCount, key, value);
+        }
+        right.next = leaf.next;
+        leaf.next = right;
+        splitKey = right.keys[0];
+        return right;
+    }
+    
+    private static void insertAt(Leaf leaf, int index, long key, Object value) {
+        System.arraycopy(leaf.keys, index, leaf.keys, index + 1, leaf.size - index);
+        System.arraycopy(leaf.values, index, leaf.values, index + 1, leaf.size - index);
+        leaf.keys[index] = key;
+        leaf.values[index] = value;
+        leaf.size++;
+    }
+    
+    private Node insertChild(Internal node, int index, long separator, Node child) {
+        if (node.size < nodeCapacity) {
+            System.arraycopy(node.keys, index, node.keys, index + 1, node.size - index);
+            System.arraycopy(node.children, index + 1, node.children, index + 2, node.size - index);
+            node.keys[index] = separator;
+            node.children[index + 1] = child;
+            node.size++;
+            return null;
+        }
+        
+        long[] keys = new long[nodeCapacity + 1];
+        Node[] children = new Node[nodeCapacity + 2];
+        System.arraycopy(node.keys, 0, keys, 0, index);
+        keys[index] = separator;
+        System.arraycopy(node.keys, index, keys, index + 1, nodeCapacity - index);
+        System.arraycopy(node.children, 0, children, 0, index + 1);
+        children[index + 1] = child;
+        System.arraycopy(node.children, index + 1, children, index + 2, nodeCapacity - index);
+        
+        int mid = (nodeCapacity + 1) / 2;
+        Internal right = new Internal(nodeCapacity);
+        Arrays.fill(node.children, null);
+        System.arraycopy(keys, 0, node.keys, 0, mid);
+        System.arraycopy(children, 0, node.children, 0, mid + 1);
+        node.size = mid;
+        System.arraycopy(keys, mid + 1, right.keys, 0, nodeCapacity - mid);
+        System.arraycopy(children, mid + 1, right.children, 0, nodeCapacity - mid + 1);
+        right.size = nodeCapacity - mid;
+        splitKey = keys[mid];
+        return right;
+    }
+    
+    private void bulkLoad(long[] keys, Object[] values) {
+        int count = keys.length;
+        if (count == 0) {
+            return;
+        }
+        int leafCount = (count + nodeCapacity - 1) / nodeCapacity;
+        Node[] level = new Node[leafCount];
+        long[] minKeys = new long[leafCount];
+        Leaf previous = null;
+        for (int i = 0, offset = 0; i < leafCount; i++) {
+            int n = (count - offset) / (leafCount - i);
+            Leaf leaf = new Leaf(nodeCapacity);
+            System.arraycopy(keys, offset, leaf.keys, 0, n);
+            System.arraycopy(values, offset, leaf.values, 0, n);
+            leaf.size = n;
+            if (previous == null) {
+                firstLeaf = leaf;
+            } else {
+                previous.next = leaf;
+            }
+            previous = leaf;
+            level[i] = leaf;
+            minKeys[i] = keys[offset];
+            offset += n;
+        }
+        int levels = 1;
+        while (level.length > 1) {
+            int fanout = nodeCapacity + 1;
+            int parentCount = (level.length + fanout - 1) / fanout;
+            Node[] parents = new Node[parentCount];
+            long[] parentMinKeys = new long[parentCount];
+            for (int i = 0, offset = 0; i < parentCount; i++) {
+                int n = (level.length - offset) / (parentCount - i);
+                Internal parent = new Internal(nodeCapacity);
+                System.arraycopy(level, offset, parent.children, 0, n);
+                System.arraycopy(minKeys, offset + 1, parent.keys, 0, n - 1);
+                parent.size = n - 1;
+                parents[i] = parent;
+                parentMinKeys[i] = minKeys[offset];
+                offset += n;
+            }
+            level = parents;
+            minKeys = parentMinKeys;
+            levels++;
+        }
+        root = level[0];
+        height = levels;
+        size = count;
+    }
+}
@@ -0,0 +1,424 @@
+package com.example.collections;
+
+import java.util.Arrays;
+
+/**
+ * long キーと long 値のオープンアドレス法ハッシュマップ
+ * キーと値を2本の long 配列に直接持つため、put でノードもボクシングも発生しない
+ *
+ * 衝突は Robin Hood 法の線形探索で解決する。挿入時に、ホーム位置からの距離が
+ * 自分より短い要素を見つけたら場所を入れ替えるため、探索長のばらつきが小さく、
+ * 検索は「自分より距離の短い要素」に出会った時点で打ち切れる。
+ * 削除は墓標を残さず、後続の要素を1つずつ前へずらす（backward-shift deletion）。
+ *
+ * リサイズは段階的に行う。新しいテーブルを確保した後、古いテーブルの要素は
+ * 以降の更新操作ごとにクラスタ単位で少しずつ移す（1回の put で全要素を再配置しない）。
+ * 移行中の検索は新旧両方のテーブルを調べる。
+ *
+ * キー 0 は空きスロットの印として使うため、テーブルとは別のフィールドに保持する。
+ * スレッドセーフではない。
+ */
+public class LongLongHashMap {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final double DEFAULT_LOAD_FACTOR = 0.75;
+    private static final int MIGRATION_STEP = 16; // 更新1回あたりに移すスロット数の目安
+    private static final long EMPTY = 0L;
+    
+    private final double loadFactor;
+    private final long noEntryValue;
+    
+    private long[] keys;
+    private long[] values;
+    private int shift; // 64 - log2(容量)
+    private int tableSize;
+    private int threshold;
+    
+    // 段階的リサイズ中の古いテーブル（移行が終われば null）
+    private long[] oldKeys;
+    private long[] oldValues;
+    private int oldShift;
+    private int oldSize;
+    private int migrateIndex;
+    private int migrateRemaining;
+    
+    private boolean hasZeroKey;
+    private long zeroValue;
+    
+    public LongLongHashMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR, 0L);
+    }
+    
+    /**
+     * @param expectedSize 想定する要素数（リサイズなしで格納できる容量を確保）
+     * @param loadFactor 負荷係数（0.5〜0.9）
+     * @param noEntryValue キーが存在しない時に get が返す値
+     */
+    public LongLongHashMap(int expectedSize, double loadFactor, long noEntryValue) {
+        if (!(loadFactor >= 0.5 && loadFactor <= 0.9)) {
+            throw new IllegalArgumentException("Load factor must be between 0.5 and 0.9: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        this.noEntryValue = noEntryValue;
+        allocate(tableSizeFor(expectedSize, loadFactor));
+    }
+    
+    /**
+     * 値の取得（存在しなければ noEntryValue）
+     */
+    public long get(long key) {
+        return getOrDefault(key, noEntryValue);
+    }
+    
+    public long getOrDefault(long key, long defaultValue) {
+        if (key == EMPTY) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int slot = find(keys, shift, key);
+        if (slot >= 0) {
+            return values[slot];
+        }
+        if (oldKeys != null) {
+            slot = find(oldKeys, oldShift, key);
+            if (slot >= 0) {
+                return oldValues[slot];
+            }
+        }
+        return defaultValue;
+    }
+    
+    public boolean containsKey(long key) {
+        if (key == EMPTY) {
+            return hasZeroKey;
+        }
+        return find(keys, shift, key) >= 0 || (oldKeys != null && find(oldKeys, oldShift, key) >= 0);
+    }
+    
+    /**
+     * 値の設定（以前の値、なければ noEntryValue を返す）
+     */
+    public long put(long key, long value) {
+        if (key == EMPTY) {
+            long previous = hasZeroKey ? zeroValue : noEntryValue;
+            hasZeroKey = true;
+            zeroValue = value;
+            return previous;
+        }
+        migrateStep();
+        int slot = find(keys, shift, key);
+        if (slot >= 0) {
+            long previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        if (oldKeys != null && (slot = find(oldKeys, oldShift, key)) >= 0) {
+            long previous = oldValues[slot];
+            moveToCurrent(slot, value);
+            return previous;
+        }
+        insert(key, value);
+        return noEntryValue;
+    }
+    
+    /**
+     * 値に delta を加算（キーがなければ noEntryValue + delta を設定）し、加算後の値を返す
+     * カウンター用途で get と put を2回探索せずに済む
+     */
+    public long addTo(long key, long delta) {
+        if (key == EMPTY) {
+            zeroValue = (hasZeroKey ? zeroValue : noEntryValue) + delta;
+            hasZeroKey = true;
+            return zeroValue;
+        }
+        migrateStep();
+        int slot = find(keys, shift, key);
+        if (slot >= 0) {
+            return values[slot] += delta;
+        }
+        if (oldKeys != null && (slot = find(oldKeys, oldShift, key)) >= 0) {
+            long value = oldValues[slot] + delta;
+            moveToCurrent(slot, value);
+            return value;
+        }
+        long value = noEntryValue + delta;
+        insert(key, value);
+        return value;
+    }
+    
+    /**
+     * 削除（以前の値、なければ noEntryValue を返す）
+     */
+    public long remove(long key) {
+        if (key == EMPTY) {
+            long previous = hasZeroKey ? zeroValue : noEntryValue;
+            hasZeroKey = false;
+            return previous;
+        }
+        migrateStep();
+        int slot = find(keys, shift, key);
+        if (slot >= 0) {
+            long previous = values[slot];
+            removeAt(keys, values, shift, slot);
+            tableSize--;
+            return previous;
+        }
+        if (oldKeys != null && (slot = find(oldKeys, oldShift, key)) >= 0) {
+            long previous = oldValues[slot];
+            removeAt(oldKeys, oldValues, oldShift, slot);
+            oldSize--;
+            return previous;
+        }
+        return noEntryValue;
+    }
+    
+    public int size() {
+        return tableSize + oldSize + (hasZeroKey ? 1 : 0);
+    }
+    
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+    
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        tableSize = 0;
+        oldKeys = null;
+        oldValues = null;
+        oldSize = 0;
+        hasZeroKey = false;
+    }
+    
+    /**
+     * 現在のテーブルのスロット数（リサイズ中の古いテーブルは含まない）
+     */
+    public int capacity() {
+        return keys.length;
+    }
+    
+    /**
+     * 全エントリの走査（順序は不定）
+     */
+    public void forEach(EntryConsumer action) {
+        if (hasZeroKey) {
+            action.accept(EMPTY, zeroValue);
+        }
+        forEachIn(keys, values, action);
+        if (oldKeys != null) {
+            forEachIn(oldKeys, oldValues, action);
+        }
+    }
+    
+    /**
+     * 衝突統計の取得
+     * チェーン長は各要素の探索長（ホーム位置からの距離 + 1）として数える
+     * リサイズ中は古いテーブルのスロットと要素も含む
+     */
+    public HashMapInternals.CollisionStats getCollisionStats() {
+        int totalSlots = 0;
+        int used = 0;
+        int totalProbeLength = 0;
+        int maxProbeLength = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            long[] ks = pass == 0 ? keys : oldKeys;
+            if (ks == null) {
+                continue;
+            }
+            int s = pass == 0 ? shift : oldShift;
+            int mask = ks.length - 1;
+            totalSlots += ks.length;
+            for (int slot = 0; slot < ks.length; slot++) {
+                if (ks[slot] != EMPTY) {
+                    int probeLength = ((slot - home(ks[slot], s)) & mask) + 1;
+                    used++;
+                    totalProbeLength += probeLength;
+                    maxProbeLength = Math.max(maxProbeLength, probeLength);
+                }
+            }
+        }
+        return new HashMapInternals.CollisionStats(
+            totalSlots,
+            used,
+            totalSlots - used,
+            totalProbeLength,
+            maxProbeLength,
+            used > 0 ? (double) totalProbeLength / used : 0
+        );
+    }
+    
+    /**
+     * キーと値を受け取るコールバック（ボクシングを避けるための専用インターフェース）
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, long value);
+    }
+    
+    // --- 内部処理 ---
+    
+    /**
+     * フィボナッチハッシュ（黄金比の乗算の上位ビット）でホーム位置を求める
+     */
+    private static int home(long key, int shift) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+    
+    private static int find(long[] ks, int shift, long key) {
+        int mask = ks.length - 1;
+        int slot = home(key, shift);
+        for (int distance = 0; ; distance++) {
+            long k = ks[slot];
+            if (k == key) {
+                return slot;
+            }
+            // 空きか、自分より距離の短い要素に出会ったら存在しない（Robin Hood の不変条件）
+            if (k == EMPTY || ((slot - home(k, shift)) & mask) < distance) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+    
+    private static void insertAbsent(long[] ks, long[] vs, int shift, long key, long value) {
+        int mask = ks.length - 1;
+        int slot = home(key, shift);
+        int distance = 0;
+        while (true) {
+            long k = ks[slot];
+            if (k == EMPTY) {
+                ks[slot] = key;
+                vs[slot] = value;
+                return;
+            }
+            int residentDistance = (slot - home(k, shift)) & mask;
+            if (residentDistance < distance) {
+                // ホームに近い要素から場所を奪い、その要素の挿入を続ける
+                long v = vs[slot];
+                ks[slot] = key;
+                vs[slot] = value;
+                key = k;
+                value = v;
+                distance = residentDistance;
+            }
+            slot = (slot + 1) & mask;
+            distance++;
+        }
+    }
+    
+    private static void removeAt(long[] ks, long[] vs, int shift, int slot) {
+        int mask = ks.length - 1;
+        int next = (slot + 1) & mask;
+        while (true) {
+            long k = ks[next];
+            // 空きかホーム位置にある要素まで、後続を1つずつ前へずらす
+            if (k == EMPTY || ((next - home(k, shift)) & mask) == 0) {
+                break;
+            }
+            ks[slot] = k;
+            vs[slot] = vs[next];
+            slot = next;
+            next = (next + 1) & mask;
+        }
+        ks[slot] = EMPTY;
+        vs[slot] = 0L;
+    }
+    
+    private static void forEachIn(long[] ks, long[] vs, EntryConsumer action) {
+        for (int slot = 0; slot < ks.length; slot++) {
+            if (ks[slot] != EMPTY) {
+                action.accept(ks[slot], vs[slot]);
+            }
+        }
+    }
+    
+    private void insert(long key, long value) {
+        if (tableSize + oldSize + 1 > threshold) {
+            grow();
+        }
+        insertAbsent(keys, values, shift, key, value);
+        tableSize++;
+    }
+    
+    private void moveToCurrent(int oldSlot, long value) {
+        long key = oldKeys[oldSlot];
+        removeAt(oldKeys, oldValues, oldShift, oldSlot);
+        oldSize--;
+        insertAbsent(keys, values, shift, key, value);
+        tableSize++;
+    }
+    
+    /**
+     * 2倍のテーブルを確保し、古いテーブルを段階的な移行対象にする
+     */
+    private void grow() {
+        if (oldKeys != null) {
+            finishMigration(); // 前回の移行が終わる前に再び満杯になった
+        }
+        long[] previousKeys = keys;
+        long[] previousValues = values;
+        int previousShift = shift;
+        allocate(keys.length * 2);
+        oldKeys = previousKeys;
+        oldValues = previousValues;
+        oldShift = previousShift;
+        oldSize = tableSize;
+        tableSize = 0;
+        // 空きスロットの次から始めると、クラスタの途中から移すことがない
+        int start = 0;
+        while (previousKeys[start] != EMPTY) {
+            start++;
+        }
+        migrateIndex = (start + 1) & (previousKeys.length - 1);
+        migrateRemaining = previousKeys.length;
+    }
+    
+    /**
+     * 古いテーブルから MIGRATION_STEP スロット程度を移す
+     * 空きスロットの直後で止めるため、クラスタは常に丸ごと移り、残りのクラスタの探索列は壊れない
+     */
+    private void migrateStep() {
+        if (oldKeys == null) {
+            return;
+        }
+        int mask = oldKeys.length - 1;
+        int budget = MIGRATION_STEP;
+        while (true) {
+            int slot = migrateIndex;
+            long key = oldKeys[slot];
+            if (key != EMPTY) {
+                insertAbsent(keys, values, shift, key, oldValues[slot]);
+                oldKeys[slot] = EMPTY;
+                oldSize--;
+                tableSize++;
+            }
+            migrateIndex = (slot + 1) & mask;
+            if (--migrateRemaining == 0) {
+                oldKeys = null;
+                oldValues = null;
+                return;
+            }
+            if (--budget <= 0 && key == EMPTY) {
+                return;
+            }
+        }
+    }
+    
+    private void finishMigration() {
+        while (oldKeys != null) {
+            migrateStep();
+        }
+    }
+    
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        threshold = (int) (capacity * loadFactor);
+    }
+    
+    static int tableSizeFor(int expectedSize, double loadFactor) {
+        long required = (long) Math.ceil(Math.max(expectedSize, 1) / loadFactor) + 1;
+        if (required > 1 << 30) {
+            throw new IllegalArgumentException("Expected size is too large: " + expectedSize);
+        }
+        return Math.max(DEFAULT_CAPACITY, Integer.highestOneBit((int) required - 1) << 1);
+    }
+}
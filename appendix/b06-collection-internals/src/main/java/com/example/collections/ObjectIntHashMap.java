@@ -0,0 +1,363 @@
+package com.example.collections;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * オブジェクトキーと int 値のオープンアドレス法ハッシュマップ
+ * 単語の出現回数のような集計で、HashMap&lt;K, Integer&gt; の値のボクシングとノードを省く
+ *
+ * 探索・削除・段階的リサイズの仕組みは {@link LongLongHashMap} と同じ
+ * （Robin Hood 線形探索、backward-shift deletion、クラスタ単位の移行）。
+ * 空きスロットの印に null を使うため、null キーは格納できない。
+ * 探索中に各要素の hashCode() を呼び直すので、String のようにハッシュ値を
+ * キャッシュするキーに向く。スレッドセーフではない。
+ *
+ * @param <K> キーの型
+ */
+public class ObjectIntHashMap<K> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final double DEFAULT_LOAD_FACTOR = 0.75;
+    private static final int MIGRATION_STEP = 16;
+    
+    private final double loadFactor;
+    private final int noEntryValue;
+    
+    private Object[] keys;
+    private int[] values;
+    private int shift; // 32 - log2(容量)
+    private int tableSize;
+    private int threshold;
+    
+    private Object[] oldKeys;
+    private int[] oldValues;
+    private int oldShift;
+    private int oldSize;
+    private int migrateIndex;
+    private int migrateRemaining;
+    
+    public ObjectIntHashMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR, 0);
+    }
+    
+    /**
+     * @param expectedSize 想定する要素数
+     * @param loadFactor 負荷係数（0.5〜0.9）
+     * @param noEntryValue キーが存在しない時に get が返す値
+     */
+    public ObjectIntHashMap(int expectedSize, double loadFactor, int noEntryValue) {
+        if (!(loadFactor >= 0.5 && loadFactor <= 0.9)) {
+            throw new IllegalArgumentException("Load factor must be between 0.5 and 0.9: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        this.noEntryValue = noEntryValue;
+        allocate(LongLongHashMap.tableSizeFor(expectedSize, loadFactor));
+    }
+    
+    public int get(Object key) {
+        return getOrDefault(key, noEntryValue);
+    }
+    
+    public int getOrDefault(Object key, int defaultValue) {
+        Objects.requireNonNull(key, "key");
+        int slot = find(keys, shift, key);
+        if (slot >= 0) {
+            return values[slot];
+        }
+        if (oldKeys != null) {
+            slot = find(oldKeys, oldShift, key);
+            if (slot >= 0) {
+                return oldValues[slot];
+            }
+        }
+        return defaultValue;
+    }
+    
+    public boolean containsKey(Object key) {
+        Objects.requireNonNull(key, "key");
+        return find(keys, shift, key) >= 0 || (oldKeys != null && find(oldKeys, oldShift, key) >= 0);
+    }
+    
+    /**
+     * 値の設定（以前の値、なければ noEntryValue を返す）
+     */
+    public int put(K key, int value) {
+        Objects.requireNonNull(key, "key");
+        migrateStep();
+        int slot = find(keys, shift, key);
+        if (slot >= 0) {
+            int previous = values[slot];
+            values[slot] = value;
+            return previous;
+        }
+        if (oldKeys != null && (slot = find(oldKeys, oldShift, key)) >= 0) {
+            int previous = oldValues[slot];
+            moveToCurrent(slot, value);
+            return previous;
+        }
+        insert(key, value);
+        return noEntryValue;
+    }
+    
+    /**
+     * 値に delta を加算（キーがなければ noEntryValue + delta を設定）し、加算後の値を返す
+     */
+    public int addTo(K key, int delta) {
+        Objects.requireNonNull(key, "key");
+        migrateStep();
+        int slot = find(keys, shift, key);
+        if (slot >= 0) {
+            return values[slot] += delta;
+        }
+        if (oldKeys != null && (slot = find(oldKeys, oldShift, key)) >= 0) {
+            int value = oldValues[slot] + delta;
+            moveToCurrent(slot, value);
+            return value;
+        }
+        int value = noEntryValue + delta;
+        insert(key, value);
+        return value;
+    }
+    
+    /**
+     * 削除（以前の値、なければ noEntryValue を返す）
+     */
+    public int remove(Object key) {
+        Objects.requireNonNull(key, "key");
+        migrateStep();
+        int slot = find(keys, shift, key);
+        if (slot >= 0) {
+            int previous = values[slot];
+            removeAt(keys, values, shift, slot);
+            tableSize--;
+            return previous;
+        }
+        if (oldKeys != null && (slot = find(oldKeys, oldShift, key)) >= 0) {
+            int previous = oldValues[slot];
+            removeAt(oldKeys, oldValues, oldShift, slot);
+            oldSize--;
+            return previous;
+        }
+        return noEntryValue;
+    }
+    
+    public int size() {
+        return tableSize + oldSize;
+    }
+    
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+    
+    public void clear() {
+        Arrays.fill(keys, null);
+        tableSize = 0;
+        oldKeys = null;
+        oldValues = null;
+        oldSize = 0;
+    }
+    
+    /**
+     * 全エントリの走査（順序は不定）
+     */
+    public void forEach(ObjIntConsumer<? super K> action) {
+        forEachIn(keys, values, action);
+        if (oldKeys != null) {
+            forEachIn(oldKeys, oldValues, action);
+        }
+    }
+    
+    /**
+     * 衝突統計の取得（チェーン長は探索長として数える）
+     */
+    public HashMapInternals.CollisionStats getCollisionStats() {
+        int totalSlots = 0;
+        int used = 0;
+        int totalProbeLength = 0;
+        int maxProbeLength = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            Object[] ks = pass == 0 ? keys : oldKeys;
+            if (ks == null) {
+                continue;
+            }
+            int s = pass == 0 ? shift : oldShift;
+            int mask = ks.length - 1;
+            totalSlots += ks.length;
+            for (int slot = 0; slot < ks.length; slot++) {
+                if (ks[slot] != null) {
+                    int probeLength = ((slot - home(ks[slot], s)) & mask) + 1;
+                    used++;
+                    totalProbeLength += probeLength;
+                    maxProbeLength = Math.max(maxProbeLength, probeLength);
+                }
+            }
+        }
+        return new HashMapInternals.CollisionStats(
+            totalSlots,
+            used,
+            totalSlots - used,
+            totalProbeLength,
+            maxProbeLength,
+            used > 0 ? (double) totalProbeLength / used : 0
+        );
+    }
+    
+    // --- 内部処理（LongLongHashMap と同じ手順） ---
+    
+    /**
+     * hashCode() の下位ビットだけが異なるキーでも散らばるよう、乗算の上位ビットを使う
+     */
+    private static int home(Object key, int shift) {
+        return (key.hashCode() * 0x9E3779B9) >>> shift;
+    }
+    
+    private static int find(Object[] ks, int shift, Object key) {
+        int mask = ks.length - 1;
+        int hash = key.hashCode();
+        int slot = (hash * 0x9E3779B9) >>> shift;
+        for (int distance = 0; ; distance++) {
+            Object k = ks[slot];
+            if (k == null) {
+                return -1;
+            }
+            // ハッシュ値が異なれば equals() を呼ばない（HashMap と同じ）
+            int residentHash = k.hashCode();
+            if (residentHash == hash && (k == key || k.equals(key))) {
+                return slot;
+            }
+            if (((slot - ((residentHash * 0x9E3779B9) >>> shift)) & mask) < distance) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+    
+    private static void insertAbsent(Object[] ks, int[] vs, int shift, Object key, int value) {
+        int mask = ks.length - 1;
+        int slot = home(key, shift);
+        int distance = 0;
+        while (true) {
+            Object k = ks[slot];
+            if (k == null) {
+                ks[slot] = key;
+                vs[slot] = value;
+                return;
+            }
+            int residentDistance = (slot - home(k, shift)) & mask;
+            if (residentDistance < distance) {
+                int v = vs[slot];
+                ks[slot] = key;
+                vs[slot] = value;
+                key = k;
+                value = v;
+                distance = residentDistance;
+            }
+            slot = (slot + 1) & mask;
+            distance++;
+        }
+    }
+    
+    private static void removeAt(Object[] ks, int[] vs, int shift, int slot) {
+        int mask = ks.length - 1;
+        int next = (slot + 1) & mask;
+        while (true) {
+            Object k = ks[next];
+            if (k == null || ((next - home(k, shift)) & mask) == 0) {
+                break;
+            }
+            ks[slot] = k;
+            vs[slot] = vs[next];
+            slot = next;
+            next = (next + 1) & mask;
+        }
+        ks[slot] = null;
+        vs[slot] = 0;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <K> void forEachIn(Object[] ks, int[] vs, ObjIntConsumer<? super K> action) {
+        for (int slot = 0; slot < ks.length; slot++) {
+            if (ks[slot] != null) {
+                action.accept((K) ks[slot], vs[slot]);
+            }
+        }
+    }
+    
+    private void insert(Object key, int value) {
+        if (tableSize + oldSize + 1 > threshold) {
+            grow();
+        }
+        insertAbsent(keys, values, shift, key, value);
+        tableSize++;
+    }
+    
+    private void moveToCurrent(int oldSlot, int value) {
+        Object key = oldKeys[oldSlot];
+        removeAt(oldKeys, oldValues, oldShift, oldSlot);
+        oldSize--;
+        insertAbsent(keys, values, shift, key, value);
+        tableSize++;
+    }
+    
+    private void grow() {
+        if (oldKeys != null) {
+            finishMigration();
+        }
+        Object[] previousKeys = keys;
+        int[] previousValues = values;
+        int previousShift = shift;
+        allocate(keys.length * 2);
+        oldKeys = previousKeys;
+        oldValues = previousValues;
+        oldShift = previousShift;
+        oldSize = tableSize;
+        tableSize = 0;
+        int start = 0;
+        while (previousKeys[start] != null) {
+            start++;
+        }
+        migrateIndex = (start + 1) & (previousKeys.length - 1);
+        migrateRemaining = previousKeys.length;
+    }
+    
+    private void migrateStep() {
+        if (oldKeys == null) {
+            return;
+        }
+        int mask = oldKeys.length - 1;
+        int budget = MIGRATION_STEP;
+        while (true) {
+            int slot = migrateIndex;
+            Object key = oldKeys[slot];
+            if (key != null) {
+                insertAbsent(keys, values, shift, key, oldValues[slot]);
+                oldKeys[slot] = null;
+                oldSize--;
+                tableSize++;
+            }
+            migrateIndex = (slot + 1) & mask;
+            if (--migrateRemaining == 0) {
+                oldKeys = null;
+                oldValues = null;
+                return;
+            }
+            if (--budget <= 0 && key == null) {
+                return;
+            }
+        }
+    }
+    
+    private void finishMigration() {
+        while (oldKeys != null) {
+            migrateStep();
+        }
+    }
+    
+    private void allocate(int capacity) {
+        keys = new Object[capacity];
+        values = new int[capacity];
+        shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        threshold = (int) (capacity * loadFactor);
+    }
+}
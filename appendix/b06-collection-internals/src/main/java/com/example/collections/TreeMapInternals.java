@@ -1,6 +1,7 @@
 package com.example.collections;
 
 import java.util.*;
+import java.util.function.BiConsumer;
 
 /**
  * TreeMap内部実装の詳細デモンストレーション
@@ -17,6 +18,18 @@ public class TreeMapInternals {
         
         private Node root;
         private int size;
+        private final boolean traceRotations;
+        
+        public SimpleRedBlackTree() {
+            this(true);
+        }
+        
+        /**
+         * @param traceRotations 回転のたびに標準出力へ表示するか（大量の要素を入れる比較では false）
+         */
+        public SimpleRedBlackTree(boolean traceRotations) {
+            this.traceRotations = traceRotations;
+        }
         
         class Node {
             K key;
@@ -167,7 +180,9 @@ public class TreeMapInternals {
                 r.left = p;
                 p.parent = r;
                 
-                System.out.println("Left rotation on node: " + p.key);
+                if (traceRotations) {
+                    System.out.println("Left rotation on node: " + p.key);
+                }
             }
         }
         
@@ -192,7 +207,9 @@ public class TreeMapInternals {
                 l.right = p;
                 p.parent = l;
                 
-                System.out.println("Right rotation on node: " + p.key);
+                if (traceRotations) {
+                    System.out.println("Right rotation on node: " + p.key);
+                }
             }
         }
         
@@ -234,6 +251,30 @@ public class TreeMapInternals {
             }
         }
         
+        /**
+         * [fromKey, toKey) の範囲のエントリを中順で処理する
+         * 範囲外の部分木は降りずに枝刈りする
+         */
+        public void forEachInRange(K fromKey, K toKey, BiConsumer<? super K, ? super V> action) {
+            forEachInRange(root, fromKey, toKey, action);
+        }
+        
+        private void forEachInRange(Node node, K fromKey, K toKey,
+                                    BiConsumer<? super K, ? super V> action) {
+            if (node == null) return;
+            boolean aboveFrom = node.key.compareTo(fromKey) >= 0;
+            boolean belowTo = node.key.compareTo(toKey) < 0;
+            if (aboveFrom) {
+                forEachInRange(node.left, fromKey, toKey, action);
+            }
+            if (aboveFrom && belowTo) {
+                action.accept(node.key, node.value);
+            }
+            if (belowTo) {
+                forEachInRange(node.right, fromKey, toKey, action);
+            }
+        }
+        
         /**
          * 木の構造を視覚化
          */
@@ -371,6 +412,40 @@ public class TreeMapInternals {
         }
     }
     
+    /**
+     * B+ 木の統計情報（BPlusTreeMap / LongBPlusTreeMap）
+     * 充填率は「格納しているキー（子）の数 / ノードの容量」の平均
+     */
+    public static class BPlusTreeStats {
+        public final int size;
+        public final int height;
+        public final int nodeCapacity;
+        public final int leafNodes;
+        public final int internalNodes;
+        public final double leafFillFactor;
+        public final double internalFillFactor;
+        
+        public BPlusTreeStats(int size, int height, int nodeCapacity, int leafNodes, int internalNodes,
+                              double leafFillFactor, double internalFillFactor) {
+            this.size = size;
+            this.height = height;
+            this.nodeCapacity = nodeCapacity;
+            this.leafNodes = leafNodes;
+            this.internalNodes = internalNodes;
+            this.leafFillFactor = leafFillFactor;
+            this.internalFillFactor = internalFillFactor;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format(
+                "BPlusTreeStats{size=%d, height=%d, capacity=%d, leaves=%d, internal=%d, leafFill=%.1f%%, internalFill=%.1f%%}",
+                size, height, nodeCapacity, leafNodes, internalNodes,
+                leafFillFactor * 100, internalFillFactor * 100
+            );
+        }
+    }
+    
     /**
      * 二分探索木とのパフォーマンス比較用（平衡しない木）
      */
@@ -611,6 +686,59 @@ public class TreeMapInternals {
         System.out.println("  HashMap equivalent: O(n) scan through all items");
     }
     
+    /**
+     * 赤黒木とB+木の構造の比較
+     * 実行時間は benchmark.TreeMapBenchmark（JMH）で計測する。
+     * ここでは同じキー集合での木の高さ、ノード数、充填率と範囲走査の結果を比べる
+     */
+    public static void compareRedBlackTreeVsBPlusTree() {
+        System.out.println("\n=== Red-Black Tree vs B+ Tree ===");
+        
+        int itemCount = 1_000_000;
+        List<Long> keys = new ArrayList<>(itemCount);
+        for (long i = 0; i < itemCount; i++) {
+            keys.add(i * 10); // 10刻みのタイムスタンプ
+        }
+        Collections.shuffle(keys, new Random(42));
+        
+        SimpleRedBlackTree<Long, Long> rbTree = new SimpleRedBlackTree<>(false);
+        BPlusTreeMap<Long, Long> bPlusTree = new BPlusTreeMap<>();
+        LongBPlusTreeMap<Long> longBPlusTree = new LongBPlusTreeMap<>();
+        for (Long key : keys) {
+            rbTree.put(key, key);
+            bPlusTree.put(key, key);
+            longBPlusTree.put(key, key);
+        }
+        
+        TreeMap<Long, Long> sorted = new TreeMap<>();
+        for (Long key : keys) {
+            sorted.put(key, key);
+        }
+        BPlusTreeMap<Long, Long> bulkLoaded = BPlusTreeMap.fromSorted(sorted.entrySet());
+        
+        System.out.println("Red-black tree: " + rbTree.getStats());
+        System.out.println("  Nodes: " + rbTree.size() + " (one per entry)");
+        System.out.println("B+ tree (random inserts): " + bPlusTree.getStats());
+        System.out.println("B+ tree (bulk loaded):    " + bulkLoaded.getStats());
+        System.out.println("Long-key B+ tree:         " + longBPlusTree.getStats());
+        
+        // 範囲走査の結果が一致するか
+        long from = 2_000_000;
+        long to = 2_100_000;
+        long[] rbSum = new long[2];
+        rbTree.forEachInRange(from, to, (k, v) -> { rbSum[0]++; rbSum[1] += v; });
+        long[] bPlusSum = new long[2];
+        bPlusTree.forEachInRange(from, to, (k, v) -> { bPlusSum[0]++; bPlusSum[1] += v; });
+        long[] longSum = new long[2];
+        longBPlusTree.forEachInRange(from, to, (k, v) -> { longSum[0]++; longSum[1] += v; });
+        long treeMapSum = sorted.subMap(from, to).values().stream().mapToLong(Long::longValue).sum();
+        
+        System.out.println("Range [" + from + ", " + to + "): " + bPlusSum[0] + " entries");
+        System.out.println("  Results match: " + (rbSum[1] == treeMapSum && bPlusSum[1] == treeMapSum
+                && longSum[1] == treeMapSum && longBPlusTree.countInRange(from, to) == bPlusSum[0]));
+        System.out.println("Timings: run benchmark.TreeMapBenchmark (JMH)");
+    }
+    
     /**
      * メモリ使用量の比較
      */
@@ -666,6 +794,7 @@ public class TreeMapInternals {
         demonstrateRedBlackTreeConstruction();
         compareBalancedVsUnbalanced();
         compareTreeMapVsHashMap();
+        compareRedBlackTreeVsBPlusTree();
         compareMemoryUsage();
         
         System.out.println("\n=== TreeMap Internals Summary ===");
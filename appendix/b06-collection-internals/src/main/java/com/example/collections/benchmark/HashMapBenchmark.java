@@ -0,0 +1,176 @@
+package com.example.collections.benchmark;
+
+import com.example.collections.HashMapInternals.SimpleHashMap;
+import com.example.collections.IntObjectHashMap;
+import com.example.collections.LongLongHashMap;
+import com.example.collections.ObjectIntHashMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 標準HashMap、SimpleHashMap（チェーン法）、プリミティブ特化のオープンアドレス法マップの比較
+ * HashMapInternals.compareWithStandardHashMap の手動計測を置き換える
+ *
+ * 1回の呼び出しで size 個のキーを処理し、1要素あたりの時間を報告する（OperationsPerInvocation）。
+ * build* は空のマップからの構築（リサイズを含む）で、GCProfiler の gc.alloc.rate.norm を
+ * size で割ると1エントリあたりの割り当てバイト数になる。
+ *
+ * mvn package で作る target/benchmarks.jar から実行する（java -jar target/benchmarks.jar HashMapBenchmark）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class HashMapBenchmark {
+    
+    private static final int OPS = 1 << 16; // 1回の呼び出しで検索するキー数
+    
+    @Param({"100000", "10000000"})
+    int size;
+    
+    long[] keys;
+    long[] lookupKeys; // 半分は存在するキー、半分は存在しないキー
+    String[] words;
+    
+    Map<Long, Long> hashMap;
+    SimpleHashMap<Long, Long> simpleHashMap;
+    LongLongHashMap longLongMap;
+    Map<Integer, Object> intKeyHashMap;
+    IntObjectHashMap<Object> intObjectMap;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = random.nextLong();
+        }
+        lookupKeys = new long[OPS];
+        for (int i = 0; i < OPS; i++) {
+            lookupKeys[i] = (i & 1) == 0 ? keys[random.nextInt(size)] : random.nextLong();
+        }
+        words = new String[OPS];
+        for (int i = 0; i < OPS; i++) {
+            words[i] = "word" + random.nextInt(OPS / 8); // 1語あたり平均8回出現
+        }
+        
+        hashMap = new HashMap<>();
+        // SimpleHashMap はリサイズのたびに標準出力へ書くため、あらかじめ容量を確保する
+        simpleHashMap = new SimpleHashMap<>(Integer.highestOneBit(size) << 1, 0.75);
+        longLongMap = new LongLongHashMap();
+        intKeyHashMap = new HashMap<>();
+        intObjectMap = new IntObjectHashMap<>();
+        for (int i = 0; i < size; i++) {
+            hashMap.put(keys[i], (long) i);
+            simpleHashMap.put(keys[i], (long) i);
+            longLongMap.put(keys[i], i);
+            intKeyHashMap.put((int) keys[i], keys);
+            intObjectMap.put((int) keys[i], keys);
+        }
+    }
+    
+    // --- 検索 ---
+    
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public void getHashMap(Blackhole bh) {
+        for (long key : lookupKeys) {
+            bh.consume(hashMap.get(key));
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public void getSimpleHashMap(Blackhole bh) {
+        for (long key : lookupKeys) {
+            bh.consume(simpleHashMap.get(key));
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public void getLongLongHashMap(Blackhole bh) {
+        for (long key : lookupKeys) {
+            bh.consume(longLongMap.get(key));
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public void getIntKeyHashMap(Blackhole bh) {
+        for (long key : lookupKeys) {
+            bh.consume(intKeyHashMap.get((int) key));
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public void getIntObjectHashMap(Blackhole bh) {
+        for (long key : lookupKeys) {
+            bh.consume(intObjectMap.get((int) key));
+        }
+    }
+    
+    // --- 構築（リサイズと割り当てを含む） ---
+    
+    @Benchmark
+    public Object buildHashMap() {
+        Map<Long, Long> map = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], (long) i);
+        }
+        return map;
+    }
+    
+    @Benchmark
+    public Object buildLongLongHashMap() {
+        LongLongHashMap map = new LongLongHashMap();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        return map;
+    }
+    
+    // --- 集計（単語の出現回数） ---
+    
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public Object countHashMapMerge() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String word : words) {
+            counts.merge(word, 1, Integer::sum);
+        }
+        return counts;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public Object countObjectIntHashMap() {
+        ObjectIntHashMap<String> counts = new ObjectIntHashMap<>();
+        for (String word : words) {
+            counts.addTo(word, 1);
+        }
+        return counts;
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(HashMapBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        
+        new Runner(opt).run();
+    }
+}
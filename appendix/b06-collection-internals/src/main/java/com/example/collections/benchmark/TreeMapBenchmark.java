@@ -0,0 +1,237 @@
+package com.example.collections.benchmark;
+
+import com.example.collections.BPlusTreeMap;
+import com.example.collections.LongBPlusTreeMap;
+import com.example.collections.TreeMapInternals.SimpleRedBlackTree;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TreeMap、SimpleRedBlackTree（赤黒木）、BPlusTreeMap、LongBPlusTreeMap の比較
+ * キーは10刻みのタイムスタンプで、ランダムな順序で挿入した木を使う
+ *
+ * get*: ランダムな既存キーの検索（1キーあたりの時間）
+ * range*: 連続する RANGE_LENGTH 件の範囲走査（1回の走査あたりの時間）
+ * build*: size 件の挿入による構築（SingleShotTime、1回の構築の時間）
+ *
+ * mvn package で作る target/benchmarks.jar から実行する（java -jar target/benchmarks.jar TreeMapBenchmark）。
+ * size=10000000 では木ごとに数百MBを使うので、ヒープを大きめに取っている
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class TreeMapBenchmark {
+    
+    private static final int LOOKUPS = 1 << 16;
+    private static final int RANGES = 64;
+    private static final int RANGE_LENGTH = 1_000;
+    private static final long KEY_STEP = 10;
+    
+    @Param({"1000000", "10000000"})
+    int size;
+    
+    long[] shuffledKeys;
+    long[] sortedKeys;
+    List<Long> sortedValues;
+    long[] lookupKeys;
+    long[] rangeStarts;
+    
+    TreeMap<Long, Long> treeMap;
+    SimpleRedBlackTree<Long, Long> redBlackTree;
+    BPlusTreeMap<Long, Long> bPlusTree;
+    LongBPlusTreeMap<Long> longBPlusTree;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        sortedKeys = new long[size];
+        sortedValues = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            sortedKeys[i] = i * KEY_STEP;
+            sortedValues.add(sortedKeys[i]);
+        }
+        shuffledKeys = sortedKeys.clone();
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long tmp = shuffledKeys[i];
+            shuffledKeys[i] = shuffledKeys[j];
+            shuffledKeys[j] = tmp;
+        }
+        lookupKeys = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookupKeys[i] = random.nextInt(size) * KEY_STEP;
+        }
+        rangeStarts = new long[RANGES];
+        for (int i = 0; i < RANGES; i++) {
+            rangeStarts[i] = random.nextInt(size - RANGE_LENGTH) * KEY_STEP;
+        }
+        
+        treeMap = buildTreeMap();
+        redBlackTree = buildRedBlackTree();
+        bPlusTree = buildBPlusTree();
+        longBPlusTree = buildLongBPlusTree();
+    }
+    
+    // --- 点検索 ---
+    
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void getTreeMap(Blackhole bh) {
+        for (long key : lookupKeys) {
+            bh.consume(treeMap.get(key));
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void getRedBlackTree(Blackhole bh) {
+        for (long key : lookupKeys) {
+            bh.consume(redBlackTree.get(key));
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void getBPlusTree(Blackhole bh) {
+        for (long key : lookupKeys) {
+            bh.consume(bPlusTree.get(key));
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void getLongBPlusTree(Blackhole bh) {
+        for (long key : lookupKeys) {
+            bh.consume(longBPlusTree.get(key));
+        }
+    }
+    
+    // --- 範囲走査（値の合計） ---
+    
+    @Benchmark
+    @OperationsPerInvocation(RANGES)
+    public long rangeTreeMap() {
+        long sum = 0;
+        for (long from : rangeStarts) {
+            for (Map.Entry<Long, Long> entry : treeMap.subMap(from, from + RANGE_LENGTH * KEY_STEP).entrySet()) {
+                sum += entry.getValue();
+            }
+        }
+        return sum;
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(RANGES)
+    public long rangeRedBlackTree() {
+        long[] sum = new long[1];
+        for (long from : rangeStarts) {
+            redBlackTree.forEachInRange(from, from + RANGE_LENGTH * KEY_STEP, (k, v) -> sum[0] += v);
+        }
+        return sum[0];
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(RANGES)
+    public long rangeBPlusTree() {
+        long[] sum = new long[1];
+        for (long from : rangeStarts) {
+            bPlusTree.forEachInRange(from, from + RANGE_LENGTH * KEY_STEP, (k, v) -> sum[0] += v);
+        }
+        return sum[0];
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(RANGES)
+    public long rangeLongBPlusTree() {
+        long[] sum = new long[1];
+        for (long from : rangeStarts) {
+            longBPlusTree.forEachInRange(from, from + RANGE_LENGTH * KEY_STEP, (k, v) -> sum[0] += v);
+        }
+        return sum[0];
+    }
+    
+    // --- 構築 ---
+    
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public TreeMap<Long, Long> buildTreeMap() {
+        TreeMap<Long, Long> map = new TreeMap<>();
+        for (long key : shuffledKeys) {
+            map.put(key, key);
+        }
+        return map;
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public SimpleRedBlackTree<Long, Long> buildRedBlackTree() {
+        SimpleRedBlackTree<Long, Long> tree = new SimpleRedBlackTree<>(false);
+        for (long key : shuffledKeys) {
+            tree.put(key, key);
+        }
+        return tree;
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public BPlusTreeMap<Long, Long> buildBPlusTree() {
+        BPlusTreeMap<Long, Long> tree = new BPlusTreeMap<>();
+        for (long key : shuffledKeys) {
+            tree.put(key, key);
+        }
+        return tree;
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public LongBPlusTreeMap<Long> buildLongBPlusTree() {
+        LongBPlusTreeMap<Long> tree = new LongBPlusTreeMap<>();
+        for (long key : shuffledKeys) {
+            tree.put(key, key);
+        }
+        return tree;
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public LongBPlusTreeMap<Long> bulkLoadLongBPlusTree() {
+        return LongBPlusTreeMap.fromSorted(sortedKeys, sortedValues);
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(TreeMapBenchmark.class.getSimpleName())
+                .build();
+        
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.collections;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * B+木の差分テスト
+ *
+ * 同じ乱数列の put と検索・範囲走査を java.util.TreeMap にも適用し、結果が常に一致することを確かめる。
+ * ノード容量を小さくして葉と内部ノードの分割、根の成長を多く通す。
+ * 一括構築（fromSorted）した木に続けて put する場合も確かめる。
+ */
+class BPlusTreeMapDifferentialTest {
+    private static final int OPERATIONS = 20_000;
+    private static final long[] SEEDS = {1L, 42L, 20240601L};
+    private static final int[] NODE_CAPACITIES = {3, 4, 7, 64};
+    
+    @Test
+    @DisplayName("BPlusTreeMap は TreeMap と同じ結果を返す")
+    void bPlusTreeMapMatchesTreeMap() {
+        for (long seed : SEEDS) {
+            for (int capacity : NODE_CAPACITIES) {
+                for (int keyRange : new int[] {256, 1_000_000}) {
+                    runObjectKeys(new BPlusTreeMap<>(capacity), new TreeMap<>(), seed,
+                        "seed=" + seed + ", capacity=" + capacity + ", keyRange=" + keyRange, keyRange);
+                }
+            }
+        }
+    }
+    
+    @Test
+    @DisplayName("一括構築した BPlusTreeMap に put しても TreeMap と一致する")
+    void bulkLoadedBPlusTreeMapMatchesTreeMap() {
+        for (long seed : SEEDS) {
+            for (int capacity : NODE_CAPACITIES) {
+                for (int count : new int[] {0, 1, capacity, capacity + 1, 1_000}) {
+                    TreeMap<Integer, String> expected = new TreeMap<>();
+                    SplittableRandom random = new SplittableRandom(seed);
+                    while (expected.size() < count) {
+                        int key = random.nextInt(10_000);
+                        expected.put(key, "v" + key);
+                    }
+                    BPlusTreeMap<Integer, String> tree = BPlusTreeMap.fromSorted(expected.entrySet(), capacity);
+                    String context = "seed=" + seed + ", capacity=" + capacity + ", count=" + count;
+                    assertObjectContents(expected, tree, context);
+                    runObjectKeys(tree, expected, seed, context, 10_000);
+                }
+            }
+        }
+        assertThrows(IllegalArgumentException.class,
+            () -> BPlusTreeMap.fromSorted(List.of(Map.entry(2, "b"), Map.entry(1, "a"))));
+    }
+    
+    private static void runObjectKeys(BPlusTreeMap<Integer, String> tree, TreeMap<Integer, String> expected,
+                                      long seed, String context, int keyRange) {
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int op = 0; op < OPERATIONS; op++) {
+            int key = random.nextInt(keyRange) - keyRange / 2;
+            switch (random.nextInt(8)) {
+                case 0, 1, 2 -> {
+                    String value = "v" + random.nextInt(1_000);
+                    assertEquals(expected.put(key, value), tree.put(key, value), context);
+                }
+                case 3, 4 -> assertEquals(expected.get(key), tree.get(key), context);
+                case 5 -> assertEquals(expected.containsKey(key), tree.containsKey(key), context);
+                case 6 -> {
+                    int to = key + random.nextInt(keyRange / 8 + 1);
+                    assertObjectRange(expected, tree, key, to, context);
+                }
+                default -> {
+                    if (expected.isEmpty()) {
+                        assertThrows(NoSuchElementException.class, tree::firstKey, context);
+                        assertThrows(NoSuchElementException.class, tree::lastKey, context);
+                    } else {
+                        assertEquals(expected.firstKey(), tree.firstKey(), context);
+                        assertEquals(expected.lastKey(), tree.lastKey(), context);
+                    }
+                }
+            }
+            assertEquals(expected.size(), tree.size(), context);
+            if (op % 5_000 == 0) {
+                assertObjectContents(expected, tree, context);
+            }
+        }
+        assertObjectContents(expected, tree, context);
+    }
+    
+    private static void assertObjectRange(TreeMap<Integer, String> expected, BPlusTreeMap<Integer, String> tree,
+                                          int from, int to, String context) {
+        List<Map.Entry<Integer, String>> wanted = new ArrayList<>(expected.subMap(from, to).entrySet());
+        
+        List<Map.Entry<Integer, String>> visited = new ArrayList<>();
+        tree.forEachInRange(from, to, (k, v) -> visited.add(Map.entry(k, v)));
+        assertEquals(wanted, visited, context + ", range=[" + from + ", " + to + ")");
+        
+        List<Map.Entry<Integer, String>> iterated = new ArrayList<>();
+        Iterator<Map.Entry<Integer, String>> iterator = tree.rangeIterator(from, to);
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, String> entry = iterator.next();
+            iterated.add(Map.entry(entry.getKey(), entry.getValue()));
+        }
+        assertEquals(wanted, iterated, context + ", range=[" + from + ", " + to + ")");
+        assertThrows(NoSuchElementException.class, iterator::next, context);
+    }
+    
+    private static void assertObjectContents(TreeMap<Integer, String> expected, BPlusTreeMap<Integer, String> tree,
+                                             String context) {
+        List<Map.Entry<Integer, String>> actual = new ArrayList<>();
+        tree.forEach((k, v) -> actual.add(Map.entry(k, v)));
+        assertEquals(new ArrayList<>(expected.entrySet()), actual, context); // 昇順・重複なし
+        assertEquals(expected.size(), tree.getStats().size, context);
+    }
+    
+    @Test
+    @DisplayName("LongBPlusTreeMap は TreeMap<Long, V> と同じ結果を返す")
+    void longBPlusTreeMapMatchesTreeMap() {
+        for (long seed : SEEDS) {
+            for (int capacity : NODE_CAPACITIES) {
+                runLongKeys(new LongBPlusTreeMap<>(capacity), new TreeMap<>(), seed, 1_000,
+                    "seed=" + seed + ", capacity=" + capacity);
+                // タイムスタンプ索引と同じく、大きな値から単調に増えるキーを混ぜる
+                runLongKeys(new LongBPlusTreeMap<>(capacity), new TreeMap<>(), seed, Long.MAX_VALUE / 4,
+                    "seed=" + seed + ", capacity=" + capacity + ", wide");
+            }
+        }
+    }
+    
+    @Test
+    @DisplayName("一括構築した LongBPlusTreeMap に put しても TreeMap と一致する")
+    void bulkLoadedLongBPlusTreeMapMatchesTreeMap() {
+        for (long seed : SEEDS) {
+            for (int capacity : NODE_CAPACITIES) {
+                TreeMap<Long, String> expected = new TreeMap<>();
+                SplittableRandom random = new SplittableRandom(seed);
+                for (int i = 0; i < 1_000; i++) {
+                    long key = random.nextLong(100_000);
+                    expected.put(key, "v" + key);
+                }
+                long[] keys = expected.keySet().stream().mapToLong(Long::longValue).toArray();
+                LongBPlusTreeMap<String> tree =
+                    LongBPlusTreeMap.fromSorted(keys, new ArrayList<>(expected.values()), capacity);
+                String context = "seed=" + seed + ", capacity=" + capacity + ", bulk";
+                assertLongContents(expected, tree, context);
+                runLongKeys(tree, expected, seed, 100_000, context);
+            }
+        }
+        assertThrows(IllegalArgumentException.class,
+            () -> LongBPlusTreeMap.fromSorted(new long[] {1, 1}, List.of("a", "b")));
+        assertThrows(IllegalArgumentException.class,
+            () -> LongBPlusTreeMap.fromSorted(new long[] {1, 2}, List.of("a")));
+    }
+    
+    private static void runLongKeys(LongBPlusTreeMap<String> tree, TreeMap<Long, String> expected,
+                                    long seed, long keyRange, String context) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long clock = keyRange;
+        for (int op = 0; op < OPERATIONS; op++) {
+            long key = random.nextInt(4) == 0 ? clock++ : random.nextLong(-keyRange, keyRange);
+            switch (random.nextInt(8)) {
+                case 0, 1, 2 -> {
+                    String value = "v" + random.nextInt(1_000);
+                    assertEquals(expected.put(key, value), tree.put(key, value), context);
+                }
+                case 3, 4 -> assertEquals(expected.get(key), tree.get(key), context);
+                case 5 -> assertEquals(expected.containsKey(key), tree.containsKey(key), context);
+                case 6 -> {
+                    long to = key + random.nextLong(keyRange / 8 + 1);
+                    if (random.nextInt(8) == 0) {
+                        assertLongRange(expected, tree, to, key, context); // 逆順の範囲
+                    } else {
+                        assertLongRange(expected, tree, key, to, context);
+                    }
+                }
+                default -> {
+                    if (expected.isEmpty()) {
+                        assertThrows(NoSuchElementException.class, tree::firstKey, context);
+                    } else {
+                        assertEquals(expected.firstKey(), tree.firstKey(), context);
+                        assertEquals(expected.lastKey(), tree.lastKey(), context);
+                    }
+                }
+            }
+            assertEquals(expected.size(), tree.size(), context);
+            if (op % 5_000 == 0) {
+                assertLongContents(expected, tree, context);
+            }
+        }
+        assertLongContents(expected, tree, context);
+    }
+    
+    private static void assertLongRange(TreeMap<Long, String> expected, LongBPlusTreeMap<String> tree,
+                                        long from, long to, String context) {
+        // TreeMap.subMap は from > to で例外を投げるが、木の範囲操作は空の範囲として扱う
+        Map<Long, String> wanted = from <= to ? expected.subMap(from, to) : Map.of();
+        List<Map.Entry<Long, String>> visited = new ArrayList<>();
+        tree.forEachInRange(from, to, (k, v) -> visited.add(Map.entry(k, v)));
+        String range = context + ", range=[" + from + ", " + to + ")";
+        assertEquals(new ArrayList<>(wanted.entrySet()), visited, range);
+        assertEquals(wanted.size(), tree.countInRange(from, to), range);
+    }
+    
+    @Test
+    @DisplayName("LongBPlusTreeMap の逆順・空の範囲は 0 件")
+    void longBPlusTreeMapEmptyRanges() {
+        LongBPlusTreeMap<String> tree = new LongBPlusTreeMap<>(64);
+        for (long key = 0; key < 10; key++) {
+            tree.put(key * 10, "v" + key);
+        }
+        assertEquals(3, tree.countInRange(20, 50));
+        assertEquals(0, tree.countInRange(50, 20)); // 同じ葉の中で fromKey > toKey
+        assertEquals(0, tree.countInRange(30, 30));
+        assertEquals(0, tree.countInRange(Long.MAX_VALUE, Long.MIN_VALUE));
+        List<Long> visited = new ArrayList<>();
+        tree.forEachInRange(50, 20, (k, v) -> visited.add(k));
+        assertTrue(visited.isEmpty());
+    }
+    
+    private static void assertLongContents(TreeMap<Long, String> expected, LongBPlusTreeMap<String> tree,
+                                           String context) {
+        List<Map.Entry<Long, String>> actual = new ArrayList<>();
+        tree.forEach((k, v) -> actual.add(Map.entry(k, v)));
+        assertEquals(new ArrayList<>(expected.entrySet()), actual, context);
+        assertEquals(expected.size(), tree.getStats().size, context);
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.collections;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * プリミティブ特化マップの差分テスト
+ *
+ * 同じ乱数列の操作を java.util.HashMap にも適用し、戻り値と中身が常に一致することを確かめる。
+ * キーの範囲を狭くして衝突・削除後の backward-shift・段階的リサイズの途中状態を多く通す。
+ * 0 は空スロットの印なので、特別扱いの経路も必ず通るようキーの範囲に含める。
+ */
+class PrimitiveHashMapDifferentialTest {
+    private static final int OPERATIONS = 100_000;
+    private static final long[] SEEDS = {1L, 42L, 20240601L};
+    
+    @Test
+    @DisplayName("LongLongHashMap は HashMap<Long, Long> と同じ結果を返す")
+    void longLongHashMapMatchesHashMap() {
+        for (long seed : SEEDS) {
+            for (int keyRange : new int[] {64, 4_096, Integer.MAX_VALUE}) {
+                runLongLong(seed, keyRange);
+            }
+        }
+    }
+    
+    private static void runLongLong(long seed, int keyRange) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long noEntry = -1L;
+        LongLongHashMap map = new LongLongHashMap(4, 0.75, noEntry);
+        Map<Long, Long> expected = new HashMap<>();
+        String context = "seed=" + seed + ", keyRange=" + keyRange;
+        
+        for (int op = 0; op < OPERATIONS; op++) {
+            long key = randomKey(random, keyRange);
+            long value = random.nextLong();
+            switch (random.nextInt(7)) {
+                case 0, 1 -> assertEquals(expected.getOrDefault(key, noEntry), map.get(key), context);
+                case 2 -> assertEquals(expected.containsKey(key), map.containsKey(key), context);
+                case 3 -> {
+                    Long previous = expected.put(key, value);
+                    assertEquals(previous == null ? noEntry : previous, map.put(key, value), context);
+                }
+                case 4 -> {
+                    long delta = random.nextInt(100) - 50;
+                    long updated = expected.merge(key, noEntry + delta, (a, b) -> a + delta);
+                    assertEquals(updated, map.addTo(key, delta), context);
+                }
+                default -> {
+                    Long previous = expected.remove(key);
+                    assertEquals(previous == null ? noEntry : previous, map.remove(key), context);
+                }
+            }
+            assertEquals(expected.size(), map.size(), context);
+            if (op % 10_000 == 0) {
+                assertLongLongContents(expected, map, context);
+            }
+            if (op == OPERATIONS / 2) {
+                map.clear();
+                expected.clear();
+            }
+        }
+        assertLongLongContents(expected, map, context);
+    }
+    
+    private static void assertLongLongContents(Map<Long, Long> expected, LongLongHashMap map, String context) {
+        Map<Long, Long> actual = new HashMap<>();
+        map.forEach((key, value) -> assertNull(actual.put(key, value), "Duplicate key " + key + ", " + context));
+        assertEquals(expected, actual, context);
+    }
+    
+    @Test
+    @DisplayName("IntObjectHashMap は HashMap<Integer, V> と同じ結果を返す")
+    void intObjectHashMapMatchesHashMap() {
+        for (long seed : SEEDS) {
+            for (int keyRange : new int[] {64, 4_096, Integer.MAX_VALUE}) {
+                runIntObject(seed, keyRange);
+            }
+        }
+    }
+    
+    private static void runIntObject(long seed, int keyRange) {
+        SplittableRandom random = new SplittableRandom(seed);
+        IntObjectHashMap<String> map = new IntObjectHashMap<>(4, 0.75);
+        Map<Integer, String> expected = new HashMap<>();
+        String context = "seed=" + seed + ", keyRange=" + keyRange;
+        
+        for (int op = 0; op < OPERATIONS; op++) {
+            int key = (int) randomKey(random, keyRange);
+            String value = Integer.toString(random.nextInt(1_000));
+            switch (random.nextInt(6)) {
+                case 0, 1 -> assertEquals(expected.get(key), map.get(key), context);
+                case 2 -> assertEquals(expected.containsKey(key), map.containsKey(key), context);
+                case 3 -> assertEquals(expected.put(key, value), map.put(key, value), context);
+                case 4 -> assertEquals(expected.computeIfAbsent(key, k -> value),
+                    map.computeIfAbsent(key, k -> value), context);
+                default -> assertEquals(expected.remove(key), map.remove(key), context);
+            }
+            assertEquals(expected.size(), map.size(), context);
+            if (op % 10_000 == 0) {
+                assertIntObjectContents(expected, map, context);
+            }
+        }
+        assertIntObjectContents(expected, map, context);
+    }
+    
+    private static void assertIntObjectContents(Map<Integer, String> expected, IntObjectHashMap<String> map,
+                                                String context) {
+        Map<Integer, String> actual = new HashMap<>();
+        map.forEach((key, value) -> assertNull(actual.put(key, value), "Duplicate key " + key + ", " + context));
+        assertEquals(expected, actual, context);
+    }
+    
+    @Test
+    @DisplayName("ObjectIntHashMap は HashMap<K, Integer> と同じ結果を返す")
+    void objectIntHashMapMatchesHashMap() {
+        for (long seed : SEEDS) {
+            for (int keyRange : new int[] {64, 4_096, Integer.MAX_VALUE}) {
+                runObjectInt(seed, keyRange);
+            }
+        }
+    }
+    
+    private static void runObjectInt(long seed, int keyRange) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int noEntry = Integer.MIN_VALUE;
+        ObjectIntHashMap<String> map = new ObjectIntHashMap<>(4, 0.75, noEntry);
+        Map<String, Integer> expected = new HashMap<>();
+        String context = "seed=" + seed + ", keyRange=" + keyRange;
+        
+        for (int op = 0; op < OPERATIONS; op++) {
+            String key = "k" + randomKey(random, keyRange);
+            int value = random.nextInt();
+            switch (random.nextInt(7)) {
+                case 0, 1 -> assertEquals(expected.getOrDefault(key, noEntry), map.get(key), context);
+                case 2 -> assertEquals(expected.containsKey(key), map.containsKey(key), context);
+                case 3 -> {
+                    Integer previous = expected.put(key, value);
+                    assertEquals(previous == null ? noEntry : previous, map.put(key, value), context);
+                }
+                case 4 -> {
+                    int delta = random.nextInt(100) - 50;
+                    int updated = expected.merge(key, noEntry + delta, (a, b) -> a + delta);
+                    assertEquals(updated, map.addTo(key, delta), context);
+                }
+                default -> {
+                    Integer previous = expected.remove(key);
+                    assertEquals(previous == null ? noEntry : previous, map.remove(key), context);
+                }
+            }
+            assertEquals(expected.size(), map.size(), context);
+            if (op % 10_000 == 0) {
+                assertObjectIntContents(expected, map, context);
+            }
+        }
+        assertObjectIntContents(expected, map, context);
+    }
+    
+    private static void assertObjectIntContents(Map<String, Integer> expected, ObjectIntHashMap<String> map,
+                                                String context) {
+        Map<String, Integer> actual = new HashMap<>();
+        map.forEach((key, value) -> assertNull(actual.put(key, value), "Duplicate key " + key + ", " + context));
+        assertEquals(expected, actual, context);
+    }
+    
+    /**
+     * [0, keyRange) のキー（負のキーも混ぜる）。範囲が広い時も 0 を一定の割合で含める
+     */
+    private static long randomKey(SplittableRandom random, int keyRange) {
+        if (random.nextInt(64) == 0) {
+            return 0;
+        }
+        long key = random.nextInt(keyRange);
+        return random.nextBoolean() ? key : -key;
+    }
+}
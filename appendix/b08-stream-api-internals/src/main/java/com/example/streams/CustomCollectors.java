@@ -5,7 +5,9 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.*;
 import java.util.stream.Collector;
 import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
 import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 
 /**
  * カスタムコレクターの実装例
@@ -97,7 +99,7 @@ public class CustomCollectors {
         
         @Override
         public Function<ConcurrentHashMap<T, Long>, Map<T, Long>> finisher() {
-            return Function.identity();
+            return map -> map; // ConcurrentHashMap から Map への変換のみ
         }
         
         @Override
@@ -121,22 +123,32 @@ public class CustomCollectors {
             private long sum = 0;
             private int min = Integer.MAX_VALUE;
             private int max = Integer.MIN_VALUE;
-            private double sumOfSquares = 0.0;
+            // 二乗和の差は大きな値で桁落ちするため、Welford 法で偏差平方和を保持
+            private double mean = 0.0;
+            private double m2 = 0.0;
             
             public void accept(int value) {
                 count++;
                 sum += value;
                 min = Math.min(min, value);
                 max = Math.max(max, value);
-                sumOfSquares += (double) value * value;
+                double delta = value - mean;
+                mean += delta / count;
+                m2 += delta * (value - mean);
             }
             
             public void combine(Stats other) {
-                count += other.count;
+                if (other.count == 0) {
+                    return;
+                }
+                long total = count + other.count;
+                double delta = other.mean - mean;
+                mean += delta * other.count / total;
+                m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+                count = total;
                 sum += other.sum;
                 min = Math.min(min, other.min);
                 max = Math.max(max, other.max);
-                sumOfSquares += other.sumOfSquares;
             }
             
             public double getAverage() {
@@ -145,8 +157,7 @@ public class CustomCollectors {
             
             public double getStandardDeviation() {
                 if (count == 0) return 0.0;
-                double avg = getAverage();
-                return Math.sqrt(sumOfSquares / count - avg * avg);
+                return Math.sqrt(m2 / count);
             }
             
             @Override
@@ -190,6 +201,812 @@ public class CustomCollectors {
         }
     }
     
+    /**
+     * シャード化したヒストグラムコレクター
+     * CONCURRENT を指定しないため、並列ストリームでは分割されたタスクごとに別のマップへ集計し、
+     * 最後にだけ結合する（ホットキーでもスレッド間の競合が起きない）
+     * カウントはプリミティブ long のオープンアドレス法マップに保持し、Long へのボクシングは結果の生成時だけ
+     */
+    public static class ShardedHistogramCollector<T>
+            implements Collector<T, ShardedHistogramCollector.CountMap<T>, Map<T, Long>> {
+        
+        @Override
+        public Supplier<CountMap<T>> supplier() {
+            return CountMap::new;
+        }
+        
+        @Override
+        public BiConsumer<CountMap<T>, T> accumulator() {
+            return (map, element) -> map.add(element, 1L);
+        }
+        
+        @Override
+        public BinaryOperator<CountMap<T>> combiner() {
+            // 小さい方を大きい方へ結合して再ハッシュを減らす
+            return (map1, map2) -> {
+                if (map1.size() < map2.size()) {
+                    map2.addAll(map1);
+                    return map2;
+                }
+                map1.addAll(map2);
+                return map1;
+            };
+        }
+        
+        @Override
+        public Function<CountMap<T>, Map<T, Long>> finisher() {
+            return CountMap::toMap;
+        }
+        
+        @Override
+        public Set<Characteristics> characteristics() {
+            return EnumSet.of(Characteristics.UNORDERED);
+        }
+        
+        /**
+         * キーから long カウントへのオープンアドレス法（線形探索）マップ
+         * 1つのタスクからしか使われないため同期しない
+         */
+        public static final class CountMap<T> {
+            private static final int INITIAL_CAPACITY = 16;
+            
+            private Object[] keys = new Object[INITIAL_CAPACITY];
+            private long[] counts = new long[INITIAL_CAPACITY];
+            private int size;
+            
+            public void add(T key, long delta) {
+                Objects.requireNonNull(key, "element cannot be null");
+                int mask = keys.length - 1;
+                int index = spread(key.hashCode()) & mask;
+                while (true) {
+                    Object existing = keys[index];
+                    if (existing == null) {
+                        keys[index] = key;
+                        counts[index] = delta;
+                        if (++size * 2 > keys.length) {
+                            resize(); // 負荷率を1/2以下に保つ
+                        }
+                        return;
+                    }
+                    if (existing.equals(key)) {
+                        counts[index] += delta;
+                        return;
+                    }
+                    index = (index + 1) & mask;
+                }
+            }
+            
+            public long get(T key) {
+                int mask = keys.length - 1;
+                int index = spread(key.hashCode()) & mask;
+                Object existing;
+                while ((existing = keys[index]) != null) {
+                    if (existing.equals(key)) {
+                        return counts[index];
+                    }
+                    index = (index + 1) & mask;
+                }
+                return 0L;
+            }
+            
+            @SuppressWarnings("unchecked")
+            public void addAll(CountMap<T> other) {
+                Object[] otherKeys = other.keys;
+                for (int i = 0; i < otherKeys.length; i++) {
+                    if (otherKeys[i] != null) {
+                        add((T) otherKeys[i], other.counts[i]);
+                    }
+                }
+            }
+            
+            public int size() {
+                return size;
+            }
+            
+            @SuppressWarnings("unchecked")
+            public void forEach(ObjLongConsumer<T> action) {
+                for (int i = 0; i < keys.length; i++) {
+                    if (keys[i] != null) {
+                        action.accept((T) keys[i], counts[i]);
+                    }
+                }
+            }
+            
+            public Map<T, Long> toMap() {
+                Map<T, Long> result = new HashMap<>((int) (size / 0.75f) + 1);
+                forEach(result::put);
+                return result;
+            }
+            
+            private void resize() {
+                Object[] oldKeys = keys;
+                long[] oldCounts = counts;
+                keys = new Object[oldKeys.length * 2];
+                counts = new long[oldKeys.length * 2];
+                int mask = keys.length - 1;
+                for (int i = 0; i < oldKeys.length; i++) {
+                    Object key = oldKeys[i];
+                    if (key != null) {
+                        int index = spread(key.hashCode()) & mask;
+                        while (keys[index] != null) {
+                            index = (index + 1) & mask;
+                        }
+                        keys[index] = key;
+                        counts[index] = oldCounts[i];
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * カウントミンスケッチによる近似Top-K頻度コレクター
+     * 要素の種類数に関係なく、メモリは depth × width の long 配列と 2k 件の候補だけで済む
+     *
+     * 推定値は実際の出現回数以上になり、誤差は確率 1 - (1/2)^depth 以上で 総数 × 2 / width 以内。
+     * 候補は推定値が現在の下限を超えた要素だけを保持し、2k 件を超えたら上位 k 件に絞る。
+     * 結合ではスケッチをセルごとに加算し、候補の推定値を結合後のスケッチで計算し直す。
+     */
+    public static class CountMinTopKCollector<T>
+            implements Collector<T, CountMinTopKCollector.Sketch<T>, List<Map.Entry<T, Long>>> {
+        
+        private final int k;
+        private final int width;
+        private final int depth;
+        
+        /**
+         * @param k 返す要素数
+         * @param width 1行あたりのカウンター数（2の累乗に切り上げる）
+         * @param depth ハッシュ関数（行）の数
+         */
+        public CountMinTopKCollector(int k, int width, int depth) {
+            if (k < 1 || width < 1 || depth < 1) {
+                throw new IllegalArgumentException("k, width and depth must be positive");
+            }
+            if (width > 1 << 30) {
+                throw new IllegalArgumentException("width is too large: " + width);
+            }
+            this.k = k;
+            this.width = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+            this.depth = depth;
+        }
+        
+        /**
+         * 許容誤差（総数に対する割合）と失敗確率から幅と深さを決める
+         */
+        public static <T> CountMinTopKCollector<T> withError(int k, double epsilon, double delta) {
+            int width = (int) Math.ceil(Math.E / epsilon);
+            int depth = (int) Math.ceil(Math.log(1 / delta));
+            return new CountMinTopKCollector<>(k, width, Math.max(1, depth));
+        }
+        
+        @Override
+        public Supplier<Sketch<T>> supplier() {
+            return () -> new Sketch<>(k, width, depth);
+        }
+        
+        @Override
+        public BiConsumer<Sketch<T>, T> accumulator() {
+            return Sketch::add;
+        }
+        
+        @Override
+        public BinaryOperator<Sketch<T>> combiner() {
+            return (sketch1, sketch2) -> {
+                sketch1.merge(sketch2);
+                return sketch1;
+            };
+        }
+        
+        @Override
+        public Function<Sketch<T>, List<Map.Entry<T, Long>>> finisher() {
+            return Sketch::topK;
+        }
+        
+        @Override
+        public Set<Characteristics> characteristics() {
+            return EnumSet.of(Characteristics.UNORDERED);
+        }
+        
+        /**
+         * カウントミンスケッチと上位候補
+         */
+        public static final class Sketch<T> {
+            private final int k;
+            private final int mask;
+            private final long[][] table;
+            private ShardedHistogramCollector.CountMap<T> candidates = new ShardedHistogramCollector.CountMap<>();
+            private long threshold; // 候補に入るために必要な推定値
+            
+            Sketch(int k, int width, int depth) {
+                this.k = k;
+                this.mask = width - 1;
+                this.table = new long[depth][width];
+            }
+            
+            public void add(T element) {
+                int hash = Objects.requireNonNull(element, "element cannot be null").hashCode();
+                long estimate = Long.MAX_VALUE;
+                for (int row = 0; row < table.length; row++) {
+                    estimate = Math.min(estimate, ++table[row][column(hash, row)]);
+                }
+                offerCandidate(element, estimate);
+            }
+            
+            /**
+             * 推定出現回数（実際の回数以上）
+             */
+            public long estimate(T element) {
+                int hash = element.hashCode();
+                long estimate = Long.MAX_VALUE;
+                for (int row = 0; row < table.length; row++) {
+                    estimate = Math.min(estimate, table[row][column(hash, row)]);
+                }
+                return estimate;
+            }
+            
+            void merge(Sketch<T> other) {
+                for (int row = 0; row < table.length; row++) {
+                    long[] cells = table[row];
+                    long[] otherCells = other.table[row];
+                    for (int column = 0; column < cells.length; column++) {
+                        cells[column] += otherCells[column];
+                    }
+                }
+                // 両方の候補を結合後のスケッチで評価し直す
+                ShardedHistogramCollector.CountMap<T> previous = candidates;
+                candidates = new ShardedHistogramCollector.CountMap<>();
+                threshold = 0;
+                previous.forEach((element, count) -> offerCandidate(element, estimate(element)));
+                other.candidates.forEach((element, count) -> {
+                    if (candidates.get(element) == 0L) {
+                        offerCandidate(element, estimate(element));
+                    }
+                });
+            }
+            
+            private int column(int hash, int row) {
+                return spread(hash ^ (ROW_SEEDS[row & (ROW_SEEDS.length - 1)] + row)) & mask;
+            }
+            
+            List<Map.Entry<T, Long>> topK() {
+                List<Map.Entry<T, Long>> entries = sortedCandidates();
+                return entries.size() > k ? new ArrayList<>(entries.subList(0, k)) : entries;
+            }
+            
+            private void offerCandidate(T element, long estimate) {
+                if (estimate <= threshold && candidates.get(element) == 0L) {
+                    return;
+                }
+                // 既存の候補は差分だけ加算して推定値に合わせる
+                candidates.add(element, estimate - candidates.get(element));
+                if (candidates.size() > 2 * k) {
+                    prune();
+                }
+            }
+            
+            /**
+             * 上位 k 件だけを残し、その最小値を新しい下限にする
+             */
+            private void prune() {
+                List<Map.Entry<T, Long>> entries = sortedCandidates();
+                candidates = new ShardedHistogramCollector.CountMap<>();
+                for (int i = 0; i < k; i++) {
+                    Map.Entry<T, Long> entry = entries.get(i);
+                    candidates.add(entry.getKey(), entry.getValue());
+                }
+                threshold = entries.get(k - 1).getValue();
+            }
+            
+            private List<Map.Entry<T, Long>> sortedCandidates() {
+                List<Map.Entry<T, Long>> entries = new ArrayList<>(candidates.size());
+                candidates.forEach((element, count) -> entries.add(Map.entry(element, count)));
+                entries.sort(Map.Entry.<T, Long>comparingByValue().reversed());
+                return entries;
+            }
+        }
+    }
+    
+    /**
+     * スケッチの行ごとのハッシュを独立させるための種
+     */
+    private static final int[] ROW_SEEDS = {
+        0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F, 0x165667B1, 0xD3A2646C, 0xFD7046C5, 0xB55A4F09
+    };
+    
+    /**
+     * ハッシュ値の攪拌（MurmurHash3 の最終化処理）
+     * hashCode の下位ビットが偏っていても線形探索とスケッチの列が散らばるようにする
+     */
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+    
+    /**
+     * 平均と分散を1パスで求める結合可能なアキュムレーター
+     * IntSummaryStatistics と同じく IntStream/LongStream/DoubleStream の collect に直接渡せる
+     * <pre>
+     * RunningMoments m = IntStream.range(0, n).parallel()
+     *     .collect(RunningMoments::new, RunningMoments::accept, RunningMoments::combine);
+     * </pre>
+     * 二乗和から分散を求める方法は大きな値で桁落ちするため、Welford 法で更新し、
+     * 並列結合には Chan らの公式（平均の差で偏差平方和を補正）を使う
+     */
+    public static class RunningMoments implements IntConsumer, LongConsumer, DoubleConsumer {
+        private long count;
+        private double mean;
+        private double m2; // 平均からの偏差の二乗和
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        
+        @Override
+        public void accept(int value) {
+            accept((double) value);
+        }
+        
+        @Override
+        public void accept(long value) {
+            accept((double) value);
+        }
+        
+        @Override
+        public void accept(double value) {
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        
+        public void combine(RunningMoments other) {
+            if (other.count == 0) {
+                return;
+            }
+            if (count == 0) {
+                count = other.count;
+                mean = other.mean;
+                m2 = other.m2;
+                min = other.min;
+                max = other.max;
+                return;
+            }
+            long total = count + other.count;
+            double delta = other.mean - mean;
+            mean += delta * other.count / total;
+            m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+            count = total;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+        
+        public long getCount() {
+            return count;
+        }
+        
+        public double getMean() {
+            return count == 0 ? 0.0 : mean;
+        }
+        
+        /**
+         * 母分散
+         */
+        public double getVariance() {
+            return count == 0 ? 0.0 : m2 / count;
+        }
+        
+        /**
+         * 不偏分散
+         */
+        public double getSampleVariance() {
+            return count < 2 ? 0.0 : m2 / (count - 1);
+        }
+        
+        public double getStandardDeviation() {
+            return Math.sqrt(getVariance());
+        }
+        
+        public double getMin() {
+            return min;
+        }
+        
+        public double getMax() {
+            return max;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("RunningMoments{count=%d, mean=%.4f, stddev=%.4f, min=%s, max=%s}",
+                count, getMean(), getStandardDeviation(), min, max);
+        }
+    }
+    
+    /**
+     * 上位K個の long 値を保持する結合可能なアキュムレーター（int 値にも使える）
+     * 大きさ k の最小ヒープを long 配列で持つため、要素ごとのボクシングがない
+     * 結合は相手のヒープの各要素を追加するだけなので O(k log k)
+     */
+    public static class LongTopK implements IntConsumer, LongConsumer {
+        private final long[] heap;
+        private int size;
+        
+        public LongTopK(int k) {
+            if (k < 1) {
+                throw new IllegalArgumentException("k must be positive: " + k);
+            }
+            this.heap = new long[k];
+        }
+        
+        @Override
+        public void accept(int value) {
+            accept((long) value);
+        }
+        
+        @Override
+        public void accept(long value) {
+            if (size < heap.length) {
+                // ヒープの末尾に追加して上へ移動
+                int index = size++;
+                while (index > 0) {
+                    int parent = (index - 1) >>> 1;
+                    if (heap[parent] <= value) {
+                        break;
+                    }
+                    heap[index] = heap[parent];
+                    index = parent;
+                }
+                heap[index] = value;
+            } else if (value > heap[0]) {
+                // 最小値（根）を置き換えて下へ移動
+                int index = 0;
+                int half = size >>> 1;
+                while (index < half) {
+                    int child = 2 * index + 1;
+                    if (child + 1 < size && heap[child + 1] < heap[child]) {
+                        child++;
+                    }
+                    if (value <= heap[child]) {
+                        break;
+                    }
+                    heap[index] = heap[child];
+                    index = child;
+                }
+                heap[index] = value;
+            }
+        }
+        
+        public void combine(LongTopK other) {
+            for (int i = 0; i < other.size; i++) {
+                accept(other.heap[i]);
+            }
+        }
+        
+        /**
+         * 降順の上位K個
+         */
+        public long[] toArray() {
+            long[] result = Arrays.copyOf(heap, size);
+            Arrays.sort(result);
+            for (int i = 0, j = result.length - 1; i < j; i++, j--) {
+                long tmp = result[i];
+                result[i] = result[j];
+                result[j] = tmp;
+            }
+            return result;
+        }
+        
+        @Override
+        public String toString() {
+            return Arrays.toString(toArray());
+        }
+    }
+    
+    /**
+     * 上位K個の double 値を保持する結合可能なアキュムレーター
+     * NaN は無視する（順序が定義されないため）
+     */
+    public static class DoubleTopK implements DoubleConsumer {
+        private final double[] heap;
+        private int size;
+        
+        public DoubleTopK(int k) {
+            if (k < 1) {
+                throw new IllegalArgumentException("k must be positive: " + k);
+            }
+            this.heap = new double[k];
+        }
+        
+        @Override
+        public void accept(double value) {
+            if (Double.isNaN(value)) {
+                return;
+            }
+            if (size < heap.length) {
+                int index = size++;
+                while (index > 0) {
+                    int parent = (index - 1) >>> 1;
+                    if (heap[parent] <= value) {
+                        break;
+                    }
+                    heap[index] = heap[parent];
+                    index = parent;
+                }
+                heap[index] = value;
+            } else if (value > heap[0]) {
+                int index = 0;
+                int half = size >>> 1;
+                while (index < half) {
+                    int child = 2 * index + 1;
+                    if (child + 1 < size && heap[child + 1] < heap[child]) {
+                        child++;
+                    }
+                    if (value <= heap[child]) {
+                        break;
+                    }
+                    heap[index] = heap[child];
+                    index = child;
+                }
+                heap[index] = value;
+            }
+        }
+        
+        public void combine(DoubleTopK other) {
+            for (int i = 0; i < other.size; i++) {
+                accept(other.heap[i]);
+            }
+        }
+        
+        /**
+         * 降順の上位K個
+         */
+        public double[] toArray() {
+            double[] result = Arrays.copyOf(heap, size);
+            Arrays.sort(result);
+            for (int i = 0, j = result.length - 1; i < j; i++, j--) {
+                double tmp = result[i];
+                result[i] = result[j];
+                result[j] = tmp;
+            }
+            return result;
+        }
+        
+        @Override
+        public String toString() {
+            return Arrays.toString(toArray());
+        }
+    }
+    
+    /**
+     * 1パスで分位数を推定する結合可能なスケッチ（DDSketch と同じ対数バケット方式）
+     *
+     * 値 v を γ = (1 + α) / (1 - α) を底とする対数のバケットに数える。
+     * 推定値の相対誤差は α 以内に収まり、バケット数は値の範囲の対数にしか比例しない。
+     * 結合はバケットのカウントを足すだけなので、順序にも分割の仕方にも依存しない。
+     * t-digest より精度保証が単純で、結合時の再圧縮も不要なためこちらを選んだ。
+     */
+    public static class QuantileSketch implements IntConsumer, LongConsumer, DoubleConsumer {
+        /**
+         * これより絶対値の小さい値はゼロとして数える
+         */
+        private static final double MIN_INDEXABLE = 1e-9;
+        
+        private final double relativeAccuracy;
+        private final double gamma;
+        private final double logGamma;
+        private final BucketStore positive = new BucketStore();
+        private final BucketStore negative = new BucketStore();
+        private long zeroCount;
+        private long count;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        
+        /**
+         * @param relativeAccuracy 推定値の相対誤差の上限（0.01 なら ±1%）
+         */
+        public QuantileSketch(double relativeAccuracy) {
+            if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+                throw new IllegalArgumentException("relativeAccuracy must be in (0, 1): " + relativeAccuracy);
+            }
+            this.relativeAccuracy = relativeAccuracy;
+            this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+            this.logGamma = Math.log(gamma);
+        }
+        
+        @Override
+        public void accept(int value) {
+            accept((double) value);
+        }
+        
+        @Override
+        public void accept(long value) {
+            accept((double) value);
+        }
+        
+        @Override
+        public void accept(double value) {
+            if (Double.isNaN(value)) {
+                return;
+            }
+            if (value > MIN_INDEXABLE) {
+                positive.add(index(value), 1);
+            } else if (value < -MIN_INDEXABLE) {
+                negative.add(index(-value), 1);
+            } else {
+                zeroCount++;
+            }
+            count++;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        
+        public void combine(QuantileSketch other) {
+            if (other.relativeAccuracy != relativeAccuracy) {
+                throw new IllegalArgumentException("Cannot combine sketches with different accuracy");
+            }
+            positive.addAll(other.positive);
+            negative.addAll(other.negative);
+            zeroCount += other.zeroCount;
+            count += other.count;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+        
+        /**
+         * q 分位数の推定値（q は 0.0〜1.0、空なら NaN）
+         */
+        public double quantile(double q) {
+            if (q < 0 || q > 1) {
+                throw new IllegalArgumentException("q must be in [0, 1]: " + q);
+            }
+            if (count == 0) {
+                return Double.NaN;
+            }
+            long rank = (long) Math.ceil(q * (count - 1)); // 0始まりの順位
+            double estimate;
+            if (rank < negative.total) {
+                // 負の値は絶対値の大きい方（バケット番号の大きい方）から並ぶ
+                estimate = -value(negative.indexOfRankFromTop(rank));
+            } else if (rank < negative.total + zeroCount) {
+                estimate = 0.0;
+            } else {
+                estimate = value(positive.indexOfRank(rank - negative.total - zeroCount));
+            }
+            // 端の分位数は実際の最小・最大値を超えないようにする
+            return Math.max(min, Math.min(max, estimate));
+        }
+        
+        public long getCount() {
+            return count;
+        }
+        
+        public double getMin() {
+            return min;
+        }
+        
+        public double getMax() {
+            return max;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("QuantileSketch{count=%d, p50=%.4f, p90=%.4f, p99=%.4f, max=%s}",
+                count, quantile(0.5), quantile(0.9), quantile(0.99), max);
+        }
+        
+        private int index(double value) {
+            return (int) Math.ceil(Math.log(value) / logGamma);
+        }
+        
+        /**
+         * バケット (γ^(i-1), γ^i] の代表値（どちらの端との相対誤差も α になる点）
+         */
+        private double value(int index) {
+            return 2 * Math.pow(gamma, index) / (gamma + 1);
+        }
+        
+        /**
+         * 連続したバケット番号の範囲だけを持つ long 配列（必要に応じて両側へ伸ばす）
+         */
+        private static final class BucketStore {
+            private long[] counts;
+            private int offset; // counts[0] のバケット番号
+            private long total;
+            
+            void add(int index, long n) {
+                if (counts == null) {
+                    counts = new long[64];
+                    offset = index - 32;
+                } else if (index < offset || index >= offset + counts.length) {
+                    grow(index);
+                }
+                counts[index - offset] += n;
+                total += n;
+            }
+            
+            void addAll(BucketStore other) {
+                if (other.counts == null) {
+                    return;
+                }
+                for (int i = 0; i < other.counts.length; i++) {
+                    if (other.counts[i] != 0) {
+                        add(other.offset + i, other.counts[i]);
+                    }
+                }
+            }
+            
+            int indexOfRank(long rank) {
+                long seen = 0;
+                for (int i = 0; i < counts.length; i++) {
+                    seen += counts[i];
+                    if (seen > rank) {
+                        return offset + i;
+                    }
+                }
+                return offset + counts.length - 1;
+            }
+            
+            int indexOfRankFromTop(long rank) {
+                long seen = 0;
+                for (int i = counts.length - 1; i >= 0; i--) {
+                    seen += counts[i];
+                    if (seen > rank) {
+                        return offset + i;
+                    }
+                }
+                return offset;
+            }
+            
+            private void grow(int index) {
+                int low = Math.min(offset, index);
+                int high = Math.max(offset + counts.length, index + 1);
+                int length = Math.max(counts.length * 2, high - low);
+                int newOffset = index < offset ? high - length : low;
+                long[] grown = new long[length];
+                System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+                counts = grown;
+                offset = newOffset;
+            }
+        }
+    }
+    
+    /**
+     * オブジェクトのストリーム用の平均・分散コレクター
+     */
+    public static <T> Collector<T, ?, RunningMoments> summarizingMoments(ToDoubleFunction<? super T> mapper) {
+        return Collector.of(
+            RunningMoments::new,
+            (moments, item) -> moments.accept(mapper.applyAsDouble(item)),
+            (moments1, moments2) -> {
+                moments1.combine(moments2);
+                return moments1;
+            },
+            Collector.Characteristics.UNORDERED,
+            Collector.Characteristics.IDENTITY_FINISH
+        );
+    }
+    
+    /**
+     * オブジェクトのストリーム用の分位数コレクター
+     */
+    public static <T> Collector<T, ?, QuantileSketch> summarizingQuantiles(
+            double relativeAccuracy, ToDoubleFunction<? super T> mapper) {
+        return Collector.of(
+            () -> new QuantileSketch(relativeAccuracy),
+            (sketch, item) -> sketch.accept(mapper.applyAsDouble(item)),
+            (sketch1, sketch2) -> {
+                sketch1.combine(sketch2);
+                return sketch1;
+            },
+            Collector.Characteristics.UNORDERED,
+            Collector.Characteristics.IDENTITY_FINISH
+        );
+    }
+    
     /**
      * Top-K要素を効率的に収集するコレクター
      * 大量のデータから上位K件を効率的に抽出
@@ -197,20 +1014,15 @@ public class CustomCollectors {
     public static <T> Collector<T, ?, List<T>> topK(int k, Comparator<T> comparator) {
         return Collector.of(
             () -> new PriorityQueue<>(k, comparator),
-            (queue, item) -> {
-                if (queue.size() < k) {
-                    queue.offer(item);
-                } else if (comparator.compare(item, queue.peek()) > 0) {
-                    queue.poll();
-                    queue.offer(item);
-                }
-            },
+            (queue, item) -> offerTopK(queue, item, k, comparator),
             (queue1, queue2) -> {
-                queue1.addAll(queue2);
-                return queue1.stream()
-                    .sorted(comparator.reversed())
-                    .limit(k)
-                    .collect(Collectors.toCollection(() -> new PriorityQueue<>(k, comparator)));
+                // 小さい方のヒープの要素を大きい方へ追加するだけなので O(k log k)
+                PriorityQueue<T> target = queue1.size() >= queue2.size() ? queue1 : queue2;
+                PriorityQueue<T> source = target == queue1 ? queue2 : queue1;
+                for (T item : source) {
+                    offerTopK(target, item, k, comparator);
+                }
+                return target;
             },
             queue -> {
                 List<T> result = new ArrayList<>(queue);
@@ -220,6 +1032,15 @@ public class CustomCollectors {
         );
     }
     
+    private static <T> void offerTopK(PriorityQueue<T> queue, T item, int k, Comparator<T> comparator) {
+        if (queue.size() < k) {
+            queue.offer(item);
+        } else if (comparator.compare(item, queue.peek()) > 0) {
+            queue.poll();
+            queue.offer(item);
+        }
+    }
+    
     /**
      * カスタムコレクターのデモンストレーション
      */
@@ -269,6 +1090,37 @@ public class CustomCollectors {
         List<String> longestWords = words.stream()
             .collect(topK(3, Comparator.comparing(String::length)));
         System.out.println("Top 3 longest words: " + longestWords);
+        
+        // 5. シャード化ヒストグラムと近似Top-K
+        System.out.println("\n5. Sharded Histogram / Approximate Top-K:");
+        Map<Integer, Long> shardedHistogram = words.parallelStream()
+            .map(String::length)
+            .collect(new ShardedHistogramCollector<>());
+        System.out.println("Sharded histogram: " + new TreeMap<>(shardedHistogram));
+        
+        List<Map.Entry<Integer, Long>> frequent = IntStream.range(0, 100_000)
+            .parallel()
+            .map(i -> i % 10 == 0 ? i % 3 : i) // 0、1、2 が頻出
+            .boxed()
+            .collect(new CountMinTopKCollector<>(3, 1024, 4));
+        System.out.println("Approximate top 3 values: " + frequent);
+        
+        // 6. プリミティブストリームの統計（ボクシングなし・並列結合可能）
+        System.out.println("\n6. Primitive Streaming Statistics:");
+        long offset = 1_000_000_000_000L; // 二乗和による計算では桁落ちする大きさ
+        RunningMoments moments = LongStream.rangeClosed(1, 1_000_000).parallel()
+            .map(v -> v + offset)
+            .collect(RunningMoments::new, RunningMoments::accept, RunningMoments::combine);
+        System.out.printf("Mean - offset: %.2f, stddev: %.2f (exact: 288675.13)%n",
+            moments.getMean() - offset, moments.getStandardDeviation());
+        
+        LongTopK top = IntStream.range(0, 1_000_000).parallel()
+            .collect(() -> new LongTopK(5), LongTopK::accept, LongTopK::combine);
+        System.out.println("Top 5 (primitive): " + top);
+        
+        QuantileSketch latency = DoubleStream.iterate(1.0, v -> v + 1.0).limit(100_000).parallel()
+            .collect(() -> new QuantileSketch(0.01), QuantileSketch::accept, QuantileSketch::combine);
+        System.out.println("Quantiles of 1..100000: " + latency);
     }
     
     /**
@@ -298,8 +1150,55 @@ public class CustomCollectors {
         System.out.println("Results match: " + result1.equals(result2));
     }
     
+    /**
+     * ヒストグラムコレクターの比較
+     * 一部のキーに集中する偏った分布で、共有マップ・groupingByConcurrent・シャード化を比べる
+     */
+    public static void histogramComparison() {
+        System.out.println("\n=== Histogram Collector Comparison ===");
+        
+        final int size = 10_000_000;
+        // 1/4 の要素が8個のホットキーに集中し、残りは10万種類に散らばる
+        IntUnaryOperator skewed = i -> (i & 3) == 0 ? i & 7 : spread(i) & 0x1FFFF;
+        
+        Map<String, Supplier<Object>> collectors = new LinkedHashMap<>();
+        collectors.put("ConcurrentHistogramCollector", () -> IntStream.range(0, size).parallel()
+            .map(skewed).boxed()
+            .collect(new ConcurrentHistogramCollector<>()));
+        collectors.put("groupingByConcurrent", () -> IntStream.range(0, size).parallel()
+            .map(skewed).boxed()
+            .collect(Collectors.groupingByConcurrent(Function.identity(), Collectors.counting())));
+        collectors.put("ShardedHistogramCollector", () -> IntStream.range(0, size).parallel()
+            .map(skewed).boxed()
+            .collect(new ShardedHistogramCollector<>()));
+        collectors.put("CountMinTopKCollector(k=8)", () -> IntStream.range(0, size).parallel()
+            .map(skewed).boxed()
+            .collect(new CountMinTopKCollector<>(8, 1 << 16, 4)));
+        
+        collectors.forEach((name, collect) -> {
+            // JITのウォームアップ後、3回の最小値を採る
+            for (int i = 0; i < 2; i++) {
+                collect.get();
+            }
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < 3; i++) {
+                long startTime = System.nanoTime();
+                collect.get();
+                best = Math.min(best, System.nanoTime() - startTime);
+            }
+            System.out.printf("%-30s %6dms%n", name, best / 1_000_000);
+        });
+        
+        Map<Integer, Long> expected = IntStream.range(0, size).map(skewed).boxed()
+            .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        Map<Integer, Long> sharded = IntStream.range(0, size).parallel().map(skewed).boxed()
+            .collect(new ShardedHistogramCollector<>());
+        System.out.println("Sharded result matches: " + expected.equals(sharded));
+    }
+    
     public static void main(String[] args) {
         demonstrateCustomCollectors();
         performanceComparison();
+        histogramComparison();
     }
 }
\ No newline at end of file
@@ -1,5 +1,14 @@
 package com.example.streams;
 
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
@@ -181,6 +190,193 @@ public class CustomSpliterator {
         }
     }
     
+    /**
+     * ファイルをバイト範囲で分割するSpliterator
+     * LineSpliterator と違い、ファイル全体をリストへ読み込まずに並列処理できる
+     *
+     * 分割点は範囲の中央から次の改行の直後へずらすため、各範囲は完全な行だけを含む。
+     * 読み込みは FileChannel の位置指定読み込み（スレッドセーフ）で、範囲ごとのバッファへ遅延的に行う。
+     * estimateSize は残りのバイト数を返す。行数とは一致しないため SIZED/SUBSIZED は報告しないが、
+     * 単位が揃っていれば ForkJoin の分割判断（全体の推定値に対する比率）には十分に使える。
+     *
+     * 改行の検出をバイト単位で行うため、文字コードは UTF-8、US-ASCII、ISO-8859-1 のみ対応。
+     * 行末の \n と \r\n を取り除く（\r 単独の改行は扱わない）。
+     */
+    static class FileLineSpliterator implements Spliterator<String> {
+        private static final int BUFFER_SIZE = 64 * 1024;
+        private static final long MIN_SPLIT_BYTES = 256 * 1024; // これより小さい範囲は分割しない
+        
+        private final FileChannel channel;
+        private final Charset charset;
+        private long position; // 次に読む行の先頭
+        private final long end; // 範囲の終端（ファイル末尾か行の先頭）
+        
+        private ByteBuffer buffer; // 最初の tryAdvance で確保
+        private long bufferStart; // buffer[0] のファイル上の位置
+        private byte[] lineBytes = new byte[128]; // バッファをまたぐ行の組み立て用
+        
+        public FileLineSpliterator(FileChannel channel, Charset charset) throws IOException {
+            this(channel, charset, 0, channel.size());
+        }
+        
+        private FileLineSpliterator(FileChannel channel, Charset charset, long position, long end) {
+            if (!charset.equals(StandardCharsets.UTF_8) && !charset.equals(StandardCharsets.US_ASCII)
+                    && !charset.equals(StandardCharsets.ISO_8859_1)) {
+                throw new IllegalArgumentException("Unsupported charset: " + charset);
+            }
+            this.channel = channel;
+            this.charset = charset;
+            this.position = position;
+            this.end = end;
+        }
+        
+        /**
+         * ファイルの行を並列ストリームとして開く（ストリームを閉じるとファイルも閉じる）
+         */
+        public static Stream<String> lines(Path path, Charset charset) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                return StreamSupport.stream(new FileLineSpliterator(channel, charset), true)
+                    .onClose(() -> {
+                        try {
+                            channel.close();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+            } catch (RuntimeException | IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+        
+        @Override
+        public Spliterator<String> trySplit() {
+            long remaining = end - position;
+            if (remaining < MIN_SPLIT_BYTES || buffer != null) {
+                return null; // 小さすぎるか、読み込みを始めている
+            }
+            long lineStart = nextLineStart(position + remaining / 2);
+            if (lineStart >= end) {
+                return null; // 後半に行の先頭がない（非常に長い行）
+            }
+            FileLineSpliterator prefix = new FileLineSpliterator(channel, charset, position, lineStart);
+            position = lineStart;
+            return prefix;
+        }
+        
+        @Override
+        public boolean tryAdvance(Consumer<? super String> action) {
+            if (position >= end) {
+                return false;
+            }
+            if (buffer == null) {
+                buffer = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, end - position));
+                fill(position);
+            }
+            int lineLength = 0;
+            while (true) {
+                byte[] bytes = buffer.array();
+                int from = (int) (position - bufferStart);
+                int limit = buffer.limit();
+                for (int i = from; i < limit; i++) {
+                    if (bytes[i] == '\n') {
+                        String line;
+                        if (lineLength == 0) {
+                            line = decode(bytes, from, i - from);
+                        } else {
+                            lineLength = append(lineLength, bytes, from, i - from);
+                            line = decode(lineBytes, 0, lineLength);
+                        }
+                        position = bufferStart + i + 1;
+                        action.accept(line);
+                        return true;
+                    }
+                }
+                // 改行が見つからないままバッファの終わりに達した
+                lineLength = append(lineLength, bytes, from, limit - from);
+                position = bufferStart + limit;
+                if (position >= end) {
+                    action.accept(decode(lineBytes, 0, lineLength)); // 改行のない最終行
+                    return true;
+                }
+                fill(position);
+            }
+        }
+        
+        @Override
+        public long estimateSize() {
+            return end - position;
+        }
+        
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+        
+        /**
+         * from 以降で最初の改行の次の位置（見つからなければ end）
+         */
+        private long nextLineStart(long from) {
+            ByteBuffer probe = ByteBuffer.allocate(8 * 1024);
+            long offset = from;
+            while (offset < end) {
+                probe.clear();
+                int read = read(probe, offset);
+                if (read <= 0) {
+                    break;
+                }
+                byte[] bytes = probe.array();
+                for (int i = 0; i < read; i++) {
+                    if (bytes[i] == '\n') {
+                        return offset + i + 1;
+                    }
+                }
+                offset += read;
+            }
+            return end;
+        }
+        
+        private void fill(long from) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), end - from));
+            bufferStart = from;
+            while (buffer.hasRemaining()) {
+                if (read(buffer, from + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            if (buffer.position() == 0) {
+                // 分割後にファイルが短くなった
+                throw new UncheckedIOException(new EOFException("File truncated at " + from));
+            }
+            buffer.flip();
+        }
+        
+        private int read(ByteBuffer target, long offset) {
+            try {
+                return channel.read(target, offset);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        
+        private int append(int length, byte[] bytes, int offset, int count) {
+            if (length + count > lineBytes.length) {
+                lineBytes = Arrays.copyOf(lineBytes, Math.max(lineBytes.length * 2, length + count));
+            }
+            System.arraycopy(bytes, offset, lineBytes, length, count);
+            return length + count;
+        }
+        
+        private String decode(byte[] bytes, int offset, int length) {
+            if (length > 0 && bytes[offset + length - 1] == '\r') {
+                length--;
+            }
+            return new String(bytes, offset, length, charset);
+        }
+    }
+    
     /**
      * Spliteratorの分割動作をデモンストレーション
      */
@@ -1,5 +1,11 @@
 package com.example.streams;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ForkJoinTask;
@@ -47,6 +53,68 @@ public class ParallelStreamOptimization {
         }
     }
     
+    /**
+     * ファイル行の並列処理の比較
+     * Files.lines() は JDK 9 以降、UTF-8 などの文字コードではファイル全体をマップして分割するが、
+     * 2GB以上のファイルやそれ以外の文字コードでは逐次的な BufferedReader になり、先頭から少しずつしか分割できない。
+     * FileLineSpliterator は位置指定読み込みでバイト範囲を二分割するため、ファイルサイズによらず均等に分割できる
+     */
+    public static void measureFileLineSplitting() {
+        System.out.println("\n=== Parallel File Line Processing ===");
+        
+        Path file;
+        try {
+            file = Files.createTempFile("stream-lines", ".txt");
+            try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+                for (int i = 0; i < 2_000_000; i++) {
+                    writer.write(Integer.toString(i));
+                    writer.newLine();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        
+        try {
+            LineSource sequential = () -> Files.lines(file);
+            LineSource filesLinesParallel = () -> Files.lines(file).parallel();
+            LineSource spliterator = () -> CustomSpliterator.FileLineSpliterator.lines(file, StandardCharsets.UTF_8);
+            
+            // JITのウォームアップ
+            countPrimeLines(sequential);
+            countPrimeLines(filesLinesParallel);
+            countPrimeLines(spliterator);
+            
+            long sequentialTime = measureTime(() -> countPrimeLines(sequential));
+            long filesLinesTime = measureTime(() -> countPrimeLines(filesLinesParallel));
+            long spliteratorTime = measureTime(() -> countPrimeLines(spliterator));
+            
+            System.out.printf("Files.lines() sequential:    %5dms%n", sequentialTime);
+            System.out.printf("Files.lines().parallel():    %5dms (Speedup: %.2fx)%n",
+                filesLinesTime, (double) sequentialTime / filesLinesTime);
+            System.out.printf("FileLineSpliterator parallel: %4dms (Speedup: %.2fx)%n",
+                spliteratorTime, (double) sequentialTime / spliteratorTime);
+            System.out.println("Results match: "
+                + (countPrimeLines(sequential) == countPrimeLines(spliterator)));
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.err.println("Failed to delete " + file + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    private static long countPrimeLines(LineSource source) {
+        try (Stream<String> lines = source.open()) {
+            return lines.mapToInt(Integer::parseInt)
+                .filter(ParallelStreamOptimization::isPrime)
+                .count();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
     /**
      * CPU集約的なタスクの例：素数判定
      */
@@ -92,7 +160,7 @@ public class ParallelStreamOptimization {
                     data.parallelStream()
                         .filter(ParallelStreamOptimization::isPrime)
                         .count()
-                ).get();
+                ).join();
             });
             System.out.println("Custom pool (" + customPoolSize + " threads) time: " + customTime + "ms");
             
@@ -167,13 +235,13 @@ public class ParallelStreamOptimization {
         
         long ioSeqTime = measureTime(() -> {
             return data.stream()
-                .map(ioSimulation)
+                .map(ioSimulation::apply)
                 .collect(Collectors.toList());
         });
         
         long ioParTime = measureTime(() -> {
             return data.parallelStream()
-                .map(ioSimulation)
+                .map(ioSimulation::apply)
                 .collect(Collectors.toList());
         });
         
@@ -273,6 +341,7 @@ public class ParallelStreamOptimization {
      */
     public static void main(String[] args) {
         measureParallelEffectiveness();
+        measureFileLineSplitting();
         demonstrateCustomForkJoinPool();
         demonstrateInappropriateParallelization();
         demonstrateSpliteratorCharacteristics();
@@ -288,4 +357,9 @@ public class ParallelStreamOptimization {
     private static interface Function<T, R> {
         R apply(T t);
     }
+    
+    // 行ストリームを開く処理
+    private static interface LineSource {
+        Stream<String> open() throws IOException;
+    }
 }
\ No newline at end of file
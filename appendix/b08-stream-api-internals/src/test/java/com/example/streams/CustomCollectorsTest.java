@@ -0,0 +1,362 @@
+package com.example.streams;
+
+import com.example.streams.CustomCollectors.CountMinTopKCollector;
+import com.example.streams.CustomCollectors.DoubleTopK;
+import com.example.streams.CustomCollectors.LongTopK;
+import com.example.streams.CustomCollectors.QuantileSketch;
+import com.example.streams.CustomCollectors.RunningMoments;
+import com.example.streams.CustomCollectors.ShardedHistogramCollector;
+import com.example.streams.CustomCollectors.ShardedHistogramCollector.CountMap;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.ObjDoubleConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CustomCollectors のテスト
+ *
+ * 乱数の種を固定したストリームで、結果を正確な計算（HashMap での数え上げなど）と比べる。
+ * 並列ストリームの結合に加えて、分割した部分ごとに集計して結合する場合も確かめる。
+ */
+class CustomCollectorsTest {
+    private static final int ELEMENTS = 200_000;
+    private static final long[] SEEDS = {1L, 42L, 20240601L};
+    
+    @Test
+    @DisplayName("カウントミンスケッチの推定値は過小にならず、誤差は ε×総数 以内")
+    void countMinEstimatesStayWithinBounds() {
+        double epsilon = 0.001;
+        for (long seed : SEEDS) {
+            List<Integer> stream = zipf(new SplittableRandom(seed), ELEMENTS, 20_000);
+            Map<Integer, Long> exact = exactCounts(stream);
+            CountMinTopKCollector<Integer> collector = CountMinTopKCollector.withError(10, epsilon, 0.01);
+            
+            CountMinTopKCollector.Sketch<Integer> sequential = collector.supplier().get();
+            stream.forEach(sequential::add);
+            CountMinTopKCollector.Sketch<Integer> merged = collectInPartitions(collector, stream, seed);
+            
+            long bound = (long) (epsilon * ELEMENTS);
+            exact.forEach((element, count) -> {
+                long estimate = sequential.estimate(element);
+                assertTrue(estimate >= count, "Undercount for " + element + ": " + estimate + " < " + count);
+                assertTrue(estimate - count <= bound,
+                    "Error for " + element + ": " + (estimate - count) + " > " + bound);
+                // 結合はセルごとの加算なので、分割の仕方によらず同じ表になる
+                assertEquals(estimate, merged.estimate(element), "seed=" + seed);
+            });
+        }
+    }
+    
+    @Test
+    @DisplayName("カウントミンの Top-K は逐次でも並列でも頻出要素を正しい順に返す")
+    void countMinTopKFindsHeavyHitters() {
+        double epsilon = 0.001;
+        int k = 10;
+        for (long seed : SEEDS) {
+            List<Integer> stream = zipf(new SplittableRandom(seed), ELEMENTS, 20_000);
+            Map<Integer, Long> exact = exactCounts(stream);
+            List<Integer> expectedKeys = exact.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Long>comparingByValue().reversed())
+                .limit(k)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+            CountMinTopKCollector<Integer> collector = CountMinTopKCollector.withError(k, epsilon, 0.01);
+            
+            List<Map.Entry<Integer, Long>> sequential = stream.stream().collect(collector);
+            List<Map.Entry<Integer, Long>> parallel = stream.parallelStream().collect(collector);
+            List<Map.Entry<Integer, Long>> partitioned = collectInPartitions(collector, stream, seed).topK();
+            for (List<Map.Entry<Integer, Long>> topK : List.of(sequential, parallel, partitioned)) {
+                // 上位どうしの出現回数の差は実際の推定誤差より大きいので、順位まで一致する
+                assertEquals(expectedKeys, topK.stream().map(Map.Entry::getKey).collect(Collectors.toList()),
+                    "seed=" + seed);
+                for (Map.Entry<Integer, Long> entry : topK) {
+                    long count = exact.get(entry.getKey());
+                    assertTrue(entry.getValue() >= count && entry.getValue() - count <= epsilon * ELEMENTS,
+                        "seed=" + seed + ", " + entry + " vs " + count);
+                }
+            }
+        }
+    }
+    
+    @Test
+    @DisplayName("シャード化ヒストグラムは逐次・並列・分割結合で同じ結果になる")
+    void shardedHistogramMatchesExactCounts() {
+        for (long seed : SEEDS) {
+            SplittableRandom random = new SplittableRandom(seed);
+            List<Object> stream = new ArrayList<>(ELEMENTS);
+            List<Integer> keys = zipf(random, ELEMENTS, 50_000);
+            for (int i = 0; i < ELEMENTS; i++) {
+                int key = keys.get(i);
+                switch (random.nextInt(4)) {
+                    // 下位ビットがすべて 0 の hashCode（spread で攪拌しないと同じスロットに集まる）
+                    case 0 -> stream.add(key << 16);
+                    // "Aa" と "BB" は同じ hashCode を持つので、連結した文字列も衝突する
+                    case 1 -> stream.add((key % 2 == 0 ? "Aa" : "BB") + (key % 64));
+                    default -> stream.add(key);
+                }
+            }
+            Map<Object, Long> exact = exactCounts(stream);
+            
+            Map<Object, Long> sequential = stream.stream().collect(new ShardedHistogramCollector<>());
+            Map<Object, Long> parallel = stream.parallelStream().collect(new ShardedHistogramCollector<>());
+            assertEquals(exact, sequential, "seed=" + seed);
+            assertEquals(sequential, parallel, "seed=" + seed);
+            
+            CountMap<Object> merged = collectInPartitions(new ShardedHistogramCollector<>(), stream, seed);
+            assertEquals(exact.size(), merged.size());
+            assertEquals(exact, merged.toMap(), "seed=" + seed);
+            exact.forEach((key, count) -> assertEquals((long) count, merged.get(key)));
+            assertEquals(0L, merged.get("absent"));
+        }
+    }
+    
+    @Test
+    @DisplayName("RunningMoments は2パスで求めた平均・分散と一致する")
+    void runningMomentsMatchTwoPassComputation() {
+        for (long seed : SEEDS) {
+            SplittableRandom random = new SplittableRandom(seed);
+            // 大きな値に小さなばらつき：二乗和から求めると桁落ちする入力
+            double[] values = DoubleStream.generate(() -> 1e9 + random.nextDouble() * 10 - 5)
+                .limit(ELEMENTS).toArray();
+            double mean = Arrays.stream(values).sum() / values.length;
+            double squaredDeviations = 0;
+            for (double value : values) {
+                squaredDeviations += (value - mean) * (value - mean);
+            }
+            double variance = squaredDeviations / values.length;
+            
+            RunningMoments sequential = new RunningMoments();
+            Arrays.stream(values).forEach(sequential);
+            RunningMoments parallel = Arrays.stream(values).parallel()
+                .collect(RunningMoments::new, RunningMoments::accept, RunningMoments::combine);
+            RunningMoments partitioned = combineInPartitions(values, RunningMoments::new,
+                RunningMoments::accept, RunningMoments::combine, seed);
+            for (RunningMoments moments : List.of(sequential, parallel, partitioned)) {
+                String context = "seed=" + seed + ", " + moments;
+                assertEquals(values.length, moments.getCount(), context);
+                assertEquals(mean, moments.getMean(), Math.abs(mean) * 1e-12, context);
+                assertEquals(variance, moments.getVariance(), variance * 1e-6, context);
+                assertEquals(squaredDeviations / (values.length - 1), moments.getSampleVariance(),
+                    variance * 1e-6, context);
+                assertEquals(Arrays.stream(values).min().getAsDouble(), moments.getMin(), context);
+                assertEquals(Arrays.stream(values).max().getAsDouble(), moments.getMax(), context);
+            }
+        }
+        
+        RunningMoments empty = new RunningMoments();
+        assertEquals(0, empty.getCount());
+        assertEquals(0.0, empty.getMean());
+        assertEquals(0.0, empty.getVariance());
+        RunningMoments ints = IntStream.rangeClosed(1, 100).collect(RunningMoments::new,
+            RunningMoments::accept, RunningMoments::combine);
+        ints.combine(empty);
+        assertEquals(50.5, ints.getMean(), 1e-12);
+        assertEquals((100.0 * 100 - 1) / 12, ints.getVariance(), 1e-9); // 1..n の母分散は (n^2 - 1) / 12
+    }
+    
+    @Test
+    @DisplayName("QuantileSketch の分位数は設定した相対誤差に収まり、分割して結合しても逐次と同じ")
+    void quantileSketchStaysWithinRelativeAccuracy() {
+        double[] quantiles = {0, 0.001, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99, 0.999, 1};
+        for (double accuracy : new double[] {0.01, 0.05}) {
+            for (long seed : SEEDS) {
+                SplittableRandom random = new SplittableRandom(seed);
+                // 桁の大きく異なる正の値（対数正規分布）に、負の値と 0 を混ぜる
+                double[] values = DoubleStream.generate(() -> {
+                    int kind = random.nextInt(10);
+                    double magnitude = Math.exp(random.nextDouble() * 20 - 5);
+                    return kind == 0 ? 0.0 : kind < 3 ? -magnitude : magnitude;
+                }).limit(ELEMENTS).toArray();
+                double[] sorted = values.clone();
+                Arrays.sort(sorted);
+                
+                QuantileSketch sequential = new QuantileSketch(accuracy);
+                Arrays.stream(values).forEach(sequential);
+                QuantileSketch parallel = Arrays.stream(values).parallel()
+                    .collect(() -> new QuantileSketch(accuracy), QuantileSketch::accept, QuantileSketch::combine);
+                QuantileSketch partitioned = combineInPartitions(values, () -> new QuantileSketch(accuracy),
+                    QuantileSketch::accept, QuantileSketch::combine, seed);
+                
+                for (double q : quantiles) {
+                    String context = "accuracy=" + accuracy + ", seed=" + seed + ", q=" + q;
+                    double exact = sorted[(int) Math.ceil(q * (sorted.length - 1))];
+                    double estimate = sequential.quantile(q);
+                    assertEquals(exact, estimate, Math.abs(exact) * accuracy * (1 + 1e-9), context);
+                    // バケットの加算は順序によらないので、結合した結果は逐次と完全に一致する
+                    assertEquals(estimate, parallel.quantile(q), context);
+                    assertEquals(estimate, partitioned.quantile(q), context);
+                }
+                assertEquals(values.length, partitioned.getCount());
+                assertEquals(sorted[0], partitioned.getMin());
+                assertEquals(sorted[sorted.length - 1], partitioned.getMax());
+            }
+        }
+        
+        assertTrue(Double.isNaN(new QuantileSketch(0.01).quantile(0.5)));
+        assertThrows(IllegalArgumentException.class,
+            () -> new QuantileSketch(0.01).combine(new QuantileSketch(0.02)));
+    }
+    
+    @Test
+    @DisplayName("LongTopK と DoubleTopK は並べ替えた上位K件と一致し、分割して結合しても同じ")
+    void primitiveTopKMatchesSortedPrefix() {
+        for (long seed : SEEDS) {
+            for (int k : new int[] {1, 7, 100, 1_000}) {
+                SplittableRandom random = new SplittableRandom(seed);
+                // 重複の多い狭い範囲と、両端の値を混ぜる
+                long[] longs = LongStream.generate(() -> switch (random.nextInt(20)) {
+                    case 0 -> Long.MIN_VALUE;
+                    case 1 -> Long.MAX_VALUE;
+                    case 2, 3, 4 -> random.nextLong(-50, 50);
+                    default -> random.nextLong();
+                }).limit(ELEMENTS).toArray();
+                long[] expectedLongs = LongStream.of(longs).boxed()
+                    .sorted(Comparator.reverseOrder()).limit(k).mapToLong(Long::longValue).toArray();
+                
+                int size = k;
+                LongTopK sequential = new LongTopK(k);
+                LongStream.of(longs).forEach(sequential);
+                LongTopK parallel = LongStream.of(longs).parallel()
+                    .collect(() -> new LongTopK(size), LongTopK::accept, LongTopK::combine);
+                LongTopK partitioned = combineInPartitions(longs, () -> new LongTopK(size),
+                    LongTopK::accept, LongTopK::combine, seed);
+                String context = "seed=" + seed + ", k=" + k;
+                assertArrayEquals(expectedLongs, sequential.toArray(), context);
+                assertArrayEquals(expectedLongs, parallel.toArray(), context);
+                assertArrayEquals(expectedLongs, partitioned.toArray(), context);
+                
+                double[] doubles = DoubleStream.generate(() -> switch (random.nextInt(20)) {
+                    case 0 -> Double.NaN; // 無視される
+                    case 1 -> Double.POSITIVE_INFINITY;
+                    case 2 -> Double.NEGATIVE_INFINITY;
+                    case 3, 4 -> random.nextInt(-50, 50) + 0.5;
+                    default -> random.nextGaussian() * 1e6;
+                }).limit(ELEMENTS).toArray();
+                double[] expectedDoubles = DoubleStream.of(doubles).filter(value -> !Double.isNaN(value)).boxed()
+                    .sorted(Comparator.reverseOrder()).limit(k).mapToDouble(Double::doubleValue).toArray();
+                
+                DoubleTopK sequentialDoubles = new DoubleTopK(k);
+                DoubleStream.of(doubles).forEach(sequentialDoubles);
+                DoubleTopK parallelDoubles = DoubleStream.of(doubles).parallel()
+                    .collect(() -> new DoubleTopK(size), DoubleTopK::accept, DoubleTopK::combine);
+                DoubleTopK partitionedDoubles = combineInPartitions(doubles, () -> new DoubleTopK(size),
+                    DoubleTopK::accept, DoubleTopK::combine, seed);
+                assertArrayEquals(expectedDoubles, sequentialDoubles.toArray(), context);
+                assertArrayEquals(expectedDoubles, parallelDoubles.toArray(), context);
+                assertArrayEquals(expectedDoubles, partitionedDoubles.toArray(), context);
+            }
+        }
+        
+        LongTopK few = new LongTopK(10);
+        IntStream.of(3, 1, 2).forEach(few);
+        assertArrayEquals(new long[] {3, 2, 1}, few.toArray()); // k 件に満たない
+        assertThrows(IllegalArgumentException.class, () -> new LongTopK(0));
+        assertThrows(IllegalArgumentException.class, () -> new DoubleTopK(0));
+    }
+    
+    private static <T, A> A collectInPartitions(Collector<T, A, ?> collector, List<T> stream, long seed) {
+        return combineInPartitions(stream.size(), collector.supplier(),
+            (container, index) -> collector.accumulator().accept(container, stream.get(index)),
+            collector.combiner(), seed);
+    }
+    
+    private static <A> A combineInPartitions(double[] values, Supplier<A> supplier,
+                                             ObjDoubleConsumer<A> accumulator, BiConsumer<A, A> combiner, long seed) {
+        return combineInPartitions(values.length, supplier,
+            (container, index) -> accumulator.accept(container, values[index]), mergingInto(combiner), seed);
+    }
+    
+    private static <A> A combineInPartitions(long[] values, Supplier<A> supplier,
+                                             ObjLongConsumer<A> accumulator, BiConsumer<A, A> combiner, long seed) {
+        return combineInPartitions(values.length, supplier,
+            (container, index) -> accumulator.accept(container, values[index]), mergingInto(combiner), seed);
+    }
+    
+    /**
+     * 要素の並びを乱数の位置で分割し、部分ごとに集計してから、結合の順序も変えて結合する
+     */
+    private static <A> A combineInPartitions(int size, Supplier<A> supplier, ObjIntConsumer<A> accumulator,
+                                             BinaryOperator<A> combiner, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<A> partials = new ArrayList<>();
+        int from = 0;
+        while (from < size) {
+            int to = Math.min(size, from + random.nextInt(1, size / 4));
+            A container = supplier.get();
+            for (int index = from; index < to; index++) {
+                accumulator.accept(container, index);
+            }
+            partials.add(container);
+            from = to;
+        }
+        partials.add(supplier.get()); // 空の部分との結合
+        while (partials.size() > 1) {
+            int index = random.nextInt(partials.size() - 1);
+            A combined = combiner.apply(partials.get(index), partials.get(index + 1));
+            partials.set(index, combined);
+            partials.remove(index + 1);
+        }
+        return partials.get(0);
+    }
+    
+    private static <A> BinaryOperator<A> mergingInto(BiConsumer<A, A> combiner) {
+        return (left, right) -> {
+            combiner.accept(left, right);
+            return left;
+        };
+    }
+    
+    private static <T> Map<T, Long> exactCounts(List<T> stream) {
+        Map<T, Long> counts = new HashMap<>();
+        stream.forEach(element -> counts.merge(element, 1L, Long::sum));
+        return counts;
+    }
+    
+    /**
+     * 順位 r の要素が 1/r に比例する確率で現れる列（要素は乱数で並べ替えた整数）
+     */
+    private static List<Integer> zipf(SplittableRandom random, int size, int distinct) {
+        double[] cumulative = new double[distinct];
+        double total = 0;
+        for (int rank = 0; rank < distinct; rank++) {
+            total += 1.0 / (rank + 1);
+            cumulative[rank] = total;
+        }
+        int[] labels = random.ints(distinct, 0, Integer.MAX_VALUE).toArray();
+        List<Integer> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            double u = random.nextDouble() * total;
+            int low = 0;
+            int high = distinct - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] < u) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            result.add(labels[low]);
+        }
+        return result;
+    }
+}
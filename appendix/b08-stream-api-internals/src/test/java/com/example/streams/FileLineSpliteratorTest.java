@@ -0,0 +1,226 @@
+package com.example.streams;
+
+import com.example.streams.CustomSpliterator.FileLineSpliterator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FileLineSpliterator のテスト
+ *
+ * 同じファイルを Files.readAllLines でも読み、行の並びが常に一致することを確かめる。
+ * 分割は 256KiB 以上の範囲でしか起きないため、分割を通すファイルはそれより大きくする。
+ * 分割できなくなるまで再帰的に分割して前半から順に読む場合と、並列ストリームの場合の両方を比べる。
+ */
+class FileLineSpliteratorTest {
+    private static final int HALF = 300_000; // 最初の分割点（ファイルの中央）
+    private static final long[] SEEDS = {1L, 42L, 20240601L};
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    @DisplayName("分割点が行の途中なら次の改行の直後で分ける")
+    void splitInsideLine() throws IOException {
+        SplittableRandom random = new SplittableRandom(1);
+        // 中央の前後に "abcde" + "fghij\n" の行がまたがる
+        String content = text(random, HALF - 5, "\n") + "abcde" + "fghij\n" + text(random, HALF - 6, "\n");
+        Path file = write("inside.txt", content);
+        
+        assertFirstSplitAt(file, HALF + 6);
+        assertLinesMatch(file);
+    }
+    
+    @Test
+    @DisplayName("分割点がちょうど改行なら、その改行までを前半に含める")
+    void splitOnNewline() throws IOException {
+        SplittableRandom random = new SplittableRandom(2);
+        String content = text(random, HALF - 5, "\n") + "abcde" + "\n" + text(random, HALF - 1, "\n");
+        Path file = write("newline.txt", content);
+        
+        assertFirstSplitAt(file, HALF + 1);
+        assertLinesMatch(file);
+    }
+    
+    @Test
+    @DisplayName("分割点が行の先頭でも行を失わず重複もしない")
+    void splitAtLineStart() throws IOException {
+        SplittableRandom random = new SplittableRandom(3);
+        Path file = write("start.txt", text(random, HALF, "\n") + text(random, HALF, "\n"));
+        
+        assertLinesMatch(file);
+    }
+    
+    @Test
+    @DisplayName("\\r\\n の \\r と \\n の間で分割しても行末を正しく取り除く")
+    void splitInsideCrLf() throws IOException {
+        SplittableRandom random = new SplittableRandom(4);
+        String content = text(random, HALF - 6, "\r\n") + "abcde\r" + "\n" + text(random, HALF - 1, "\r\n");
+        Path file = write("crlf.txt", content);
+        
+        assertFirstSplitAt(file, HALF + 1);
+        assertLinesMatch(file);
+    }
+    
+    @Test
+    @DisplayName("読み込みバッファ（64KiB）より長い行")
+    void linesLongerThanBuffer() throws IOException {
+        SplittableRandom random = new SplittableRandom(5);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            content.append(text(random, 20_000, "\n"));
+            // 複数バイト文字を含め、文字がバッファの境界をまたぐようにする
+            content.append("あ".repeat(50_000 + i)).append(i % 2 == 0 ? "\n" : "\r\n");
+        }
+        content.append("x".repeat(200_000)); // 改行のない長い最終行
+        Path file = write("long.txt", content.toString());
+        
+        assertLinesMatch(file);
+        List<String> lines = readSequentially(file);
+        assertEquals(200_000, lines.get(lines.size() - 1).length());
+    }
+    
+    @Test
+    @DisplayName("末尾に改行のないファイル")
+    void missingTrailingNewline() throws IOException {
+        assertLinesMatch(write("small.txt", "first\nsecond\r\nlast"));
+        assertLinesMatch(write("single.txt", "only"));
+        
+        SplittableRandom random = new SplittableRandom(6);
+        assertLinesMatch(write("large.txt", text(random, 2 * HALF, "\n") + "last line without newline"));
+    }
+    
+    @Test
+    @DisplayName("空のファイルと空行だけのファイル")
+    void emptyFiles() throws IOException {
+        Path empty = write("empty.txt", "");
+        assertEquals(List.of(), readSequentially(empty));
+        assertLinesMatch(empty);
+        try (FileChannel channel = FileChannel.open(empty, StandardOpenOption.READ)) {
+            FileLineSpliterator spliterator = new FileLineSpliterator(channel, StandardCharsets.UTF_8);
+            assertNull(spliterator.trySplit());
+            assertFalse(spliterator.tryAdvance(line -> fail("Unexpected line " + line)));
+            assertEquals(0, spliterator.estimateSize());
+        }
+        
+        assertLinesMatch(write("newlines.txt", "\n\n\r\n\n"));
+    }
+    
+    @Test
+    @DisplayName("乱数で作ったファイルで再帰分割・並列・逐次の結果が readAllLines と一致する")
+    void randomFilesMatchReadAllLines() throws IOException {
+        for (long seed : SEEDS) {
+            SplittableRandom random = new SplittableRandom(seed);
+            StringBuilder content = new StringBuilder();
+            while (content.length() < 2_000_000) {
+                switch (random.nextInt(10)) {
+                    case 0 -> content.append('\n'); // 空行
+                    case 1 -> content.append("y".repeat(random.nextInt(70_000, 140_000))).append('\n');
+                    case 2 -> content.append(text(random, random.nextInt(2, 200), "\r\n"));
+                    default -> content.append(text(random, random.nextInt(1, 2_000), "\n"));
+                }
+            }
+            if (random.nextBoolean()) {
+                content.append("tail"); // 改行のない最終行
+            }
+            assertLinesMatch(write("random-" + seed + ".txt", content.toString()));
+        }
+    }
+    
+    /**
+     * 逐次・分割できなくなるまで再帰的に分割・並列ストリームの3通りで readAllLines と比べる
+     */
+    private static void assertLinesMatch(Path file) throws IOException {
+        List<String> expected = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(expected, readSequentially(file), "sequential");
+        
+        List<String> split = new ArrayList<>();
+        int pieces;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            pieces = readSplit(new FileLineSpliterator(channel, StandardCharsets.UTF_8), split);
+        }
+        assertEquals(expected, split, "split into " + pieces + " pieces");
+        if (Files.size(file) >= 2 * HALF && expected.size() > 1) {
+            assertTrue(pieces > 1, "Expected the file to be split");
+        }
+        
+        try (Stream<String> lines = FileLineSpliterator.lines(file, StandardCharsets.UTF_8)) {
+            assertEquals(expected, lines.collect(Collectors.toList()), "parallel");
+        }
+    }
+    
+    private static List<String> readSequentially(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return StreamSupport.stream(new FileLineSpliterator(channel, StandardCharsets.UTF_8), false)
+                .collect(Collectors.toList());
+        }
+    }
+    
+    /**
+     * 前半を先に読むので、結果は元の行の順序になる
+     * @return 分割後の断片の数
+     */
+    private static int readSplit(Spliterator<String> spliterator, List<String> out) {
+        Spliterator<String> prefix = spliterator.trySplit();
+        if (prefix == null) {
+            spliterator.forEachRemaining(out::add);
+            return 1;
+        }
+        return readSplit(prefix, out) + readSplit(spliterator, out);
+    }
+    
+    /**
+     * 最初の分割で前半がちょうど expectedPrefixBytes バイトになることを確かめる
+     */
+    private static void assertFirstSplitAt(Path file, long expectedPrefixBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            FileLineSpliterator spliterator = new FileLineSpliterator(channel, StandardCharsets.UTF_8);
+            long size = spliterator.estimateSize();
+            Spliterator<String> prefix = spliterator.trySplit();
+            assertNotNull(prefix);
+            assertEquals(expectedPrefixBytes, prefix.estimateSize());
+            assertEquals(size - expectedPrefixBytes, spliterator.estimateSize());
+        }
+    }
+    
+    private Path write(String name, String content) throws IOException {
+        return Files.write(dir.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * ちょうど length 文字（ASCII なのでバイト数も同じ）で、separator で終わる行の並び
+     */
+    private static String text(SplittableRandom random, int length, String separator) {
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            int lineLength = random.nextInt(0, 120);
+            for (int i = 0; i < lineLength; i++) {
+                text.append((char) ('a' + random.nextInt(26)));
+            }
+            text.append(separator);
+        }
+        text.setLength(length - separator.length());
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\r' && (i + 1 == text.length() || text.charAt(i + 1) != '\n')) {
+                text.setCharAt(i, 'r'); // 切り詰めで \r だけが残ったら普通の文字にする
+            }
+        }
+        return text.append(separator).toString();
+    }
+}
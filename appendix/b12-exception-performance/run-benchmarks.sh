@@ -37,6 +37,10 @@ mkdir -p results
 run_benchmark "BasicExceptionBenchmark" "basic-exception"
 run_benchmark "StackTraceDepthBenchmark" "stack-depth" "-p stackDepth=1,10,50,100,200"
 run_benchmark "ExceptionTypeBenchmark" "exception-types"
+for threads in 1 4 16 64; do
+    run_benchmark "ExceptionPoolBenchmark" "exception-pool-t${threads}" "-t ${threads}"
+done
+run_benchmark "ResultPipelineBenchmark" "result-pipeline" "-p failurePercent=0,10"
 
 echo "All benchmarks completed!"
 echo ""
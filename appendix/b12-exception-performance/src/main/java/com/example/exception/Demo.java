@@ -1,5 +1,7 @@
 package com.example.exception;
 
+import com.example.exception.monitoring.BatchOptions;
+import com.example.exception.monitoring.BatchResult;
 import com.example.exception.monitoring.ExceptionHandler;
 import com.example.exception.monitoring.ExceptionMetrics;
 import com.example.exception.optimization.ConditionalStackTraceException;
@@ -8,6 +10,7 @@ import com.example.exception.optimization.ValidationException;
 import com.example.exception.patterns.NullObject;
 import com.example.exception.patterns.Result;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
@@ -271,6 +274,15 @@ public class Demo {
             () -> { /* Task 3 */ }
         );
         
+        // Concurrent batch processing with per-task timeouts
+        BatchResult<Void> batchResult = batchMonitor.executeBatchConcurrently(
+            BatchOptions.builder().taskTimeout(Duration.ofSeconds(1)).build(),
+            () -> { /* Task 1 */ },
+            () -> { throw new IllegalStateException("Task 2 failed"); },
+            () -> { /* Task 3 */ }
+        );
+        System.out.println(batchResult);
+        
         // Print metrics report
         System.out.println(metrics.generateReport());
     }
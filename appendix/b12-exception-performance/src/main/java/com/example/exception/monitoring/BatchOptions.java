@@ -0,0 +1,193 @@
+package com.example.exception.monitoring;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Settings for concurrent batch execution in {@link ExceptionHandler.BatchMonitor}.
+ *
+ * <p>By default each batch runs on its own pool, which is shut down when the batch ends.
+ * The pool keeps one thread per processor and adds threads on demand, so a task that
+ * ignores its timeout does not hold up the rest of the batch. A caller-supplied executor is
+ * used as is and never shut down. At most {@code maxConcurrency} tasks are submitted at a
+ * time, not counting timed out tasks, so a large batch does not queue all of its tasks up
+ * front.
+ */
+public final class BatchOptions {
+    private static final MethodHandle NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutor();
+    
+    private final Executor executor;
+    private final Supplier<ExecutorService> ownedExecutor;
+    private final int maxConcurrency;
+    private final Duration taskTimeout;
+    private final boolean stopOnError;
+    
+    private BatchOptions(Builder builder) {
+        int threads = builder.maxConcurrency;
+        this.executor = builder.executor;
+        this.ownedExecutor = builder.executor == null && builder.ownedExecutor == null
+            ? () -> newWorkerPool(threads)
+            : builder.ownedExecutor;
+        this.maxConcurrency = threads;
+        this.taskTimeout = builder.taskTimeout;
+        this.stopOnError = builder.stopOnError;
+    }
+    
+    public static Builder builder() {
+        return new Builder();
+    }
+    
+    /**
+     * Default settings: one thread per processor, no timeout, run every task.
+     */
+    public static BatchOptions defaults() {
+        return builder().build();
+    }
+    
+    /**
+     * Whether this JVM provides virtual threads (Java 21 and later).
+     */
+    public static boolean isVirtualThreadSupported() {
+        return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+    }
+    
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+    
+    /**
+     * @return the per-task timeout, or {@code null} if tasks may run indefinitely
+     */
+    public Duration getTaskTimeout() {
+        return taskTimeout;
+    }
+    
+    public boolean isStopOnError() {
+        return stopOnError;
+    }
+    
+    /**
+     * Executor supplied by the caller, or {@code null} if each batch creates its own.
+     */
+    Executor getExecutor() {
+        return executor;
+    }
+    
+    /**
+     * Create the executor for one batch; the batch shuts it down when it ends.
+     */
+    ExecutorService createOwnedExecutor() {
+        return ownedExecutor.get();
+    }
+    
+    private static MethodHandle findVirtualThreadExecutor() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class,
+                "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+    
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invokeExact();
+        } catch (Throwable t) {
+            throw new IllegalStateException("Could not create virtual thread executor", t);
+        }
+    }
+    
+    private static ExecutorService newWorkerPool(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = task -> {
+            Thread thread = new Thread(task, "batch-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // Concurrency is bounded by the batch's permits; the pool only grows past its core
+        // size while timed out tasks are still occupying threads
+        return new ThreadPoolExecutor(threads, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), factory);
+    }
+    
+    public static final class Builder {
+        private Executor executor;
+        private Supplier<ExecutorService> ownedExecutor;
+        private int maxConcurrency = Runtime.getRuntime().availableProcessors();
+        private Duration taskTimeout;
+        private boolean stopOnError;
+        
+        private Builder() {
+        }
+        
+        /**
+         * Run tasks on the given executor. It is not shut down when the batch ends.
+         */
+        public Builder executor(Executor executor) {
+            this.executor = Objects.requireNonNull(executor);
+            this.ownedExecutor = null;
+            return this;
+        }
+        
+        /**
+         * Run each task on its own virtual thread. Raise {@link #maxConcurrency} to match,
+         * since virtual threads suit tasks that mostly wait on I/O.
+         * @throws UnsupportedOperationException if the JVM has no virtual threads
+         */
+        public Builder virtualThreads() {
+            if (!isVirtualThreadSupported()) {
+                throw new UnsupportedOperationException("Virtual threads require Java 21 or later");
+            }
+            this.executor = null;
+            this.ownedExecutor = BatchOptions::newVirtualThreadExecutor;
+            return this;
+        }
+        
+        /**
+         * Maximum number of tasks submitted and not yet finished at any time.
+         */
+        public Builder maxConcurrency(int maxConcurrency) {
+            if (maxConcurrency < 1) {
+                throw new IllegalArgumentException("Concurrency must be positive");
+            }
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+        
+        /**
+         * Interrupt and fail tasks that run longer than the timeout. A task that ignores
+         * the interrupt keeps its thread until it returns, but its result is discarded.
+         */
+        public Builder taskTimeout(Duration taskTimeout) {
+            if (taskTimeout.isNegative() || taskTimeout.isZero()) {
+                throw new IllegalArgumentException("Timeout must be positive");
+            }
+            this.taskTimeout = taskTimeout;
+            return this;
+        }
+        
+        /**
+         * On the first failure or timeout, cancel running tasks and skip the rest.
+         */
+        public Builder stopOnError(boolean stopOnError) {
+            this.stopOnError = stopOnError;
+            return this;
+        }
+        
+        public BatchOptions build() {
+            return new BatchOptions(this);
+        }
+    }
+}
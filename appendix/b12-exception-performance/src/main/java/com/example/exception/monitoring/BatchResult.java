@@ -0,0 +1,158 @@
+package com.example.exception.monitoring;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a concurrent batch, with results, errors and latencies in task order.
+ *
+ * @param <T> Task result type
+ */
+public final class BatchResult<T> {
+
+    /**
+     * How a single task ended.
+     */
+    public enum Outcome {
+        SUCCEEDED,
+        FAILED,
+        TIMED_OUT,
+        /** Cancelled or never started because another task failed, or the caller was interrupted. */
+        CANCELLED
+    }
+
+    private final Object[] values;
+    private final Throwable[] errors;
+    private final Outcome[] outcomes;
+    private final long[] latencies;
+    private final LatencyHistogram.Snapshot latencySnapshot;
+    private final Duration elapsed;
+
+    BatchResult(Object[] values, Throwable[] errors, Outcome[] outcomes, long[] latencies,
+                LatencyHistogram.Snapshot latencySnapshot, Duration elapsed) {
+        this.values = values;
+        this.errors = errors;
+        this.outcomes = outcomes;
+        this.latencies = latencies;
+        this.latencySnapshot = latencySnapshot;
+        this.elapsed = elapsed;
+    }
+
+    public int size() {
+        return outcomes.length;
+    }
+
+    /**
+     * Results in task order, with {@code null} for tasks that did not succeed.
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> getResults() {
+        return Collections.unmodifiableList(Arrays.asList((T[]) values));
+    }
+
+    @SuppressWarnings("unchecked")
+    public T getResult(int index) {
+        return (T) values[index];
+    }
+
+    public Outcome getOutcome(int index) {
+        return outcomes[index];
+    }
+
+    /**
+     * @return the exception thrown by the task, a {@link java.util.concurrent.TimeoutException}
+     *         if it timed out, or {@code null}
+     */
+    public Throwable getError(int index) {
+        return errors[index];
+    }
+
+    /**
+     * Time the task ran, in nanoseconds; zero if it never started.
+     */
+    public long getLatencyNanos(int index) {
+        return latencies[index];
+    }
+
+    /**
+     * Errors of failed and timed out tasks by task index, in task order.
+     */
+    public Map<Integer, Throwable> getErrors() {
+        Map<Integer, Throwable> byIndex = new LinkedHashMap<>();
+        for (int i = 0; i < errors.length; i++) {
+            if (errors[i] != null) {
+                byIndex.put(i, errors[i]);
+            }
+        }
+        return byIndex;
+    }
+
+    /**
+     * Number of failed and timed out tasks by exception type.
+     */
+    public Map<Class<? extends Throwable>, Integer> getErrorCountsByType() {
+        Map<Class<? extends Throwable>, Integer> counts = new LinkedHashMap<>();
+        for (Throwable error : errors) {
+            if (error != null) {
+                counts.merge(error.getClass(), 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Index of the first task, in task order, that failed or timed out; -1 if none did.
+     */
+    public int getFirstFailureIndex() {
+        for (int i = 0; i < errors.length; i++) {
+            if (errors[i] != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int getCount(Outcome outcome) {
+        int count = 0;
+        for (Outcome o : outcomes) {
+            if (o == outcome) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Whether every task succeeded.
+     */
+    public boolean isSuccessful() {
+        return getCount(Outcome.SUCCEEDED) == outcomes.length;
+    }
+
+    /**
+     * Latency distribution of tasks that ran to completion or timed out.
+     */
+    public LatencyHistogram.Snapshot getLatencySnapshot() {
+        return latencySnapshot;
+    }
+
+    /**
+     * Wall-clock time of the whole batch.
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BatchResult{tasks=%d, succeeded=%d, failed=%d, timedOut=%d, cancelled=%d, "
+                + "elapsed=%dms, p50=%dus, p99=%dus}",
+            outcomes.length, getCount(Outcome.SUCCEEDED), getCount(Outcome.FAILED),
+            getCount(Outcome.TIMED_OUT), getCount(Outcome.CANCELLED), elapsed.toMillis(),
+            latencySnapshot.getP50() / 1000, latencySnapshot.getP99() / 1000);
+    }
+}
@@ -0,0 +1,313 @@
+package com.example.exception.monitoring;
+
+import com.example.exception.monitoring.BatchResult.Outcome;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * One concurrent run of a batch for {@link ExceptionHandler.BatchMonitor}.
+ *
+ * <p>The calling thread submits tasks in order, holding a permit for each task until it
+ * returns, and then waits until every task has settled. Each task settles exactly once:
+ * whichever of completion, failure, timeout or cancellation gets there first wins, and
+ * later outcomes are discarded. Results are written into arrays by task index before the
+ * task counts down the latch the caller waits on, so they are visible without locking.
+ *
+ * <p>A task that times out gives its permit back at once, even if it ignores the interrupt
+ * and keeps running, so it cannot stall the submission of the rest of the batch. The shared
+ * timeout thread only settles the task; reporting the error to metrics and the error
+ * handler, and stopping the batch, run on the batch's executor.
+ *
+ * @param <T> Task result type
+ */
+final class ConcurrentBatch<T> {
+    private static final int PENDING = 0;
+    private static final int RUNNING = 1;
+    private static final int SETTLED = 2;
+    
+    private final BatchOptions options;
+    private final ExceptionMetrics metrics;
+    private final BiConsumer<Integer, Throwable> errorHandler;
+    private final List<Task> tasks;
+    private final Object[] values;
+    private final Throwable[] errors;
+    private final Outcome[] outcomes;
+    private final long[] latencies;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final CountDownLatch settled;
+    private final Semaphore permits;
+    private volatile Executor executor;
+    private volatile boolean stopped;
+    
+    ConcurrentBatch(List<? extends Callable<? extends T>> callables, BatchOptions options,
+                    ExceptionMetrics metrics, BiConsumer<Integer, Throwable> errorHandler) {
+        int size = callables.size();
+        this.options = options;
+        this.metrics = metrics;
+        this.errorHandler = errorHandler;
+        this.tasks = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            tasks.add(new Task(i, callables.get(i)));
+        }
+        this.values = new Object[size];
+        this.errors = new Throwable[size];
+        this.outcomes = new Outcome[size];
+        this.latencies = new long[size];
+        this.settled = new CountDownLatch(size);
+        this.permits = new Semaphore(options.getMaxConcurrency());
+    }
+    
+    BatchResult<T> execute() {
+        long start = System.nanoTime();
+        ExecutorService owned = options.getExecutor() == null ? options.createOwnedExecutor() : null;
+        try {
+            executor = owned != null ? owned : options.getExecutor();
+            submitAll();
+            awaitSettled();
+        } finally {
+            if (owned != null) {
+                owned.shutdownNow(); // Only tasks that ignored a timeout are still running
+            }
+        }
+        return new BatchResult<>(values, errors, outcomes, latencies, histogram.snapshot(),
+            Duration.ofNanos(System.nanoTime() - start));
+    }
+    
+    private void submitAll() {
+        int next = 0;
+        try {
+            for (; next < tasks.size() && !stopped; next++) {
+                permits.acquire();
+                if (stopped) {
+                    permits.release();
+                    break;
+                }
+                Task task = tasks.get(next);
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    task.releasePermit();
+                    task.fail(e, 0, Outcome.FAILED);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stop();
+        }
+        for (int i = next; i < tasks.size(); i++) {
+            tasks.get(i).cancel();
+        }
+    }
+    
+    private void awaitSettled() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                settled.await();
+                break;
+            } catch (InterruptedException e) {
+                // Cancelling settles every task, so the wait that follows is short
+                interrupted = true;
+                stop();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Cancel running tasks and every task not yet started.
+     */
+    private void stop() {
+        stopped = true;
+        for (Task task : tasks) {
+            task.cancel();
+        }
+    }
+    
+    private final class Task implements Runnable {
+        private final int index;
+        private final Callable<? extends T> callable;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private final AtomicBoolean permitReleased = new AtomicBoolean();
+        private volatile long startNanos;
+        private Thread runner; // Guarded by this
+        private boolean interruptedRunner; // Guarded by this
+        
+        Task(int index, Callable<? extends T> callable) {
+            this.index = index;
+            this.callable = callable;
+        }
+        
+        @Override
+        public void run() {
+            try {
+                startNanos = System.nanoTime();
+                synchronized (this) {
+                    runner = Thread.currentThread(); // Set before RUNNING so cancel() can always interrupt
+                }
+                if (state.compareAndSet(PENDING, RUNNING)) {
+                    call();
+                }
+            } finally {
+                boolean clearInterrupt;
+                synchronized (this) {
+                    runner = null;
+                    clearInterrupt = interruptedRunner;
+                }
+                if (clearInterrupt) {
+                    Thread.interrupted(); // Do not leak our interrupt into the next task on this thread
+                }
+                releasePermit();
+            }
+        }
+        
+        private void call() {
+            long start = startNanos;
+            ScheduledFuture<?> timer = scheduleTimeout();
+            try {
+                complete(callable.call(), System.nanoTime() - start);
+            } catch (Exception e) {
+                fail(e, System.nanoTime() - start, Outcome.FAILED);
+            } catch (Error e) {
+                fail(e, System.nanoTime() - start, Outcome.FAILED);
+                throw e;
+            } finally {
+                if (timer != null) {
+                    timer.cancel(false);
+                }
+            }
+        }
+        
+        private ScheduledFuture<?> scheduleTimeout() {
+            Duration timeout = options.getTaskTimeout();
+            if (timeout == null) {
+                return null;
+            }
+            return TimeoutScheduler.INSTANCE.schedule(this::timeOut, timeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        
+        /**
+         * Give back the permit taken when this task was submitted. Called when the task
+         * returns, times out or is cancelled while running, whichever comes first.
+         */
+        void releasePermit() {
+            if (permitReleased.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+        
+        void complete(T value, long latency) {
+            if (state.getAndSet(SETTLED) == SETTLED) {
+                return;
+            }
+            values[index] = value;
+            outcomes[index] = Outcome.SUCCEEDED;
+            latencies[index] = latency;
+            histogram.record(latency);
+            settled.countDown();
+        }
+        
+        void fail(Throwable error, long latency, Outcome outcome) {
+            if (state.getAndSet(SETTLED) == SETTLED) {
+                return;
+            }
+            record(error, latency, outcome);
+            report(error, latency);
+        }
+        
+        private void record(Throwable error, long latency, Outcome outcome) {
+            errors[index] = error;
+            outcomes[index] = outcome;
+            latencies[index] = latency;
+            histogram.record(latency);
+        }
+        
+        private void report(Throwable error, long latency) {
+            try {
+                metrics.recordException(error, latency);
+                errorHandler.accept(index, error);
+            } finally {
+                if (options.isStopOnError()) {
+                    stop();
+                }
+                settled.countDown();
+            }
+        }
+        
+        /**
+         * Runs on the shared timeout thread, so it only settles the task and hands the
+         * reporting to the batch's executor, or runs it here if the executor rejects it.
+         */
+        void timeOut() {
+            if (!state.compareAndSet(RUNNING, SETTLED)) {
+                return;
+            }
+            long latency = System.nanoTime() - startNanos;
+            TimeoutException error =
+                new TimeoutException("Task " + index + " timed out after " + options.getTaskTimeout());
+            record(error, latency, Outcome.TIMED_OUT);
+            interruptRunner();
+            releasePermit();
+            try {
+                executor.execute(() -> report(error, latency));
+            } catch (RejectedExecutionException e) {
+                report(error, latency);
+            }
+        }
+        
+        void cancel() {
+            int previous = state.getAndSet(SETTLED);
+            if (previous == SETTLED) {
+                return;
+            }
+            outcomes[index] = Outcome.CANCELLED;
+            if (previous == RUNNING) {
+                latencies[index] = System.nanoTime() - startNanos;
+                interruptRunner();
+                releasePermit();
+            }
+            settled.countDown();
+        }
+        
+        private synchronized void interruptRunner() {
+            if (runner != null) {
+                interruptedRunner = true;
+                runner.interrupt();
+            }
+        }
+    }
+    
+    /**
+     * Single daemon thread shared by all batches for task timeouts, created on first use.
+     */
+    private static final class TimeoutScheduler {
+        static final ScheduledThreadPoolExecutor INSTANCE = create();
+        
+        private static ScheduledThreadPoolExecutor create() {
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, task -> {
+                Thread thread = new Thread(task, "batch-task-timeout");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.setRemoveOnCancelPolicy(true); // Finished tasks must not leave timers queued
+            return scheduler;
+        }
+    }
+}
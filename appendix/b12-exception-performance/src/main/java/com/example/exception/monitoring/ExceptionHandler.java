@@ -1,6 +1,11 @@
 package com.example.exception.monitoring;
 
+import com.example.exception.optimization.StackTracePolicies;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -8,11 +13,20 @@ import java.util.function.Supplier;
 
 /**
  * Enhanced exception handler with automatic metrics collection.
+ * With {@link #setStackTracePolicyEnabled} on, what is logged for a caught exception passes
+ * through the {@link StackTracePolicies} registry, so during an error storm its trace is
+ * not printed. The exception that is rethrown is never modified.
  */
 public class ExceptionHandler {
+    static {
+        // Resolve call sites to the code calling monitor(), not to this class
+        StackTracePolicies.skipFramesOf(ExceptionHandler.class);
+    }
+
     private final ExceptionMetrics metrics;
     private final Consumer<Throwable> errorLogger;
     private final boolean rethrowExceptions;
+    private volatile boolean stackTracePolicyEnabled;
 
     public ExceptionHandler(ExceptionMetrics metrics) {
         this(metrics, Throwable::printStackTrace, true);
@@ -82,7 +96,7 @@ public class ExceptionHandler {
                 return exceptionHandler.apply(typedException);
             }
             
-            errorLogger.accept(e);
+            log(e);
             if (rethrowExceptions && e instanceof RuntimeException) {
                 throw (RuntimeException) e;
             }
@@ -92,6 +106,11 @@ public class ExceptionHandler {
 
     /**
      * Batch exception monitoring for multiple operations.
+     *
+     * <p>{@code executeBatch} and {@code executeBatchStopOnError} run tasks one after another
+     * on the calling thread. {@code executeConcurrently} runs them on an executor as set up by
+     * {@link BatchOptions} and returns a {@link BatchResult} in task order; there the error
+     * handler is called from worker threads and must be thread-safe.
      */
     public static class BatchMonitor {
         private final ExceptionMetrics metrics;
@@ -133,11 +152,31 @@ public class ExceptionHandler {
             }
             return tasks.length; // All tasks completed
         }
+
+        /**
+         * Execute a batch of tasks concurrently with individual exception monitoring.
+         */
+        public BatchResult<Void> executeBatchConcurrently(BatchOptions options, Runnable... tasks) {
+            List<Callable<Void>> callables = new ArrayList<>(tasks.length);
+            for (Runnable task : tasks) {
+                callables.add(Executors.callable(task, null));
+            }
+            return executeConcurrently(callables, options);
+        }
+
+        /**
+         * Execute tasks concurrently. Failures and timeouts are recorded in the metrics with
+         * the task's latency and passed to the error handler; results come back in task order.
+         */
+        public <T> BatchResult<T> executeConcurrently(List<? extends Callable<? extends T>> tasks,
+                                                      BatchOptions options) {
+            return new ConcurrentBatch<T>(tasks, options, metrics, batchErrorHandler).execute();
+        }
     }
 
     private void handleException(Exception e, long elapsed) {
         metrics.recordException(e, elapsed);
-        errorLogger.accept(e);
+        log(e);
         
         if (rethrowExceptions) {
             if (e instanceof RuntimeException) {
@@ -147,6 +186,23 @@ public class ExceptionHandler {
         }
     }
 
+    private void log(Exception e) {
+        errorLogger.accept(stackTracePolicyEnabled ? StackTracePolicies.forLogging(e) : e);
+    }
+
+    /**
+     * Enable or disable stack trace policies for what is logged. Disabled by default.
+     * Caught exceptions have already captured their trace, so this only trims what is
+     * logged: the logger may receive a {@link StackTracePolicies.TrimmedException} in place
+     * of the exception, which itself is rethrown unchanged. Policies see the code calling
+     * {@code monitor()} as the call site. Use
+     * {@link com.example.exception.optimization.ConditionalStackTraceException} to avoid
+     * capturing the trace at all.
+     */
+    public void setStackTracePolicyEnabled(boolean enabled) {
+        this.stackTracePolicyEnabled = enabled;
+    }
+
     /**
      * Create a batch monitor.
      */
@@ -2,85 +2,127 @@ package com.example.exception.monitoring;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 /**
  * Metrics collection for exception monitoring and analysis.
+ *
+ * <p>Recording is cheap enough for hot paths: the per-type statistics are found through a
+ * {@link ClassValue} instead of a map lookup, latencies go into a striped
+ * {@link LatencyHistogram}, and rates are kept in a striped {@link SlidingWindowCounter}.
+ * Stack depth, when enabled, is sampled with a bounded {@link StackWalker} walk rather than
+ * by materializing the exception's stack trace.
  */
 public class ExceptionMetrics {
-    private final Map<Class<? extends Throwable>, ExceptionStats> statistics = new ConcurrentHashMap<>();
+    private static final int DEFAULT_STACK_SAMPLE_RATE = 16;
+    private static final int DEFAULT_MAX_STACK_DEPTH = 256;
+    private static final StackWalker WALKER = StackWalker.getInstance();
+    
+    private volatile Registry registry = new Registry();
     private final boolean captureStackTraceSize;
+    private final int stackSampleRate;
+    private final int maxStackDepth;
     private final Instant startTime = Instant.now();
-
+    
     public ExceptionMetrics() {
         this(false);
     }
-
+    
     public ExceptionMetrics(boolean captureStackTraceSize) {
+        this(captureStackTraceSize, DEFAULT_STACK_SAMPLE_RATE, DEFAULT_MAX_STACK_DEPTH);
+    }
+    
+    /**
+     * @param captureStackTraceSize whether to sample stack depth
+     * @param stackSampleRate sample one in this many exceptions
+     * @param maxStackDepth stop walking the stack after this many frames
+     */
+    public ExceptionMetrics(boolean captureStackTraceSize, int stackSampleRate, int maxStackDepth) {
+        if (stackSampleRate < 1 || maxStackDepth < 1) {
+            throw new IllegalArgumentException("Sample rate and depth must be positive");
+        }
         this.captureStackTraceSize = captureStackTraceSize;
+        this.stackSampleRate = stackSampleRate;
+        this.maxStackDepth = maxStackDepth;
     }
-
+    
     /**
      * Record an exception occurrence with timing information.
      */
     public void recordException(Throwable throwable, long processingTimeNanos) {
-        ExceptionStats stats = statistics.computeIfAbsent(
-            throwable.getClass(), 
-            k -> new ExceptionStats(k.getSimpleName())
-        );
-        
+        ExceptionStats stats = registry.statsByType.get(throwable.getClass());
         stats.recordOccurrence(processingTimeNanos);
         
-        if (captureStackTraceSize) {
-            stats.recordStackTraceSize(throwable.getStackTrace().length);
+        if (captureStackTraceSize
+                && (stackSampleRate == 1 || ThreadLocalRandom.current().nextInt(stackSampleRate) == 0)) {
+            // Depth of the recording site, bounded; the exception's own trace is never materialized
+            long depth = WALKER.walk(frames -> frames.limit(maxStackDepth).count());
+            stats.recordStackTraceSize((int) depth);
         }
     }
-
+    
     /**
      * Record an exception occurrence without timing.
      */
     public void recordException(Throwable throwable) {
         recordException(throwable, 0);
     }
-
+    
     /**
      * Get statistics for a specific exception type.
      */
     public ExceptionStats getStats(Class<? extends Throwable> exceptionType) {
-        return statistics.get(exceptionType);
+        return registry.statistics.get(exceptionType);
     }
-
+    
     /**
      * Get all collected statistics.
      */
     public Map<Class<? extends Throwable>, ExceptionStats> getAllStats() {
-        return new ConcurrentHashMap<>(statistics);
+        return new ConcurrentHashMap<>(registry.statistics);
     }
-
+    
+    /**
+     * Take a point-in-time snapshot of all exception types without blocking writers.
+     */
+    public Snapshot snapshot() {
+        List<TypeSnapshot> types = registry.statistics.values().stream()
+            .map(ExceptionStats::snapshot)
+            .sorted((a, b) -> Long.compare(b.count, a.count))
+            .collect(Collectors.toList());
+        Instant now = Instant.now();
+        return new Snapshot(now, Duration.between(startTime, now), types);
+    }
+    
     /**
      * Generate a summary report.
      */
     public String generateReport() {
+        Map<Class<? extends Throwable>, ExceptionStats> statistics = registry.statistics;
         StringBuilder report = new StringBuilder();
         report.append("=== Exception Metrics Report ===\n");
         report.append("Uptime: ").append(Duration.between(startTime, Instant.now())).append("\n\n");
-
+        
         if (statistics.isEmpty()) {
             report.append("No exceptions recorded.\n");
             return report.toString();
         }
-
+        
         // Sort by occurrence count
         statistics.values().stream()
             .sorted((a, b) -> Long.compare(b.getCount(), a.getCount()))
             .forEach(stats -> {
                 report.append(stats.getDetailedReport()).append("\n");
             });
-
+        
         // Summary statistics
         long totalExceptions = statistics.values().stream()
             .mapToLong(ExceptionStats::getCount)
@@ -88,51 +130,82 @@ public class ExceptionMetrics {
         
         report.append("\nTotal exceptions: ").append(totalExceptions).append("\n");
         report.append("Exception types: ").append(statistics.size()).append("\n");
-
+        
         return report.toString();
     }
-
+    
     /**
-     * Reset all metrics.
+     * Reset all metrics. The map and its type cache are replaced together, so a concurrent
+     * record lands either in the old generation or in the new one, never in between.
      */
     public void reset() {
-        statistics.clear();
+        registry = new Registry();
     }
-
+    
+    /**
+     * One generation of per-type statistics together with the {@link ClassValue} cache
+     * that resolves exception types to them.
+     */
+    private static final class Registry {
+        final Map<Class<? extends Throwable>, ExceptionStats> statistics = new ConcurrentHashMap<>();
+        final ClassValue<ExceptionStats> statsByType = new ClassValue<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            protected ExceptionStats computeValue(Class<?> type) {
+                // Fully qualified name, so types with the same simple name stay separate series
+                return statistics.computeIfAbsent((Class<? extends Throwable>) type,
+                    k -> new ExceptionStats(k.getName()));
+            }
+        };
+    }
+    
     /**
      * Statistics for a single exception type.
      */
     public static class ExceptionStats {
+        private static final int MAX_WINDOW_SECONDS = 300;
+        
         private final String exceptionName;
         private final LongAdder count = new LongAdder();
         private final LongAdder totalProcessingTime = new LongAdder();
         private final AtomicLong maxProcessingTime = new AtomicLong(0);
         private final AtomicLong minProcessingTime = new AtomicLong(Long.MAX_VALUE);
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final SlidingWindowCounter occurrences = new SlidingWindowCounter(MAX_WINDOW_SECONDS);
         private final LongAdder totalStackTraceSize = new LongAdder();
+        private final LongAdder stackTraceSamples = new LongAdder();
         private final AtomicLong maxStackTraceSize = new AtomicLong(0);
         private final Instant firstOccurrence = Instant.now();
-        private volatile Instant lastOccurrence = Instant.now();
-
+        private volatile long lastOccurrenceMillis = System.currentTimeMillis();
+        
         public ExceptionStats(String exceptionName) {
             this.exceptionName = exceptionName;
         }
-
+        
         public void recordOccurrence(long processingTimeNanos) {
             count.increment();
-            lastOccurrence = Instant.now();
+            occurrences.increment();
+            
+            // Avoid a shared write on every call; millisecond resolution is enough here
+            long now = System.currentTimeMillis();
+            if (now != lastOccurrenceMillis) {
+                lastOccurrenceMillis = now;
+            }
             
             if (processingTimeNanos > 0) {
                 totalProcessingTime.add(processingTimeNanos);
+                latencies.record(processingTimeNanos);
                 updateMax(maxProcessingTime, processingTimeNanos);
                 updateMin(minProcessingTime, processingTimeNanos);
             }
         }
-
+        
         public void recordStackTraceSize(int size) {
             totalStackTraceSize.add(size);
+            stackTraceSamples.increment();
             updateMax(maxStackTraceSize, size);
         }
-
+        
         private void updateMax(AtomicLong atomic, long value) {
             long current;
             do {
@@ -140,7 +213,7 @@ public class ExceptionMetrics {
                 if (value <= current) break;
             } while (!atomic.compareAndSet(current, value));
         }
-
+        
         private void updateMin(AtomicLong atomic, long value) {
             long current;
             do {
@@ -148,48 +221,94 @@ public class ExceptionMetrics {
                 if (value >= current) break;
             } while (!atomic.compareAndSet(current, value));
         }
-
+        
+        public String getExceptionName() {
+            return exceptionName;
+        }
+        
         public long getCount() {
             return count.sum();
         }
-
+        
         public double getAverageProcessingTimeNanos() {
             long total = totalProcessingTime.sum();
             long occurrences = count.sum();
             return occurrences > 0 ? (double) total / occurrences : 0;
         }
-
+        
         public long getMaxProcessingTimeNanos() {
             return maxProcessingTime.get();
         }
-
+        
         public long getMinProcessingTimeNanos() {
             long min = minProcessingTime.get();
             return min == Long.MAX_VALUE ? 0 : min;
         }
-
+        
+        /**
+         * Processing time distribution of timed occurrences.
+         */
+        public LatencyHistogram.Snapshot getLatencySnapshot() {
+            return latencies.snapshot();
+        }
+        
+        /**
+         * Occurrences per second over the last {@code seconds} complete seconds (at most 300).
+         */
+        public double getRate(int seconds) {
+            return occurrences.getRate(seconds);
+        }
+        
         public double getAverageStackTraceSize() {
             long total = totalStackTraceSize.sum();
-            long occurrences = count.sum();
-            return occurrences > 0 ? (double) total / occurrences : 0;
+            long samples = stackTraceSamples.sum();
+            return samples > 0 ? (double) total / samples : 0;
         }
-
+        
+        public Instant getLastOccurrence() {
+            return Instant.ofEpochMilli(lastOccurrenceMillis);
+        }
+        
+        TypeSnapshot snapshot() {
+            LatencyHistogram.Snapshot histogram = latencies.snapshot();
+            return new TypeSnapshot(
+                exceptionName,
+                getCount(),
+                getRate(1),
+                getRate(60),
+                getRate(300),
+                histogram.getCount(),
+                totalProcessingTime.sum(),
+                histogram.getP50(),
+                histogram.getP99(),
+                histogram.getP999(),
+                getMaxProcessingTimeNanos()
+            );
+        }
+        
         public String getDetailedReport() {
             StringBuilder report = new StringBuilder();
             report.append(exceptionName).append(":\n");
             report.append("  Occurrences: ").append(getCount()).append("\n");
             report.append("  First: ").append(firstOccurrence).append("\n");
-            report.append("  Last: ").append(lastOccurrence).append("\n");
+            report.append("  Last: ").append(getLastOccurrence()).append("\n");
+            report.append("  Rate (/s): ")
+                .append(String.format("1s=%.2f, 1m=%.2f, 5m=%.2f", getRate(1), getRate(60), getRate(300)))
+                .append("\n");
             
             if (totalProcessingTime.sum() > 0) {
+                LatencyHistogram.Snapshot histogram = latencies.snapshot();
                 report.append("  Processing time (ns):\n");
                 report.append("    Average: ").append(String.format("%.2f", getAverageProcessingTimeNanos())).append("\n");
                 report.append("    Min: ").append(getMinProcessingTimeNanos()).append("\n");
+                report.append("    p50: ").append(histogram.getP50()).append("\n");
+                report.append("    p99: ").append(histogram.getP99()).append("\n");
+                report.append("    p999: ").append(histogram.getP999()).append("\n");
                 report.append("    Max: ").append(getMaxProcessingTimeNanos()).append("\n");
             }
             
-            if (totalStackTraceSize.sum() > 0) {
-                report.append("  Stack trace size:\n");
+            if (stackTraceSamples.sum() > 0) {
+                report.append("  Stack depth (sampled):\n");
                 report.append("    Average: ").append(String.format("%.2f", getAverageStackTraceSize())).append("\n");
                 report.append("    Max: ").append(maxStackTraceSize.get()).append("\n");
             }
@@ -197,4 +316,107 @@ public class ExceptionMetrics {
             return report.toString();
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Point-in-time metrics for one exception type.
+     */
+    public static class TypeSnapshot {
+        public final String exceptionName;
+        public final long count;
+        public final double ratePerSecond1s;
+        public final double ratePerSecond1m;
+        public final double ratePerSecond5m;
+        public final long timedCount;
+        public final long totalProcessingTimeNanos;
+        public final long p50Nanos;
+        public final long p99Nanos;
+        public final long p999Nanos;
+        public final long maxNanos;
+        
+        public TypeSnapshot(String exceptionName, long count, double ratePerSecond1s, double ratePerSecond1m,
+                            double ratePerSecond5m, long timedCount, long totalProcessingTimeNanos,
+                            long p50Nanos, long p99Nanos, long p999Nanos, long maxNanos) {
+            this.exceptionName = exceptionName;
+            this.count = count;
+            this.ratePerSecond1s = ratePerSecond1s;
+            this.ratePerSecond1m = ratePerSecond1m;
+            this.ratePerSecond5m = ratePerSecond5m;
+            this.timedCount = timedCount;
+            this.totalProcessingTimeNanos = totalProcessingTimeNanos;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.p999Nanos = p999Nanos;
+            this.maxNanos = maxNanos;
+        }
+    }
+    
+    /**
+     * Point-in-time metrics for all exception types.
+     */
+    public static class Snapshot {
+        public final Instant timestamp;
+        public final Duration uptime;
+        public final List<TypeSnapshot> types;
+        
+        public Snapshot(Instant timestamp, Duration uptime, List<TypeSnapshot> types) {
+            this.timestamp = timestamp;
+            this.uptime = uptime;
+            this.types = Collections.unmodifiableList(new ArrayList<>(types));
+        }
+        
+        /**
+         * Render in the Prometheus text exposition format.
+         */
+        public String toTextFormat() {
+            StringBuilder out = new StringBuilder();
+            out.append("# HELP exceptions_total Exceptions recorded by type.\n");
+            out.append("# TYPE exceptions_total counter\n");
+            for (TypeSnapshot type : types) {
+                out.append("exceptions_total{type=\"").append(escape(type.exceptionName)).append("\"} ")
+                    .append(type.count).append('\n');
+            }
+            
+            out.append("# HELP exceptions_per_second Exception rate over a trailing window.\n");
+            out.append("# TYPE exceptions_per_second gauge\n");
+            for (TypeSnapshot type : types) {
+                appendRate(out, type, "1s", type.ratePerSecond1s);
+                appendRate(out, type, "1m", type.ratePerSecond1m);
+                appendRate(out, type, "5m", type.ratePerSecond5m);
+            }
+            
+            out.append("# HELP exception_processing_seconds Time spent handling exceptions.\n");
+            out.append("# TYPE exception_processing_seconds summary\n");
+            for (TypeSnapshot type : types) {
+                String label = "type=\"" + escape(type.exceptionName) + "\"";
+                appendQuantile(out, label, "0.5", type.p50Nanos);
+                appendQuantile(out, label, "0.99", type.p99Nanos);
+                appendQuantile(out, label, "0.999", type.p999Nanos);
+                out.append("exception_processing_seconds_sum{").append(label).append("} ")
+                    .append(seconds(type.totalProcessingTimeNanos)).append('\n');
+                out.append("exception_processing_seconds_count{").append(label).append("} ")
+                    .append(type.timedCount).append('\n');
+            }
+            return out.toString();
+        }
+        
+        private static void appendRate(StringBuilder out, TypeSnapshot type, String window, double rate) {
+            out.append("exceptions_per_second{type=\"").append(escape(type.exceptionName))
+                .append("\",window=\"").append(window).append("\"} ")
+                .append(rate).append('\n');
+        }
+        
+        private static void appendQuantile(StringBuilder out, String label, String quantile, long nanos) {
+            out.append("exception_processing_seconds{").append(label)
+                .append(",quantile=\"").append(quantile).append("\"} ")
+                .append(seconds(nanos)).append('\n');
+        }
+        
+        private static String seconds(long nanos) {
+            return Double.toString(nanos / 1e9);
+        }
+        
+        private static String escape(String value) {
+            return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        }
+    }
+}
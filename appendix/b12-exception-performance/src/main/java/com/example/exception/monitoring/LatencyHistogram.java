@@ -0,0 +1,159 @@
+package com.example.exception.monitoring;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Concurrent log-linear histogram of nanosecond latencies, in the style of HdrHistogram.
+ * Each power of two is split into 16 sub-buckets, so any recorded value is reported
+ * within about 6% of its true value. Values up to 2^41 ns (roughly 36 minutes) are
+ * tracked; larger values fall into the last bucket.
+ *
+ * <p>Counts are striped so that concurrent writers rarely share a cache line. Each thread
+ * picks its stripe with a {@link StripeProbe} and moves to another one when an update
+ * collides. Snapshots merge the stripes without blocking writers.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int LINEAR_BUCKETS = 1 << SUB_BUCKET_BITS;     // Exact values 0..31
+    private static final int HALF = LINEAR_BUCKETS / 2;                 // Sub-buckets per power of two
+    private static final int MAX_EXPONENT = 40;
+    static final int BUCKET_COUNT = LINEAR_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * HALF;
+
+    private final int stripeMask;
+    private final AtomicLongArray counts;
+
+    public LatencyHistogram() {
+        this(Math.min(8, Integer.highestOneBit(Runtime.getRuntime().availableProcessors())));
+    }
+
+    /**
+     * @param stripes number of independent count arrays, rounded down to a power of two
+     */
+    public LatencyHistogram(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes));
+        this.stripeMask = size - 1;
+        this.counts = new AtomicLongArray(size * BUCKET_COUNT);
+    }
+
+    /**
+     * Record one value in nanoseconds. Negative values are recorded as zero.
+     */
+    public void record(long nanos) {
+        int bucket = bucketIndex(nanos);
+        StripeProbe probe = StripeProbe.current();
+        int h = probe.hash();
+        while (true) {
+            int index = (h & stripeMask) * BUCKET_COUNT + bucket;
+            long count = counts.get(index);
+            if (counts.compareAndSet(index, count, count + 1)) {
+                return;
+            }
+            h = probe.advance(); // Contended: try another stripe
+        }
+    }
+
+    /**
+     * Merge all stripes into a point-in-time view. Writers are not blocked, so values
+     * recorded concurrently may or may not be included.
+     */
+    public Snapshot snapshot() {
+        long[] merged = new long[BUCKET_COUNT];
+        for (int i = 0; i < counts.length(); i++) {
+            merged[i % BUCKET_COUNT] += counts.get(i);
+        }
+        return new Snapshot(merged);
+    }
+
+    /**
+     * Reset all counts. Values recorded concurrently may survive the reset.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    static int bucketIndex(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) Math.max(0, value);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int shift = exponent - SUB_BUCKET_BITS + 1;
+        int top = (int) (value >>> shift); // In [HALF, LINEAR_BUCKETS)
+        return LINEAR_BUCKETS + (exponent - SUB_BUCKET_BITS) * HALF + (top - HALF);
+    }
+
+    /**
+     * Highest value that maps to the given bucket.
+     */
+    static long highestEquivalentValue(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int offset = index - LINEAR_BUCKETS;
+        int exponent = SUB_BUCKET_BITS + offset / HALF;
+        int top = HALF + offset % HALF;
+        int shift = exponent - SUB_BUCKET_BITS + 1;
+        return ((long) (top + 1) << shift) - 1;
+    }
+
+    /**
+     * Immutable merged view of a histogram.
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long totalCount;
+
+        Snapshot(long[] counts) {
+            this.counts = counts;
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            this.totalCount = total;
+        }
+
+        public long getCount() {
+            return totalCount;
+        }
+
+        /**
+         * Value at the given quantile, e.g. 0.99 for p99, or 0 when nothing was recorded.
+         */
+        public long getValueAtQuantile(double quantile) {
+            if (totalCount == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(quantile * totalCount));
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                if (cumulative >= target) {
+                    return highestEquivalentValue(i);
+                }
+            }
+            return highestEquivalentValue(counts.length - 1);
+        }
+
+        public long getP50() {
+            return getValueAtQuantile(0.50);
+        }
+
+        public long getP99() {
+            return getValueAtQuantile(0.99);
+        }
+
+        public long getP999() {
+            return getValueAtQuantile(0.999);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("LatencyHistogram{count=%d, p50=%dns, p99=%dns, p999=%dns}",
+                totalCount, getP50(), getP99(), getP999());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.exception.monitoring;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Striped event counter over a ring of one-second slots, for rates over recent windows
+ * such as the last second, minute or five minutes.
+ *
+ * <p>Each slot packs the second it belongs to (high 32 bits) with its count (low 32 bits),
+ * so a stale slot is recycled by the same compare-and-set that increments it. Writers
+ * pick a stripe with a {@link StripeProbe} and move to another one when the
+ * compare-and-set fails, keeping hot counters off each other's cache lines.
+ */
+public class SlidingWindowCounter {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long COUNT_MASK = 0xFFFF_FFFFL;
+
+    private final int slots;
+    private final int stripeMask;
+    private final AtomicLongArray ring;
+    private final LongSupplier nanoClock;
+    private final long origin;
+
+    /**
+     * @param maxWindowSeconds longest window that can be queried
+     */
+    public SlidingWindowCounter(int maxWindowSeconds) {
+        this(maxWindowSeconds, Math.min(8, Integer.highestOneBit(Runtime.getRuntime().availableProcessors())),
+            System::nanoTime);
+    }
+
+    SlidingWindowCounter(int maxWindowSeconds, int stripes, LongSupplier nanoClock) {
+        if (maxWindowSeconds < 1) {
+            throw new IllegalArgumentException("Window must be at least one second: " + maxWindowSeconds);
+        }
+        int stripeCount = Integer.highestOneBit(Math.max(1, stripes));
+        this.slots = maxWindowSeconds + 1; // One extra slot for the second in progress
+        this.stripeMask = stripeCount - 1;
+        this.ring = new AtomicLongArray(stripeCount * slots);
+        this.nanoClock = nanoClock;
+        this.origin = nanoClock.getAsLong();
+    }
+
+    /**
+     * Count one event in the current second.
+     */
+    public void increment() {
+        long second = currentSecond();
+        int slot = (int) (second % slots);
+        long stamp = second << 32;
+        StripeProbe probe = StripeProbe.current();
+        int h = probe.hash();
+
+        while (true) {
+            int index = (h & stripeMask) * slots + slot;
+            long current = ring.get(index);
+            long next = (current >>> 32) >= second ? current + 1 : stamp | 1;
+            if (ring.compareAndSet(index, current, next)) {
+                return;
+            }
+            h = probe.advance(); // Contended: try another stripe
+        }
+    }
+
+    /**
+     * Events counted in the last {@code seconds} complete seconds.
+     */
+    public long getCount(int seconds) {
+        if (seconds < 1 || seconds >= slots) {
+            throw new IllegalArgumentException("Window out of range: " + seconds);
+        }
+        long now = currentSecond();
+        long oldest = now - seconds;
+        long total = 0;
+        for (int i = 0; i < ring.length(); i++) {
+            long value = ring.get(i);
+            long second = value >>> 32;
+            if (second >= oldest && second < now) {
+                total += value & COUNT_MASK;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Average events per second over the last {@code seconds} complete seconds.
+     */
+    public double getRate(int seconds) {
+        return (double) getCount(seconds) / seconds;
+    }
+
+    /**
+     * Clear all slots. Events counted concurrently may survive the reset.
+     */
+    public void reset() {
+        for (int i = 0; i < ring.length(); i++) {
+            ring.set(i, 0);
+        }
+    }
+
+    private long currentSecond() {
+        // Second 0 is reserved for empty slots
+        return (nanoClock.getAsLong() - origin) / NANOS_PER_SECOND + 1;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.exception.monitoring;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-thread stripe selector for the striped monitoring counters.
+ *
+ * <p>Each thread starts from a seed spaced by the golden ratio and moves to another stripe
+ * (xorshift) whenever a compare-and-set on its current stripe fails, the same probe and
+ * rehash scheme as {@code java.util.concurrent.atomic.Striped64}. Unlike striping by
+ * thread id, threads whose ids differ by a multiple of the stripe count are not pinned to
+ * the same cell, and the mapping moves away from contended stripes.
+ */
+final class StripeProbe {
+    private static final AtomicInteger SEEDER = new AtomicInteger();
+    private static final ThreadLocal<StripeProbe> CURRENT = ThreadLocal.withInitial(StripeProbe::new);
+
+    private int hash;
+
+    private StripeProbe() {
+        int seed = SEEDER.addAndGet(0x9e3779b9);
+        hash = seed == 0 ? 1 : seed;
+    }
+
+    /**
+     * The calling thread's probe. Only the owning thread uses it, so it needs no locking.
+     */
+    static StripeProbe current() {
+        return CURRENT.get();
+    }
+
+    int hash() {
+        return hash;
+    }
+
+    /**
+     * Move to another stripe after a failed compare-and-set.
+     */
+    int advance() {
+        int h = hash;
+        h ^= h << 13;
+        h ^= h >>> 17;
+        h ^= h << 5;
+        hash = h;
+        return h;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.exception.optimization;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stack trace policy that reacts to error storms.
+ *
+ * <p>While an exception class is thrown less often than the storm threshold, every throw
+ * gets a full trace. Above it, each throwing call site may still capture a few full traces
+ * through its own token bucket; everything else gets the storm decision, a cheap or empty
+ * trace. The throw rate is measured per class over 100ms windows with a striped counter, so
+ * the common path costs one counter increment and a volatile read.
+ */
+public class AdaptiveStackTracePolicy implements StackTracePolicy {
+    private static final long RATE_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final double stormThreshold;
+    private final long emissionNanos;
+    private final int burst;
+    private final Decision stormDecision;
+    private final int cheapTraceDepth;
+    private final ClassValue<RateMeter> meters = new ClassValue<>() {
+        @Override
+        protected RateMeter computeValue(Class<?> type) {
+            return new RateMeter();
+        }
+    };
+    private final SiteTable<TokenBucket> buckets;
+
+    /**
+     * @param stormThreshold throws per second of one class above which traces are limited
+     * @param fullTracesPerSecond full traces allowed per call site during a storm
+     * @param burst full traces a call site may capture at once during a storm
+     * @param stormDecision what the remaining throws get, {@code CHEAP} or {@code NONE}
+     * @param cheapTraceDepth frames kept in cheap traces
+     */
+    public AdaptiveStackTracePolicy(double stormThreshold, double fullTracesPerSecond, int burst,
+                                    Decision stormDecision, int cheapTraceDepth) {
+        if (stormThreshold < 0 || fullTracesPerSecond <= 0 || burst < 1 || cheapTraceDepth < 1) {
+            throw new IllegalArgumentException("Invalid adaptive policy settings");
+        }
+        if (stormDecision == Decision.FULL) {
+            throw new IllegalArgumentException("Storm decision must limit traces");
+        }
+        this.stormThreshold = stormThreshold;
+        this.emissionNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / fullTracesPerSecond));
+        this.burst = burst;
+        this.stormDecision = stormDecision;
+        this.cheapTraceDepth = cheapTraceDepth;
+        this.buckets = new SiteTable<>(() -> new TokenBucket(emissionNanos, burst));
+    }
+
+    @Override
+    public Decision decide(Class<? extends Throwable> type, ThrowSite site) {
+        long now = System.nanoTime();
+        if (meters.get(type).record(now) <= stormThreshold) {
+            return Decision.FULL;
+        }
+        return buckets.get(site.key(type)).tryAcquire(now) ? Decision.FULL : stormDecision;
+    }
+
+    @Override
+    public int cheapTraceDepth() {
+        return cheapTraceDepth;
+    }
+
+    /**
+     * Throws per second of the given class over the most recent completed window.
+     */
+    public double getRate(Class<? extends Throwable> type) {
+        return meters.get(type).rate;
+    }
+
+    /**
+     * Whether the given class is currently above the storm threshold.
+     */
+    public boolean isStorming(Class<? extends Throwable> type) {
+        return getRate(type) > stormThreshold;
+    }
+
+    /**
+     * Per-class throw counter. Whichever thread first sees a window end computes its rate.
+     */
+    private static final class RateMeter {
+        private final LongAdder count = new LongAdder();
+        private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+        private volatile long windowCount;
+        private volatile double rate;
+
+        double record(long now) {
+            count.increment();
+            long start = windowStart.get();
+            long elapsed = now - start;
+            if (elapsed >= RATE_WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+                long total = count.sum();
+                rate = (total - windowCount) * 1e9 / elapsed;
+                windowCount = total;
+            }
+            return rate;
+        }
+    }
+}
@@ -1,30 +1,60 @@
 package com.example.exception.optimization;
 
-import java.util.concurrent.atomic.AtomicLong;
+import java.time.Duration;
 import java.util.function.BooleanSupplier;
 
 /**
  * Exception implementations with conditional stack trace generation.
  * Useful for production environments where stack traces are only needed occasionally.
+ *
+ * <p>Unless a condition is given, the trace is decided by the {@link StackTracePolicy}
+ * registered for the concrete class in {@link StackTracePolicies}, with the throwing call
+ * site available to the policy. The decision is made at the end of this class's constructor,
+ * before any subclass constructor body runs, so policies and conditions must not depend on
+ * subclass state.
  */
 public class ConditionalStackTraceException extends RuntimeException {
     private final BooleanSupplier stackTraceCondition;
+    private boolean constructed;
+
+    /**
+     * Create an exception whose trace is decided by the registered policy.
+     */
+    public ConditionalStackTraceException(String message) {
+        this(message, null);
+    }
 
     public ConditionalStackTraceException(String message, BooleanSupplier stackTraceCondition) {
-        super(message);
+        super(message); // Calls fillInStackTrace() before the fields below are assigned
         this.stackTraceCondition = stackTraceCondition;
+        this.constructed = true;
+        fillInStackTrace();
     }
 
     @Override
     public Throwable fillInStackTrace() {
-        return stackTraceCondition.getAsBoolean() ? super.fillInStackTrace() : this;
+        if (!constructed) {
+            return this;
+        }
+        if (stackTraceCondition != null) {
+            return stackTraceCondition.getAsBoolean() ? super.fillInStackTrace() : this;
+        }
+
+        StackTraceElement[] frames = StackTracePolicies.chooseFrames(this);
+        if (frames == null) {
+            return super.fillInStackTrace();
+        }
+        if (frames.length > 0) {
+            setStackTrace(frames);
+        }
+        return this;
     }
 
     /**
      * Environment-based stack trace generation.
      */
     public static class EnvironmentAwareException extends ConditionalStackTraceException {
-        private static final boolean IS_DEVELOPMENT = 
+        private static final boolean IS_DEVELOPMENT =
             "development".equals(System.getProperty("app.environment", "production"));
 
         public EnvironmentAwareException(String message) {
@@ -33,36 +63,29 @@ public class ConditionalStackTraceException extends RuntimeException {
     }
 
     /**
-     * Rate-limited stack trace generation.
+     * Rate-limited stack trace generation: one full trace per minute at each call site.
      */
     public static class RateLimitedException extends ConditionalStackTraceException {
-        private static final AtomicLong lastStackTraceTime = new AtomicLong(0);
-        private static final long STACK_TRACE_INTERVAL_MS = 60_000; // 1 minute
-
-        public RateLimitedException(String message) {
-            super(message, RateLimitedException::shouldGenerateStackTrace);
+        static {
+            StackTracePolicies.register(RateLimitedException.class,
+                StackTracePolicy.rateLimited(1, Duration.ofMinutes(1)));
         }
 
-        private static boolean shouldGenerateStackTrace() {
-            long now = System.currentTimeMillis();
-            long lastTime = lastStackTraceTime.get();
-            
-            if (now - lastTime > STACK_TRACE_INTERVAL_MS) {
-                return lastStackTraceTime.compareAndSet(lastTime, now);
-            }
-            return false;
+        public RateLimitedException(String message) {
+            super(message);
         }
     }
 
     /**
-     * Sampling-based stack trace generation.
+     * Sampling-based stack trace generation: one in 100 throws at each call site.
      */
     public static class SamplingException extends ConditionalStackTraceException {
-        private static final AtomicLong counter = new AtomicLong(0);
-        private static final int SAMPLE_RATE = 100; // 1 in 100
+        static {
+            StackTracePolicies.register(SamplingException.class, StackTracePolicy.sampling(100));
+        }
 
         public SamplingException(String message) {
-            super(message, () -> counter.incrementAndGet() % SAMPLE_RATE == 0);
+            super(message);
         }
     }
 
@@ -72,8 +95,13 @@ public class ConditionalStackTraceException extends RuntimeException {
     public static class DebugModeException extends ConditionalStackTraceException {
         private static volatile boolean debugMode = false;
 
+        static {
+            StackTracePolicies.register(DebugModeException.class, (type, site) ->
+                debugMode ? StackTracePolicy.Decision.FULL : StackTracePolicy.Decision.NONE);
+        }
+
         public DebugModeException(String message) {
-            super(message, () -> debugMode);
+            super(message);
         }
 
         public static void setDebugMode(boolean enabled) {
@@ -84,4 +112,4 @@ public class ConditionalStackTraceException extends RuntimeException {
             return debugMode;
         }
     }
-}
\ No newline at end of file
+}
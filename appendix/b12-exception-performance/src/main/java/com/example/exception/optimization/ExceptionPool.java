@@ -1,46 +1,120 @@
 package com.example.exception.optimization;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * Object pool for exception instances to reduce allocation overhead.
  * Useful for high-frequency exception scenarios where stack traces aren't needed.
+ *
+ * <p>Every thread keeps a small magazine of free exceptions, so acquire and release
+ * normally touch no shared state. A full magazine spills half of its contents into a
+ * shared depot and an empty one refills from it, a batch at a time. The pool bound is
+ * enforced with capacity credits that threads reserve from a shared counter in batches,
+ * so at most {@code maxPoolSize} exceptions are pooled across all threads.
+ *
+ * <p>Leak detection, when enabled, samples acquisitions and records their call site.
+ * A sampled exception that becomes unreachable without being released is reported to
+ * the leak listener.
  */
 public class ExceptionPool<T extends PoolableException> {
-    private final Queue<T> pool = new ConcurrentLinkedQueue<>();
+    private static final int DEFAULT_MAGAZINE_SIZE = 32;
+    private static final int LEAK_SITE_DEPTH = 8;
+    private static final StackWalker WALKER = StackWalker.getInstance();
+    
     private final ExceptionFactory<T> factory;
     private final int maxPoolSize;
-    private final AtomicInteger currentSize = new AtomicInteger(0);
+    private final int magazineSize;
+    private final int creditBatch;
+    
+    // Shared state, touched once per batch rather than once per exception
+    private final AtomicInteger availableCredits;
+    private final Queue<Object[]> depot = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depotSize = new AtomicInteger(0);
+    private final Queue<Magazine> magazines = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Magazine> localMagazine = ThreadLocal.withInitial(this::registerMagazine);
+    private final AtomicInteger generation = new AtomicInteger(0);
     
     // Statistics
-    private final AtomicInteger acquireCount = new AtomicInteger(0);
-    private final AtomicInteger releaseCount = new AtomicInteger(0);
-    private final AtomicInteger createCount = new AtomicInteger(0);
-
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder releaseCount = new LongAdder();
+    private final LongAdder createCount = new LongAdder();
+    private final LongAdder discardCount = new LongAdder();
+    private final LongAdder depotTransfers = new LongAdder();
+    private final LongAdder contendedUpdates = new LongAdder();
+    
+    // Leak tracking
+    private volatile int leakSampleRate = 0;
+    private volatile Consumer<LeakReport> leakListener = System.err::println;
+    private final ReferenceQueue<PoolableException> leakQueue = new ReferenceQueue<>();
+    private final Set<LeakTracker> trackers = ConcurrentHashMap.newKeySet();
+    private final LongAdder leakCount = new LongAdder();
+    
     public ExceptionPool(ExceptionFactory<T> factory, int maxPoolSize) {
+        this(factory, maxPoolSize, DEFAULT_MAGAZINE_SIZE);
+    }
+    
+    /**
+     * @param factory creates exceptions when the pool is empty
+     * @param maxPoolSize maximum number of pooled exceptions across all threads
+     * @param magazineSize maximum number of exceptions cached per thread
+     */
+    public ExceptionPool(ExceptionFactory<T> factory, int maxPoolSize, int magazineSize) {
+        if (maxPoolSize < 0 || magazineSize < 1) {
+            throw new IllegalArgumentException("Invalid pool sizes: max=" + maxPoolSize
+                + ", magazine=" + magazineSize);
+        }
         this.factory = factory;
         this.maxPoolSize = maxPoolSize;
+        this.magazineSize = Math.max(1, Math.min(magazineSize, maxPoolSize));
+        // Small batches for small pools, so one thread cannot hoard the whole capacity
+        this.creditBatch = Math.max(1, Math.min(this.magazineSize / 2, maxPoolSize / 8));
+        this.availableCredits = new AtomicInteger(maxPoolSize);
     }
-
+    
     /**
      * Acquire an exception from the pool or create a new one if pool is empty.
      */
     public T acquire(String message) {
-        acquireCount.incrementAndGet();
+        acquireCount.increment();
+        Magazine magazine = magazine();
         
-        T exception = pool.poll();
+        T exception = pop(magazine);
         if (exception == null) {
-            createCount.incrementAndGet();
+            createCount.increment();
             exception = factory.create();
+        } else {
+            // The pooled slot is free again; keep the credit locally for the next release
+            magazine.credits++;
+            if (magazine.credits > 2 * creditBatch) {
+                int surplus = magazine.credits - creditBatch;
+                magazine.credits = creditBatch;
+                availableCredits.addAndGet(surplus);
+            }
         }
         
         exception.setMessage(message);
         exception.setInUse(true);
+        
+        int sampleRate = leakSampleRate;
+        if (sampleRate > 0 && --magazine.sampleCountdown <= 0) {
+            magazine.sampleCountdown = sampleRate;
+            track(exception, message);
+        }
         return exception;
     }
-
+    
     /**
      * Release an exception back to the pool for reuse.
      */
@@ -49,39 +123,265 @@ public class ExceptionPool<T extends PoolableException> {
             return;
         }
         
-        releaseCount.incrementAndGet();
+        releaseCount.increment();
+        untrack(exception);
         exception.reset();
         exception.setInUse(false);
         
-        if (currentSize.get() < maxPoolSize) {
-            pool.offer(exception);
-            currentSize.incrementAndGet();
+        Magazine magazine = magazine();
+        if (magazine.credits == 0 && !reserveCredits(magazine)) {
+            discardCount.increment(); // Pool is full
+            return;
         }
+        if (magazine.count == magazine.items.length) {
+            spill(magazine);
+        }
+        magazine.credits--;
+        magazine.items[magazine.count++] = exception;
+        magazine.size.lazySet(magazine.count);
     }
-
+    
+    /**
+     * Enable leak detection for one in {@code sampleRate} acquisitions, or disable it with 0.
+     * Sampled exceptions that are garbage collected without being released are reported.
+     */
+    public void setLeakDetection(int sampleRate) {
+        if (sampleRate < 0) {
+            throw new IllegalArgumentException("Sample rate must not be negative: " + sampleRate);
+        }
+        this.leakSampleRate = sampleRate;
+    }
+    
+    /**
+     * Set the consumer that receives leak reports. Reports go to standard error by default.
+     */
+    public void setLeakListener(Consumer<LeakReport> listener) {
+        this.leakListener = listener;
+    }
+    
+    /**
+     * Report sampled exceptions that were collected without being released.
+     * @return the number of leaks found by this call
+     */
+    public int detectLeaks() {
+        int found = 0;
+        Reference<? extends PoolableException> reference;
+        while ((reference = leakQueue.poll()) != null) {
+            LeakTracker tracker = (LeakTracker) reference;
+            if (trackers.remove(tracker)) {
+                found++;
+                leakCount.increment();
+                leakListener.accept(tracker.report);
+            }
+        }
+        return found;
+    }
+    
     /**
      * Get pool statistics for monitoring.
      */
     public PoolStatistics getStatistics() {
+        reclaimAbandoned();
+        detectLeaks();
+        
+        int current = generation.get();
+        int pooled = depotSize.get();
+        int threads = 0;
+        for (Magazine magazine : magazines) {
+            if (magazine.generation == current) {
+                pooled += magazine.size.get();
+                threads++;
+            }
+        }
+        long acquired = acquireCount.sum();
+        long released = releaseCount.sum();
         return new PoolStatistics(
-            pool.size(),
-            acquireCount.get(),
-            releaseCount.get(),
-            createCount.get()
+            pooled,
+            (int) acquired,
+            (int) released,
+            (int) createCount.sum(),
+            (int) discardCount.sum(),
+            (int) Math.max(0, acquired - released),
+            (int) depotTransfers.sum(),
+            (int) contendedUpdates.sum(),
+            (int) leakCount.sum(),
+            threads
         );
     }
-
+    
     /**
-     * Clear the pool and reset statistics.
+     * Clear the pool and reset statistics. Intended for use while the pool is idle;
+     * magazines of other threads are discarded lazily on their next use.
      */
     public void clear() {
-        pool.clear();
-        currentSize.set(0);
-        acquireCount.set(0);
-        releaseCount.set(0);
-        createCount.set(0);
+        generation.incrementAndGet();
+        magazines.clear();
+        depot.clear();
+        depotSize.set(0);
+        availableCredits.set(maxPoolSize);
+        trackers.clear();
+        acquireCount.reset();
+        releaseCount.reset();
+        createCount.reset();
+        discardCount.reset();
+        depotTransfers.reset();
+        contendedUpdates.reset();
+        leakCount.reset();
     }
-
+    
+    private Magazine magazine() {
+        Magazine magazine = localMagazine.get();
+        int current = generation.get();
+        if (magazine.generation != current) {
+            // Cleared since this thread last used the pool
+            Arrays.fill(magazine.items, null);
+            magazine.count = 0;
+            magazine.credits = 0;
+            magazine.size.lazySet(0);
+            magazine.generation = current;
+            magazines.add(magazine);
+        }
+        return magazine;
+    }
+    
+    private Magazine registerMagazine() {
+        Magazine magazine = new Magazine(magazineSize, generation.get());
+        magazines.add(magazine);
+        return magazine;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private T pop(Magazine magazine) {
+        if (magazine.count == 0 && !refill(magazine)) {
+            return null;
+        }
+        int index = --magazine.count;
+        T exception = (T) magazine.items[index];
+        magazine.items[index] = null;
+        magazine.size.lazySet(magazine.count);
+        return exception;
+    }
+    
+    private boolean refill(Magazine magazine) {
+        Object[] batch = depot.poll();
+        if (batch == null) {
+            return false;
+        }
+        depotSize.addAndGet(-batch.length);
+        depotTransfers.increment();
+        System.arraycopy(batch, 0, magazine.items, 0, batch.length);
+        magazine.count = batch.length;
+        return true;
+    }
+    
+    private void spill(Magazine magazine) {
+        int half = Math.max(1, magazine.items.length / 2);
+        int from = magazine.count - half;
+        Object[] batch = Arrays.copyOfRange(magazine.items, from, magazine.count);
+        Arrays.fill(magazine.items, from, magazine.count, null);
+        magazine.count = from;
+        magazine.size.lazySet(from);
+        depot.offer(batch);
+        depotSize.addAndGet(half);
+        depotTransfers.increment();
+    }
+    
+    private boolean reserveCredits(Magazine magazine) {
+        while (true) {
+            int available = availableCredits.get();
+            if (available == 0) {
+                if (reclaimAbandoned()) {
+                    continue;
+                }
+                return false;
+            }
+            int take = Math.min(creditBatch, available);
+            if (availableCredits.compareAndSet(available, available - take)) {
+                magazine.credits += take;
+                return true;
+            }
+            contendedUpdates.increment();
+        }
+    }
+    
+    /**
+     * Move the contents of magazines whose threads have terminated into the depot and
+     * return their unused credits.
+     * @return whether any credits were returned
+     */
+    private boolean reclaimAbandoned() {
+        boolean reclaimed = false;
+        int current = generation.get();
+        for (Magazine magazine : magazines) {
+            // A terminated thread's writes are visible once isAlive() returns false
+            if (magazine.owner.isAlive() || !magazines.remove(magazine)) {
+                continue;
+            }
+            if (magazine.generation != current) {
+                continue;
+            }
+            if (magazine.count > 0) {
+                depot.offer(Arrays.copyOf(magazine.items, magazine.count));
+                depotSize.addAndGet(magazine.count);
+            }
+            if (magazine.credits > 0) {
+                availableCredits.addAndGet(magazine.credits);
+                reclaimed = true;
+            }
+        }
+        return reclaimed;
+    }
+    
+    private void track(T exception, String message) {
+        detectLeaks();
+        List<StackTraceElement> site = WALKER.walk(frames -> frames
+            .dropWhile(frame -> frame.getClassName().equals(ExceptionPool.class.getName()))
+            .limit(LEAK_SITE_DEPTH)
+            .map(StackWalker.StackFrame::toStackTraceElement)
+            .collect(Collectors.toList()));
+        LeakTracker tracker = new LeakTracker(exception, leakQueue, new LeakReport(
+            exception.getClass().getName(), message, Thread.currentThread().getName(), site));
+        trackers.add(tracker);
+        exception.leakTracker = tracker;
+    }
+    
+    private void untrack(T exception) {
+        Object tracker = exception.leakTracker;
+        if (tracker != null) {
+            exception.leakTracker = null;
+            trackers.remove(tracker);
+            ((LeakTracker) tracker).clear();
+        }
+    }
+    
+    /**
+     * Per-thread cache of free exceptions. All fields except {@code size} are only
+     * accessed by the owning thread, or after it has terminated.
+     */
+    private static final class Magazine {
+        final Thread owner = Thread.currentThread();
+        final Object[] items;
+        final AtomicInteger size = new AtomicInteger(0); // Published count for statistics
+        int count;
+        int credits;
+        int generation;
+        int sampleCountdown;
+        
+        Magazine(int capacity, int generation) {
+            this.items = new Object[capacity];
+            this.generation = generation;
+        }
+    }
+    
+    private static final class LeakTracker extends WeakReference<PoolableException> {
+        final LeakReport report;
+        
+        LeakTracker(PoolableException exception, ReferenceQueue<PoolableException> queue, LeakReport report) {
+            super(exception, queue);
+            this.report = report;
+        }
+    }
+    
     /**
      * Factory interface for creating poolable exceptions.
      */
@@ -89,7 +389,37 @@ public class ExceptionPool<T extends PoolableException> {
     public interface ExceptionFactory<T extends PoolableException> {
         T create();
     }
-
+    
+    /**
+     * A pooled exception that was acquired and never released.
+     */
+    public static class LeakReport {
+        public final String exceptionType;
+        public final String message;
+        public final String threadName;
+        public final List<StackTraceElement> acquisitionSite;
+        
+        public LeakReport(String exceptionType, String message, String threadName,
+                          List<StackTraceElement> acquisitionSite) {
+            this.exceptionType = exceptionType;
+            this.message = message;
+            this.threadName = threadName;
+            this.acquisitionSite = acquisitionSite;
+        }
+        
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("LEAK: ")
+                .append(exceptionType)
+                .append(" acquired on thread ").append(threadName)
+                .append(" was never released (message: ").append(message).append(")");
+            for (StackTraceElement element : acquisitionSite) {
+                sb.append("\n\tat ").append(element);
+            }
+            return sb.toString();
+        }
+    }
+    
     /**
      * Statistics for monitoring pool performance.
      */
@@ -98,68 +428,56 @@ public class ExceptionPool<T extends PoolableException> {
         public final int totalAcquired;
         public final int totalReleased;
         public final int totalCreated;
-
+        public final int totalDiscarded;
+        public final int outstanding;
+        public final int depotTransfers;
+        public final int contendedUpdates;
+        public final int leaksDetected;
+        public final int activeThreads;
+        
         public PoolStatistics(int poolSize, int totalAcquired, int totalReleased, int totalCreated) {
+            this(poolSize, totalAcquired, totalReleased, totalCreated, 0, 0, 0, 0, 0, 0);
+        }
+        
+        public PoolStatistics(int poolSize, int totalAcquired, int totalReleased, int totalCreated,
+                              int totalDiscarded, int outstanding, int depotTransfers,
+                              int contendedUpdates, int leaksDetected, int activeThreads) {
             this.poolSize = poolSize;
             this.totalAcquired = totalAcquired;
             this.totalReleased = totalReleased;
             this.totalCreated = totalCreated;
+            this.totalDiscarded = totalDiscarded;
+            this.outstanding = outstanding;
+            this.depotTransfers = depotTransfers;
+            this.contendedUpdates = contendedUpdates;
+            this.leaksDetected = leaksDetected;
+            this.activeThreads = activeThreads;
         }
-
+        
         public double getReuseRatio() {
             if (totalAcquired == 0) return 0.0;
             return 1.0 - ((double) totalCreated / totalAcquired);
         }
-
+        
+        /**
+         * Fraction of pool operations that had to touch or retry on shared state.
+         */
+        public double getContentionRatio() {
+            int operations = totalAcquired + totalReleased;
+            if (operations == 0) return 0.0;
+            return (double) (depotTransfers + contendedUpdates) / operations;
+        }
+        
         @Override
         public String toString() {
             return String.format(
-                "PoolStatistics{poolSize=%d, acquired=%d, released=%d, created=%d, reuseRatio=%.2f%%}",
-                poolSize, totalAcquired, totalReleased, totalCreated, getReuseRatio() * 100
+                "PoolStatistics{poolSize=%d, acquired=%d, released=%d, created=%d, discarded=%d, "
+                    + "outstanding=%d, reuseRatio=%.2f%%, depotTransfers=%d, contended=%d, "
+                    + "contentionRatio=%.2f%%, leaks=%d, threads=%d}",
+                poolSize, totalAcquired, totalReleased, totalCreated, totalDiscarded,
+                outstanding, getReuseRatio() * 100, depotTransfers, contendedUpdates,
+                getContentionRatio() * 100, leaksDetected, activeThreads
             );
         }
     }
 }
-
-/**
- * Base class for poolable exceptions.
- */
-abstract class PoolableException extends RuntimeException {
-    private String message;
-    private boolean inUse;
-
-    protected PoolableException() {
-        super(null, null, false, false); // Disable everything for performance
-    }
-
-    public void setMessage(String message) {
-        this.message = message;
-    }
-
-    @Override
-    public String getMessage() {
-        return message;
-    }
-
-    public boolean isInUse() {
-        return inUse;
-    }
-
-    public void setInUse(boolean inUse) {
-        this.inUse = inUse;
-    }
-
-    /**
-     * Reset the exception to its initial state for reuse.
-     */
-    public void reset() {
-        this.message = null;
-        // Subclasses can override to reset additional state
-    }
-
-    @Override
-    public Throwable fillInStackTrace() {
-        // Never fill stack trace for pooled exceptions
-        return this;
-    }
-}
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.example.exception.optimization;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Per-call-site state for stack trace policies, bounded in size.
+ *
+ * <p>Once {@link #MAX_TRACKED_SITES} sites are tracked, further sites (typically generated
+ * code such as lambdas or proxies) share one overflow entry instead of growing the table.
+ */
+final class SiteTable<S> {
+    static final int MAX_TRACKED_SITES = 10_000;
+
+    private final Map<ThrowSite.Key, S> states = new ConcurrentHashMap<>();
+    private final Supplier<? extends S> factory;
+    private final S overflow;
+
+    SiteTable(Supplier<? extends S> factory) {
+        this.factory = factory;
+        this.overflow = factory.get();
+    }
+
+    S get(ThrowSite.Key key) {
+        S state = states.get(key);
+        if (state != null) {
+            return state;
+        }
+        if (states.size() >= MAX_TRACKED_SITES) {
+            return overflow; // Generated call sites share one entry
+        }
+        return states.computeIfAbsent(key, k -> factory.get());
+    }
+}
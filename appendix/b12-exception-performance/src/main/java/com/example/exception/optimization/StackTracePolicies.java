@@ -0,0 +1,263 @@
+package com.example.exception.optimization;
+
+import com.example.exception.optimization.StackTracePolicy.Decision;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Registry of {@link StackTracePolicy} instances by exception class.
+ *
+ * <p>A policy registered for a class also applies to its subclasses unless they have
+ * their own registration. Unregistered classes use the default policy, which is adaptive:
+ * full traces until a class is thrown more than 1000 times per second.
+ * Lookups are cached per class, so deciding costs no map lookup on the throw path.
+ */
+public final class StackTracePolicies {
+    private static final StackTraceElement[] NO_FRAMES = new StackTraceElement[0];
+
+    private static final Map<Class<? extends Throwable>, StackTracePolicy> registered = new ConcurrentHashMap<>();
+    private static final Set<Class<?>> skippedClasses = ConcurrentHashMap.newKeySet();
+    private static final AtomicInteger version = new AtomicInteger();
+    private static volatile StackTracePolicy defaultPolicy = StackTracePolicy.adaptive(1000);
+
+    private static final ClassValue<Resolved> resolved = new ClassValue<>() {
+        @Override
+        protected Resolved computeValue(Class<?> type) {
+            int current = version.get();
+            return new Resolved(resolve(type), current);
+        }
+    };
+
+    private static final Map<Class<?>, TraceCounts> countsByType = new ConcurrentHashMap<>();
+    private static final ClassValue<TraceCounts> counts = new ClassValue<>() {
+        @Override
+        protected TraceCounts computeValue(Class<?> type) {
+            return countsByType.computeIfAbsent(type, k -> new TraceCounts());
+        }
+    };
+
+    private StackTracePolicies() {
+    }
+
+    /**
+     * Use the given policy for an exception class and its subclasses.
+     */
+    public static void register(Class<? extends Throwable> type, StackTracePolicy policy) {
+        registered.put(type, policy);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Remove the registration for an exception class.
+     */
+    public static void unregister(Class<? extends Throwable> type) {
+        registered.remove(type);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Set the policy for exception classes without a registration.
+     */
+    public static void setDefault(StackTracePolicy policy) {
+        defaultPolicy = policy;
+        version.incrementAndGet();
+    }
+
+    /**
+     * Treat frames of the given class as part of exception handling infrastructure, so
+     * the call site is resolved to its caller.
+     */
+    public static void skipFramesOf(Class<?> type) {
+        skippedClasses.add(type);
+    }
+
+    /**
+     * The policy that applies to an exception class.
+     */
+    public static StackTracePolicy policyFor(Class<? extends Throwable> type) {
+        Resolved entry = resolved.get(type);
+        if (entry.version != version.get()) {
+            resolved.remove(type);
+            entry = resolved.get(type);
+        }
+        return entry.policy;
+    }
+
+    /**
+     * Apply the policy to an exception that has already been thrown and caught, for logging.
+     * The exception itself is never modified, so it can still be rethrown or wrapped with
+     * its trace intact. On {@code FULL} it is returned as is; otherwise a
+     * {@link TrimmedException} standing in for it is returned, carrying its class name and
+     * message and, for {@code CHEAP}, its top frames. Its trace was already captured when it
+     * was constructed, so this saves no CPU, only the cost of printing the frames.
+     * Exceptions that applied a policy when they were thrown are returned unchanged.
+     *
+     * <p>The call site the policy sees is the code that caught the exception (with frames
+     * of classes passed to {@link #skipFramesOf} skipped), not the code that threw it.
+     * @return the exception to log
+     */
+    public static Throwable forLogging(Throwable exception) {
+        if (exception instanceof ConditionalStackTraceException) {
+            return exception;
+        }
+        Class<? extends Throwable> type = exception.getClass();
+        StackTracePolicy policy = policyFor(type);
+        Decision decision = policy.decide(type, new ThrowSite(1));
+        counts.get(type).record(decision);
+        return switch (decision) {
+            case FULL -> exception;
+            case CHEAP -> new TrimmedException(exception, policy.cheapTraceDepth());
+            case NONE -> new TrimmedException(exception, 0);
+        };
+    }
+
+    /**
+     * Decide how to fill in the trace of an exception under construction.
+     * @return {@code null} to capture the full trace, otherwise the frames to keep
+     */
+    static StackTraceElement[] chooseFrames(Throwable exception) {
+        Class<? extends Throwable> type = exception.getClass();
+        StackTracePolicy policy = policyFor(type);
+        ThrowSite site = new ThrowSite(policy.cheapTraceDepth());
+        Decision decision = policy.decide(type, site);
+        counts.get(type).record(decision);
+        return switch (decision) {
+            case FULL -> null;
+            case CHEAP -> site.topFrames();
+            case NONE -> NO_FRAMES;
+        };
+    }
+
+    /**
+     * Trace statistics for one exception class.
+     */
+    public static TraceStatistics getStatistics(Class<? extends Throwable> type) {
+        return counts.get(type).snapshot();
+    }
+
+    /**
+     * Trace statistics for every exception class a policy has decided for.
+     */
+    public static Map<Class<?>, TraceStatistics> getAllStatistics() {
+        Map<Class<?>, TraceStatistics> all = new HashMap<>();
+        countsByType.forEach((type, typeCounts) -> all.put(type, typeCounts.snapshot()));
+        return all;
+    }
+
+    /**
+     * Reset all trace statistics.
+     */
+    public static void resetStatistics() {
+        countsByType.values().forEach(TraceCounts::reset);
+    }
+
+    static boolean isInternalFrame(Class<?> type) {
+        return Throwable.class.isAssignableFrom(type)
+            || type == StackTracePolicies.class
+            || skippedClasses.contains(type);
+    }
+
+    private static StackTracePolicy resolve(Class<?> type) {
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            StackTracePolicy policy = registered.get(c);
+            if (policy != null) {
+                return policy;
+            }
+        }
+        return defaultPolicy;
+    }
+
+    private static final class Resolved {
+        final StackTracePolicy policy;
+        final int version;
+
+        Resolved(StackTracePolicy policy, int version) {
+            this.policy = policy;
+            this.version = version;
+        }
+    }
+
+    private static final class TraceCounts {
+        final LongAdder full = new LongAdder();
+        final LongAdder cheap = new LongAdder();
+        final LongAdder suppressed = new LongAdder();
+
+        void record(Decision decision) {
+            switch (decision) {
+                case FULL -> full.increment();
+                case CHEAP -> cheap.increment();
+                case NONE -> suppressed.increment();
+            }
+        }
+
+        TraceStatistics snapshot() {
+            return new TraceStatistics(full.sum(), cheap.sum(), suppressed.sum());
+        }
+
+        void reset() {
+            full.reset();
+            cheap.reset();
+            suppressed.reset();
+        }
+    }
+
+    /**
+     * Stand-in logged for a caught exception whose trace a policy cut short. It prints as
+     * the original exception would, with at most the original's top frames and without
+     * its cause or suppressed exceptions.
+     */
+    public static final class TrimmedException extends RuntimeException {
+        private final String originalType;
+
+        TrimmedException(Throwable original, int depth) {
+            super(original.getMessage(), null, false, true);
+            this.originalType = original.getClass().getName();
+            StackTraceElement[] frames = depth == 0 ? NO_FRAMES : original.getStackTrace();
+            setStackTrace(frames.length > depth ? Arrays.copyOf(frames, depth) : frames);
+        }
+
+        /**
+         * Name of the class of the exception this stands in for.
+         */
+        public String getOriginalType() {
+            return originalType;
+        }
+
+        @Override
+        public Throwable fillInStackTrace() {
+            return this; // frames are copied from the original
+        }
+
+        @Override
+        public String toString() {
+            String message = getLocalizedMessage();
+            return message != null ? originalType + ": " + message : originalType;
+        }
+    }
+
+    /**
+     * How many traces of one exception class were captured in full, cut short or suppressed.
+     */
+    public static class TraceStatistics {
+        public final long full;
+        public final long cheap;
+        public final long suppressed;
+
+        public TraceStatistics(long full, long cheap, long suppressed) {
+            this.full = full;
+            this.cheap = cheap;
+            this.suppressed = suppressed;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("TraceStatistics{full=%d, cheap=%d, suppressed=%d}", full, cheap, suppressed);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.exception.optimization;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides how much stack trace an exception gets when it is thrown.
+ * Policies are registered per exception class with {@link StackTracePolicies} and
+ * receive the throwing call site, so they can keep separate state for each site. The
+ * built-in policies track at most 10,000 sites each; further sites share one state.
+ */
+@FunctionalInterface
+public interface StackTracePolicy {
+
+    /**
+     * How the stack trace of a thrown exception is filled in.
+     */
+    enum Decision {
+        /** Capture the complete stack trace. */
+        FULL,
+        /** Keep only the top frames, collected with a bounded stack walk. */
+        CHEAP,
+        /** Capture nothing. */
+        NONE
+    }
+
+    Decision decide(Class<? extends Throwable> type, ThrowSite site);
+
+    /**
+     * Number of frames kept for {@link Decision#CHEAP} traces.
+     */
+    default int cheapTraceDepth() {
+        return 8;
+    }
+
+    /**
+     * Always capture full stack traces.
+     */
+    static StackTracePolicy always() {
+        return (type, site) -> Decision.FULL;
+    }
+
+    /**
+     * Never capture stack traces.
+     */
+    static StackTracePolicy never() {
+        return (type, site) -> Decision.NONE;
+    }
+
+    /**
+     * Capture one full trace in {@code rate} throws at each call site.
+     */
+    static StackTracePolicy sampling(int rate) {
+        if (rate < 1) {
+            throw new IllegalArgumentException("Sample rate must be positive: " + rate);
+        }
+        SiteTable<AtomicLong> counters = new SiteTable<>(AtomicLong::new);
+        return (type, site) -> {
+            AtomicLong counter = counters.get(site.key(type));
+            return counter.incrementAndGet() % rate == 0 ? Decision.FULL : Decision.NONE;
+        };
+    }
+
+    /**
+     * Capture at most {@code burst} full traces per {@code interval} at each call site.
+     */
+    static StackTracePolicy rateLimited(int burst, Duration interval) {
+        if (burst < 1) {
+            throw new IllegalArgumentException("Burst must be positive: " + burst);
+        }
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Interval must be positive: " + interval);
+        }
+        long emissionNanos = Math.max(1, interval.toNanos() / burst);
+        SiteTable<TokenBucket> buckets = new SiteTable<>(() -> new TokenBucket(emissionNanos, burst));
+        return (type, site) -> {
+            TokenBucket bucket = buckets.get(site.key(type));
+            return bucket.tryAcquire(System.nanoTime()) ? Decision.FULL : Decision.NONE;
+        };
+    }
+
+    /**
+     * Full traces until a class is thrown more than {@code stormThreshold} times per second,
+     * then a few full traces per call site and cheap traces for the rest.
+     */
+    static StackTracePolicy adaptive(double stormThreshold) {
+        return new AdaptiveStackTracePolicy(stormThreshold, 1.0, 10, Decision.CHEAP, 8);
+    }
+}
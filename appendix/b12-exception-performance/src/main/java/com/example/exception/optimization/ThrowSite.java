@@ -0,0 +1,79 @@
+package com.example.exception.optimization;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The call site an exception is thrown from, resolved lazily with a bounded
+ * {@link StackWalker} walk. Frames of stack trace policies, Throwable constructors and
+ * classes registered with {@link StackTracePolicies#skipFramesOf(Class)} are skipped.
+ * Policies that do not need the site never pay for the walk.
+ */
+public final class ThrowSite {
+    private static final StackWalker WALKER =
+        StackWalker.getInstance(Set.of(StackWalker.Option.RETAIN_CLASS_REFERENCE));
+
+    private final int depth;
+    private List<StackWalker.StackFrame> frames;
+
+    ThrowSite(int depth) {
+        this.depth = Math.max(1, depth);
+    }
+
+    /**
+     * The innermost frame outside exception and policy code.
+     */
+    public StackWalker.StackFrame frame() {
+        List<StackWalker.StackFrame> walked = frames();
+        if (walked.isEmpty()) {
+            throw new IllegalStateException("No caller frame found");
+        }
+        return walked.get(0);
+    }
+
+    /**
+     * Key identifying this site for the given exception type.
+     */
+    public Key key(Class<? extends Throwable> type) {
+        StackWalker.StackFrame frame = frame();
+        return new Key(type, frame.getDeclaringClass(), frame.getMethodName(), frame.getByteCodeIndex());
+    }
+
+    /**
+     * Up to {@code depth} frames starting at the throwing call site.
+     */
+    StackTraceElement[] topFrames() {
+        return frames().stream()
+            .map(StackWalker.StackFrame::toStackTraceElement)
+            .toArray(StackTraceElement[]::new);
+    }
+
+    private List<StackWalker.StackFrame> frames() {
+        if (frames == null) {
+            // Everything above the registry is policy code, whoever declared it
+            frames = WALKER.walk(stream -> stream
+                .dropWhile(frame -> frame.getDeclaringClass() != StackTracePolicies.class)
+                .dropWhile(frame -> StackTracePolicies.isInternalFrame(frame.getDeclaringClass()))
+                .limit(depth)
+                .collect(Collectors.toList()));
+        }
+        return frames;
+    }
+
+    @Override
+    public String toString() {
+        return frame().toStackTraceElement().toString();
+    }
+
+    /**
+     * Identity of a call site for one exception type.
+     */
+    public record Key(Class<? extends Throwable> type, Class<?> declaringClass, String methodName,
+                      int byteCodeIndex) {
+        @Override
+        public String toString() {
+            return type.getSimpleName() + "@" + declaringClass.getName() + "." + methodName + ":" + byteCodeIndex;
+        }
+    }
+}
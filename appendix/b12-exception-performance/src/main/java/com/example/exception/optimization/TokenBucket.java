@@ -0,0 +1,39 @@
+package com.example.exception.optimization;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket in its virtual scheduling form (GCRA): a single timestamp records
+ * when the bucket would next be full, so a grant is one compare-and-set.
+ */
+final class TokenBucket {
+    private final long emissionNanos;
+    private final long toleranceNanos;
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * @param emissionNanos time to refill one token
+     * @param burst tokens available at once
+     */
+    TokenBucket(long emissionNanos, int burst) {
+        if (emissionNanos < 1 || burst < 1) {
+            throw new IllegalArgumentException("Invalid token bucket: emission=" + emissionNanos
+                + "ns, burst=" + burst);
+        }
+        this.emissionNanos = emissionNanos;
+        this.toleranceNanos = emissionNanos * (burst - 1);
+    }
+
+    boolean tryAcquire(long nowNanos) {
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long start = arrival == Long.MIN_VALUE ? nowNanos : Math.max(arrival, nowNanos);
+            if (start - nowNanos > toleranceNanos) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, start + emissionNanos)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.exception.patterns;
+
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.OptionalDouble;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoubleFunction;
+import java.util.function.DoublePredicate;
+import java.util.function.DoubleSupplier;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * {@link Result} specialization for {@code double} values, which never boxes the value.
+ *
+ * <p>Operations that leave the result unchanged return the same instance, so a chain
+ * over a failure allocates nothing.
+ *
+ * @param <E> Error value type
+ */
+public final class DoubleResult<E> {
+    private final double value;
+    private final E error;
+
+    private DoubleResult(double value, E error) {
+        this.value = value;
+        this.error = error;
+    }
+
+    /**
+     * Create a successful result.
+     */
+    public static <E> DoubleResult<E> success(double value) {
+        return new DoubleResult<>(value, null);
+    }
+
+    /**
+     * Create a failed result.
+     */
+    public static <E> DoubleResult<E> failure(E error) {
+        return new DoubleResult<>(0, Objects.requireNonNull(error));
+    }
+
+    /**
+     * Create a result from a supplier that may throw an exception.
+     */
+    public static DoubleResult<Exception> of(DoubleSupplier supplier) {
+        try {
+            return success(supplier.getAsDouble());
+        } catch (Exception e) {
+            return failure(e);
+        }
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public boolean isFailure() {
+        return error != null;
+    }
+
+    /**
+     * Get the success value.
+     * @throws NoSuchElementException if this is a failure
+     */
+    public double getValue() {
+        if (error != null) {
+            throw new NoSuchElementException("Failure has no value");
+        }
+        return value;
+    }
+
+    /**
+     * Get the error value.
+     * @throws NoSuchElementException if this is a success
+     */
+    public E getError() {
+        if (error == null) {
+            throw new NoSuchElementException("Success has no error");
+        }
+        return error;
+    }
+
+    public double getValueOrElse(double defaultValue) {
+        return error == null ? value : defaultValue;
+    }
+
+    public double getValueOrElse(ToDoubleFunction<E> errorMapper) {
+        return error == null ? value : errorMapper.applyAsDouble(error);
+    }
+
+    public DoubleResult<E> map(DoubleUnaryOperator mapper) {
+        return error == null ? success(mapper.applyAsDouble(value)) : this;
+    }
+
+    public <U> Result<U, E> mapToObj(DoubleFunction<U> mapper) {
+        return error == null ? Result.success(mapper.apply(value)) : Result.failure(error);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <F> DoubleResult<F> mapError(Function<E, F> mapper) {
+        return error == null ? (DoubleResult<F>) this : failure(mapper.apply(error));
+    }
+
+    public DoubleResult<E> flatMap(DoubleFunction<DoubleResult<E>> mapper) {
+        return error == null ? mapper.apply(value) : this;
+    }
+
+    public DoubleResult<E> filter(DoublePredicate predicate, E errorIfNotMatch) {
+        return error != null || predicate.test(value) ? this : failure(errorIfNotMatch);
+    }
+
+    public DoubleResult<E> ifSuccess(DoubleConsumer consumer) {
+        if (error == null) {
+            consumer.accept(value);
+        }
+        return this;
+    }
+
+    public DoubleResult<E> ifFailure(Consumer<E> consumer) {
+        if (error != null) {
+            consumer.accept(error);
+        }
+        return this;
+    }
+
+    public OptionalDouble toOptional() {
+        return error == null ? OptionalDouble.of(value) : OptionalDouble.empty();
+    }
+
+    public <R> R fold(DoubleFunction<R> successMapper, Function<E, R> errorMapper) {
+        return error == null ? successMapper.apply(value) : errorMapper.apply(error);
+    }
+
+    /**
+     * Convert to a boxed {@link Result}.
+     */
+    public Result<Double, E> boxed() {
+        return error == null ? Result.success(value) : Result.failure(error);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DoubleResult<?> other)) {
+            return false;
+        }
+        return Double.compare(value, other.value) == 0 && Objects.equals(error, other.error);
+    }
+
+    @Override
+    public int hashCode() {
+        return error == null ? Double.hashCode(value) : error.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return error == null ? "DoubleResult.Success[" + value + "]" : "DoubleResult.Failure[" + error + "]";
+    }
+}
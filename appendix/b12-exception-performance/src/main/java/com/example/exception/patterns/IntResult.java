@@ -0,0 +1,179 @@
+package com.example.exception.patterns;
+
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.OptionalInt;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.IntSupplier;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ToIntFunction;
+
+/**
+ * {@link Result} specialization for {@code int} values, which never boxes the value.
+ *
+ * <p>Successes between -128 and 127 are cached, and operations that leave the result
+ * unchanged return the same instance, so a chain over a failure allocates nothing.
+ *
+ * @param <E> Error value type
+ */
+public final class IntResult<E> {
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 127;
+    private static final IntResult<?>[] CACHE = new IntResult<?>[CACHE_HIGH - CACHE_LOW + 1];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new IntResult<>(i + CACHE_LOW, null);
+        }
+    }
+
+    private final int value;
+    private final E error;
+
+    private IntResult(int value, E error) {
+        this.value = value;
+        this.error = error;
+    }
+
+    /**
+     * Create a successful result.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> IntResult<E> success(int value) {
+        if (value >= CACHE_LOW && value <= CACHE_HIGH) {
+            return (IntResult<E>) CACHE[value - CACHE_LOW];
+        }
+        return new IntResult<>(value, null);
+    }
+
+    /**
+     * Create a failed result.
+     */
+    public static <E> IntResult<E> failure(E error) {
+        return new IntResult<>(0, Objects.requireNonNull(error));
+    }
+
+    /**
+     * Create a result from a supplier that may throw an exception.
+     */
+    public static IntResult<Exception> of(IntSupplier supplier) {
+        try {
+            return success(supplier.getAsInt());
+        } catch (Exception e) {
+            return failure(e);
+        }
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public boolean isFailure() {
+        return error != null;
+    }
+
+    /**
+     * Get the success value.
+     * @throws NoSuchElementException if this is a failure
+     */
+    public int getValue() {
+        if (error != null) {
+            throw new NoSuchElementException("Failure has no value");
+        }
+        return value;
+    }
+
+    /**
+     * Get the error value.
+     * @throws NoSuchElementException if this is a success
+     */
+    public E getError() {
+        if (error == null) {
+            throw new NoSuchElementException("Success has no error");
+        }
+        return error;
+    }
+
+    public int getValueOrElse(int defaultValue) {
+        return error == null ? value : defaultValue;
+    }
+
+    public int getValueOrElse(ToIntFunction<E> errorMapper) {
+        return error == null ? value : errorMapper.applyAsInt(error);
+    }
+
+    public IntResult<E> map(IntUnaryOperator mapper) {
+        return error == null ? success(mapper.applyAsInt(value)) : this;
+    }
+
+    public <U> Result<U, E> mapToObj(IntFunction<U> mapper) {
+        return error == null ? Result.success(mapper.apply(value)) : Result.failure(error);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <F> IntResult<F> mapError(Function<E, F> mapper) {
+        return error == null ? (IntResult<F>) this : failure(mapper.apply(error));
+    }
+
+    public IntResult<E> flatMap(IntFunction<IntResult<E>> mapper) {
+        return error == null ? mapper.apply(value) : this;
+    }
+
+    public IntResult<E> filter(IntPredicate predicate, E errorIfNotMatch) {
+        return error != null || predicate.test(value) ? this : failure(errorIfNotMatch);
+    }
+
+    public IntResult<E> ifSuccess(IntConsumer consumer) {
+        if (error == null) {
+            consumer.accept(value);
+        }
+        return this;
+    }
+
+    public IntResult<E> ifFailure(Consumer<E> consumer) {
+        if (error != null) {
+            consumer.accept(error);
+        }
+        return this;
+    }
+
+    public OptionalInt toOptional() {
+        return error == null ? OptionalInt.of(value) : OptionalInt.empty();
+    }
+
+    public <R> R fold(IntFunction<R> successMapper, Function<E, R> errorMapper) {
+        return error == null ? successMapper.apply(value) : errorMapper.apply(error);
+    }
+
+    /**
+     * Convert to a boxed {@link Result}.
+     */
+    public Result<Integer, E> boxed() {
+        return error == null ? Result.success(value) : Result.failure(error);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IntResult<?> other)) {
+            return false;
+        }
+        return value == other.value && Objects.equals(error, other.error);
+    }
+
+    @Override
+    public int hashCode() {
+        return error == null ? Integer.hashCode(value) : error.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return error == null ? "IntResult.Success[" + value + "]" : "IntResult.Failure[" + error + "]";
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.exception.patterns;
+
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+import java.util.function.LongPredicate;
+import java.util.function.LongSupplier;
+import java.util.function.LongUnaryOperator;
+import java.util.function.ToLongFunction;
+
+/**
+ * {@link Result} specialization for {@code long} values, which never boxes the value.
+ *
+ * <p>Successes between -128 and 127 are cached, and operations that leave the result
+ * unchanged return the same instance, so a chain over a failure allocates nothing.
+ *
+ * @param <E> Error value type
+ */
+public final class LongResult<E> {
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 127;
+    private static final LongResult<?>[] CACHE = new LongResult<?>[CACHE_HIGH - CACHE_LOW + 1];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = new LongResult<>(i + CACHE_LOW, null);
+        }
+    }
+
+    private final long value;
+    private final E error;
+
+    private LongResult(long value, E error) {
+        this.value = value;
+        this.error = error;
+    }
+
+    /**
+     * Create a successful result.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> LongResult<E> success(long value) {
+        if (value >= CACHE_LOW && value <= CACHE_HIGH) {
+            return (LongResult<E>) CACHE[(int) value - CACHE_LOW];
+        }
+        return new LongResult<>(value, null);
+    }
+
+    /**
+     * Create a failed result.
+     */
+    public static <E> LongResult<E> failure(E error) {
+        return new LongResult<>(0, Objects.requireNonNull(error));
+    }
+
+    /**
+     * Create a result from a supplier that may throw an exception.
+     */
+    public static LongResult<Exception> of(LongSupplier supplier) {
+        try {
+            return success(supplier.getAsLong());
+        } catch (Exception e) {
+            return failure(e);
+        }
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public boolean isFailure() {
+        return error != null;
+    }
+
+    /**
+     * Get the success value.
+     * @throws NoSuchElementException if this is a failure
+     */
+    public long getValue() {
+        if (error != null) {
+            throw new NoSuchElementException("Failure has no value");
+        }
+        return value;
+    }
+
+    /**
+     * Get the error value.
+     * @throws NoSuchElementException if this is a success
+     */
+    public E getError() {
+        if (error == null) {
+            throw new NoSuchElementException("Success has no error");
+        }
+        return error;
+    }
+
+    public long getValueOrElse(long defaultValue) {
+        return error == null ? value : defaultValue;
+    }
+
+    public long getValueOrElse(ToLongFunction<E> errorMapper) {
+        return error == null ? value : errorMapper.applyAsLong(error);
+    }
+
+    public LongResult<E> map(LongUnaryOperator mapper) {
+        return error == null ? success(mapper.applyAsLong(value)) : this;
+    }
+
+    public <U> Result<U, E> mapToObj(LongFunction<U> mapper) {
+        return error == null ? Result.success(mapper.apply(value)) : Result.failure(error);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <F> LongResult<F> mapError(Function<E, F> mapper) {
+        return error == null ? (LongResult<F>) this : failure(mapper.apply(error));
+    }
+
+    public LongResult<E> flatMap(LongFunction<LongResult<E>> mapper) {
+        return error == null ? mapper.apply(value) : this;
+    }
+
+    public LongResult<E> filter(LongPredicate predicate, E errorIfNotMatch) {
+        return error != null || predicate.test(value) ? this : failure(errorIfNotMatch);
+    }
+
+    public LongResult<E> ifSuccess(LongConsumer consumer) {
+        if (error == null) {
+            consumer.accept(value);
+        }
+        return this;
+    }
+
+    public LongResult<E> ifFailure(Consumer<E> consumer) {
+        if (error != null) {
+            consumer.accept(error);
+        }
+        return this;
+    }
+
+    public OptionalLong toOptional() {
+        return error == null ? OptionalLong.of(value) : OptionalLong.empty();
+    }
+
+    public <R> R fold(LongFunction<R> successMapper, Function<E, R> errorMapper) {
+        return error == null ? successMapper.apply(value) : errorMapper.apply(error);
+    }
+
+    /**
+     * Convert to a boxed {@link Result}.
+     */
+    public Result<Long, E> boxed() {
+        return error == null ? Result.success(value) : Result.failure(error);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LongResult<?> other)) {
+            return false;
+        }
+        return value == other.value && Objects.equals(error, other.error);
+    }
+
+    @Override
+    public int hashCode() {
+        return error == null ? Long.hashCode(value) : error.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return error == null ? "LongResult.Success[" + value + "]" : "LongResult.Failure[" + error + "]";
+    }
+}
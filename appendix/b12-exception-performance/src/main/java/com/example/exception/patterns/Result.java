@@ -33,6 +33,8 @@ public sealed interface Result<T, E> {
     
     /**
      * Create a result from a supplier that may throw an exception.
+     * For primitive values use {@link IntResult#of}, {@link LongResult#of} or
+     * {@link DoubleResult#of}, which do not box.
      */
     static <T> Result<T, Exception> of(Supplier<T> supplier) {
         try {
@@ -155,8 +157,9 @@ public sealed interface Result<T, E> {
         }
         
         @Override
+        @SuppressWarnings("unchecked")
         public <F> Result<T, F> mapError(Function<E, F> mapper) {
-            return success(value);
+            return (Result<T, F>) this; // A success holds no error, so it can be reused as is
         }
         
         @Override
@@ -225,8 +228,9 @@ public sealed interface Result<T, E> {
         }
         
         @Override
+        @SuppressWarnings("unchecked")
         public <U> Result<U, E> map(Function<T, U> mapper) {
-            return failure(error);
+            return (Result<U, E>) this; // A failure holds no value, so it can be reused as is
         }
         
         @Override
@@ -235,8 +239,9 @@ public sealed interface Result<T, E> {
         }
         
         @Override
+        @SuppressWarnings("unchecked")
         public <U> Result<U, E> flatMap(Function<T, Result<U, E>> mapper) {
-            return failure(error);
+            return (Result<U, E>) this; // A failure holds no value, so it can be reused as is
         }
         
         @Override
@@ -0,0 +1,271 @@
+package com.example.exception.patterns;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Chain of {@link Result} steps that is composed once and then run many times without
+ * creating intermediate {@code Result} objects.
+ *
+ * <p>The builder flattens the steps into an array of stages; running the pipeline is a
+ * single loop over them that stops at the first failing step. Stages signal failure with
+ * a marker that filters with a fixed error create once, so {@link #run} allocates only the
+ * final {@code Result}, and {@link #fold} allocates nothing of its own.
+ *
+ * <pre>
+ * ResultPipeline&lt;String, Integer, String&gt; age = ResultPipeline.&lt;String, String&gt;builder()
+ *     .check(s -&gt; s.isBlank() ? "Age is required" : null)
+ *     .map(String::trim)
+ *     .flatMap(Parsers::parseInt)
+ *     .filter(n -&gt; n &gt;= 0, "Age must not be negative")
+ *     .build();
+ *
+ * Result&lt;Integer, String&gt; result = age.run(" 42 ");
+ * </pre>
+ *
+ * @param <I> Input type
+ * @param <O> Output type
+ * @param <E> Error type
+ */
+public final class ResultPipeline<I, O, E> {
+    private final Stage[] stages;
+
+    private ResultPipeline(Stage[] stages) {
+        this.stages = stages;
+    }
+
+    /**
+     * Start a pipeline whose input and initial value type is {@code T}.
+     */
+    public static <T, E> Builder<T, T, E> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Run all steps on the input.
+     */
+    public Result<O, E> run(I input) {
+        return fold(input, Result::success, Result::failure);
+    }
+
+    /**
+     * Whether the input passes every step.
+     */
+    public boolean test(I input) {
+        return fold(input, value -> Boolean.TRUE, error -> Boolean.FALSE);
+    }
+
+    /**
+     * Run all steps on the input and map the outcome, without creating a {@code Result}.
+     */
+    @SuppressWarnings("unchecked")
+    public <R> R fold(I input, Function<? super O, ? extends R> successMapper,
+                      Function<? super E, ? extends R> errorMapper) {
+        Object value = input;
+        for (Stage stage : stages) {
+            value = stage.apply(value);
+            if (value instanceof Failed failed) {
+                return errorMapper.apply((E) failed.error);
+            }
+        }
+        return successMapper.apply((O) value);
+    }
+
+    /**
+     * Number of composed steps.
+     */
+    public int size() {
+        return stages.length;
+    }
+
+    /**
+     * Builder that records steps. Each method returns this builder retyped to the new
+     * value type, so composing a pipeline creates no intermediate builders.
+     *
+     * @param <I> Input type of the pipeline
+     * @param <T> Value type after the steps added so far
+     * @param <E> Error type
+     */
+    public static final class Builder<I, T, E> {
+        private final List<Stage> stages = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Transform the value.
+         */
+        public <U> Builder<I, U, E> map(Function<? super T, ? extends U> mapper) {
+            return add(new MapStage(mapper));
+        }
+
+        /**
+         * Fail with the given error unless the predicate holds.
+         */
+        public Builder<I, T, E> filter(Predicate<? super T> predicate, E errorIfNotMatch) {
+            return add(new FilterStage(predicate, new Failed(Objects.requireNonNull(errorIfNotMatch))));
+        }
+
+        /**
+         * Fail with an error computed from the value unless the predicate holds.
+         */
+        public Builder<I, T, E> filter(Predicate<? super T> predicate, Function<? super T, ? extends E> errorMapper) {
+            return add(new FilterWithErrorStage(predicate, errorMapper));
+        }
+
+        /**
+         * Validate the value: the validator returns an error, or {@code null} if the value is valid.
+         */
+        public Builder<I, T, E> check(Function<? super T, ? extends E> validator) {
+            return add(new CheckStage(validator));
+        }
+
+        /**
+         * Chain a step that produces its own {@code Result}.
+         */
+        public <U> Builder<I, U, E> flatMap(Function<? super T, Result<U, E>> mapper) {
+            return add(new FlatMapStage(mapper));
+        }
+
+        /**
+         * Observe the value without changing it.
+         */
+        public Builder<I, T, E> peek(Consumer<? super T> action) {
+            return add(new PeekStage(action));
+        }
+
+        /**
+         * Append all steps of another pipeline.
+         */
+        @SuppressWarnings("unchecked")
+        public <U> Builder<I, U, E> then(ResultPipeline<? super T, U, E> next) {
+            Collections.addAll(stages, next.stages);
+            return (Builder<I, U, E>) this;
+        }
+
+        public ResultPipeline<I, T, E> build() {
+            return new ResultPipeline<>(stages.toArray(new Stage[0]));
+        }
+
+        @SuppressWarnings("unchecked")
+        private <U> Builder<I, U, E> add(Stage stage) {
+            stages.add(stage);
+            return (Builder<I, U, E>) this;
+        }
+    }
+
+    /**
+     * Failure signal passed between stages instead of a {@code Result}. Filters with a
+     * fixed error create theirs once, so a failing filter allocates nothing.
+     */
+    private static final class Failed {
+        final Object error;
+
+        Failed(Object error) {
+            this.error = error;
+        }
+    }
+
+    /**
+     * One step. Returns the next value, or a {@link Failed} to stop the pipeline.
+     */
+    private abstract static class Stage {
+        abstract Object apply(Object value);
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final class MapStage extends Stage {
+        private final Function mapper;
+
+        MapStage(Function mapper) {
+            this.mapper = Objects.requireNonNull(mapper);
+        }
+
+        @Override
+        Object apply(Object value) {
+            return mapper.apply(value);
+        }
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final class FilterStage extends Stage {
+        private final Predicate predicate;
+        private final Failed failed;
+
+        FilterStage(Predicate predicate, Failed failed) {
+            this.predicate = Objects.requireNonNull(predicate);
+            this.failed = failed;
+        }
+
+        @Override
+        Object apply(Object value) {
+            return predicate.test(value) ? value : failed;
+        }
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final class FilterWithErrorStage extends Stage {
+        private final Predicate predicate;
+        private final Function errorMapper;
+
+        FilterWithErrorStage(Predicate predicate, Function errorMapper) {
+            this.predicate = Objects.requireNonNull(predicate);
+            this.errorMapper = Objects.requireNonNull(errorMapper);
+        }
+
+        @Override
+        Object apply(Object value) {
+            return predicate.test(value) ? value : new Failed(errorMapper.apply(value));
+        }
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final class CheckStage extends Stage {
+        private final Function validator;
+
+        CheckStage(Function validator) {
+            this.validator = Objects.requireNonNull(validator);
+        }
+
+        @Override
+        Object apply(Object value) {
+            Object error = validator.apply(value);
+            return error == null ? value : new Failed(error);
+        }
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final class FlatMapStage extends Stage {
+        private final Function mapper;
+
+        FlatMapStage(Function mapper) {
+            this.mapper = Objects.requireNonNull(mapper);
+        }
+
+        @Override
+        Object apply(Object value) {
+            Result result = (Result) mapper.apply(value);
+            return result.isSuccess() ? result.getValue() : new Failed(result.getError());
+        }
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final class PeekStage extends Stage {
+        private final Consumer action;
+
+        PeekStage(Consumer action) {
+            this.action = Objects.requireNonNull(action);
+        }
+
+        @Override
+        Object apply(Object value) {
+            action.accept(value);
+            return value;
+        }
+    }
+}
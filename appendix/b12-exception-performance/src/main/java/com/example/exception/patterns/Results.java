@@ -0,0 +1,125 @@
+package com.example.exception.patterns;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Bulk operations over {@link Result} values.
+ *
+ * <p>Each operation collects into an array sized up front from the input list and stops
+ * at the first failure. No {@code Result} is created per element.
+ */
+public final class Results {
+
+    private Results() {
+    }
+
+    /**
+     * Call every supplier in order, stopping at the first one that throws.
+     */
+    public static <T> Result<List<T>, Exception> traverse(List<? extends Supplier<? extends T>> suppliers) {
+        Object[] values = new Object[suppliers.size()];
+        for (int i = 0; i < values.length; i++) {
+            try {
+                values[i] = suppliers.get(i).get();
+            } catch (Exception e) {
+                return Result.failure(e);
+            }
+        }
+        return Result.success(asList(values));
+    }
+
+    /**
+     * Run the pipeline on every input in order, stopping at the first failure.
+     */
+    public static <I, O, E> Result<List<O>, E> traverse(List<? extends I> inputs, ResultPipeline<I, O, E> pipeline) {
+        Object[] values = new Object[inputs.size()];
+        for (int i = 0; i < values.length; i++) {
+            Object value = pipeline.fold(inputs.get(i), Function.identity(), Failed::new);
+            if (value instanceof Failed<?> failed) {
+                @SuppressWarnings("unchecked")
+                E error = (E) failed.error;
+                return Result.failure(error);
+            }
+            values[i] = value;
+        }
+        return Result.success(asList(values));
+    }
+
+    /**
+     * Combine results in order, returning the first failure if there is one.
+     */
+    public static <T, E> Result<List<T>, E> sequence(List<? extends Result<? extends T, ? extends E>> results) {
+        Object[] values = new Object[results.size()];
+        for (int i = 0; i < values.length; i++) {
+            Result<? extends T, ? extends E> result = results.get(i);
+            if (result.isFailure()) {
+                return Result.failure(result.getError());
+            }
+            values[i] = result.getValue();
+        }
+        return Result.success(asList(values));
+    }
+
+    /**
+     * Call every supplier in order into an {@code int[]}, stopping at the first one that throws.
+     */
+    public static Result<int[], Exception> traverseInt(List<? extends IntSupplier> suppliers) {
+        int[] values = new int[suppliers.size()];
+        for (int i = 0; i < values.length; i++) {
+            try {
+                values[i] = suppliers.get(i).getAsInt();
+            } catch (Exception e) {
+                return Result.failure(e);
+            }
+        }
+        return Result.success(values);
+    }
+
+    /**
+     * Call every supplier in order into a {@code long[]}, stopping at the first one that throws.
+     */
+    public static Result<long[], Exception> traverseLong(List<? extends LongSupplier> suppliers) {
+        long[] values = new long[suppliers.size()];
+        for (int i = 0; i < values.length; i++) {
+            try {
+                values[i] = suppliers.get(i).getAsLong();
+            } catch (Exception e) {
+                return Result.failure(e);
+            }
+        }
+        return Result.success(values);
+    }
+
+    /**
+     * Call every supplier in order into a {@code double[]}, stopping at the first one that throws.
+     */
+    public static Result<double[], Exception> traverseDouble(List<? extends DoubleSupplier> suppliers) {
+        double[] values = new double[suppliers.size()];
+        for (int i = 0; i < values.length; i++) {
+            try {
+                values[i] = suppliers.get(i).getAsDouble();
+            } catch (Exception e) {
+                return Result.failure(e);
+            }
+        }
+        return Result.success(values);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> asList(Object[] values) {
+        return Collections.unmodifiableList(Arrays.asList((T[]) values));
+    }
+
+    /**
+     * Marks a pipeline failure among collected values. Only created on the failing element.
+     */
+    private record Failed<E>(E error) {
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.exception.performance;
+
+import com.example.exception.optimization.ExceptionPool;
+import com.example.exception.optimization.ValidationException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmarks comparing plain allocation, a single shared-queue pool and the magazine-based
+ * {@link ExceptionPool} under increasing thread counts.
+ * Each operation acquires a small burst of exceptions, throws and catches one, then
+ * releases them all.
+ *
+ * <p>JMH cannot parameterize the thread count, so {@link #main} runs the benchmark once
+ * per count. From the command line use {@code -t 1}, {@code -t 4} and so on.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ExceptionPoolBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 4, 16, 64};
+
+    @State(Scope.Benchmark)
+    public static class Pools {
+        @Param({"4"})
+        int burst;
+
+        ExceptionPool<ValidationException> magazinePool;
+        SharedQueuePool sharedPool;
+
+        @Setup
+        public void setUp() {
+            magazinePool = new ExceptionPool<>(ValidationException::create, 1024);
+            sharedPool = new SharedQueuePool(1024);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Held {
+        ValidationException[] exceptions;
+
+        @Setup
+        public void setUp(Pools pools) {
+            exceptions = new ValidationException[pools.burst];
+        }
+    }
+
+    /**
+     * Baseline: allocate every exception.
+     */
+    @Benchmark
+    public void newException(Pools pools, Held held, Blackhole bh) {
+        ValidationException[] exceptions = held.exceptions;
+        for (int i = 0; i < exceptions.length; i++) {
+            ValidationException e = new ValidationException();
+            e.setMessage("Validation failed");
+            exceptions[i] = e;
+        }
+        bh.consume(throwAndCatch(exceptions[0]));
+    }
+
+    /**
+     * Pool backed by one shared queue, as ExceptionPool was originally implemented.
+     */
+    @Benchmark
+    public void sharedQueuePool(Pools pools, Held held, Blackhole bh) {
+        ValidationException[] exceptions = held.exceptions;
+        for (int i = 0; i < exceptions.length; i++) {
+            exceptions[i] = pools.sharedPool.acquire("Validation failed");
+        }
+        bh.consume(throwAndCatch(exceptions[0]));
+        for (ValidationException e : exceptions) {
+            pools.sharedPool.release(e);
+        }
+    }
+
+    /**
+     * Pool with per-thread magazines and a shared depot.
+     */
+    @Benchmark
+    public void magazinePool(Pools pools, Held held, Blackhole bh) {
+        ValidationException[] exceptions = held.exceptions;
+        for (int i = 0; i < exceptions.length; i++) {
+            exceptions[i] = pools.magazinePool.acquire("Validation failed");
+        }
+        bh.consume(throwAndCatch(exceptions[0]));
+        for (ValidationException e : exceptions) {
+            pools.magazinePool.release(e);
+        }
+    }
+
+    private static String throwAndCatch(ValidationException exception) {
+        try {
+            throw exception;
+        } catch (ValidationException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Single shared queue with global counters, with the size accounting corrected so
+     * that the comparison measures contention rather than the pool filling up.
+     */
+    static class SharedQueuePool {
+        private final Queue<ValidationException> pool = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger currentSize = new AtomicInteger(0);
+        private final AtomicInteger acquireCount = new AtomicInteger(0);
+        private final AtomicInteger releaseCount = new AtomicInteger(0);
+        private final int maxPoolSize;
+
+        SharedQueuePool(int maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+        }
+
+        ValidationException acquire(String message) {
+            acquireCount.incrementAndGet();
+            ValidationException exception = pool.poll();
+            if (exception == null) {
+                exception = ValidationException.create();
+            } else {
+                currentSize.decrementAndGet();
+            }
+            exception.setMessage(message);
+            exception.setInUse(true);
+            return exception;
+        }
+
+        void release(ValidationException exception) {
+            releaseCount.incrementAndGet();
+            exception.reset();
+            exception.setInUse(false);
+            if (currentSize.incrementAndGet() <= maxPoolSize) {
+                pool.offer(exception);
+            } else {
+                currentSize.decrementAndGet();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREAD_COUNTS) {
+            Options opt = new OptionsBuilder()
+                    .include(ExceptionPoolBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+
+            new Runner(opt).run();
+        }
+    }
+}
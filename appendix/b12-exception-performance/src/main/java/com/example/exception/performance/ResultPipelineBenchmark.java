@@ -0,0 +1,201 @@
+package com.example.exception.performance;
+
+import com.example.exception.patterns.IntResult;
+import com.example.exception.patterns.Result;
+import com.example.exception.patterns.ResultPipeline;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a twelve-step validation chain run over a batch of records, written four ways:
+ * with chained {@link Result} calls, with a fused {@link ResultPipeline}, with
+ * {@link IntResult} after parsing, and with plain exceptions.
+ * The failure percentage controls how many records fail one of the steps.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ResultPipelineBenchmark {
+
+    private static final int BATCH_SIZE = 1024;
+
+    private static final ResultPipeline<String, Integer, String> PIPELINE = ResultPipeline.<String, String>builder()
+        .check(ResultPipelineBenchmark::checkPresent)
+        .map(String::trim)
+        .filter(s -> s.length() <= 9, "Too long")
+        .filter(ResultPipelineBenchmark::isDigits, "Not a number")
+        .flatMap(ResultPipelineBenchmark::parse)
+        .filter(n -> n >= 10, "Too small")
+        .filter(n -> n <= 1_000_000, "Too large")
+        .map(n -> n * 3)
+        .filter(n -> n % 7 != 0, "Multiple of seven")
+        .map(n -> n + 11)
+        .filter(n -> n % 13 != 0, "Multiple of thirteen")
+        .map(n -> n / 2)
+        .build();
+
+    @Param({"0", "10"})
+    private int failurePercent;
+
+    private String[] records;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        records = new String[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            int n;
+            do {
+                n = 10 + random.nextInt(900_000);
+            } while ((n * 3) % 7 == 0 || (n * 3 + 11) % 13 == 0);
+            boolean fail = random.nextInt(100) < failurePercent;
+            records[i] = fail ? " " + n + "x " : " " + n + " ";
+        }
+    }
+
+    /**
+     * Chained Result calls: every step allocates a new Result.
+     */
+    @Benchmark
+    public long resultChain() {
+        long sum = 0;
+        for (String record : records) {
+            sum += Result.<String, String>success(record)
+                .flatMap(s -> {
+                    String error = checkPresent(s);
+                    return error == null ? Result.success(s) : Result.failure(error);
+                })
+                .map(String::trim)
+                .filter(s -> s.length() <= 9, "Too long")
+                .filter(ResultPipelineBenchmark::isDigits, "Not a number")
+                .flatMap(ResultPipelineBenchmark::parse)
+                .filter(n -> n >= 10, "Too small")
+                .filter(n -> n <= 1_000_000, "Too large")
+                .map(n -> n * 3)
+                .filter(n -> n % 7 != 0, "Multiple of seven")
+                .map(n -> n + 11)
+                .filter(n -> n % 13 != 0, "Multiple of thirteen")
+                .map(n -> n / 2)
+                .getValueOrElse(-1);
+        }
+        return sum;
+    }
+
+    /**
+     * Fused pipeline: steps run in one loop, only the parse step creates a Result.
+     */
+    @Benchmark
+    public long fusedPipeline() {
+        long sum = 0;
+        for (String record : records) {
+            sum += PIPELINE.fold(record, n -> n, error -> -1);
+        }
+        return sum;
+    }
+
+    /**
+     * IntResult after parsing: the numeric steps neither box nor allocate on failure.
+     */
+    @Benchmark
+    public long primitiveResult() {
+        long sum = 0;
+        for (String record : records) {
+            String error = checkPresent(record);
+            if (error != null) {
+                sum--;
+                continue;
+            }
+            String s = record.trim();
+            IntResult<String> parsed = s.length() > 9 ? IntResult.failure("Too long")
+                : !isDigits(s) ? IntResult.failure("Not a number")
+                : IntResult.success(Integer.parseInt(s));
+            sum += parsed
+                .filter(n -> n >= 10, "Too small")
+                .filter(n -> n <= 1_000_000, "Too large")
+                .map(n -> n * 3)
+                .filter(n -> n % 7 != 0, "Multiple of seven")
+                .map(n -> n + 11)
+                .filter(n -> n % 13 != 0, "Multiple of thirteen")
+                .map(n -> n / 2)
+                .getValueOrElse(-1);
+        }
+        return sum;
+    }
+
+    /**
+     * Plain exceptions: each failing record throws with a full stack trace.
+     */
+    @Benchmark
+    public long plainExceptions() {
+        long sum = 0;
+        for (String record : records) {
+            try {
+                sum += validate(record);
+            } catch (IllegalArgumentException e) {
+                sum--;
+            }
+        }
+        return sum;
+    }
+
+    private static int validate(String record) {
+        String error = checkPresent(record);
+        if (error != null) {
+            throw new IllegalArgumentException(error);
+        }
+        String s = record.trim();
+        require(s.length() <= 9, "Too long");
+        require(isDigits(s), "Not a number");
+        int n = Integer.parseInt(s);
+        require(n >= 10, "Too small");
+        require(n <= 1_000_000, "Too large");
+        n = n * 3;
+        require(n % 7 != 0, "Multiple of seven");
+        n = n + 11;
+        require(n % 13 != 0, "Multiple of thirteen");
+        return n / 2;
+    }
+
+    private static void require(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    private static String checkPresent(String s) {
+        return s == null || s.isEmpty() ? "Missing value" : null;
+    }
+
+    private static boolean isDigits(String s) {
+        if (s.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            if (!Character.isDigit(s.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Result<Integer, String> parse(String s) {
+        return Result.success(Integer.parseInt(s));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(ResultPipelineBenchmark.class.getSimpleName())
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.exception;
+
+import com.example.exception.monitoring.BatchOptions;
+import com.example.exception.monitoring.BatchResult;
+import com.example.exception.monitoring.ExceptionHandler;
+import com.example.exception.monitoring.ExceptionMetrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for concurrent batch execution.
+ */
+class BatchMonitorTest {
+    
+    @Test
+    @DisplayName("Concurrent batch should return results in order and record errors")
+    void concurrentBatchShouldReturnResultsInOrderAndRecordErrors() {
+        ExceptionMetrics metrics = new ExceptionMetrics();
+        Map<Integer, Throwable> handled = new ConcurrentHashMap<>();
+        ExceptionHandler.BatchMonitor monitor = new ExceptionHandler.BatchMonitor(metrics, handled::put);
+        
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            int n = i;
+            tasks.add(() -> {
+                if (n % 100 == 7) {
+                    throw new IllegalStateException("Task " + n);
+                }
+                return n * 2;
+            });
+        }
+        BatchResult<Integer> result = monitor.executeConcurrently(tasks,
+            BatchOptions.builder().maxConcurrency(4).build());
+        
+        assertEquals(1000, result.size());
+        assertEquals(990, result.getCount(BatchResult.Outcome.SUCCEEDED));
+        assertEquals(10, result.getCount(BatchResult.Outcome.FAILED));
+        assertEquals(7, result.getFirstFailureIndex());
+        assertEquals(Integer.valueOf(1998), result.getResults().get(999));
+        assertNull(result.getResult(7));
+        assertEquals(10, handled.size());
+        assertEquals(10, metrics.getStats(IllegalStateException.class).getCount());
+        assertEquals(1000, result.getLatencySnapshot().getCount());
+        assertEquals(Map.of(IllegalStateException.class, 10), result.getErrorCountsByType());
+    }
+    
+    @Test
+    @DisplayName("Tasks exceeding the timeout should be interrupted and reported")
+    void tasksExceedingTimeoutShouldBeInterruptedAndReported() throws InterruptedException {
+        ExceptionMetrics metrics = new ExceptionMetrics();
+        ExceptionHandler.BatchMonitor monitor = new ExceptionHandler.BatchMonitor(metrics, (index, error) -> {});
+        CountDownLatch interrupted = new CountDownLatch(1);
+        
+        BatchResult<Void> result = monitor.executeBatchConcurrently(
+            BatchOptions.builder().maxConcurrency(2).taskTimeout(Duration.ofMillis(50)).build(),
+            () -> { },
+            () -> {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            },
+            () -> { });
+        
+        assertTrue(result.getElapsed().toMillis() < 5_000);
+        assertEquals(BatchResult.Outcome.TIMED_OUT, result.getOutcome(1));
+        assertInstanceOf(TimeoutException.class, result.getError(1));
+        assertTrue(result.getLatencyNanos(1) >= Duration.ofMillis(50).toNanos());
+        assertEquals(2, result.getCount(BatchResult.Outcome.SUCCEEDED));
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS)); // The batch does not wait for timed out tasks
+        assertEquals(1, metrics.getStats(TimeoutException.class).getCount());
+    }
+    
+    @Test
+    @DisplayName("Tasks ignoring the timeout should not stall the batch")
+    void tasksIgnoringTimeoutShouldNotStallTheBatch() {
+        CountDownLatch release = new CountDownLatch(1);
+        Map<Integer, String> handlerThreads = new ConcurrentHashMap<>();
+        ExceptionHandler.BatchMonitor monitor = new ExceptionHandler.BatchMonitor(new ExceptionMetrics(),
+            (index, error) -> handlerThreads.put(index, Thread.currentThread().getName()));
+        Runnable stubborn = () -> {
+            while (true) {
+                try {
+                    release.await();
+                    return;
+                } catch (InterruptedException ignored) {
+                    // Keep running past the timeout
+                }
+            }
+        };
+        
+        try {
+            BatchResult<Void> result = monitor.executeBatchConcurrently(
+                BatchOptions.builder().maxConcurrency(1).taskTimeout(Duration.ofMillis(50)).build(),
+                stubborn, stubborn, () -> { });
+            
+            assertTrue(result.getElapsed().toMillis() < 5_000);
+            assertEquals(BatchResult.Outcome.TIMED_OUT, result.getOutcome(0));
+            assertEquals(BatchResult.Outcome.TIMED_OUT, result.getOutcome(1));
+            assertEquals(BatchResult.Outcome.SUCCEEDED, result.getOutcome(2));
+            assertEquals(2, handlerThreads.size());
+            assertFalse(handlerThreads.containsValue("batch-task-timeout"), handlerThreads.toString());
+        } finally {
+            release.countDown();
+        }
+    }
+    
+    @Test
+    @DisplayName("Stop on error should cancel sibling tasks")
+    void stopOnErrorShouldCancelSiblingTasks() {
+        ExceptionHandler.BatchMonitor monitor = new ExceptionHandler.BatchMonitor(new ExceptionMetrics(), (index, error) -> {});
+        List<Runnable> tasks = new ArrayList<>();
+        tasks.add(() -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        tasks.add(() -> {
+            throw new IllegalArgumentException("Bad record");
+        });
+        for (int i = 0; i < 100; i++) {
+            tasks.add(() -> { });
+        }
+        
+        BatchResult<Void> result = monitor.executeBatchConcurrently(
+            BatchOptions.builder().maxConcurrency(2).stopOnError(true).build(),
+            tasks.toArray(new Runnable[0]));
+        
+        assertTrue(result.getElapsed().toMillis() < 5_000);
+        assertEquals(BatchResult.Outcome.CANCELLED, result.getOutcome(0));
+        assertEquals(BatchResult.Outcome.FAILED, result.getOutcome(1));
+        assertEquals(1, result.getFirstFailureIndex());
+        assertEquals(101, result.getCount(BatchResult.Outcome.CANCELLED));
+        assertFalse(result.isSuccessful());
+    }
+    
+    @Test
+    @DisplayName("Caller executor should be used and left running")
+    void callerExecutorShouldBeUsedAndLeftRunning() {
+        ExecutorService executor = Executors.newFixedThreadPool(2, task -> new Thread(task, "caller-pool"));
+        try {
+            ExceptionHandler.BatchMonitor monitor = new ExceptionHandler.BatchMonitor(new ExceptionMetrics(), (index, error) -> {});
+            BatchResult<String> result = monitor.executeConcurrently(
+                List.of(() -> Thread.currentThread().getName(), () -> Thread.currentThread().getName()),
+                BatchOptions.builder().executor(executor).build());
+            
+            assertEquals(List.of("caller-pool", "caller-pool"), result.getResults());
+            assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdown();
+        }
+        
+        if (!BatchOptions.isVirtualThreadSupported()) {
+            assertThrows(UnsupportedOperationException.class, () -> BatchOptions.builder().virtualThreads());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.exception;
+
+import com.example.exception.monitoring.ExceptionMetrics;
+import com.example.exception.monitoring.LatencyHistogram;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ExceptionMetrics telemetry.
+ */
+class ExceptionMetricsTest {
+    
+    @Test
+    @DisplayName("Histogram percentiles should be within bucket precision")
+    void histogramPercentilesShouldBeWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram(4);
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+        
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100_000, snapshot.getCount());
+        assertWithinPercent(50_000_000, snapshot.getP50(), 7);
+        assertWithinPercent(99_000_000, snapshot.getP99(), 7);
+        assertWithinPercent(99_900_000, snapshot.getP999(), 7);
+        assertEquals(0, new LatencyHistogram().snapshot().getP99());
+    }
+    
+    @Test
+    @DisplayName("Histogram should not lose records from concurrent writers")
+    void histogramShouldNotLoseConcurrentRecords() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram(4);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    histogram.record(1_000); // Same bucket in every stripe, so collisions are likely
+                }
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        
+        assertEquals(8 * 50_000, histogram.snapshot().getCount());
+    }
+    
+    @Test
+    @DisplayName("Metrics should track counts, latencies and rates per type")
+    void metricsShouldTrackCountsLatenciesAndRatesPerType() throws InterruptedException {
+        ExceptionMetrics metrics = new ExceptionMetrics(true, 1, 64);
+        for (int i = 1; i <= 1_000; i++) {
+            metrics.recordException(new IllegalStateException(), i * 1_000L);
+        }
+        metrics.recordException(new IllegalArgumentException());
+        
+        ExceptionMetrics.ExceptionStats stats = metrics.getStats(IllegalStateException.class);
+        assertEquals(1_000, stats.getCount());
+        assertEquals(1_000, stats.getLatencySnapshot().getCount());
+        assertWithinPercent(990_000, stats.getLatencySnapshot().getP99(), 7);
+        assertEquals(1_000_000, stats.getMaxProcessingTimeNanos());
+        assertTrue(stats.getAverageStackTraceSize() > 0);
+        assertTrue(stats.getAverageStackTraceSize() <= 64);
+        
+        Thread.sleep(1_100); // Let the current second complete
+        assertEquals(1_000, stats.getRate(60) * 60, 0.001);
+        assertEquals(1, metrics.getStats(IllegalArgumentException.class).getRate(300) * 300, 0.001);
+    }
+    
+    @Test
+    @DisplayName("Snapshot should export text exposition format")
+    void snapshotShouldExportTextExpositionFormat() {
+        ExceptionMetrics metrics = new ExceptionMetrics();
+        metrics.recordException(new IllegalStateException(), 2_000);
+        metrics.recordException(new IllegalStateException(), 4_000);
+        
+        ExceptionMetrics.Snapshot snapshot = metrics.snapshot();
+        assertEquals(1, snapshot.types.size());
+        assertEquals(2, snapshot.types.get(0).count);
+        
+        String text = snapshot.toTextFormat();
+        assertTrue(text.contains("# TYPE exceptions_total counter\n"));
+        assertTrue(text.contains("exceptions_total{type=\"java.lang.IllegalStateException\"} 2\n"));
+        assertTrue(text.contains("exceptions_per_second{type=\"java.lang.IllegalStateException\",window=\"1m\"}"));
+        assertTrue(text.contains("exception_processing_seconds{type=\"java.lang.IllegalStateException\",quantile=\"0.99\"}"));
+        assertTrue(text.contains("exception_processing_seconds_sum{type=\"java.lang.IllegalStateException\"} 6.0E-6\n"));
+        assertTrue(text.contains("exception_processing_seconds_count{type=\"java.lang.IllegalStateException\"} 2\n"));
+        
+        metrics.reset();
+        assertTrue(metrics.snapshot().types.isEmpty());
+        metrics.recordException(new IllegalStateException());
+        assertEquals(1, metrics.getStats(IllegalStateException.class).getCount());
+        
+        // Same simple name in another package must not share a series
+        metrics.recordException(new TimeoutException());
+        metrics.recordException(new java.util.concurrent.TimeoutException());
+        assertEquals(3, metrics.snapshot().types.size());
+        assertTrue(metrics.snapshot().toTextFormat()
+            .contains("exceptions_total{type=\"java.util.concurrent.TimeoutException\"} 1\n"));
+    }
+    
+    private static class TimeoutException extends RuntimeException {
+    }
+    
+    private static void assertWithinPercent(long expected, long actual, double percent) {
+        assertTrue(Math.abs(actual - expected) <= expected * percent / 100,
+            "Expected " + expected + " within " + percent + "% but was " + actual);
+    }
+}
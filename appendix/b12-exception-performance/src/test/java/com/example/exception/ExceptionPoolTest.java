@@ -6,6 +6,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -114,4 +118,79 @@ class ExceptionPoolTest {
         assertEquals(0, stats.totalReleased);
         assertEquals(0, stats.totalCreated);
     }
-}
\ No newline at end of file
+    
+    @Test
+    @DisplayName("Pool should keep reusing after many release cycles")
+    void poolShouldKeepReusingAfterManyReleaseCycles() {
+        for (int i = 0; i < 100; i++) {
+            pool.release(pool.acquire("Error " + i));
+        }
+        
+        ExceptionPool.PoolStatistics stats = pool.getStatistics();
+        assertEquals(1, stats.totalCreated);
+        assertEquals(1, stats.poolSize);
+        assertEquals(0, stats.totalDiscarded);
+    }
+    
+    @Test
+    @DisplayName("Pool should stay bounded across threads")
+    void poolShouldStayBoundedAcrossThreads() throws InterruptedException {
+        ExceptionPool<ValidationException> shared = new ExceptionPool<>(ValidationException::create, 64, 4);
+        int threads = 8;
+        List<Thread> workers = new ArrayList<>();
+        
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ValidationException[] held = new ValidationException[6];
+                for (int round = 0; round < 2_000; round++) {
+                    for (int i = 0; i < held.length; i++) {
+                        held[i] = shared.acquire("Error");
+                    }
+                    for (ValidationException e : held) {
+                        shared.release(e);
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join(); // Terminated workers let their magazines be reclaimed
+        }
+        
+        ExceptionPool.PoolStatistics stats = shared.getStatistics();
+        assertEquals(threads * 2_000 * 6, stats.totalAcquired);
+        assertEquals(stats.totalAcquired, stats.totalReleased);
+        assertEquals(0, stats.outstanding);
+        assertTrue(stats.poolSize <= 64, "Pool exceeded its bound: " + stats);
+        assertEquals(stats.totalCreated, stats.poolSize + stats.totalDiscarded);
+        assertTrue(stats.getReuseRatio() > 0.9, "Poor reuse: " + stats);
+    }
+    
+    @Test
+    @DisplayName("Leak detection should report unreleased exceptions")
+    void leakDetectionShouldReportUnreleasedExceptions() throws InterruptedException {
+        List<ExceptionPool.LeakReport> leaks = new CopyOnWriteArrayList<>();
+        pool.setLeakDetection(1);
+        pool.setLeakListener(leaks::add);
+        
+        pool.release(pool.acquire("Released"));
+        leakException("Leaked");
+        
+        for (int i = 0; i < 50 && leaks.isEmpty(); i++) {
+            System.gc();
+            Thread.sleep(20);
+            pool.detectLeaks();
+        }
+        
+        assertEquals(1, leaks.size());
+        assertEquals("Leaked", leaks.get(0).message);
+        assertEquals(ValidationException.class.getName(), leaks.get(0).exceptionType);
+        assertTrue(leaks.get(0).acquisitionSite.get(0).getMethodName().equals("leakException"));
+        assertEquals(1, pool.getStatistics().leaksDetected);
+    }
+    
+    private void leakException(String message) {
+        pool.acquire(message);
+    }
+}
@@ -1,11 +1,18 @@
 package com.example.exception;
 
+import com.example.exception.patterns.IntResult;
 import com.example.exception.patterns.Result;
+import com.example.exception.patterns.ResultPipeline;
+import com.example.exception.patterns.Results;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -39,7 +46,7 @@ class ResultTest {
     @Test
     @DisplayName("Map should transform success value")
     void mapShouldTransformSuccessValue() {
-        Result<Integer, String> result = Result.success(10)
+        Result<Integer, String> result = Result.<Integer, String>success(10)
             .map(x -> x * 2)
             .map(x -> x + 5);
         
@@ -60,7 +67,7 @@ class ResultTest {
     @Test
     @DisplayName("FlatMap should chain results")
     void flatMapShouldChainResults() {
-        Result<Integer, String> result = Result.success(10)
+        Result<Integer, String> result = Result.<Integer, String>success(10)
             .flatMap(x -> Result.success(x * 2))
             .flatMap(x -> x > 15 ? Result.success(x) : Result.failure("Too small"));
         
@@ -70,7 +77,7 @@ class ResultTest {
     @Test
     @DisplayName("Filter should create failure for non-matching predicate")
     void filterShouldCreateFailureForNonMatchingPredicate() {
-        Result<Integer, String> result = Result.success(10)
+        Result<Integer, String> result = Result.<Integer, String>success(10)
             .filter(x -> x > 20, "Value too small");
         
         assertTrue(result.isFailure());
@@ -136,4 +143,84 @@ class ResultTest {
         assertEquals(42, success.getValueOrElse(error -> 0));
         assertEquals(5, failure.getValueOrElse(error -> error.length()));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Pipeline should stop at the first failing step")
+    void pipelineShouldStopAtFirstFailingStep() {
+        List<Integer> seen = new ArrayList<>();
+        ResultPipeline<String, Integer, String> pipeline = ResultPipeline.<String, String>builder()
+            .check(s -> s.isBlank() ? "Blank" : null)
+            .map(String::trim)
+            .flatMap(s -> Result.of(() -> Integer.parseInt(s)).mapError(e -> "Not a number"))
+            .peek(seen::add)
+            .filter(n -> n > 0, n -> "Not positive: " + n)
+            .map(n -> n * 2)
+            .build();
+
+        assertEquals(6, pipeline.size());
+        assertEquals(84, pipeline.run(" 42 ").getValue());
+        assertEquals("Blank", pipeline.run(" ").getError());
+        assertEquals("Not a number", pipeline.run("x").getError());
+        assertEquals("Not positive: -1", pipeline.run("-1").getError());
+        assertEquals(List.of(42, -1), seen);
+        assertTrue(pipeline.test("7"));
+        assertEquals(Integer.valueOf(-1), pipeline.fold("x", n -> n, error -> -1));
+    }
+
+    @Test
+    @DisplayName("Pipelines should compose")
+    void pipelinesShouldCompose() {
+        ResultPipeline<String, Integer, String> parse = ResultPipeline.<String, String>builder()
+            .filter(s -> s.chars().allMatch(Character::isDigit), "Not a number")
+            .map(Integer::parseInt)
+            .build();
+        ResultPipeline<String, String, String> pipeline = ResultPipeline.<String, String>builder()
+            .then(parse)
+            .filter(n -> n < 100, "Too large")
+            .map(n -> "#" + n)
+            .build();
+
+        assertEquals("#12", pipeline.run("12").getValue());
+        assertEquals("Too large", pipeline.run("123").getError());
+        assertEquals(Result.failure("Not a number"), pipeline.run("1a"));
+    }
+
+    @Test
+    @DisplayName("Primitive results should not box values")
+    void primitiveResultsShouldNotBoxValues() {
+        IntResult<String> result = IntResult.<String>success(10)
+            .map(x -> x * 2)
+            .filter(x -> x > 15, "Too small")
+            .map(x -> x + 1000);
+        IntResult<String> failure = IntResult.<String>success(10).filter(x -> x > 20, "Too small");
+
+        assertEquals(1020, result.getValue());
+        assertSame(IntResult.success(5), IntResult.success(5));
+        assertSame(failure, failure.map(x -> x + 1));
+        assertEquals("Too small", failure.getError());
+        assertEquals(-1, failure.getValueOrElse(-1));
+        assertThrows(NoSuchElementException.class, failure::getValue);
+        assertEquals(Result.success(1020), result.boxed());
+        assertTrue(IntResult.of(() -> Integer.parseInt("x")).isFailure());
+    }
+
+    @Test
+    @DisplayName("Traverse should collect values or the first failure")
+    void traverseShouldCollectValuesOrFirstFailure() {
+        List<Supplier<String>> suppliers = List.of(() -> "a", () -> "b");
+        assertEquals(List.of("a", "b"), Results.traverse(suppliers).getValue());
+
+        List<IntSupplier> failing = List.of(() -> 1, () -> Integer.parseInt("x"), () -> {
+            throw new IllegalStateException("Not reached");
+        });
+        assertInstanceOf(NumberFormatException.class, Results.traverseInt(failing).getError());
+        assertArrayEquals(new int[] {1, 2}, Results.traverseInt(List.of(() -> 1, () -> 2)).getValue());
+
+        ResultPipeline<Integer, Integer, String> positive = ResultPipeline.<Integer, String>builder()
+            .filter(n -> n > 0, "Not positive")
+            .build();
+        assertEquals(List.of(1, 2), Results.traverse(List.of(1, 2), positive).getValue());
+        assertEquals("Not positive", Results.traverse(List.of(1, 0), positive).getError());
+        assertEquals("Error", Results.sequence(List.of(Result.success(1), Result.failure("Error"))).getError());
+    }
+}
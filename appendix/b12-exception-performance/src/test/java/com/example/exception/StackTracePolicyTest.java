@@ -0,0 +1,156 @@
+package com.example.exception;
+
+import com.example.exception.monitoring.ExceptionHandler;
+import com.example.exception.monitoring.ExceptionMetrics;
+import com.example.exception.optimization.AdaptiveStackTracePolicy;
+import com.example.exception.optimization.ConditionalStackTraceException;
+import com.example.exception.optimization.StackTracePolicies;
+import com.example.exception.optimization.StackTracePolicy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for stack trace policies.
+ */
+class StackTracePolicyTest {
+
+    static class SiteLimitedException extends ConditionalStackTraceException {
+        SiteLimitedException() {
+            super("limited");
+        }
+    }
+
+    static class StormException extends ConditionalStackTraceException {
+        StormException() {
+            super("storm");
+        }
+    }
+
+    static class QuietException extends RuntimeException {
+        QuietException() {
+            super("quiet");
+        }
+    }
+
+    @Test
+    @DisplayName("Conditional exceptions should construct with their condition applied")
+    void conditionalExceptionsShouldConstructWithConditionApplied() {
+        assertEquals(0, new ConditionalStackTraceException("off", () -> false).getStackTrace().length);
+        StackTraceElement[] trace = new ConditionalStackTraceException("on", () -> true).getStackTrace();
+        assertEquals("conditionalExceptionsShouldConstructWithConditionApplied", trace[0].getMethodName());
+
+        int sampled = 0;
+        for (int i = 0; i < 200; i++) {
+            if (new ConditionalStackTraceException.SamplingException("sampled").getStackTrace().length > 0) {
+                sampled++;
+            }
+        }
+        assertEquals(2, sampled);
+    }
+
+    @Test
+    @DisplayName("Rate limits should apply per call site")
+    void rateLimitsShouldApplyPerCallSite() {
+        StackTracePolicies.register(SiteLimitedException.class,
+            StackTracePolicy.rateLimited(1, Duration.ofMinutes(1)));
+
+        int[] traced = new int[2];
+        for (int i = 0; i < 10; i++) {
+            if (new SiteLimitedException().getStackTrace().length > 0) {
+                traced[0]++;
+            }
+            if (new SiteLimitedException().getStackTrace().length > 0) {
+                traced[1]++;
+            }
+        }
+
+        assertArrayEquals(new int[] {1, 1}, traced);
+        StackTracePolicies.TraceStatistics stats = StackTracePolicies.getStatistics(SiteLimitedException.class);
+        assertEquals(2, stats.full);
+        assertEquals(18, stats.suppressed);
+
+        assertThrows(IllegalArgumentException.class, () -> StackTracePolicy.rateLimited(0, Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class, () -> StackTracePolicy.rateLimited(1, Duration.ZERO));
+        assertThrows(IllegalArgumentException.class, () -> StackTracePolicy.rateLimited(1, Duration.ofSeconds(-1)));
+    }
+
+    @Test
+    @DisplayName("Adaptive policy should switch to cheap traces during a storm")
+    void adaptivePolicyShouldSwitchToCheapTracesDuringStorm() {
+        AdaptiveStackTracePolicy policy = new AdaptiveStackTracePolicy(
+            100, 1, 2, StackTracePolicy.Decision.CHEAP, 3);
+        StackTracePolicies.register(StormException.class, policy);
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        StormException last = null;
+        while (!policy.isStorming(StormException.class) && System.nanoTime() < deadline) {
+            last = new StormException();
+        }
+        assertTrue(policy.isStorming(StormException.class));
+
+        for (int i = 0; i < 100; i++) {
+            last = new StormException();
+        }
+        StackTraceElement[] cheap = last.getStackTrace();
+        assertEquals(3, cheap.length);
+        assertEquals("adaptivePolicyShouldSwitchToCheapTracesDuringStorm", cheap[0].getMethodName());
+
+        StackTracePolicies.TraceStatistics stats = StackTracePolicies.getStatistics(StormException.class);
+        assertTrue(stats.cheap >= 100 - 2, "Expected cheap traces: " + stats);
+    }
+
+    @Test
+    @DisplayName("Exception handler should apply policies only to what it logs")
+    void exceptionHandlerShouldApplyPoliciesOnlyToWhatItLogs() {
+        StackTracePolicies.register(QuietException.class, StackTracePolicy.never());
+        List<Throwable> logged = new ArrayList<>();
+        ExceptionHandler handler = new ExceptionHandler(new ExceptionMetrics(), logged::add, false);
+        handler.setStackTracePolicyEnabled(true);
+        long suppressedBefore = StackTracePolicies.getStatistics(QuietException.class).suppressed;
+
+        handler.monitor(() -> {
+            throw new QuietException();
+        });
+        handler.monitor(() -> {
+            throw new IllegalStateException("loud");
+        });
+
+        assertEquals(2, logged.size());
+        assertInstanceOf(StackTracePolicies.TrimmedException.class, logged.get(0));
+        assertEquals(0, logged.get(0).getStackTrace().length);
+        assertEquals(QuietException.class.getName() + ": quiet", logged.get(0).toString());
+        assertInstanceOf(IllegalStateException.class, logged.get(1));
+        assertTrue(logged.get(1).getStackTrace().length > 0);
+        assertEquals(suppressedBefore + 1, StackTracePolicies.getStatistics(QuietException.class).suppressed);
+    }
+
+    @Test
+    @DisplayName("Exception handler should rethrow caught exceptions unchanged")
+    void exceptionHandlerShouldRethrowCaughtExceptionsUnchanged() {
+        StackTracePolicies.register(QuietException.class, StackTracePolicy.never());
+        List<Throwable> logged = new ArrayList<>();
+        ExceptionHandler handler = new ExceptionHandler(new ExceptionMetrics(), logged::add, true);
+        QuietException thrown = new QuietException();
+        int frames = thrown.getStackTrace().length;
+
+        QuietException rethrown = assertThrows(QuietException.class, () -> handler.monitor(() -> {
+            throw thrown;
+        }));
+        assertSame(thrown, rethrown);
+        assertSame(thrown, logged.get(0)); // the policy is off by default
+
+        handler.setStackTracePolicyEnabled(true);
+        rethrown = assertThrows(QuietException.class, () -> handler.monitor(() -> {
+            throw thrown;
+        }));
+        assertSame(thrown, rethrown);
+        assertEquals(frames, rethrown.getStackTrace().length);
+        assertEquals(0, logged.get(1).getStackTrace().length);
+    }
+}
@@ -1,79 +1,297 @@
 package com.example.nio2.async;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.*;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.util.EnumSet;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Asynchronous file I/O operations using AsynchronousFileChannel.
+ *
+ * <p>An instance is a reusable engine: all channels share one executor, buffers come from a
+ * {@link DirectBufferPool}, and at most {@code maxInFlight} operations run at once. Further
+ * operations wait in a bounded queue; when that queue is full the submitting thread blocks,
+ * which pushes back on producers instead of exhausting file descriptors and heap.
+ *
+ * <p>A thread that is completing one of this engine's operations (for example a callback
+ * chained on a returned future) must not block, since only completions free the queue.
+ * Submissions from such a thread that find the queue full fail with
+ * {@link RejectedExecutionException} instead.
  */
-public class AsyncFileIO {
+public class AsyncFileIO implements AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(AsyncFileIO.class);
-    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int DEFAULT_MAX_IN_FLIGHT = 256;
+    private static final int DEFAULT_MAX_QUEUED = 16 * 1024;
+    private static final int DEFAULT_COPY_CHUNK_SIZE = 1024 * 1024;
+    private static final int DEFAULT_COPY_QUEUE_DEPTH = 4;
+    private static final long TRANSFER_CHUNK_SIZE = 8 * 1024 * 1024;
+    
+    private static final Set<StandardOpenOption> READ_OPTIONS = EnumSet.of(StandardOpenOption.READ);
+    private static final Set<StandardOpenOption> WRITE_OPTIONS = EnumSet.of(
+        StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    private static final Set<StandardOpenOption> APPEND_OPTIONS = EnumSet.of(
+        StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+    
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final DirectBufferPool bufferPool;
+    
+    // In-flight limit and overflow queue
+    private final int maxInFlight;
+    private final Semaphore permits;
+    private final BlockingQueue<Runnable> pending;
+    
+    // Counters
+    private final long createdAt = System.nanoTime();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder completedOperations = new LongAdder();
+    private final LongAdder failedOperations = new LongAdder();
+    
+    // Set while this thread completes an operation's future; blocking there could deadlock
+    private final ThreadLocal<Boolean> completing = ThreadLocal.withInitial(() -> Boolean.FALSE);
+    
+    public AsyncFileIO() {
+        this(DEFAULT_MAX_IN_FLIGHT, DEFAULT_MAX_QUEUED, DEFAULT_BUFFER_SIZE);
+    }
+    
+    /**
+     * @param maxInFlight operations allowed to run concurrently
+     * @param maxQueued   operations allowed to wait before submitters block
+     * @param bufferSize  size of pooled buffers; smaller files are read into one pooled buffer
+     */
+    public AsyncFileIO(int maxInFlight, int maxQueued, int bufferSize) {
+        this(maxInFlight, maxQueued, bufferSize, newDefaultExecutor(), true);
+    }
+    
+    /**
+     * Use an external executor for channel completions. It is not shut down by {@link #close()}.
+     */
+    public AsyncFileIO(int maxInFlight, int maxQueued, int bufferSize, ExecutorService executor) {
+        this(maxInFlight, maxQueued, bufferSize, executor, false);
+    }
+    
+    private AsyncFileIO(int maxInFlight, int maxQueued, int bufferSize,
+                        ExecutorService executor, boolean ownsExecutor) {
+        if (maxInFlight <= 0 || maxQueued <= 0) {
+            throw new IllegalArgumentException("Limits must be positive");
+        }
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+        this.pending = new ArrayBlockingQueue<>(maxQueued);
+        this.bufferPool = new DirectBufferPool(bufferSize, maxInFlight);
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+    }
+    
+    private static ExecutorService newDefaultExecutor() {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "async-file-io-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Read a whole file into a buffer, without decoding.
+     *
+     * <p>Files that fit into a pooled buffer are read into one; pass the buffer to
+     * {@link #release(ByteBuffer)} when done so the next read can reuse it. Larger files are
+     * read in pool-sized chunks into a heap buffer, so no unpooled native memory is allocated.
+     */
+    public CompletableFuture<ByteBuffer> read(Path path) {
+        return submit(() -> startRead(path));
+    }
+    
+    /**
+     * Read a whole file and process its bytes; the buffer is released automatically.
+     */
+    public <T> CompletableFuture<T> read(Path path, Function<ByteBuffer, T> processor) {
+        return read(path).thenApply(buffer -> {
+            try {
+                return processor.apply(buffer);
+            } finally {
+                release(buffer);
+            }
+        });
+    }
+    
+    /**
+     * Write the remaining bytes of a buffer to a file, replacing its contents.
+     */
+    public CompletableFuture<Void> write(Path path, ByteBuffer data) {
+        return submit(() -> startWrite(path, data, false));
+    }
+    
+    /**
+     * Return a buffer obtained from {@link #read(Path)} to the pool.
+     */
+    public void release(ByteBuffer buffer) {
+        bufferPool.release(buffer);
+    }
     
     /**
      * Read a file asynchronously and return its contents as a CompletableFuture.
      */
     public CompletableFuture<String> readFileAsync(Path path) {
-        return readFileAsync(path, DEFAULT_BUFFER_SIZE);
+        return read(path, buffer -> StandardCharsets.UTF_8.decode(buffer).toString());
     }
     
     /**
      * Read a file asynchronously with specified buffer size.
+     * The file is read in chunks of {@code bufferSize} bytes; the pooled buffer is used as
+     * the chunk buffer when the sizes match.
      */
     public CompletableFuture<String> readFileAsync(Path path, int bufferSize) {
-        CompletableFuture<String> future = new CompletableFuture<>();
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size must be positive");
+        }
+        return submit(() -> startChunkedRead(path, bufferSize))
+            .thenApply(buffer -> StandardCharsets.UTF_8.decode(buffer).toString());
+    }
+    
+    /**
+     * Write content to a file asynchronously.
+     */
+    public CompletableFuture<Void> writeFileAsync(Path path, String content) {
+        return write(path, StandardCharsets.UTF_8.encode(content));
+    }
+    
+    /**
+     * Append content to a file asynchronously.
+     */
+    public CompletableFuture<Void> appendFileAsync(Path path, String content) {
+        ByteBuffer data = StandardCharsets.UTF_8.encode(content);
+        return submit(() -> startWrite(path, data, true));
+    }
+    
+    /**
+     * Copy a file asynchronously with progress tracking.
+     * Copies between two files on the default file system use the in-kernel
+     * {@link FileChannel#transferTo} path. Other providers (zip, in-memory file systems)
+     * usually support neither {@link AsynchronousFileChannel} nor {@link FileChannel}, so
+     * such copies stream the bytes through {@link Files} on the executor.
+     */
+    public CompletableFuture<Long> copyFileAsync(Path source, Path target, 
+                                                  ProgressListener progressListener) {
+        FileSystem local = FileSystems.getDefault();
+        if (source.getFileSystem() == local && target.getFileSystem() == local) {
+            return transferFileAsync(source, target, progressListener);
+        }
+        return submit(() -> CompletableFuture.supplyAsync(() -> {
+            try {
+                return streamCopy(source, target, progressListener);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor));
+    }
+    
+    /**
+     * Pipelined copy: up to {@code queueDepth} chunk reads are in flight at increasing
+     * offsets, and each chunk is written back with a positional write as soon as it arrives,
+     * so reads and writes overlap and complete out of order.
+     *
+     * <p>Progress is reported once per written chunk. Callbacks may come from several
+     * threads, but they are serialized and the transferred byte count they see never
+     * decreases. Both files must belong to a provider that supports
+     * {@link AsynchronousFileChannel}, such as the default file system.
+     */
+    public CompletableFuture<Long> copyFileAsync(Path source, Path target, int chunkSize, 
+                                                  int queueDepth, ProgressListener progressListener) {
+        if (chunkSize <= 0 || queueDepth <= 0) {
+            throw new IllegalArgumentException("Chunk size and queue depth must be positive");
+        }
+        return submit(() -> startPipelinedCopy(source, target, chunkSize, queueDepth, progressListener));
+    }
+    
+    /**
+     * Copy using {@link FileChannel#transferTo}, which lets the kernel move the data without
+     * copying it through user space. Progress is reported once per transferred chunk.
+     */
+    public CompletableFuture<Long> transferFileAsync(Path source, Path target, 
+                                                      ProgressListener progressListener) {
+        return submit(() -> CompletableFuture.supplyAsync(() -> {
+            try {
+                return transfer(source, target, progressListener);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor));
+    }
+    
+    private CompletableFuture<ByteBuffer> startRead(Path path) {
+        CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
+        AsynchronousFileChannel channel = null;
         
         try {
-            AsynchronousFileChannel channel = AsynchronousFileChannel.open(
-                path, StandardOpenOption.READ
-            );
+            channel = AsynchronousFileChannel.open(path, READ_OPTIONS, executor);
             
-            long fileSize = Files.size(path);
-            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(fileSize, Integer.MAX_VALUE));
+            long fileSize = channel.size();
+            if (fileSize > bufferPool.getBufferSize()) {
+                readChunks(channel, fileSize, bufferPool.getBufferSize(), future);
+                return future;
+            }
+            ByteBuffer buffer = bufferPool.acquire();
+            buffer.limit((int) fileSize);
             
-            channel.read(buffer, 0, buffer, new CompletionHandler<Integer, ByteBuffer>() {
-                private long position = 0;
-                
+            AsynchronousFileChannel readChannel = channel;
+            readChannel.read(buffer, 0, buffer, new CompletionHandler<Integer, ByteBuffer>() {
                 @Override
                 public void completed(Integer bytesRead, ByteBuffer attachment) {
-                    if (bytesRead == -1) {
-                        // End of file
-                        attachment.flip();
-                        String content = StandardCharsets.UTF_8.decode(attachment).toString();
-                        future.complete(content);
-                        closeQuietly(channel);
+                    if (bytesRead != -1 && attachment.hasRemaining()) {
+                        // Continue reading
+                        readChannel.read(attachment, attachment.position(), attachment, this);
                         return;
                     }
                     
-                    position += bytesRead;
-                    
-                    if (attachment.hasRemaining() && position < fileSize) {
-                        // Continue reading
-                        channel.read(attachment, position, attachment, this);
-                    } else {
-                        // All data read
-                        attachment.flip();
-                        String content = StandardCharsets.UTF_8.decode(attachment).toString();
-                        future.complete(content);
-                        closeQuietly(channel);
-                    }
+                    attachment.flip();
+                    AsyncFileIO.this.bytesRead.add(attachment.remaining());
+                    closeQuietly(readChannel);
+                    future.complete(attachment);
                 }
                 
                 @Override
                 public void failed(Throwable exc, ByteBuffer attachment) {
+                    release(attachment);
+                    closeQuietly(readChannel);
                     future.completeExceptionally(exc);
-                    closeQuietly(channel);
                 }
             });
-            
+        
+        } catch (IOException e) {
+            closeQuietly(channel);
+            future.completeExceptionally(e);
+        }
+        
+        return future;
+    }
+    
+    private CompletableFuture<ByteBuffer> startChunkedRead(Path path, int chunkSize) {
+        CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
+        AsynchronousFileChannel channel = null;
+        
+        try {
+            channel = AsynchronousFileChannel.open(path, READ_OPTIONS, executor);
+            readChunks(channel, channel.size(), chunkSize, future);
         } catch (IOException e) {
+            closeQuietly(channel);
             future.completeExceptionally(e);
         }
         
@@ -81,187 +299,436 @@ public class AsyncFileIO {
     }
     
     /**
-     * Write content to a file asynchronously.
+     * Read a file chunk by chunk through one chunk buffer and collect it in a heap buffer.
+     * The chunk buffer comes from the pool when its size matches, otherwise it is a heap
+     * buffer; either way the native memory used stays bounded by the pool.
      */
-    public CompletableFuture<Void> writeFileAsync(Path path, String content) {
+    private void readChunks(AsynchronousFileChannel channel, long fileSize, int chunkSize,
+                            CompletableFuture<ByteBuffer> future) throws IOException {
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("File too large for a single buffer: " + fileSize + " bytes");
+        }
+        ByteBuffer result = ByteBuffer.allocate((int) fileSize);
+        ByteBuffer chunk = chunkSize == bufferPool.getBufferSize()
+            ? bufferPool.acquire()
+            : ByteBuffer.allocate(chunkSize);
+        chunk.limit((int) Math.min(chunkSize, fileSize));
+        
+        channel.read(chunk, 0, null, new CompletionHandler<Integer, Void>() {
+            @Override
+            public void completed(Integer bytesRead, Void attachment) {
+                if (bytesRead != -1 && chunk.hasRemaining()) {
+                    // Short read: finish this chunk first
+                    channel.read(chunk, result.position() + chunk.position(), null, this);
+                    return;
+                }
+                chunk.flip();
+                result.put(chunk);
+                if (bytesRead == -1 || !result.hasRemaining()) {
+                    result.flip();
+                    AsyncFileIO.this.bytesRead.add(result.remaining());
+                    release(chunk);
+                    closeQuietly(channel);
+                    future.complete(result);
+                    return;
+                }
+                chunk.clear();
+                chunk.limit(Math.min(chunkSize, result.remaining()));
+                channel.read(chunk, result.position(), null, this);
+            }
+            
+            @Override
+            public void failed(Throwable exc, Void attachment) {
+                release(chunk);
+                closeQuietly(channel);
+                future.completeExceptionally(exc);
+            }
+        });
+    }
+    
+    private CompletableFuture<Void> startWrite(Path path, ByteBuffer data, boolean append) {
         CompletableFuture<Void> future = new CompletableFuture<>();
+        AsynchronousFileChannel channel = null;
         
         try {
-            AsynchronousFileChannel channel = AsynchronousFileChannel.open(
-                path,
-                StandardOpenOption.WRITE,
-                StandardOpenOption.CREATE,
-                StandardOpenOption.TRUNCATE_EXISTING
-            );
+            // AsynchronousFileChannel rejects APPEND, so appends write at the current size
+            channel = AsynchronousFileChannel.open(path, append ? APPEND_OPTIONS : WRITE_OPTIONS, executor);
             
-            ByteBuffer buffer = StandardCharsets.UTF_8.encode(content);
-            AtomicLong position = new AtomicLong(0);
+            AsynchronousFileChannel writeChannel = channel;
+            AtomicLong position = new AtomicLong(append ? channel.size() : 0);
             
-            channel.write(buffer, 0, buffer, new CompletionHandler<Integer, ByteBuffer>() {
+            writeChannel.write(data, position.get(), data, new CompletionHandler<Integer, ByteBuffer>() {
                 @Override
-                public void completed(Integer bytesWritten, ByteBuffer attachment) {
-                    position.addAndGet(bytesWritten);
+                public void completed(Integer written, ByteBuffer attachment) {
+                    position.addAndGet(written);
+                    bytesWritten.add(written);
                     
                     if (attachment.hasRemaining()) {
                         // Write remaining data
-                        channel.write(attachment, position.get(), attachment, this);
+                        writeChannel.write(attachment, position.get(), attachment, this);
                     } else {
                         // All data written
+                        closeQuietly(writeChannel);
                         future.complete(null);
-                        closeQuietly(channel);
                     }
                 }
                 
                 @Override
                 public void failed(Throwable exc, ByteBuffer attachment) {
+                    closeQuietly(writeChannel);
                     future.completeExceptionally(exc);
-                    closeQuietly(channel);
                 }
             });
-            
+        
         } catch (IOException e) {
+            closeQuietly(channel);
             future.completeExceptionally(e);
         }
         
         return future;
     }
     
-    /**
-     * Copy a file asynchronously with progress tracking.
-     */
-    public CompletableFuture<Long> copyFileAsync(Path source, Path target, 
-                                                  ProgressListener progressListener) {
+    private long transfer(Path source, Path target, ProgressListener progressListener) 
+            throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, WRITE_OPTIONS)) {
+            
+            long fileSize = in.size();
+            long position = 0;
+            
+            while (position < fileSize) {
+                long count = Math.min(TRANSFER_CHUNK_SIZE, fileSize - position);
+                long transferred = in.transferTo(position, count, out);
+                if (transferred <= 0) {
+                    break; // Source shrank while copying
+                }
+                position += transferred;
+                bytesRead.add(transferred);
+                bytesWritten.add(transferred);
+                
+                if (progressListener != null) {
+                    progressListener.onProgress(position, fileSize, (double) position / fileSize);
+                }
+            }
+            
+            if (progressListener != null) {
+                progressListener.onComplete(position);
+            }
+            return position;
+        }
+    }
+    
+    private long streamCopy(Path source, Path target, ProgressListener progressListener) 
+            throws IOException {
+        try (InputStream in = Files.newInputStream(source);
+             OutputStream out = Files.newOutputStream(target)) {
+            
+            long fileSize = Files.size(source);
+            byte[] chunk = new byte[DEFAULT_COPY_CHUNK_SIZE];
+            long position = 0;
+            int read;
+            
+            while ((read = in.read(chunk)) != -1) {
+                out.write(chunk, 0, read);
+                position += read;
+                bytesRead.add(read);
+                bytesWritten.add(read);
+                
+                if (progressListener != null) {
+                    progressListener.onProgress(position, fileSize, 
+                                                fileSize > 0 ? (double) position / fileSize : 1.0);
+                }
+            }
+            
+            if (progressListener != null) {
+                progressListener.onComplete(position);
+            }
+            return position;
+        }
+    }
+    
+    private CompletableFuture<Long> startPipelinedCopy(Path source, Path target, int chunkSize, 
+                                                       int queueDepth, ProgressListener progressListener) {
         CompletableFuture<Long> future = new CompletableFuture<>();
+        AsynchronousFileChannel sourceChannel = null;
+        AsynchronousFileChannel targetChannel = null;
         
         try {
-            AsynchronousFileChannel sourceChannel = AsynchronousFileChannel.open(
-                source, StandardOpenOption.READ
-            );
+            sourceChannel = AsynchronousFileChannel.open(source, READ_OPTIONS, executor);
+            targetChannel = AsynchronousFileChannel.open(target, WRITE_OPTIONS, executor);
             
-            AsynchronousFileChannel targetChannel = AsynchronousFileChannel.open(
-                target,
-                StandardOpenOption.WRITE,
-                StandardOpenOption.CREATE,
-                StandardOpenOption.TRUNCATE_EXISTING
-            );
+            PipelinedCopy copy = new PipelinedCopy(sourceChannel, targetChannel, sourceChannel.size(), 
+                                                   chunkSize, progressListener, future);
+            copy.start(queueDepth);
             
-            long fileSize = Files.size(source);
-            int bufferSize = (int) Math.min(fileSize, 1024 * 1024); // Max 1MB buffer
-            ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
+        } catch (IOException e) {
+            closeQuietly(sourceChannel);
+            closeQuietly(targetChannel);
+            future.completeExceptionally(e);
+        }
+        
+        return future;
+    }
+    
+    /**
+     * State shared by the lanes of one pipelined copy.
+     *
+     * <p>Each lane owns one buffer and loops: claim the next chunk offset, read it, write it
+     * at the same offset. Lanes run independently, so the disk always has reads and writes
+     * queued. The last lane to finish closes the channels and completes the future.
+     */
+    private class PipelinedCopy {
+        private final AsynchronousFileChannel in;
+        private final AsynchronousFileChannel out;
+        private final long fileSize;
+        private final int chunkSize;
+        private final ProgressListener progressListener;
+        private final CompletableFuture<Long> future;
+        
+        private final AtomicLong nextOffset = new AtomicLong();
+        private final AtomicLong transferred = new AtomicLong();
+        private final AtomicInteger activeLanes = new AtomicInteger();
+        private volatile Throwable failure;
+        private long reported; // guarded by this; highest count passed to the listener
+        
+        PipelinedCopy(AsynchronousFileChannel in, AsynchronousFileChannel out, long fileSize, 
+                      int chunkSize, ProgressListener progressListener, CompletableFuture<Long> future) {
+            this.in = in;
+            this.out = out;
+            this.fileSize = fileSize;
+            this.chunkSize = chunkSize;
+            this.progressListener = progressListener;
+            this.future = future;
+        }
+        
+        void start(int queueDepth) {
+            long chunks = (fileSize + chunkSize - 1) / chunkSize;
+            int lanes = (int) Math.max(1, Math.min(queueDepth, chunks));
+            activeLanes.set(lanes);
             
-            AtomicLong totalBytesTransferred = new AtomicLong(0);
-            AtomicLong readPosition = new AtomicLong(0);
-            AtomicLong writePosition = new AtomicLong(0);
+            for (int i = 0; i < lanes; i++) {
+                ByteBuffer buffer = chunkSize == bufferPool.getBufferSize() 
+                    ? bufferPool.acquire() 
+                    : ByteBuffer.allocateDirect(chunkSize);
+                nextChunk(buffer);
+            }
+        }
+        
+        private void nextChunk(ByteBuffer buffer) {
+            long offset = nextOffset.getAndAdd(chunkSize);
+            if (failure != null || offset >= fileSize) {
+                finishLane(buffer);
+                return;
+            }
             
-            // Start the copy process
-            CompletionHandler<Integer, Void> handler = new CompletionHandler<Integer, Void>() {
+            buffer.clear();
+            buffer.limit((int) Math.min(chunkSize, fileSize - offset));
+            readChunk(buffer, offset, offset);
+        }
+        
+        private void readChunk(ByteBuffer buffer, long chunkOffset, long readOffset) {
+            in.read(buffer, readOffset, null, new CompletionHandler<Integer, Void>() {
                 @Override
                 public void completed(Integer bytesRead, Void attachment) {
-                    if (bytesRead == -1) {
-                        // Copy complete
-                        future.complete(totalBytesTransferred.get());
-                        closeQuietly(sourceChannel);
-                        closeQuietly(targetChannel);
-                        if (progressListener != null) {
-                            progressListener.onComplete(totalBytesTransferred.get());
-                        }
+                    if (bytesRead > 0 && buffer.hasRemaining()) {
+                        // Short read: finish this chunk first
+                        in.read(buffer, chunkOffset + buffer.position(), null, this);
                         return;
                     }
-                    
-                    // Prepare buffer for writing
                     buffer.flip();
+                    if (!buffer.hasRemaining()) {
+                        finishLane(buffer); // Source shrank while copying
+                        return;
+                    }
+                    writeChunk(buffer, chunkOffset);
+                }
+                
+                @Override
+                public void failed(Throwable exc, Void attachment) {
+                    fail(exc, buffer);
+                }
+            });
+        }
+        
+        private void writeChunk(ByteBuffer buffer, long chunkOffset) {
+            int length = buffer.remaining();
+            out.write(buffer, chunkOffset, null, new CompletionHandler<Integer, Void>() {
+                @Override
+                public void completed(Integer written, Void attachment) {
+                    if (buffer.hasRemaining()) {
+                        // Write remaining data
+                        out.write(buffer, chunkOffset + buffer.position(), null, this);
+                        return;
+                    }
                     
-                    // Write to target
-                    targetChannel.write(buffer, writePosition.get(), null,
-                        new CompletionHandler<Integer, Void>() {
-                            @Override
-                            public void completed(Integer bytesWritten, Void attachment) {
-                                writePosition.addAndGet(bytesWritten);
-                                totalBytesTransferred.addAndGet(bytesWritten);
-                                
-                                if (progressListener != null) {
-                                    double progress = (double) totalBytesTransferred.get() / fileSize;
-                                    progressListener.onProgress(totalBytesTransferred.get(), fileSize, progress);
-                                }
-                                
-                                if (buffer.hasRemaining()) {
-                                    // Write remaining data
-                                    targetChannel.write(buffer, writePosition.get(), null, this);
-                                } else {
-                                    // Prepare for next read
-                                    buffer.clear();
-                                    readPosition.addAndGet(bytesRead);
-                                    sourceChannel.read(buffer, readPosition.get(), null, handler);
-                                }
-                            }
-                            
-                            @Override
-                            public void failed(Throwable exc, Void attachment) {
-                                future.completeExceptionally(exc);
-                                closeQuietly(sourceChannel);
-                                closeQuietly(targetChannel);
-                            }
-                        });
+                    long total = transferred.addAndGet(length);
+                    bytesRead.add(length);
+                    bytesWritten.add(length);
+                    reportProgress(total);
+                    nextChunk(buffer);
                 }
                 
                 @Override
                 public void failed(Throwable exc, Void attachment) {
-                    future.completeExceptionally(exc);
-                    closeQuietly(sourceChannel);
-                    closeQuietly(targetChannel);
+                    fail(exc, buffer);
                 }
-            };
-            
-            // Start reading
-            sourceChannel.read(buffer, 0, null, handler);
-            
-        } catch (IOException e) {
-            future.completeExceptionally(e);
+            });
         }
         
-        return future;
+        /**
+         * Writes complete out of order on several threads; reporting under a lock and
+         * skipping stale totals keeps the counts a listener sees in increasing order.
+         */
+        private void reportProgress(long total) {
+            if (progressListener == null) {
+                return;
+            }
+            synchronized (this) {
+                if (total <= reported) {
+                    return; // A later total was reported first
+                }
+                reported = total;
+                progressListener.onProgress(total, fileSize, (double) total / fileSize);
+            }
+        }
+        
+        private void fail(Throwable exc, ByteBuffer buffer) {
+            if (failure == null) {
+                failure = exc;
+            }
+            finishLane(buffer);
+        }
+        
+        private void finishLane(ByteBuffer buffer) {
+            release(buffer);
+            if (activeLanes.decrementAndGet() > 0) {
+                return;
+            }
+            
+            closeQuietly(in);
+            closeQuietly(out);
+            if (failure != null) {
+                future.completeExceptionally(failure);
+                return;
+            }
+            if (progressListener != null) {
+                progressListener.onComplete(transferred.get());
+            }
+            future.complete(transferred.get());
+        }
     }
     
     /**
-     * Append content to a file asynchronously.
+     * Run an operation once an in-flight permit is available.
+     * Blocks the caller only when the wait queue is full.
      */
-    public CompletableFuture<Void> appendFileAsync(Path path, String content) {
-        CompletableFuture<Void> future = new CompletableFuture<>();
+    private <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> operation) {
+        CompletableFuture<T> result = new CompletableFuture<>();
         
-        try {
-            AsynchronousFileChannel channel = AsynchronousFileChannel.open(
-                path,
-                StandardOpenOption.WRITE,
-                StandardOpenOption.CREATE,
-                StandardOpenOption.APPEND
-            );
-            
-            long position = Files.size(path);
-            ByteBuffer buffer = StandardCharsets.UTF_8.encode(content);
-            
-            channel.write(buffer, position, buffer, new CompletionHandler<Integer, ByteBuffer>() {
-                @Override
-                public void completed(Integer result, ByteBuffer attachment) {
-                    if (attachment.hasRemaining()) {
-                        channel.write(attachment, position + result, attachment, this);
+        Runnable task = () -> {
+            CompletableFuture<T> started;
+            try {
+                started = operation.get();
+            } catch (RuntimeException e) {
+                started = CompletableFuture.failedFuture(e);
+            }
+            started.whenComplete((value, error) -> {
+                // Free the slot before completing so dependent stages can submit again
+                permits.release();
+                drainPending();
+                
+                // Dependent stages run here, on a completion thread, and must not block in submit
+                boolean wasCompleting = completing.get();
+                completing.set(Boolean.TRUE);
+                try {
+                    if (error != null) {
+                        failedOperations.increment();
+                        result.completeExceptionally(error);
                     } else {
-                        future.complete(null);
-                        closeQuietly(channel);
+                        completedOperations.increment();
+                        result.complete(value);
                     }
-                }
-                
-                @Override
-                public void failed(Throwable exc, ByteBuffer attachment) {
-                    future.completeExceptionally(exc);
-                    closeQuietly(channel);
+                } finally {
+                    completing.set(wasCompleting);
                 }
             });
-            
-        } catch (IOException e) {
-            future.completeExceptionally(e);
+        };
+        
+        if (pending.isEmpty() && permits.tryAcquire()) {
+            task.run();
+            return result;
         }
         
-        return future;
+        if (completing.get()) {
+            // Blocking here would wait for completions that may need this very thread
+            if (!pending.offer(task)) {
+                failedOperations.increment();
+                result.completeExceptionally(new RejectedExecutionException(
+                    "Wait queue full; cannot block while completing an operation"));
+                return result;
+            }
+        } else {
+            try {
+                pending.put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.completeExceptionally(e);
+                return result;
+            }
+        }
+        drainPending();
+        return result;
+    }
+    
+    /**
+     * Start queued operations while permits are available.
+     * Called after every enqueue and every completion, so no task is left behind.
+     */
+    private void drainPending() {
+        while (!pending.isEmpty() && permits.tryAcquire()) {
+            Runnable next = pending.poll();
+            if (next == null) {
+                permits.release();
+                return;
+            }
+            // Hand off to the executor so synchronous failures cannot recurse
+            executor.execute(next);
+        }
+    }
+    
+    /**
+     * Snapshot of throughput, queueing and buffer pool counters.
+     */
+    public IOStatistics getStatistics() {
+        double elapsedSeconds = (System.nanoTime() - createdAt) / 1_000_000_000.0;
+        long read = bytesRead.sum();
+        long written = bytesWritten.sum();
+        return new IOStatistics(
+            read,
+            written,
+            elapsedSeconds > 0 ? (read + written) / elapsedSeconds : 0.0,
+            completedOperations.sum(),
+            failedOperations.sum(),
+            maxInFlight - permits.availablePermits(),
+            pending.size(),
+            bufferPool.getHitRate()
+        );
+    }
+    
+    @Override
+    public void close() {
+        if (!ownsExecutor) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
     }
     
     private void closeQuietly(AsynchronousFileChannel channel) {
@@ -281,4 +748,38 @@ public class AsyncFileIO {
         void onProgress(long bytesTransferred, long totalBytes, double percentage);
         void onComplete(long totalBytes);
     }
-}
\ No newline at end of file
+    
+    public static class IOStatistics {
+        public final long bytesRead;
+        public final long bytesWritten;
+        public final double bytesPerSecond;
+        public final long completedOperations;
+        public final long failedOperations;
+        public final int inFlight;
+        public final int queueDepth;
+        public final double bufferPoolHitRate;
+        
+        IOStatistics(long bytesRead, long bytesWritten, double bytesPerSecond,
+                     long completedOperations, long failedOperations,
+                     int inFlight, int queueDepth, double bufferPoolHitRate) {
+            this.bytesRead = bytesRead;
+            this.bytesWritten = bytesWritten;
+            this.bytesPerSecond = bytesPerSecond;
+            this.completedOperations = completedOperations;
+            this.failedOperations = failedOperations;
+            this.inFlight = inFlight;
+            this.queueDepth = queueDepth;
+            this.bufferPoolHitRate = bufferPoolHitRate;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format(
+                "IOStatistics{read=%d, written=%d, bytesPerSec=%.0f, completed=%d, failed=%d, " +
+                "inFlight=%d, queued=%d, poolHitRate=%.2f}",
+                bytesRead, bytesWritten, bytesPerSecond, completedOperations, failedOperations,
+                inFlight, queueDepth, bufferPoolHitRate
+            );
+        }
+    }
+}
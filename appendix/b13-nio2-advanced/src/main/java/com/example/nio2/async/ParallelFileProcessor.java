@@ -3,8 +3,13 @@ package com.example.nio2.async;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
@@ -16,7 +21,9 @@ import org.slf4j.LoggerFactory;
 public class ParallelFileProcessor {
     private static final Logger logger = LoggerFactory.getLogger(ParallelFileProcessor.class);
     
-    private final ExecutorService executor;
+    private static final int FILE_BATCH_SIZE = 32;
+    
+    private final ForkJoinPool executor;
     private final int parallelism;
     
     public ParallelFileProcessor() {
@@ -53,7 +60,7 @@ public class ParallelFileProcessor {
             )
             .collect(Collectors.toList());
         
-        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
             .thenApply(v -> {
                 long duration = System.currentTimeMillis() - startTime;
                 Map<Path, T> results = futures.stream()
@@ -70,57 +77,95 @@ public class ParallelFileProcessor {
     }
     
     /**
-     * Process files in batches to limit concurrent operations.
+     * Process files with at most {@code batchSize} of them in flight at any time.
+     * A new file starts as soon as any running one finishes, so a slow file only holds
+     * up its own slot.
      */
     public <T> CompletableFuture<Map<Path, T>> processFilesInBatches(
             List<Path> files,
             Function<Path, T> processor,
             int batchSize) {
         
-        logger.info("Processing {} files in batches of {}", files.size(), batchSize);
+        logger.info("Processing {} files with at most {} in flight", files.size(), batchSize);
         
-        List<List<Path>> batches = new ArrayList<>();
-        for (int i = 0; i < files.size(); i += batchSize) {
-            batches.add(files.subList(i, Math.min(i + batchSize, files.size())));
+        Map<Path, T> results = new ConcurrentHashMap<>();
+        CompletableFuture<Map<Path, T>> resultFuture = new CompletableFuture<>();
+        if (files.isEmpty()) {
+            resultFuture.complete(results);
+            return resultFuture;
         }
         
-        CompletableFuture<Map<Path, T>> resultFuture = CompletableFuture.completedFuture(new HashMap<>());
-        
-        for (List<Path> batch : batches) {
-            resultFuture = resultFuture.thenCompose(accumulatedResults ->
-                processFiles(batch, processor)
-                    .thenApply(batchResults -> {
-                        accumulatedResults.putAll(batchResults);
-                        return accumulatedResults;
-                    })
-            );
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(batchSize);
+        AtomicInteger remaining = new AtomicInteger(files.size());
+        for (Path file : files) {
+            limiter.submit(() -> {
+                try {
+                    T result = processor.apply(file);
+                    if (result != null) {
+                        results.put(file, result);
+                    }
+                } catch (Exception e) {
+                    logger.error("Error processing file: " + file, e);
+                } finally {
+                    if (remaining.decrementAndGet() == 0) {
+                        resultFuture.complete(results);
+                    }
+                }
+            });
         }
         
         return resultFuture;
     }
     
     /**
-     * Find and process files matching a pattern.
+     * Find and process files matching a pattern. Files are processed while the
+     * directory tree is still being walked. Files for which the processor returns null
+     * are left out of the result map.
      */
     public CompletableFuture<Map<Path, String>> findAndProcessFiles(
             Path directory,
             String glob,
             Function<Path, String> processor) {
         
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
-                List<Path> matchingFiles = Files.walk(directory)
-                    .filter(Files::isRegularFile)
-                    .filter(matcher::matches)
-                    .collect(Collectors.toList());
-                
-                logger.info("Found {} files matching pattern: {}", matchingFiles.size(), glob);
-                return matchingFiles;
-            } catch (IOException e) {
-                throw new UncheckedIOException(e);
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        Map<Path, String> results = new ConcurrentHashMap<>();
+        
+        ResultSink<String> sink = (file, result) -> {
+            if (result != null) {
+                results.put(file, result); // ConcurrentHashMap rejects null values
             }
-        }, executor).thenCompose(files -> processFiles(files, processor));
+        };
+        return processTree(directory, matcher, processor, sink, 0)
+            .thenApply(stats -> {
+                logger.info("Processed {} files matching pattern {}: {}", results.size(), glob, stats);
+                return results;
+            });
+    }
+    
+    /**
+     * Walk a directory tree in parallel and process matching files as they are found.
+     *
+     * <p>Each directory is listed by its own fork/join task, and matching files are handed
+     * to processing tasks in small batches, so work starts with the first directory and
+     * idle workers steal whatever part of the tree is left. Results go to {@code sink}
+     * as they complete and are not retained.
+     *
+     * @param filter applied to the full path of each regular file
+     * @param sink receives results from several threads concurrently
+     * @param maxConcurrentPerDevice cap on files processed at once per storage device,
+     *                               or 0 for no cap
+     * @return completes with walk statistics once every file has been processed
+     */
+    public <T> CompletableFuture<TreeStatistics> processTree(
+            Path root,
+            PathMatcher filter,
+            Function<Path, T> processor,
+            ResultSink<? super T> sink,
+            int maxConcurrentPerDevice) {
+        
+        TreeWalk<T> walk = new TreeWalk<>(filter, processor, sink, maxConcurrentPerDevice);
+        walk.start(root);
+        return walk.result;
     }
     
     /**
@@ -208,6 +253,265 @@ public class ParallelFileProcessor {
         }
     }
     
+    /**
+     * Receives per-file results of {@link #processTree}. Called from several threads at once.
+     */
+    @FunctionalInterface
+    public interface ResultSink<T> {
+        void onResult(Path file, T result);
+        
+        default void onError(Path file, Exception error) {
+            logger.error("Error processing file: " + file, error);
+        }
+    }
+    
+    /**
+     * State of one {@link #processTree} call. Every directory listing and file batch counts
+     * as one outstanding unit; the walk is complete when the count drops to zero.
+     */
+    private final class TreeWalk<T> {
+        final CompletableFuture<TreeStatistics> result = new CompletableFuture<>();
+        private final PathMatcher filter;
+        private final Function<Path, T> processor;
+        private final ResultSink<? super T> sink;
+        private final int maxConcurrentPerDevice;
+        private final Map<Object, ConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+        
+        private final AtomicLong outstanding = new AtomicLong();
+        private final LongAdder directories = new LongAdder();
+        private final LongAdder matched = new LongAdder();
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final long startTime = System.currentTimeMillis();
+        
+        TreeWalk(PathMatcher filter, Function<Path, T> processor, ResultSink<? super T> sink,
+                 int maxConcurrentPerDevice) {
+            this.filter = filter;
+            this.processor = processor;
+            this.sink = sink;
+            this.maxConcurrentPerDevice = maxConcurrentPerDevice;
+        }
+        
+        void start(Path root) {
+            Object device;
+            try {
+                Files.readAttributes(root, BasicFileAttributes.class); // Fail fast on a missing root
+                device = maxConcurrentPerDevice > 0 ? deviceOf(root, Files.getFileStore(root).name()) : null;
+            } catch (IOException e) {
+                result.completeExceptionally(e);
+                return;
+            }
+            
+            outstanding.incrementAndGet();
+            executor.execute(new DirectoryTask(root, device));
+        }
+        
+        /**
+         * Device id from the {@code unix:dev} attribute where the file system supports the
+         * unix view, otherwise the device of the parent directory. Only looked up when a
+         * per-device cap is set.
+         */
+        private Object deviceOf(Path directory, Object parentDevice) {
+            if (maxConcurrentPerDevice <= 0) {
+                return parentDevice;
+            }
+            try {
+                return Files.getAttribute(directory, "unix:dev", LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException | UnsupportedOperationException | IllegalArgumentException e) {
+                return parentDevice;
+            }
+        }
+        
+        private void scheduleFiles(List<Path> files, Object device) {
+            outstanding.incrementAndGet();
+            Runnable batch = () -> {
+                try {
+                    processFiles(files);
+                } finally {
+                    finish();
+                }
+            };
+            
+            if (maxConcurrentPerDevice > 0) {
+                limiters.computeIfAbsent(device, d -> new ConcurrencyLimiter(maxConcurrentPerDevice))
+                    .submit(batch);
+            } else {
+                ForkJoinTask.adapt(batch).fork();
+            }
+        }
+        
+        private void processFiles(List<Path> files) {
+            for (Path file : files) {
+                if (result.isDone()) {
+                    return; // Cancelled
+                }
+                try {
+                    sink.onResult(file, processor.apply(file));
+                    processed.increment();
+                } catch (Exception e) {
+                    failed.increment();
+                    reportError(file, e);
+                }
+            }
+        }
+        
+        private void reportError(Path path, Exception error) {
+            try {
+                sink.onError(path, error);
+            } catch (Exception e) {
+                logger.error("Result sink failed for: " + path, e);
+            }
+        }
+        
+        private void finish() {
+            if (outstanding.decrementAndGet() == 0) {
+                TreeStatistics stats = new TreeStatistics(directories.sum(), matched.sum(),
+                    processed.sum(), failed.sum(), System.currentTimeMillis() - startTime);
+                logger.info("Tree processed: {}", stats);
+                result.complete(stats);
+            }
+        }
+        
+        /**
+         * Lists one directory, forking a task per subdirectory and a batch per
+         * {@value #FILE_BATCH_SIZE} matching files.
+         */
+        private final class DirectoryTask extends RecursiveAction {
+            private final Path directory;
+            private final Object device;
+            
+            DirectoryTask(Path directory, Object device) {
+                this.directory = directory;
+                this.device = device;
+            }
+            
+            @Override
+            protected void compute() {
+                try {
+                    if (!result.isDone()) {
+                        list();
+                    }
+                } finally {
+                    finish();
+                }
+            }
+            
+            private void list() {
+                directories.increment();
+                List<Path> batch = new ArrayList<>(FILE_BATCH_SIZE);
+                
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                    for (Path entry : entries) {
+                        BasicFileAttributes attrs;
+                        try {
+                            attrs = Files.readAttributes(entry, BasicFileAttributes.class,
+                                LinkOption.NOFOLLOW_LINKS);
+                        } catch (IOException e) {
+                            failed.increment();
+                            reportError(entry, e);
+                            continue;
+                        }
+                        
+                        if (attrs.isDirectory()) {
+                            outstanding.incrementAndGet();
+                            new DirectoryTask(entry, deviceOf(entry, device)).fork();
+                        } else if (attrs.isRegularFile() && filter.matches(entry)) {
+                            matched.increment();
+                            batch.add(entry);
+                            if (batch.size() == FILE_BATCH_SIZE) {
+                                scheduleFiles(batch, device);
+                                batch = new ArrayList<>(FILE_BATCH_SIZE);
+                            }
+                        }
+                    }
+                } catch (IOException | DirectoryIteratorException e) {
+                    failed.increment();
+                    reportError(directory, e instanceof IOException
+                        ? (IOException) e : ((DirectoryIteratorException) e).getCause());
+                }
+                
+                if (!batch.isEmpty()) {
+                    scheduleFiles(batch, device);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Runs at most {@code permits} tasks at once on the pool without blocking any worker:
+     * tasks over the limit wait in a queue and are started by the task that frees a permit.
+     */
+    private final class ConcurrencyLimiter {
+        private final Semaphore permits;
+        private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+        
+        ConcurrencyLimiter(int permits) {
+            this.permits = new Semaphore(permits);
+        }
+        
+        void submit(Runnable task) {
+            if (permits.tryAcquire()) {
+                executor.execute(() -> run(task));
+                return;
+            }
+            waiting.offer(task);
+            startWaiting(); // A permit may have been released before the offer
+        }
+        
+        private void run(Runnable task) {
+            try {
+                task.run();
+            } finally {
+                Runnable next = waiting.poll();
+                if (next != null) {
+                    executor.execute(() -> run(next)); // Hand over the permit
+                } else {
+                    permits.release();
+                    startWaiting();
+                }
+            }
+        }
+        
+        private void startWaiting() {
+            while (!waiting.isEmpty() && permits.tryAcquire()) {
+                Runnable next = waiting.poll();
+                if (next == null) {
+                    permits.release();
+                    continue;
+                }
+                executor.execute(() -> run(next));
+            }
+        }
+    }
+    
+    /**
+     * Statistics of a {@link #processTree} call.
+     */
+    public static class TreeStatistics {
+        public final long directories;
+        public final long filesMatched;
+        public final long filesProcessed;
+        public final long failures;
+        public final long durationMillis;
+        
+        TreeStatistics(long directories, long filesMatched, long filesProcessed,
+                       long failures, long durationMillis) {
+            this.directories = directories;
+            this.filesMatched = filesMatched;
+            this.filesProcessed = filesProcessed;
+            this.failures = failures;
+            this.durationMillis = durationMillis;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format(
+                "TreeStatistics{directories=%d, matched=%d, processed=%d, failures=%d, duration=%dms}",
+                directories, filesMatched, filesProcessed, failures, durationMillis
+            );
+        }
+    }
+    
     private static class FileResult<T> {
         final Path file;
         final T result;
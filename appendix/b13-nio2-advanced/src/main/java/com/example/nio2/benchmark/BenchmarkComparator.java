@@ -0,0 +1,325 @@
+package com.example.nio2.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Compares two JMH JSON result files and flags regressions.
+ *
+ * <p>Runs are matched on benchmark, mode, thread count and parameters. A change counts as a
+ * regression (or improvement) only when it exceeds the threshold <em>and</em> the two
+ * confidence intervals do not overlap, so noise within the reported error is ignored.
+ * Throughput is better when higher; all time-based modes are better when lower.
+ *
+ * <pre>
+ * java -cp benchmarks.jar com.example.nio2.benchmark.BenchmarkComparator \
+ *     baseline.json candidate.json [threshold-percent]
+ * </pre>
+ * Exits with status 1 when a regression is found.
+ */
+public class BenchmarkComparator {
+    
+    public enum Verdict { REGRESSION, IMPROVEMENT, UNCHANGED, MISSING, NEW }
+    
+    /**
+     * Comparison of one benchmark configuration.
+     */
+    public static class Comparison {
+        public final String key;
+        public final double baselineScore;
+        public final double candidateScore;
+        public final double changePercent;
+        public final String unit;
+        public final Verdict verdict;
+        
+        Comparison(String key, double baselineScore, double candidateScore, double changePercent,
+                   String unit, Verdict verdict) {
+            this.key = key;
+            this.baselineScore = baselineScore;
+            this.candidateScore = candidateScore;
+            this.changePercent = changePercent;
+            this.unit = unit;
+            this.verdict = verdict;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("%-11s %+8.1f%%  %14.3f -> %14.3f %-8s %s",
+                verdict, changePercent, baselineScore, candidateScore, unit, key);
+        }
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java BenchmarkComparator <baseline.json> <candidate.json> [threshold-percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 5.0;
+        
+        List<Comparison> comparisons = compare(Paths.get(args[0]), Paths.get(args[1]), threshold);
+        comparisons.forEach(System.out::println);
+        
+        long regressions = comparisons.stream().filter(c -> c.verdict == Verdict.REGRESSION).count();
+        long improvements = comparisons.stream().filter(c -> c.verdict == Verdict.IMPROVEMENT).count();
+        System.out.printf("%n%d compared, %d regressions, %d improvements (threshold %.1f%%)%n",
+            comparisons.size(), regressions, improvements, threshold);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * Compare two result files, regressions first.
+     */
+    public static List<Comparison> compare(Path baseline, Path candidate, double thresholdPercent)
+            throws IOException {
+        Map<String, Map<String, Object>> before = index(baseline);
+        Map<String, Map<String, Object>> after = index(candidate);
+        List<Comparison> comparisons = new ArrayList<>();
+        
+        for (Map.Entry<String, Map<String, Object>> entry : before.entrySet()) {
+            Map<String, Object> old = entry.getValue();
+            Map<String, Object> current = after.get(entry.getKey());
+            if (current == null) {
+                comparisons.add(new Comparison(entry.getKey(), score(old), Double.NaN, Double.NaN,
+                    unit(old), Verdict.MISSING));
+            } else {
+                comparisons.add(compare(entry.getKey(), old, current, thresholdPercent));
+            }
+        }
+        for (Map.Entry<String, Map<String, Object>> entry : after.entrySet()) {
+            if (!before.containsKey(entry.getKey())) {
+                comparisons.add(new Comparison(entry.getKey(), Double.NaN, score(entry.getValue()),
+                    Double.NaN, unit(entry.getValue()), Verdict.NEW));
+            }
+        }
+        
+        comparisons.sort(Comparator.comparing((Comparison c) -> c.verdict).thenComparing(c -> c.key));
+        return comparisons;
+    }
+    
+    private static Comparison compare(String key, Map<String, Object> old, Map<String, Object> current,
+                                      double thresholdPercent) {
+        double base = score(old);
+        double now = score(current);
+        boolean higherIsBetter = "thrpt".equals(old.get("mode"));
+        double change = base == 0 ? 0 : (now - base) / base * 100;
+        double worse = higherIsBetter ? -change : change;
+        
+        // Changes inside the combined error bars are noise
+        boolean significant = Math.abs(now - base) > error(old) + error(current);
+        Verdict verdict = Verdict.UNCHANGED;
+        if (significant && worse > thresholdPercent) {
+            verdict = Verdict.REGRESSION;
+        } else if (significant && -worse > thresholdPercent) {
+            verdict = Verdict.IMPROVEMENT;
+        }
+        return new Comparison(key, base, now, change, unit(old), verdict);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Map<String, Map<String, Object>> index(Path file) throws IOException {
+        String json = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        List<Object> runs = (List<Object>) new JsonParser(json).parse();
+        Map<String, Map<String, Object>> byKey = new LinkedHashMap<>();
+        for (Object run : runs) {
+            Map<String, Object> result = (Map<String, Object>) run;
+            byKey.put(key(result), result);
+        }
+        return byKey;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static String key(Map<String, Object> result) {
+        StringBuilder key = new StringBuilder()
+            .append(result.get("benchmark"))
+            .append(" [").append(result.get("mode"))
+            .append(", threads=").append(number(result.get("threads")).intValue());
+        Object params = result.get("params");
+        if (params != null) {
+            new TreeMap<>((Map<String, Object>) params)
+                .forEach((name, value) -> key.append(", ").append(name).append('=').append(value));
+        }
+        return key.append(']').toString();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> primary(Map<String, Object> result) {
+        return (Map<String, Object>) result.get("primaryMetric");
+    }
+    
+    private static double score(Map<String, Object> result) {
+        return number(primary(result).get("score")).doubleValue();
+    }
+    
+    private static double error(Map<String, Object> result) {
+        double error = number(primary(result).get("scoreError")).doubleValue();
+        return Double.isNaN(error) ? 0 : error; // Single-iteration runs have no error estimate
+    }
+    
+    private static String unit(Map<String, Object> result) {
+        return String.valueOf(primary(result).get("scoreUnit"));
+    }
+    
+    private static Number number(Object value) {
+        if (value instanceof Number) {
+            return (Number) value;
+        }
+        return value == null ? Double.NaN : Double.valueOf(value.toString()); // JMH writes "NaN" as a string
+    }
+    
+    /**
+     * Minimal JSON parser: objects become maps, arrays lists, numbers doubles.
+     */
+    static final class JsonParser {
+        private final String text;
+        private int pos;
+        
+        JsonParser(String text) {
+            this.text = text;
+        }
+        
+        Object parse() {
+            Object value = value();
+            skipWhitespace();
+            if (pos != text.length()) {
+                throw error("Trailing content");
+            }
+            return value;
+        }
+        
+        private Object value() {
+            skipWhitespace();
+            if (pos >= text.length()) {
+                throw error("Unexpected end of input");
+            }
+            char c = text.charAt(pos);
+            switch (c) {
+                case '{': return object();
+                case '[': return array();
+                case '"': return string();
+                case 't': return literal("true", Boolean.TRUE);
+                case 'f': return literal("false", Boolean.FALSE);
+                case 'n': return literal("null", null);
+                default: return number();
+            }
+        }
+        
+        private Map<String, Object> object() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            pos++;
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return map;
+            }
+            while (true) {
+                skipWhitespace();
+                String name = string();
+                skipWhitespace();
+                expect(':');
+                map.put(name, value());
+                skipWhitespace();
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect('}');
+                    return map;
+                }
+            }
+        }
+        
+        private List<Object> array() {
+            List<Object> list = new ArrayList<>();
+            pos++;
+            skipWhitespace();
+            if (peek() == ']') {
+                pos++;
+                return list;
+            }
+            while (true) {
+                list.add(value());
+                skipWhitespace();
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect(']');
+                    return list;
+                }
+            }
+        }
+        
+        private String string() {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                if (pos >= text.length()) {
+                    throw error("Unterminated string");
+                }
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case 'n': sb.append('\n'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default: sb.append(escaped);
+                }
+            }
+        }
+        
+        private Double number() {
+            int start = pos;
+            while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+            if (start == pos) {
+                throw error("Unexpected character '" + text.charAt(pos) + "'");
+            }
+            return Double.valueOf(text.substring(start, pos));
+        }
+        
+        private Object literal(String word, Object value) {
+            if (!text.startsWith(word, pos)) {
+                throw error("Expected " + word);
+            }
+            pos += word.length();
+            return value;
+        }
+        
+        private char peek() {
+            return pos < text.length() ? text.charAt(pos) : '\0';
+        }
+        
+        private void expect(char c) {
+            if (peek() != c) {
+                throw error("Expected '" + c + "'");
+            }
+            pos++;
+        }
+        
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+        
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at offset " + pos);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.nio2.benchmark;
 
+import com.example.nio2.async.AsyncFileIO;
 import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
@@ -7,6 +8,7 @@ import org.openjdk.jmh.runner.options.Options;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.channels.*;
 import java.nio.file.*;
 import java.util.*;
@@ -25,7 +27,7 @@ import java.util.stream.IntStream;
 @Fork(1)
 public class ConcurrentIOBenchmark {
     
-    @Param({"10", "100", "1000"})
+    @Param({"10", "100", "1000", "10000"})
     private int fileCount;
     
     @Param({"1024", "10240", "102400"}) // 1KB, 10KB, 100KB
@@ -33,6 +35,7 @@ public class ConcurrentIOBenchmark {
     
     private List<Path> tempFiles;
     private ExecutorService executor;
+    private AsyncFileIO asyncFileIO;
     
     @Setup
     public void setup() throws IOException {
@@ -50,6 +53,9 @@ public class ConcurrentIOBenchmark {
         
         // Create executor
         executor = ForkJoinPool.commonPool();
+        
+        // Shared engine: pooled buffers sized to hold a whole file, bounded in-flight reads
+        asyncFileIO = new AsyncFileIO(256, 16 * 1024, Math.max(fileSize, 4096));
     }
     
     @TearDown
@@ -63,6 +69,10 @@ public class ConcurrentIOBenchmark {
         if (executor != null) {
             executor.shutdown();
         }
+        
+        if (asyncFileIO != null) {
+            asyncFileIO.close();
+        }
     }
     
     @Benchmark
@@ -104,7 +114,7 @@ public class ConcurrentIOBenchmark {
             }, executor))
             .collect(Collectors.toList());
         
-        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
             .thenApply(v -> futures.stream()
                 .mapToLong(CompletableFuture::join)
                 .sum())
@@ -119,7 +129,7 @@ public class ConcurrentIOBenchmark {
             CompletableFuture<Long> future = new CompletableFuture<>();
             
             AsynchronousFileChannel channel = AsynchronousFileChannel.open(
-                file, StandardOpenOption.READ, executor
+                file, EnumSet.of(StandardOpenOption.READ), executor
             );
             
             ByteBuffer buffer = ByteBuffer.allocate(fileSize);
@@ -144,13 +154,36 @@ public class ConcurrentIOBenchmark {
             futures.add(future);
         }
         
-        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
             .thenApply(v -> futures.stream()
                 .mapToLong(CompletableFuture::join)
                 .sum())
             .get();
     }
     
+    @Benchmark
+    public long pooledAsyncFileIOProcessing() throws Exception {
+        List<CompletableFuture<Long>> futures = new ArrayList<>(tempFiles.size());
+        
+        for (Path file : tempFiles) {
+            futures.add(asyncFileIO.read(file, this::processContent));
+        }
+        
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+            .thenApply(v -> futures.stream()
+                .mapToLong(CompletableFuture::join)
+                .sum())
+            .get();
+    }
+    
+    private long processContent(ByteBuffer content) {
+        long checksum = 0;
+        for (int i = content.position(); i < content.limit(); i++) {
+            checksum += content.get(i) & 0xFF;
+        }
+        return checksum;
+    }
+    
     private long processContent(byte[] content) {
         // Simulate some processing
         long checksum = 0;
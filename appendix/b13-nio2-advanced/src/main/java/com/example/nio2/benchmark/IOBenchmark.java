@@ -1,5 +1,6 @@
 package com.example.nio2.benchmark;
 
+import com.example.nio2.memory.MemoryMappedFile;
 import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.runner.Runner;
 import org.openjdk.jmh.runner.RunnerException;
@@ -9,6 +10,7 @@ import org.openjdk.jmh.runner.options.OptionsBuilder;
 import java.io.*;
 import java.nio.*;
 import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
@@ -122,6 +124,87 @@ public class IOBenchmark {
         return Files.readAllBytes(tempFile);
     }
     
+    /**
+     * Line counting and pattern search on multi-GB text files: the original single-threaded
+     * scans against the parallel chunked versions in {@link MemoryMappedFile}.
+     * Kept in a nested class so its file sizes do not multiply the benchmarks above.
+     */
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+    @Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+    @Fork(1)
+    public static class LargeFileScan {
+        
+        @Param({"1073741824", "4294967296"}) // 1GB, 4GB
+        private long largeFileSize;
+        
+        private Path largeFile;
+        private final byte[] pattern = "ERROR timeout".getBytes(StandardCharsets.US_ASCII);
+        // Never occurs, so every search scans the whole file
+        private final byte[] absentPattern = "FATAL disk".getBytes(StandardCharsets.US_ASCII);
+        
+        @Setup
+        public void setup() throws IOException {
+            largeFile = Files.createTempFile("benchmark-large", ".log");
+            byte[] line = "2024-01-01T00:00:00 INFO request handled in 12ms\n"
+                .getBytes(StandardCharsets.US_ASCII);
+            byte[] hit = "2024-01-01T00:00:00 ERROR timeout after 30000ms\n"
+                .getBytes(StandardCharsets.US_ASCII);
+            
+            // One error line per thousand lines
+            ByteBuffer block = ByteBuffer.allocateDirect(8 * 1024 * 1024);
+            try (FileChannel channel = FileChannel.open(largeFile, StandardOpenOption.WRITE)) {
+                long written = 0;
+                int lineNumber = 0;
+                while (written < largeFileSize) {
+                    block.clear();
+                    while (block.remaining() >= hit.length) {
+                        block.put(++lineNumber % 1000 == 0 ? hit : line);
+                    }
+                    block.flip();
+                    if (block.remaining() > largeFileSize - written) {
+                        block.limit((int) (largeFileSize - written));
+                    }
+                    while (block.hasRemaining()) {
+                        written += channel.write(block);
+                    }
+                }
+            }
+        }
+        
+        @TearDown
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(largeFile);
+        }
+        
+        @Benchmark
+        public long countLinesSequential() throws IOException {
+            return MemoryMappedFile.countLines(largeFile);
+        }
+        
+        @Benchmark
+        public long countLinesParallel() throws IOException {
+            return MemoryMappedFile.countLinesParallel(largeFile);
+        }
+        
+        @Benchmark
+        public long findPatternSequential() throws IOException {
+            return MemoryMappedFile.findPattern(largeFile, absentPattern);
+        }
+        
+        @Benchmark
+        public long[] findPatternParallel() throws IOException {
+            return MemoryMappedFile.findAllPatterns(largeFile, absentPattern);
+        }
+        
+        @Benchmark
+        public long[] findAllMatchesParallel() throws IOException {
+            return MemoryMappedFile.findAllPatterns(largeFile, pattern);
+        }
+    }
+    
     public static void main(String[] args) throws RunnerException {
         Options opt = new OptionsBuilder()
             .include(IOBenchmark.class.getSimpleName())
@@ -0,0 +1,409 @@
+package com.example.nio2.benchmark;
+
+import com.example.nio2.async.AsyncFileIO;
+import com.example.nio2.memory.MemoryMappedFile;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * I/O strategy matrix: every read and write strategy against every combination of file size,
+ * buffer size and access pattern.
+ *
+ * <p>Each invocation transfers one block of {@code bufferSize} bytes at the offset chosen by
+ * the thread's {@link Cursor}; the {@code bytes} secondary metric turns the score into
+ * bytes per second. Thread counts are swept by {@link IOMatrixRunner}, which also writes the
+ * combined JSON results. Data files are generated from a fixed seed and kept between runs
+ * in {@code -Dio.matrix.dir} (default: the temp directory), so repeated runs read the same
+ * bytes. Results are warm-cache numbers unless the page cache is dropped between runs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class IOMatrixBenchmark {
+    
+    static final long SEED = 0x5EEDL;
+    static final int STRIDE_BLOCKS = 16;
+    static final long SEGMENT_SIZE = 1L << 30; // Mapping segment, a multiple of every buffer size
+    
+    public enum AccessPattern { SEQUENTIAL, RANDOM, STRIDED }
+    
+    /**
+     * Shared files and channels for one parameter combination.
+     */
+    @State(Scope.Benchmark)
+    public static class Fixture {
+        @Param({"4K", "1M", "64M", "1G", "4G"})
+        public String fileSize;
+        
+        @Param({"4K", "64K", "1M"})
+        public String bufferSize;
+        
+        @Param({"SEQUENTIAL", "RANDOM", "STRIDED"})
+        public AccessPattern pattern;
+        
+        long size;
+        int blockLength;
+        long blocks;
+        Path dataFile;
+        Path scratchFile;
+        
+        FileChannel readChannel;
+        FileChannel writeChannel;
+        AsynchronousFileChannel asyncReadChannel;
+        AsynchronousFileChannel asyncWriteChannel;
+        MemoryMappedFile mappedData;
+        MemoryMappedFile mappedScratch;
+        MappedByteBuffer[] readSegments;
+        MappedByteBuffer[] writeSegments;
+        
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            size = parseSize(fileSize);
+            blockLength = (int) Math.min(parseSize(bufferSize), size);
+            blocks = size / blockLength;
+            dataFile = ensureDataFile(size);
+            scratchFile = ensureScratchFile(size);
+            
+            readChannel = FileChannel.open(dataFile, StandardOpenOption.READ);
+            writeChannel = FileChannel.open(scratchFile, StandardOpenOption.WRITE);
+            asyncReadChannel = AsynchronousFileChannel.open(dataFile, StandardOpenOption.READ);
+            asyncWriteChannel = AsynchronousFileChannel.open(scratchFile, StandardOpenOption.WRITE);
+            
+            mappedData = new MemoryMappedFile(dataFile, FileChannel.MapMode.READ_ONLY);
+            mappedScratch = new MemoryMappedFile(scratchFile, FileChannel.MapMode.READ_WRITE);
+            readSegments = mapSegments(mappedData, size);
+            writeSegments = mapSegments(mappedScratch, size);
+        }
+        
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            readChannel.close();
+            writeChannel.close();
+            asyncReadChannel.close();
+            asyncWriteChannel.close();
+            mappedData.close();
+            mappedScratch.close();
+        }
+        
+        private static MappedByteBuffer[] mapSegments(MemoryMappedFile file, long size) throws IOException {
+            int count = (int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+            MappedByteBuffer[] segments = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long start = i * SEGMENT_SIZE;
+                segments[i] = file.mapRegion(start, Math.min(SEGMENT_SIZE, size - start));
+            }
+            return segments;
+        }
+    }
+    
+    /**
+     * Per-thread offset sequence and buffers. {@code bytes} is reported as a rate.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Cursor {
+        private static final AtomicInteger THREAD_INDEX = new AtomicInteger();
+        
+        public long bytes;
+        
+        private AccessPattern pattern;
+        private long blocks;
+        private int blockLength;
+        private SplittableRandom random;
+        private long block;
+        private long lane;
+        
+        ByteBuffer heapBuffer;
+        ByteBuffer directBuffer;
+        byte[] array;
+        FileChannel transferTarget;
+        
+        @Setup(Level.Trial)
+        public void setup(Fixture fixture) throws IOException {
+            int index = THREAD_INDEX.getAndIncrement();
+            pattern = fixture.pattern;
+            blocks = fixture.blocks;
+            blockLength = fixture.blockLength;
+            random = new SplittableRandom(SEED + index);
+            block = (index * 7919L) % blocks; // Threads start apart
+            lane = block % STRIDE_BLOCKS;
+            
+            heapBuffer = ByteBuffer.allocate(blockLength);
+            directBuffer = ByteBuffer.allocateDirect(blockLength);
+            array = new byte[blockLength];
+            new SplittableRandom(SEED).nextBytes(array);
+            heapBuffer.put(array).clear();
+            directBuffer.put(array).clear();
+            transferTarget = FileChannel.open(fixture.scratchFile, StandardOpenOption.WRITE);
+        }
+        
+        @Setup(Level.Iteration)
+        public void resetCounters() {
+            bytes = 0;
+        }
+        
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            transferTarget.close();
+        }
+        
+        long nextOffset() {
+            switch (pattern) {
+                case RANDOM:
+                    block = random.nextLong(blocks);
+                    break;
+                case STRIDED:
+                    block += STRIDE_BLOCKS;
+                    if (block >= blocks) {
+                        lane = (lane + 1) % STRIDE_BLOCKS;
+                        block = lane % blocks;
+                    }
+                    break;
+                default:
+                    block = block + 1 < blocks ? block + 1 : 0;
+            }
+            return block * blockLength;
+        }
+    }
+    
+    // ---- Reads ----
+    
+    @Benchmark
+    public int channelReadHeap(Fixture fixture, Cursor cursor) throws IOException {
+        return readFully(fixture.readChannel, cursor.heapBuffer, cursor.nextOffset(), cursor);
+    }
+    
+    @Benchmark
+    public int channelReadDirect(Fixture fixture, Cursor cursor) throws IOException {
+        return readFully(fixture.readChannel, cursor.directBuffer, cursor.nextOffset(), cursor);
+    }
+    
+    @Benchmark
+    public byte mappedRead(Fixture fixture, Cursor cursor) {
+        long offset = cursor.nextOffset();
+        ByteBuffer view = segmentView(fixture.readSegments, offset, fixture.blockLength);
+        view.get(cursor.array);
+        cursor.bytes += fixture.blockLength;
+        return cursor.array[cursor.array.length - 1];
+    }
+    
+    @Benchmark
+    public int asyncChannelRead(Fixture fixture, Cursor cursor) throws Exception {
+        ByteBuffer buffer = cursor.directBuffer;
+        long offset = cursor.nextOffset();
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            int read = fixture.asyncReadChannel.read(buffer, offset + buffer.position()).get();
+            if (read < 0) {
+                break;
+            }
+        }
+        cursor.bytes += buffer.position();
+        return buffer.position();
+    }
+    
+    // ---- Writes ----
+    
+    @Benchmark
+    public int channelWriteHeap(Fixture fixture, Cursor cursor) throws IOException {
+        return writeFully(fixture.writeChannel, cursor.heapBuffer, cursor.nextOffset(), cursor);
+    }
+    
+    @Benchmark
+    public int channelWriteDirect(Fixture fixture, Cursor cursor) throws IOException {
+        return writeFully(fixture.writeChannel, cursor.directBuffer, cursor.nextOffset(), cursor);
+    }
+    
+    @Benchmark
+    public void mappedWrite(Fixture fixture, Cursor cursor) {
+        long offset = cursor.nextOffset();
+        ByteBuffer view = segmentView(fixture.writeSegments, offset, fixture.blockLength);
+        view.put(cursor.array);
+        cursor.bytes += fixture.blockLength;
+    }
+    
+    @Benchmark
+    public int asyncChannelWrite(Fixture fixture, Cursor cursor) throws Exception {
+        ByteBuffer buffer = cursor.directBuffer;
+        long offset = cursor.nextOffset();
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            fixture.asyncWriteChannel.write(buffer, offset + buffer.position()).get();
+        }
+        cursor.bytes += buffer.position();
+        return buffer.position();
+    }
+    
+    @Benchmark
+    public long transferTo(Fixture fixture, Cursor cursor) throws IOException {
+        long offset = cursor.nextOffset();
+        cursor.transferTarget.position(offset);
+        long transferred = 0;
+        while (transferred < fixture.blockLength) {
+            long n = fixture.readChannel.transferTo(offset + transferred,
+                fixture.blockLength - transferred, cursor.transferTarget);
+            if (n <= 0) {
+                break;
+            }
+            transferred += n;
+        }
+        cursor.bytes += transferred;
+        return transferred;
+    }
+    
+    private static int readFully(FileChannel channel, ByteBuffer buffer, long offset, Cursor cursor)
+            throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                break;
+            }
+        }
+        cursor.bytes += buffer.position();
+        return buffer.position();
+    }
+    
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long offset, Cursor cursor)
+            throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+        }
+        cursor.bytes += buffer.position();
+        return buffer.position();
+    }
+    
+    private static ByteBuffer segmentView(MappedByteBuffer[] segments, long offset, int length) {
+        // Block offsets are aligned to the block length, so a block never spans two segments
+        ByteBuffer view = segments[(int) (offset / SEGMENT_SIZE)].duplicate();
+        int position = (int) (offset % SEGMENT_SIZE);
+        view.limit(position + length).position(position);
+        return view;
+    }
+    
+    /**
+     * Whole-file operations through the project's {@link AsyncFileIO} engine and
+     * {@link MemoryMappedFile}, which work on complete files rather than blocks.
+     */
+    @State(Scope.Benchmark)
+    public static class WholeFileFixture {
+        @Param({"4K", "64K", "1M", "16M"})
+        public String fileSize;
+        
+        int size;
+        Path dataFile;
+        Path scratchFile;
+        ByteBuffer content;
+        AsyncFileIO asyncFileIO;
+        
+        @Setup(Level.Trial)
+        public void setup() throws IOException {
+            size = (int) parseSize(fileSize);
+            dataFile = ensureDataFile(size);
+            scratchFile = Files.createTempFile("io-matrix-whole", ".dat");
+            content = ByteBuffer.allocateDirect(size);
+            byte[] bytes = new byte[size];
+            new SplittableRandom(SEED).nextBytes(bytes);
+            content.put(bytes).flip();
+            asyncFileIO = new AsyncFileIO(64, 1024, size);
+        }
+        
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            asyncFileIO.close();
+            Files.deleteIfExists(scratchFile);
+        }
+    }
+    
+    @Benchmark
+    public int wholeFileReadAllBytes(WholeFileFixture fixture) throws IOException {
+        return Files.readAllBytes(fixture.dataFile).length;
+    }
+    
+    @Benchmark
+    public int asyncFileIORead(WholeFileFixture fixture) throws ExecutionException, InterruptedException {
+        return fixture.asyncFileIO.read(fixture.dataFile, ByteBuffer::remaining).get();
+    }
+    
+    @Benchmark
+    public void asyncFileIOWrite(WholeFileFixture fixture) throws ExecutionException, InterruptedException {
+        fixture.asyncFileIO.write(fixture.scratchFile, fixture.content.duplicate()).get();
+    }
+    
+    @Benchmark
+    public void memoryMappedFileRead(WholeFileFixture fixture, Blackhole blackhole) throws IOException {
+        try (MemoryMappedFile file = new MemoryMappedFile(fixture.dataFile, FileChannel.MapMode.READ_ONLY)) {
+            MappedByteBuffer buffer = file.mapEntireFile();
+            long sum = 0;
+            while (buffer.remaining() >= Long.BYTES) {
+                sum += buffer.getLong();
+            }
+            blackhole.consume(sum);
+        }
+    }
+    
+    // ---- Fixtures ----
+    
+    static long parseSize(String size) {
+        String value = size.trim().toUpperCase();
+        long unit = 1;
+        switch (value.charAt(value.length() - 1)) {
+            case 'K': unit = 1L << 10; break;
+            case 'M': unit = 1L << 20; break;
+            case 'G': unit = 1L << 30; break;
+            default: return Long.parseLong(value);
+        }
+        return Long.parseLong(value.substring(0, value.length() - 1)) * unit;
+    }
+    
+    private static Path fixtureDirectory() throws IOException {
+        Path dir = Paths.get(System.getProperty("io.matrix.dir",
+            Paths.get(System.getProperty("java.io.tmpdir"), "io-matrix").toString()));
+        return Files.createDirectories(dir);
+    }
+    
+    /**
+     * Data file of the given size with seeded random content, reused when already present.
+     */
+    static Path ensureDataFile(long size) throws IOException {
+        Path file = fixtureDirectory().resolve("data-" + size + ".bin");
+        if (Files.exists(file) && Files.size(file) == size) {
+            return file;
+        }
+        
+        Path partial = Files.createTempFile(fixtureDirectory(), "data-" + size, ".tmp");
+        SplittableRandom random = new SplittableRandom(SEED);
+        byte[] chunk = new byte[(int) Math.min(size, 1 << 20)];
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial), 1 << 20)) {
+            for (long written = 0; written < size; written += chunk.length) {
+                random.nextBytes(chunk);
+                out.write(chunk, 0, (int) Math.min(chunk.length, size - written));
+            }
+        }
+        return Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Scratch file for write benchmarks. It starts sparse, so blocks are allocated on the
+     * first pass (during warmup for all but the largest sizes).
+     */
+    static Path ensureScratchFile(long size) throws IOException {
+        Path file = fixtureDirectory().resolve("scratch-" + size + ".bin");
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(size);
+        }
+        return file;
+    }
+}
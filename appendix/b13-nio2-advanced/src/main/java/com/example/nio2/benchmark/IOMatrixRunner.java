@@ -0,0 +1,68 @@
+package com.example.nio2.benchmark;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.PrintStream;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs {@link IOMatrixBenchmark} once per thread count and writes all results to one JMH
+ * JSON file, ready for {@link BenchmarkComparator}.
+ *
+ * <pre>
+ * java -cp benchmarks.jar com.example.nio2.benchmark.IOMatrixRunner \
+ *     [--threads 1,4,16] [--output results.json] [JMH options, e.g. -p fileSize=4K,1M]
+ * </pre>
+ */
+public class IOMatrixRunner {
+    
+    public static void main(String[] args) throws Exception {
+        int[] threadCounts = {1, 4, 16};
+        Path output = Paths.get("io-matrix-"
+            + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        List<String> jmhArgs = new ArrayList<>();
+        
+        for (int i = 0; i < args.length; i++) {
+            if ("--threads".equals(args[i]) && i + 1 < args.length) {
+                String[] values = args[++i].split(",");
+                threadCounts = new int[values.length];
+                for (int j = 0; j < values.length; j++) {
+                    threadCounts[j] = Integer.parseInt(values[j].trim());
+                }
+            } else if ("--output".equals(args[i]) && i + 1 < args.length) {
+                output = Paths.get(args[++i]);
+            } else {
+                jmhArgs.add(args[i]);
+            }
+        }
+        
+        CommandLineOptions cli = new CommandLineOptions(jmhArgs.toArray(new String[0]));
+        List<RunResult> results = new ArrayList<>();
+        
+        for (int threads : threadCounts) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(cli)
+                .threads(threads);
+            if (cli.getIncludes().isEmpty()) {
+                options.include(IOMatrixBenchmark.class.getName());
+            }
+            System.out.printf("=== %d thread(s) ===%n", threads);
+            results.addAll(new Runner(options.build()).run());
+        }
+        
+        try (PrintStream out = new PrintStream(Files.newOutputStream(output), true, "UTF-8")) {
+            ResultFormatFactory.getInstance(ResultFormatType.JSON, out).writeOut(results);
+        }
+        System.out.printf("Results written to %s (%d runs)%n", output.toAbsolutePath(), results.size());
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.nio2.benchmark;
+
+import com.example.nio2.memory.SharedMemoryFile.SharedMemoryQueue;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inter-process benchmarks for {@link SharedMemoryQueue}.
+ *
+ * <p>Each trial starts a second JVM on the same host that runs {@link PeerProcess}.
+ * {@code roundTrip} measures ping-pong latency (SampleTime reports p99),
+ * {@code oneWayBatch} measures producer throughput while the peer drains.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class SharedQueueBenchmark {
+    
+    private static final int QUEUE_CAPACITY = 4096;
+    private static final int BATCH_SIZE = 64;
+    
+    @Param({"64", "1024"})
+    private int messageSize;
+    
+    private Path requestFile;
+    private Path responseFile;
+    private Path streamFile;
+    private SharedMemoryQueue requests;
+    private SharedMemoryQueue responses;
+    private SharedMemoryQueue stream;
+    private Process peer;
+    
+    private byte[] message;
+    private List<byte[]> batch;
+    
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        requestFile = Files.createTempFile("shm-requests", ".dat");
+        responseFile = Files.createTempFile("shm-responses", ".dat");
+        streamFile = Files.createTempFile("shm-stream", ".dat");
+        
+        requests = new SharedMemoryQueue(requestFile, messageSize, QUEUE_CAPACITY);
+        responses = new SharedMemoryQueue(responseFile, messageSize, QUEUE_CAPACITY);
+        stream = new SharedMemoryQueue(streamFile, messageSize, QUEUE_CAPACITY);
+        
+        message = new byte[messageSize];
+        new Random(42).nextBytes(message);
+        batch = Collections.nCopies(BATCH_SIZE, message);
+        
+        String javaBin = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        peer = new ProcessBuilder(javaBin,
+                "-cp", System.getProperty("java.class.path"),
+                PeerProcess.class.getName(),
+                requestFile.toString(), responseFile.toString(), streamFile.toString(),
+                String.valueOf(messageSize), String.valueOf(QUEUE_CAPACITY))
+            .redirectErrorStream(true)
+            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+            .start();
+        
+        // Wait until the peer echoes the first message
+        while (!requests.enqueue(message)) {
+            Thread.onSpinWait();
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (responses.dequeue() == null) {
+            if (System.nanoTime() > deadline || !peer.isAlive()) {
+                throw new IllegalStateException("Peer process did not start");
+            }
+            Thread.onSpinWait();
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (peer != null) {
+            peer.destroy();
+            peer.waitFor(5, TimeUnit.SECONDS);
+        }
+        requests.close();
+        responses.close();
+        stream.close();
+        Files.deleteIfExists(requestFile);
+        Files.deleteIfExists(responseFile);
+        Files.deleteIfExists(streamFile);
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public byte[] roundTrip() {
+        while (!requests.enqueue(message)) {
+            Thread.onSpinWait();
+        }
+        byte[] reply;
+        while ((reply = responses.dequeue()) == null) {
+            Thread.onSpinWait();
+        }
+        return reply;
+    }
+    
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int oneWayBatch() {
+        int sent = 0;
+        while (sent < BATCH_SIZE) {
+            int n = stream.enqueue(sent == 0 ? batch : batch.subList(sent, BATCH_SIZE));
+            if (n == 0) {
+                Thread.onSpinWait();
+            }
+            sent += n;
+        }
+        return sent;
+    }
+    
+    /**
+     * Peer JVM: echoes request messages and drains the one-way stream.
+     */
+    public static class PeerProcess {
+        public static void main(String[] args) throws IOException {
+            int messageSize = Integer.parseInt(args[3]);
+            int capacity = Integer.parseInt(args[4]);
+            
+            try (SharedMemoryQueue requests = new SharedMemoryQueue(Paths.get(args[0]), messageSize, capacity);
+                 SharedMemoryQueue responses = new SharedMemoryQueue(Paths.get(args[1]), messageSize, capacity);
+                 SharedMemoryQueue stream = new SharedMemoryQueue(Paths.get(args[2]), messageSize, capacity)) {
+                
+                List<byte[]> drained = new ArrayList<>(BATCH_SIZE);
+                while (true) {
+                    boolean idle = true;
+                    
+                    byte[] request = requests.dequeue();
+                    if (request != null) {
+                        while (!responses.enqueue(request)) {
+                            Thread.onSpinWait();
+                        }
+                        idle = false;
+                    }
+                    
+                    if (stream.drainTo(drained, BATCH_SIZE) > 0) {
+                        drained.clear();
+                        idle = false;
+                    }
+                    
+                    if (idle) {
+                        Thread.onSpinWait();
+                    }
+                }
+            }
+        }
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+            .include(SharedQueueBenchmark.class.getSimpleName())
+            .build();
+        
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,392 @@
+package com.example.nio2.memory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Streaming record reader for files far larger than a single 2 GB mapping.
+ *
+ * <p>The file is mapped in sliding windows; a record that crosses a window edge causes
+ * the next window to start at that record, so callers always see each record as one
+ * contiguous region. Records are handed out as views into the mapping:
+ * <ul>
+ *   <li>{@link #next()} / {@link #record()} / {@link #text()} reuse one flyweight buffer and
+ *       one {@link CharSequence} view, so the sequential path allocates nothing per record.
+ *       The views are only valid until the next call to {@code next()}.</li>
+ *   <li>{@link #records(boolean)} and {@link #lines(boolean)} hand out independent slices and
+ *       split the file by byte ranges, so they can run in parallel.</li>
+ * </ul>
+ * Windows are never unmapped explicitly because slices may still reference them; they are
+ * released by the garbage collector.
+ */
+public class MappedRecordReader implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(MappedRecordReader.class);
+    
+    public static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024; // 64MB
+    private static final int MAX_WINDOW_SIZE = Integer.MAX_VALUE - 8;
+    private static final long MIN_SPLIT_SIZE = 1024 * 1024; // 1MB
+    
+    private final Path path;
+    private final FileChannel channel;
+    private final byte delimiter;
+    private final int windowSize;
+    private final long fileSize;
+    
+    private final Cursor cursor;
+    private MappedByteBuffer viewWindow;
+    private ByteBuffer recordView;
+    private final ByteSequence textView = new ByteSequence();
+    
+    private MappedRecordReader(Path path, byte delimiter, int windowSize) throws IOException {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be positive");
+        }
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.delimiter = delimiter;
+        this.windowSize = windowSize;
+        this.fileSize = channel.size();
+        this.cursor = new Cursor(0, fileSize);
+        
+        logger.info("Opened record reader: {} ({} bytes, window: {} bytes)", path, fileSize, windowSize);
+    }
+    
+    /**
+     * Open a newline-delimited file with the default window size.
+     */
+    public static MappedRecordReader open(Path path) throws IOException {
+        return open(path, (byte) '\n', DEFAULT_WINDOW_SIZE);
+    }
+    
+    /**
+     * Open a file whose records are separated by {@code delimiter}.
+     */
+    public static MappedRecordReader open(Path path, byte delimiter, int windowSize) throws IOException {
+        return new MappedRecordReader(path, delimiter, windowSize);
+    }
+    
+    public long size() {
+        return fileSize;
+    }
+    
+    /**
+     * Advance to the next record.
+     *
+     * @return false at end of file
+     */
+    public boolean next() throws IOException {
+        if (!cursor.advance()) {
+            return false;
+        }
+        if (cursor.window != viewWindow) {
+            viewWindow = cursor.window;
+            recordView = viewWindow.duplicate();
+            textView.buffer = viewWindow;
+        }
+        recordView.limit(cursor.recordEnd).position(cursor.recordStart);
+        textView.reset(cursor.recordStart, cursor.recordEnd);
+        return true;
+    }
+    
+    /**
+     * The current record as a read-only view, valid until the next call to {@link #next()}.
+     */
+    public ByteBuffer record() {
+        return recordView;
+    }
+    
+    /**
+     * The current record as a single-byte character view (ASCII / ISO-8859-1), valid until
+     * the next call to {@link #next()}. Use {@code StandardCharsets.UTF_8.decode(record())}
+     * for multi-byte text.
+     */
+    public CharSequence text() {
+        return textView;
+    }
+    
+    /**
+     * File offset of the current record.
+     */
+    public long recordOffset() {
+        return cursor.windowStart + cursor.recordStart;
+    }
+    
+    /**
+     * Splittable spliterator over the whole file, yielding one read-only slice per record.
+     */
+    public Spliterator<ByteBuffer> spliterator() {
+        return new RecordSpliterator(0, fileSize);
+    }
+    
+    /**
+     * Stream of record slices. Closing the stream closes the reader.
+     */
+    public Stream<ByteBuffer> records(boolean parallel) {
+        return StreamSupport.stream(spliterator(), parallel).onClose(this::closeQuietly);
+    }
+    
+    /**
+     * Stream of single-byte character views, the zero-copy counterpart of {@code Files.lines}.
+     * Closing the stream closes the reader.
+     */
+    public Stream<CharSequence> lines(boolean parallel) {
+        return records(parallel).map(ByteSequence::new);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        logger.info("Closed record reader: {}", path);
+    }
+    
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    /**
+     * Find the first record boundary at or after {@code from}, or -1 if none before {@code end}.
+     */
+    private long nextBoundary(long from, long end) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(8192);
+        long position = from;
+        
+        while (position < end) {
+            chunk.clear();
+            chunk.limit((int) Math.min(chunk.capacity(), end - position));
+            int read = channel.read(chunk, position);
+            if (read <= 0) {
+                return -1;
+            }
+            for (int i = 0; i < read; i++) {
+                if (chunk.get(i) == delimiter) {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return -1;
+    }
+    
+    /**
+     * Walks the records of [position, end) through sliding windows.
+     * {@code end} is always a record boundary or the end of file.
+     */
+    private final class Cursor {
+        long position;
+        final long end;
+        
+        MappedByteBuffer window;
+        long windowStart;
+        int windowLength;
+        int recordStart;
+        int recordEnd;
+        
+        Cursor(long position, long end) {
+            this.position = position;
+            this.end = end;
+        }
+        
+        boolean advance() throws IOException {
+            if (position >= end) {
+                return false;
+            }
+            if (window == null || position >= windowStart + windowLength) {
+                map(position, windowSize);
+            }
+            
+            while (true) {
+                int from = (int) (position - windowStart);
+                int limit = windowLength;
+                int index = indexOf(from, limit);
+                
+                if (index >= 0) {
+                    setRecord(from, index);
+                    position = windowStart + index + 1;
+                    return true;
+                }
+                
+                if (windowStart + windowLength >= end) {
+                    // Last record of the range has no trailing delimiter
+                    setRecord(from, limit);
+                    position = end;
+                    return true;
+                }
+                
+                // Record crosses the window edge: restart the window at the record,
+                // growing it when the record alone is larger than a window
+                int size = from == 0 ? growWindow() : windowSize;
+                map(position, size);
+            }
+        }
+        
+        private int growWindow() throws IOException {
+            if (windowLength >= MAX_WINDOW_SIZE) {
+                throw new IOException("Record at offset " + position + " exceeds maximum mapping size");
+            }
+            return (int) Math.min((long) windowLength * 2, MAX_WINDOW_SIZE);
+        }
+        
+        private void map(long start, int size) throws IOException {
+            windowStart = start;
+            windowLength = (int) Math.min(size, end - start);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+        }
+        
+        private int indexOf(int from, int limit) {
+            for (int i = from; i < limit; i++) {
+                if (window.get(i) == delimiter) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        
+        private void setRecord(int start, int endExclusive) {
+            // Match Files.lines: drop the CR of a CRLF line ending
+            if (delimiter == '\n' && endExclusive > start && window.get(endExclusive - 1) == '\r') {
+                endExclusive--;
+            }
+            recordStart = start;
+            recordEnd = endExclusive;
+        }
+        
+        ByteBuffer slice() {
+            ByteBuffer slice = window.duplicate();
+            slice.limit(recordEnd).position(recordStart);
+            return slice.slice();
+        }
+    }
+    
+    /**
+     * Spliterator over a byte range; splits are aligned to the next record boundary.
+     */
+    private final class RecordSpliterator implements Spliterator<ByteBuffer> {
+        private Cursor cursor;
+        
+        RecordSpliterator(long start, long end) {
+            this.cursor = new Cursor(start, end);
+        }
+        
+        @Override
+        public boolean tryAdvance(Consumer<? super ByteBuffer> action) {
+            try {
+                if (!cursor.advance()) {
+                    return false;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            action.accept(cursor.slice());
+            return true;
+        }
+        
+        @Override
+        public Spliterator<ByteBuffer> trySplit() {
+            long start = cursor.position;
+            long end = cursor.end;
+            if (end - start < 2 * MIN_SPLIT_SIZE) {
+                return null;
+            }
+            
+            long split;
+            try {
+                split = nextBoundary(start + (end - start) / 2, end);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (split < 0 || split >= end) {
+                return null;
+            }
+            
+            RecordSpliterator prefix = new RecordSpliterator(start, split);
+            cursor = new Cursor(split, end);
+            return prefix;
+        }
+        
+        @Override
+        public long estimateSize() {
+            // Remaining bytes: an upper bound on the number of records
+            return cursor.end - cursor.position;
+        }
+        
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | IMMUTABLE;
+        }
+    }
+    
+    /**
+     * Single-byte character view over a region of a buffer.
+     */
+    static final class ByteSequence implements CharSequence {
+        ByteBuffer buffer;
+        private int start;
+        private int end;
+        
+        ByteSequence() {
+        }
+        
+        ByteSequence(ByteBuffer record) {
+            this.buffer = record;
+            this.start = record.position();
+            this.end = record.limit();
+        }
+        
+        private ByteSequence(ByteBuffer buffer, int start, int end) {
+            this.buffer = buffer;
+            this.start = start;
+            this.end = end;
+        }
+        
+        void reset(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+        
+        @Override
+        public int length() {
+            return end - start;
+        }
+        
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException("index " + index);
+            }
+            return (char) (buffer.get(start + index) & 0xFF);
+        }
+        
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            if (from < 0 || to > end - start || from > to) {
+                throw new IndexOutOfBoundsException("range [" + from + ", " + to + ")");
+            }
+            return new ByteSequence(buffer, start + from, start + to);
+        }
+        
+        @Override
+        public String toString() {
+            byte[] bytes = new byte[end - start];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(start + i);
+            }
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.nio2.memory;
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
@@ -9,6 +10,10 @@ import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.LongStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,6 +23,11 @@ import org.slf4j.LoggerFactory;
 public class MemoryMappedFile implements AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(MemoryMappedFile.class);
     
+    // Parallel scans: default chunk size and SWAR constants
+    private static final int PARALLEL_CHUNK_SIZE = 16 * 1024 * 1024;
+    private static final long NEWLINES = 0x0A0A0A0A0A0A0A0AL;
+    private static final long LOW_SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+    
     private final Path path;
     private final RandomAccessFile file;
     private final FileChannel channel;
@@ -37,6 +47,7 @@ public class MemoryMappedFile implements AutoCloseable {
     
     /**
      * Map the entire file into memory.
+     * A single mapping is limited to 2GB; use {@link MappedRecordReader} for larger files.
      */
     public MappedByteBuffer mapEntireFile() throws IOException {
         long size = channel.size();
@@ -217,22 +228,265 @@ public class MemoryMappedFile implements AutoCloseable {
     }
     
     private static long searchInBuffer(ByteBuffer buffer, byte[] pattern, long bufferOffset) {
-        int patternLength = pattern.length;
-        int limit = buffer.limit() - patternLength + 1;
-        
-        for (int i = buffer.position(); i < limit; i++) {
-            boolean found = true;
-            for (int j = 0; j < patternLength; j++) {
-                if (buffer.get(i + j) != pattern[j]) {
-                    found = false;
-                    break;
+        int index = horspool(buffer, buffer.position(), buffer.limit() - pattern.length + 1,
+                             pattern, shiftTable(pattern));
+        return index >= 0 ? bufferOffset + index : -1;
+    }
+    
+    /**
+     * Count lines using 16 MB chunks processed in parallel on the common pool.
+     */
+    public static long countLinesParallel(Path path) throws IOException {
+        return countLinesParallel(path, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Count lines using 16 MB chunks processed in parallel on the given pool.
+     * Each chunk is scanned eight bytes at a time (SWAR).
+     */
+    public static long countLinesParallel(Path path, ForkJoinPool pool) throws IOException {
+        return countLinesParallel(path, pool, PARALLEL_CHUNK_SIZE);
+    }
+    
+    /**
+     * Count lines in parallel using chunks of {@code chunkSize} bytes.
+     * Any positive size is accepted and used as is; it is not rounded to a page multiple.
+     * Smaller chunks expose more parallelism on small files; larger chunks map fewer regions.
+     */
+    public static long countLinesParallel(Path path, ForkJoinPool pool, int chunkSize) throws IOException {
+        checkChunkSize(chunkSize);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            int chunks = chunkCount(fileSize, chunkSize);
+            return pool.invoke(new LineCountTask(channel, fileSize, chunkSize, 0, chunks));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    /**
+     * Find every occurrence of a pattern (overlapping matches included) using
+     * Boyer-Moore-Horspool over 16 MB chunks processed in parallel.
+     *
+     * @return match offsets in ascending order
+     */
+    public static long[] findAllPatterns(Path path, byte[] pattern) throws IOException {
+        return findAllPatterns(path, pattern, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Find every occurrence of a pattern using the given pool.
+     * Chunks overlap by {@code pattern.length - 1} bytes so matches straddling a chunk
+     * edge are found; each match is reported only by the chunk it starts in.
+     *
+     * @return match offsets in ascending order
+     */
+    public static long[] findAllPatterns(Path path, byte[] pattern, ForkJoinPool pool) 
+            throws IOException {
+        return findAllPatterns(path, pattern, pool, PARALLEL_CHUNK_SIZE);
+    }
+    
+    /**
+     * Find every occurrence of a pattern in parallel using chunks of {@code chunkSize} bytes.
+     * Any positive size is accepted and used as is; it is not rounded to a page multiple.
+     *
+     * @return match offsets in ascending order
+     */
+    public static long[] findAllPatterns(Path path, byte[] pattern, ForkJoinPool pool, int chunkSize) 
+            throws IOException {
+        checkChunkSize(chunkSize);
+        if (pattern.length == 0) {
+            throw new IllegalArgumentException("Pattern must not be empty");
+        }
+        
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            int chunks = chunkCount(fileSize, chunkSize);
+            return pool.invoke(new SearchTask(channel, fileSize, chunkSize, pattern, shiftTable(pattern), 0, chunks));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    private static int chunkCount(long fileSize, int chunkSize) {
+        long chunks = (fileSize + chunkSize - 1) / chunkSize;
+        if (chunks > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Chunk size " + chunkSize + " is too small for " + fileSize + " bytes");
+        }
+        return (int) chunks;
+    }
+    
+    private static void checkChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+    }
+    
+    /**
+     * Splits a range of chunks until a single chunk remains, then counts its newlines.
+     */
+    private static class LineCountTask extends RecursiveTask<Long> {
+        private final FileChannel channel;
+        private final long fileSize;
+        private final int chunkSize;
+        private final int fromChunk;
+        private final int toChunk;
+        
+        LineCountTask(FileChannel channel, long fileSize, int chunkSize, int fromChunk, int toChunk) {
+            this.channel = channel;
+            this.fileSize = fileSize;
+            this.chunkSize = chunkSize;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+        
+        @Override
+        protected Long compute() {
+            if (toChunk - fromChunk > 1) {
+                int mid = (fromChunk + toChunk) >>> 1;
+                LineCountTask left = new LineCountTask(channel, fileSize, chunkSize, fromChunk, mid);
+                left.fork();
+                long right = new LineCountTask(channel, fileSize, chunkSize, mid, toChunk).compute();
+                return left.join() + right;
+            }
+            if (fromChunk >= toChunk) {
+                return 0L;
+            }
+            
+            long start = (long) fromChunk * chunkSize;
+            long size = Math.min(chunkSize, fileSize - start);
+            try {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+                long count = countNewlines(buffer, (int) size);
+                cleanMappedByteBuffer(buffer);
+                return count;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+    
+    /**
+     * Splits a range of chunks until a single chunk remains, then searches it.
+     */
+    private static class SearchTask extends RecursiveTask<long[]> {
+        private final FileChannel channel;
+        private final long fileSize;
+        private final int chunkSize;
+        private final byte[] pattern;
+        private final int[] shift;
+        private final int fromChunk;
+        private final int toChunk;
+        
+        SearchTask(FileChannel channel, long fileSize, int chunkSize, byte[] pattern, int[] shift,
+                   int fromChunk, int toChunk) {
+            this.channel = channel;
+            this.fileSize = fileSize;
+            this.chunkSize = chunkSize;
+            this.pattern = pattern;
+            this.shift = shift;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+        
+        @Override
+        protected long[] compute() {
+            if (toChunk - fromChunk > 1) {
+                int mid = (fromChunk + toChunk) >>> 1;
+                SearchTask left = new SearchTask(channel, fileSize, chunkSize, pattern, shift, fromChunk, mid);
+                left.fork();
+                long[] right = new SearchTask(channel, fileSize, chunkSize, pattern, shift, mid, toChunk).compute();
+                long[] leftMatches = left.join();
+                
+                long[] merged = Arrays.copyOf(leftMatches, leftMatches.length + right.length);
+                System.arraycopy(right, 0, merged, leftMatches.length, right.length);
+                return merged;
+            }
+            if (fromChunk >= toChunk) {
+                return new long[0];
+            }
+            
+            long start = (long) fromChunk * chunkSize;
+            long chunkEnd = Math.min(start + chunkSize, fileSize);
+            long mapEnd = Math.min(chunkEnd + pattern.length - 1, fileSize);
+            try {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, mapEnd - start);
+                
+                // Only matches that start inside this chunk belong to it
+                int startLimit = (int) Math.min(chunkEnd - start, mapEnd - start - pattern.length + 1);
+                LongStream.Builder matches = LongStream.builder();
+                int from = 0;
+                int index;
+                while ((index = horspool(buffer, from, startLimit, pattern, shift)) >= 0) {
+                    matches.add(start + index);
+                    from = index + 1;
                 }
+                
+                cleanMappedByteBuffer(buffer);
+                return matches.build().toArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-            if (found) {
-                return bufferOffset + i;
+        }
+    }
+    
+    /**
+     * Count '\n' bytes eight at a time: a byte of {@code word ^ 0x0A..0A} is zero exactly
+     * where the input byte is a newline, and the zero-byte mask marks each one with 0x80.
+     */
+    private static long countNewlines(ByteBuffer buffer, int length) {
+        long count = 0;
+        int i = 0;
+        int wordLimit = length - Long.BYTES;
+        
+        for (; i <= wordLimit; i += Long.BYTES) {
+            long x = buffer.getLong(i) ^ NEWLINES;
+            long zeroBytes = ~(((x & LOW_SEVEN_BITS) + LOW_SEVEN_BITS) | x | LOW_SEVEN_BITS);
+            count += Long.bitCount(zeroBytes);
+        }
+        
+        for (; i < length; i++) {
+            if (buffer.get(i) == '\n') {
+                count++;
             }
         }
+        return count;
+    }
+    
+    /**
+     * Boyer-Moore-Horspool bad-character table.
+     */
+    private static int[] shiftTable(byte[] pattern) {
+        int[] shift = new int[256];
+        Arrays.fill(shift, pattern.length);
+        for (int i = 0; i < pattern.length - 1; i++) {
+            shift[pattern[i] & 0xFF] = pattern.length - 1 - i;
+        }
+        return shift;
+    }
+    
+    /**
+     * Boyer-Moore-Horspool search for a match starting in [from, startLimit).
+     *
+     * @return buffer index of the first match, or -1
+     */
+    private static int horspool(ByteBuffer buffer, int from, int startLimit, byte[] pattern, int[] shift) {
+        int last = pattern.length - 1;
+        int i = from;
         
+        while (i < startLimit) {
+            byte tail = buffer.get(i + last);
+            if (tail == pattern[last]) {
+                int j = last - 1;
+                while (j >= 0 && buffer.get(i + j) == pattern[j]) {
+                    j--;
+                }
+                if (j < 0) {
+                    return i;
+                }
+            }
+            i += shift[tail & 0xFF];
+        }
         return -1;
     }
     
@@ -2,12 +2,17 @@ package com.example.nio2.memory;
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
@@ -186,110 +191,301 @@ public class SharedMemoryFile implements AutoCloseable {
     }
     
     /**
-     * Simple message queue implementation using shared memory.
+     * Lock-free multi-producer/multi-consumer ring buffer on top of the shared mapping.
+     *
+     * <p>Every slot carries its own sequence number (Vyukov's bounded MPMC queue), so
+     * producers and consumers claim slots with a single CAS on the tail/head counter
+     * instead of locking the file. The counters live on separate cache lines and are
+     * updated with {@link VarHandle} atomics, which work across processes because both
+     * sides address the same physical pages.
+     *
+     * <p>Layout (absolute offsets in the mapped file):
+     * <pre>
+     *   0   SharedMemoryFile header
+     *   64  magic, capacity, max message size
+     *   128 tail (next enqueue sequence)
+     *   256 head (next dequeue sequence)
+     *   384 slots: [sequence:8][length:4][payload...]
+     * </pre>
+     * Messages are stored as length-prefixed frames, so no padding or trimming is needed
+     * and messages that end with zero bytes survive the round trip.
      */
-    public static class SharedMemoryQueue {
+    public static class SharedMemoryQueue implements AutoCloseable {
+        private static final int MAGIC = 0x51554531; // "QUE1"
+        private static final int INITIALIZING = -1;
+        
+        private static final int CONFIG_OFFSET = 64;
+        private static final int CAPACITY_OFFSET = CONFIG_OFFSET + 4;
+        private static final int MESSAGE_SIZE_OFFSET = CONFIG_OFFSET + 8;
+        private static final int TAIL_OFFSET = 128;
+        private static final int HEAD_OFFSET = 256;
+        private static final int SLOTS_OFFSET = 384;
+        
+        private static final int SLOT_SEQUENCE = 0;
+        private static final int SLOT_LENGTH = 8;
+        private static final int SLOT_PAYLOAD = 12;
+        
+        private static final long INIT_TIMEOUT_MS = 5000;
+        
+        private static final VarHandle INT_VIEW =
+            MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+        private static final VarHandle LONG_VIEW =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+        
         private final SharedMemoryFile sharedMemory;
+        private final ByteBuffer buffer;
         private final int messageSize;
         private final int queueCapacity;
-        private static final int METADATA_SIZE = 12; // head, tail, count
+        private final int slotSize;
+        
+        // Positional bulk copies need a private view per thread
+        private final ThreadLocal<ByteBuffer> views;
         
         public SharedMemoryQueue(Path path, int messageSize, int queueCapacity) 
                 throws IOException {
+            if (messageSize <= 0 || queueCapacity <= 0) {
+                throw new IllegalArgumentException("Message size and capacity must be positive");
+            }
             this.messageSize = messageSize;
             this.queueCapacity = queueCapacity;
+            this.slotSize = align(SLOT_PAYLOAD + messageSize, Long.BYTES);
             
-            int totalSize = METADATA_SIZE + (messageSize * queueCapacity);
-            this.sharedMemory = new SharedMemoryFile(path, totalSize);
-            
-            // Initialize if new
-            if (sharedMemory.getWriteCount() == 0) {
-                initializeQueue();
+            long totalSize = (long) SLOTS_OFFSET - HEADER_SIZE + (long) slotSize * queueCapacity;
+            if (totalSize > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Queue does not fit in a single mapping");
             }
+            this.sharedMemory = new SharedMemoryFile(path, (int) totalSize);
+            this.buffer = sharedMemory.buffer;
+            this.views = ThreadLocal.withInitial(buffer::duplicate);
+            
+            initializeQueue();
         }
         
+        /**
+         * Initialize the ring exactly once, even when several processes open it together.
+         */
         private void initializeQueue() throws IOException {
-            byte[] metadata = new byte[METADATA_SIZE];
-            ByteBuffer metaBuffer = ByteBuffer.wrap(metadata);
-            metaBuffer.putInt(0); // head
-            metaBuffer.putInt(0); // tail
-            metaBuffer.putInt(0); // count
-            sharedMemory.writeData(0, metadata);
-        }
-        
-        public boolean enqueue(byte[] message) throws IOException {
-            if (message.length > messageSize) {
-                throw new IllegalArgumentException("Message too large");
+            if (INT_VIEW.compareAndSet(buffer, CONFIG_OFFSET, 0, INITIALIZING)) {
+                buffer.putInt(CAPACITY_OFFSET, queueCapacity);
+                buffer.putInt(MESSAGE_SIZE_OFFSET, messageSize);
+                LONG_VIEW.setVolatile(buffer, TAIL_OFFSET, 0L);
+                LONG_VIEW.setVolatile(buffer, HEAD_OFFSET, 0L);
+                for (int i = 0; i < queueCapacity; i++) {
+                    LONG_VIEW.setVolatile(buffer, slotOffset(i) + SLOT_SEQUENCE, (long) i);
+                }
+                INT_VIEW.setVolatile(buffer, CONFIG_OFFSET, MAGIC);
+                logger.info("Initialized shared queue (capacity: {}, message size: {})",
+                    queueCapacity, messageSize);
+                return;
             }
             
-            byte[] metadata = sharedMemory.readData(0, METADATA_SIZE);
-            ByteBuffer metaBuffer = ByteBuffer.wrap(metadata);
-            int head = metaBuffer.getInt();
-            int tail = metaBuffer.getInt();
-            int count = metaBuffer.getInt();
-            
-            if (count >= queueCapacity) {
-                return false; // Queue full
+            long deadline = System.currentTimeMillis() + INIT_TIMEOUT_MS;
+            int magic;
+            while ((magic = (int) INT_VIEW.getVolatile(buffer, CONFIG_OFFSET)) == INITIALIZING) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IOException("Timed out waiting for queue initialization");
+                }
+                Thread.onSpinWait();
             }
             
-            // Write message
-            int offset = METADATA_SIZE + (tail * messageSize);
-            byte[] paddedMessage = new byte[messageSize];
-            System.arraycopy(message, 0, paddedMessage, 0, message.length);
-            sharedMemory.writeData(offset, paddedMessage);
-            
-            // Update metadata
-            tail = (tail + 1) % queueCapacity;
-            count++;
-            metaBuffer.rewind();
-            metaBuffer.putInt(head);
-            metaBuffer.putInt(tail);
-            metaBuffer.putInt(count);
-            sharedMemory.writeData(0, metadata);
-            
-            return true;
+            if (magic != MAGIC) {
+                throw new IllegalStateException("File is not a shared memory queue");
+            }
+            if (buffer.getInt(CAPACITY_OFFSET) != queueCapacity
+                    || buffer.getInt(MESSAGE_SIZE_OFFSET) != messageSize) {
+                throw new IllegalStateException(String.format(
+                    "Queue layout mismatch: capacity=%d, messageSize=%d",
+                    buffer.getInt(CAPACITY_OFFSET), buffer.getInt(MESSAGE_SIZE_OFFSET)));
+            }
         }
         
-        public byte[] dequeue() throws IOException {
-            byte[] metadata = sharedMemory.readData(0, METADATA_SIZE);
-            ByteBuffer metaBuffer = ByteBuffer.wrap(metadata);
-            int head = metaBuffer.getInt();
-            int tail = metaBuffer.getInt();
-            int count = metaBuffer.getInt();
+        /**
+         * Enqueue a single message.
+         *
+         * @return false if the queue is full
+         */
+        public boolean enqueue(byte[] message) {
+            checkMessage(message);
             
-            if (count == 0) {
-                return null; // Queue empty
+            long tail = (long) LONG_VIEW.getVolatile(buffer, TAIL_OFFSET);
+            while (true) {
+                int slot = slotOffset(tail);
+                long sequence = (long) LONG_VIEW.getAcquire(buffer, slot + SLOT_SEQUENCE);
+                long diff = sequence - tail;
+                
+                if (diff == 0) {
+                    long witness = (long) LONG_VIEW.compareAndExchange(buffer, TAIL_OFFSET, tail, tail + 1);
+                    if (witness == tail) {
+                        publish(slot, tail, message);
+                        return true;
+                    }
+                    tail = witness;
+                } else if (diff < 0) {
+                    return false; // Queue full
+                } else {
+                    tail = (long) LONG_VIEW.getVolatile(buffer, TAIL_OFFSET);
+                }
+            }
+        }
+        
+        /**
+         * Enqueue as many messages as fit, claiming all their slots with a single CAS.
+         *
+         * @return number of messages enqueued, starting from the head of the list
+         */
+        public int enqueue(List<byte[]> messages) {
+            if (messages.isEmpty()) {
+                return 0; // Nothing to claim; the free-slot scan below would never make progress
+            }
+            for (byte[] message : messages) {
+                checkMessage(message);
             }
             
-            // Read message
-            int offset = METADATA_SIZE + (head * messageSize);
-            byte[] message = sharedMemory.readData(offset, messageSize);
-            
-            // Update metadata
-            head = (head + 1) % queueCapacity;
-            count--;
-            metaBuffer.rewind();
-            metaBuffer.putInt(head);
-            metaBuffer.putInt(tail);
-            metaBuffer.putInt(count);
-            sharedMemory.writeData(0, metadata);
-            
-            // Trim padding
-            int actualLength = 0;
-            for (int i = message.length - 1; i >= 0; i--) {
-                if (message[i] != 0) {
-                    actualLength = i + 1;
-                    break;
+            while (true) {
+                long tail = (long) LONG_VIEW.getVolatile(buffer, TAIL_OFFSET);
+                
+                // Count consecutive free slots; they stay free until we publish them
+                int free = 0;
+                while (free < messages.size()) {
+                    long sequence = (long) LONG_VIEW.getAcquire(buffer, slotOffset(tail + free) + SLOT_SEQUENCE);
+                    if (sequence != tail + free) {
+                        break;
+                    }
+                    free++;
+                }
+                
+                if (free == 0) {
+                    long sequence = (long) LONG_VIEW.getAcquire(buffer, slotOffset(tail) + SLOT_SEQUENCE);
+                    if (sequence < tail) {
+                        return 0; // Queue full
+                    }
+                    continue; // Another producer moved the tail
                 }
+                
+                if (LONG_VIEW.compareAndSet(buffer, TAIL_OFFSET, tail, tail + free)) {
+                    for (int i = 0; i < free; i++) {
+                        publish(slotOffset(tail + i), tail + i, messages.get(i));
+                    }
+                    return free;
+                }
+            }
+        }
+        
+        /**
+         * Dequeue a single message.
+         *
+         * @return the message, or null if the queue is empty
+         */
+        public byte[] dequeue() {
+            long head = (long) LONG_VIEW.getVolatile(buffer, HEAD_OFFSET);
+            while (true) {
+                int slot = slotOffset(head);
+                long sequence = (long) LONG_VIEW.getAcquire(buffer, slot + SLOT_SEQUENCE);
+                long diff = sequence - (head + 1);
+                
+                if (diff == 0) {
+                    long witness = (long) LONG_VIEW.compareAndExchange(buffer, HEAD_OFFSET, head, head + 1);
+                    if (witness == head) {
+                        return consume(slot, head);
+                    }
+                    head = witness;
+                } else if (diff < 0) {
+                    return null; // Queue empty
+                } else {
+                    head = (long) LONG_VIEW.getVolatile(buffer, HEAD_OFFSET);
+                }
+            }
+        }
+        
+        /**
+         * Move up to {@code maxMessages} available messages into the given collection,
+         * claiming them with a single CAS.
+         *
+         * @return number of messages transferred
+         */
+        public int drainTo(Collection<? super byte[]> sink, int maxMessages) {
+            if (maxMessages <= 0) {
+                return 0;
             }
             
-            byte[] trimmed = new byte[actualLength];
-            System.arraycopy(message, 0, trimmed, 0, actualLength);
-            return trimmed;
+            while (true) {
+                long head = (long) LONG_VIEW.getVolatile(buffer, HEAD_OFFSET);
+                
+                // Count consecutive published slots; only the claiming consumer can recycle them
+                int ready = 0;
+                while (ready < maxMessages && ready < queueCapacity) {
+                    long sequence = (long) LONG_VIEW.getAcquire(buffer, slotOffset(head + ready) + SLOT_SEQUENCE);
+                    if (sequence != head + ready + 1) {
+                        break;
+                    }
+                    ready++;
+                }
+                
+                if (ready == 0) {
+                    long sequence = (long) LONG_VIEW.getAcquire(buffer, slotOffset(head) + SLOT_SEQUENCE);
+                    if (sequence < head + 1) {
+                        return 0; // Queue empty
+                    }
+                    continue; // Another consumer moved the head
+                }
+                
+                if (LONG_VIEW.compareAndSet(buffer, HEAD_OFFSET, head, head + ready)) {
+                    for (int i = 0; i < ready; i++) {
+                        sink.add(consume(slotOffset(head + i), head + i));
+                    }
+                    return ready;
+                }
+            }
+        }
+        
+        /**
+         * Approximate number of messages in the queue.
+         */
+        public int size() {
+            long head = (long) LONG_VIEW.getVolatile(buffer, HEAD_OFFSET);
+            long tail = (long) LONG_VIEW.getVolatile(buffer, TAIL_OFFSET);
+            return (int) Math.max(0, Math.min(tail - head, queueCapacity));
+        }
+        
+        public int capacity() {
+            return queueCapacity;
+        }
+        
+        private void publish(int slot, long sequence, byte[] message) {
+            buffer.putInt(slot + SLOT_LENGTH, message.length);
+            ByteBuffer view = views.get();
+            view.clear().position(slot + SLOT_PAYLOAD);
+            view.put(message);
+            LONG_VIEW.setRelease(buffer, slot + SLOT_SEQUENCE, sequence + 1);
+        }
+        
+        private byte[] consume(int slot, long sequence) {
+            int length = buffer.getInt(slot + SLOT_LENGTH);
+            byte[] message = new byte[length];
+            ByteBuffer view = views.get();
+            view.clear().position(slot + SLOT_PAYLOAD);
+            view.get(message);
+            LONG_VIEW.setRelease(buffer, slot + SLOT_SEQUENCE, sequence + queueCapacity);
+            return message;
+        }
+        
+        private void checkMessage(byte[] message) {
+            if (message.length > messageSize) {
+                throw new IllegalArgumentException("Message too large");
+            }
+        }
+        
+        private int slotOffset(long sequence) {
+            return SLOTS_OFFSET + (int) (sequence % queueCapacity) * slotSize;
+        }
+        
+        private static int align(int value, int alignment) {
+            return (value + alignment - 1) & -alignment;
         }
         
+        @Override
         public void close() throws IOException {
             sharedMemory.close();
         }
     }
-}
\ No newline at end of file
+}
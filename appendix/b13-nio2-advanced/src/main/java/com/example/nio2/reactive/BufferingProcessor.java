@@ -0,0 +1,220 @@
+package com.example.nio2.reactive;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow.*;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Batching stage that collects items into lists of up to {@code size} elements.
+ *
+ * <p>A batch is emitted when it is full or when {@code timeout} has passed since its first
+ * item arrived, whichever comes first, so slow sources still make progress downstream.
+ * Each requested batch asks upstream for {@code size} items. Batches sealed by the timeout
+ * wait in a queue until downstream has demand for them.
+ */
+public class BufferingProcessor<T> implements Processor<T, List<T>> {
+    private static final ScheduledExecutorService DEFAULT_TIMER =
+        Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "buffer-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+    
+    private final int size;
+    private final long timeoutNanos;
+    private final ScheduledExecutorService timer;
+    
+    private final Queue<T> incoming = new ConcurrentLinkedQueue<>();
+    private final Queue<List<T>> ready = new ConcurrentLinkedQueue<>();
+    private final AtomicLong requested = new AtomicLong(0);
+    private final AtomicLong upstreamCredit = new AtomicLong(0);
+    private final AtomicInteger wip = new AtomicInteger(0);
+    
+    private volatile Subscription upstream;
+    private volatile Subscriber<? super List<T>> downstream;
+    private volatile boolean done;
+    private volatile boolean cancelled;
+    private volatile Throwable error;
+    private volatile long expiredBatch = -1;
+    
+    // Only touched inside drain()
+    private List<T> batch;
+    private long batchId;
+    private ScheduledFuture<?> batchTimeout;
+    private boolean terminated;
+    
+    public BufferingProcessor(int size, Duration timeout) {
+        this(size, timeout, DEFAULT_TIMER);
+    }
+    
+    public BufferingProcessor(int size, Duration timeout, ScheduledExecutorService timer) {
+        if (size <= 0 || timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Batch size and timeout must be positive");
+        }
+        this.size = size;
+        this.timeoutNanos = timeout.toNanos();
+        this.timer = Objects.requireNonNull(timer);
+    }
+    
+    @Override
+    public void subscribe(Subscriber<? super List<T>> subscriber) {
+        this.downstream = subscriber;
+        subscriber.onSubscribe(new Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    onError(new IllegalArgumentException("Requested amount must be positive: " + n));
+                    return;
+                }
+                requested.getAndUpdate(current -> add(current, n));
+                long items = n > Long.MAX_VALUE / size ? Long.MAX_VALUE : n * size;
+                upstreamCredit.getAndUpdate(current -> add(current, items));
+                drain();
+            }
+            
+            @Override
+            public void cancel() {
+                cancelled = true;
+                Subscription source = upstream;
+                if (source != null) {
+                    source.cancel();
+                }
+                drain();
+            }
+        });
+        drain();
+    }
+    
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        this.upstream = subscription;
+        drain();
+    }
+    
+    @Override
+    public void onNext(T item) {
+        incoming.offer(item);
+        drain();
+    }
+    
+    @Override
+    public void onError(Throwable throwable) {
+        if (error == null) {
+            error = throwable;
+        }
+        done = true;
+        drain();
+    }
+    
+    @Override
+    public void onComplete() {
+        done = true;
+        drain();
+    }
+    
+    private static long add(long current, long n) {
+        long sum = current + n;
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+    
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        
+        int missed = 1;
+        do {
+            if (terminated) {
+                return;
+            }
+            if (cancelled) {
+                terminate();
+                return;
+            }
+            
+            Subscriber<? super List<T>> subscriber = downstream;
+            Subscription source = upstream;
+            if (subscriber != null && source != null) {
+                if (error != null) {
+                    terminate();
+                    source.cancel();
+                    subscriber.onError(error);
+                    return;
+                }
+                
+                long credit = upstreamCredit.getAndSet(0);
+                if (credit > 0) {
+                    source.request(credit);
+                }
+                
+                T item;
+                while ((item = incoming.poll()) != null) {
+                    if (batch == null) {
+                        openBatch();
+                    }
+                    batch.add(item);
+                    if (batch.size() == size) {
+                        sealBatch();
+                    }
+                }
+                if (batch != null && (expiredBatch == batchId || done)) {
+                    sealBatch();
+                }
+                
+                long demand = requested.get();
+                long count = 0;
+                List<T> next;
+                while (count != demand && (next = ready.poll()) != null) {
+                    count++;
+                    subscriber.onNext(next);
+                }
+                if (count != 0 && demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-count);
+                }
+                
+                if (done && ready.isEmpty() && incoming.isEmpty()) {
+                    terminate();
+                    subscriber.onComplete();
+                    return;
+                }
+            }
+            
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+    
+    private void openBatch() {
+        batch = new ArrayList<>(size);
+        long id = ++batchId;
+        batchTimeout = timer.schedule(() -> {
+            expiredBatch = id;
+            drain();
+        }, timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    private void sealBatch() {
+        batchTimeout.cancel(false);
+        ready.offer(batch);
+        batch = null;
+    }
+    
+    private void terminate() {
+        terminated = true;
+        if (batchTimeout != null) {
+            batchTimeout.cancel(false);
+        }
+        batch = null;
+        incoming.clear();
+        ready.clear();
+    }
+}
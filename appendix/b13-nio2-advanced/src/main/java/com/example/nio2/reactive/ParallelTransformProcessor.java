@@ -0,0 +1,243 @@
+package com.example.nio2.reactive;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow.*;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Transformation stage that applies its function on an executor, up to {@code parallelism}
+ * items at a time.
+ *
+ * <p>Upstream is asked for at most {@code prefetch} items beyond those already emitted, and
+ * one more item is requested for every item handed downstream, so the stage never holds
+ * more than {@code prefetch} items no matter how slow downstream is. In ordered mode the
+ * results pass through a reorder ring of that size and leave in arrival order; otherwise
+ * they are emitted as soon as they complete.
+ *
+ * <p>Created through {@link ReactiveFileProcessor.TransformProcessor#parallel}.
+ */
+public class ParallelTransformProcessor<T, R> implements Processor<T, R> {
+    private static final Logger logger = LoggerFactory.getLogger(ParallelTransformProcessor.class);
+    
+    private final Function<? super T, ? extends R> transformer;
+    private final int parallelism;
+    private final int prefetch;
+    private final Executor executor;
+    private final boolean ordered;
+    
+    private final Queue<Runnable> pendingTasks = new ConcurrentLinkedQueue<>();
+    private final AtomicReferenceArray<R> reorderBuffer;
+    private final Queue<R> completed = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger active = new AtomicInteger(0);
+    private final AtomicLong requested = new AtomicLong(0);
+    private final AtomicInteger wip = new AtomicInteger(0);
+    
+    private volatile Subscription upstream;
+    private volatile Subscriber<? super R> downstream;
+    private volatile long received;
+    private volatile boolean done;
+    private volatile boolean cancelled;
+    private volatile Throwable error;
+    
+    // Only touched inside drain()
+    private boolean started;
+    private boolean terminated;
+    private long emitted;
+    
+    public ParallelTransformProcessor(Function<? super T, ? extends R> transformer, int parallelism,
+                                      Executor executor, boolean ordered) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.transformer = Objects.requireNonNull(transformer);
+        this.executor = Objects.requireNonNull(executor);
+        this.parallelism = parallelism;
+        this.prefetch = parallelism * 2; // Keep workers busy while the head item finishes
+        this.ordered = ordered;
+        this.reorderBuffer = new AtomicReferenceArray<>(prefetch);
+    }
+    
+    @Override
+    public void subscribe(Subscriber<? super R> subscriber) {
+        this.downstream = subscriber;
+        subscriber.onSubscribe(new Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    fail(new IllegalArgumentException("Requested amount must be positive: " + n));
+                    return;
+                }
+                requested.getAndUpdate(current -> {
+                    long sum = current + n;
+                    return sum < 0 ? Long.MAX_VALUE : sum;
+                });
+                drain();
+            }
+            
+            @Override
+            public void cancel() {
+                cancelled = true;
+                Subscription source = upstream;
+                if (source != null) {
+                    source.cancel();
+                }
+                drain();
+            }
+        });
+        drain();
+    }
+    
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        this.upstream = subscription;
+        drain();
+    }
+    
+    @Override
+    public void onNext(T item) {
+        long sequence = received;
+        pendingTasks.offer(() -> transform(item, sequence));
+        received = sequence + 1; // onNext calls are serialized by the publisher
+        drain();
+    }
+    
+    @Override
+    public void onError(Throwable throwable) {
+        fail(throwable);
+    }
+    
+    @Override
+    public void onComplete() {
+        done = true;
+        drain();
+    }
+    
+    private void transform(T item, long sequence) {
+        try {
+            R result = Objects.requireNonNull(transformer.apply(item), "Transformer returned null");
+            if (ordered) {
+                reorderBuffer.set((int) (sequence % prefetch), result);
+            } else {
+                completed.offer(result);
+            }
+        } catch (Throwable t) {
+            fail(t);
+        } finally {
+            active.decrementAndGet();
+            drain();
+        }
+    }
+    
+    private void fail(Throwable throwable) {
+        if (error == null) {
+            error = throwable;
+        }
+        done = true;
+        drain();
+    }
+    
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        
+        int missed = 1;
+        do {
+            if (terminated) {
+                return;
+            }
+            if (cancelled) {
+                pendingTasks.clear();
+                terminated = true;
+                return;
+            }
+            
+            Subscriber<? super R> subscriber = downstream;
+            Subscription source = upstream;
+            if (subscriber != null && source != null) {
+                dispatch();
+                if (error != null) {
+                    terminated = true;
+                    pendingTasks.clear();
+                    source.cancel();
+                    subscriber.onError(error);
+                    return;
+                }
+                
+                if (!started && requested.get() > 0) {
+                    started = true;
+                    source.request(prefetch);
+                }
+                
+                // Emit finished results while downstream has demand
+                long demand = requested.get();
+                long count = 0;
+                while (count != demand) {
+                    R result;
+                    if (ordered) {
+                        int slot = (int) (emitted % prefetch);
+                        result = reorderBuffer.get(slot);
+                        if (result != null) {
+                            reorderBuffer.set(slot, null);
+                        }
+                    } else {
+                        result = completed.poll();
+                    }
+                    if (result == null) {
+                        break;
+                    }
+                    emitted++;
+                    count++;
+                    subscriber.onNext(result);
+                }
+                if (count != 0) {
+                    if (demand != Long.MAX_VALUE) {
+                        requested.addAndGet(-count);
+                    }
+                    if (!done) {
+                        source.request(count); // Each emitted item frees one slot
+                    }
+                }
+                
+                if (done && error == null && emitted == received) {
+                    terminated = true;
+                    subscriber.onComplete();
+                    return;
+                }
+            }
+            
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+    
+    private void dispatch() {
+        Runnable task;
+        while (active.get() < parallelism && (task = pendingTasks.poll()) != null) {
+            active.incrementAndGet();
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                active.decrementAndGet();
+                logger.error("Transform task rejected", e);
+                if (error == null) {
+                    error = e;
+                }
+                done = true;
+                return;
+            }
+        }
+    }
+    
+    public int getActiveCount() {
+        return active.get();
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.nio2.reactive;
+
+import com.example.nio2.async.DirectBufferPool;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Flow.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Demand-driven file publisher that emits raw chunks as pooled direct buffers.
+ *
+ * <p>Unlike {@link ReactiveFileReader}, it does not decode anything and keeps up to
+ * {@code min(requested, maxPrefetch)} reads in flight at increasing offsets. Chunks are
+ * emitted strictly in file order. Subscribers hand each buffer back through
+ * {@link #release(ByteBuffer)} once they are done with it, so a long file streams through
+ * a fixed set of buffers.
+ */
+public class ReactiveByteReader implements Publisher<ByteBuffer> {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveByteReader.class);
+    
+    private final Path path;
+    private final int chunkSize;
+    private final int maxPrefetch;
+    private final DirectBufferPool bufferPool;
+    
+    public ReactiveByteReader(Path path) {
+        this(path, 64 * 1024, 16); // 64KB chunks, 16 reads ahead
+    }
+    
+    public ReactiveByteReader(Path path, int chunkSize, int maxPrefetch) {
+        if (chunkSize <= 0 || maxPrefetch <= 0) {
+            throw new IllegalArgumentException("Chunk size and prefetch must be positive");
+        }
+        this.path = path;
+        this.chunkSize = chunkSize;
+        this.maxPrefetch = maxPrefetch;
+        // Prefetched chunks plus those still held downstream
+        this.bufferPool = new DirectBufferPool(chunkSize, maxPrefetch * 2);
+        logger.info("Created reactive byte reader for: {} (chunk: {} bytes, prefetch: {})",
+            path, chunkSize, maxPrefetch);
+    }
+    
+    /**
+     * Return an emitted buffer so it can be reused for a later chunk.
+     */
+    public void release(ByteBuffer buffer) {
+        bufferPool.release(buffer);
+    }
+    
+    public DirectBufferPool getBufferPool() {
+        return bufferPool;
+    }
+    
+    @Override
+    public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Subscriber cannot be null");
+        }
+        
+        ChunkSubscription subscription;
+        try {
+            subscription = new ChunkSubscription(subscriber);
+        } catch (IOException e) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+                
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(e);
+            return;
+        }
+        
+        subscriber.onSubscribe(subscription);
+        subscription.drain(); // Completes empty files without waiting for demand
+    }
+    
+    /**
+     * Subscription that issues reads ahead of emission and re-orders their completions.
+     *
+     * <p>All emission and read scheduling happens inside {@link #drain()}, which is
+     * serialized by a work-in-progress counter, so read completions and requests from
+     * any thread can trigger it safely.
+     */
+    private class ChunkSubscription implements Subscription {
+        private final Subscriber<? super ByteBuffer> subscriber;
+        private final AsynchronousFileChannel channel;
+        private final long fileSize;
+        private final long totalChunks;
+        
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final AtomicReferenceArray<ByteBuffer> ready;
+        private volatile Throwable error;
+        private volatile boolean cancelled;
+        private volatile boolean terminated;
+        
+        // Only touched inside drain()
+        private long nextToIssue;
+        private long nextToEmit;
+        
+        ChunkSubscription(Subscriber<? super ByteBuffer> subscriber) throws IOException {
+            this.subscriber = subscriber;
+            this.channel = AsynchronousFileChannel.open(path, StandardOpenOption.READ);
+            this.fileSize = channel.size();
+            this.totalChunks = (fileSize + chunkSize - 1) / chunkSize;
+            this.ready = new AtomicReferenceArray<>(maxPrefetch);
+        }
+        
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Requested amount must be positive: " + n);
+                drain();
+                return;
+            }
+            
+            // Add with overflow capped at Long.MAX_VALUE (unbounded)
+            requested.getAndUpdate(current -> {
+                long sum = current + n;
+                return sum < 0 ? Long.MAX_VALUE : sum;
+            });
+            drain();
+        }
+        
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+        
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            
+            int missed = 1;
+            do {
+                if (terminated) {
+                    return;
+                }
+                if (cancelled) {
+                    terminate();
+                    return;
+                }
+                if (error != null) {
+                    terminate();
+                    subscriber.onError(error);
+                    return;
+                }
+                
+                // Emit completed chunks in file order while there is demand
+                long demand = requested.get();
+                long emitted = 0;
+                while (emitted != demand && nextToEmit < totalChunks) {
+                    int slot = (int) (nextToEmit % maxPrefetch);
+                    ByteBuffer chunk = ready.get(slot);
+                    if (chunk == null) {
+                        break;
+                    }
+                    ready.set(slot, null);
+                    nextToEmit++;
+                    emitted++;
+                    subscriber.onNext(chunk);
+                }
+                if (emitted != 0 && demand != Long.MAX_VALUE) {
+                    requested.addAndGet(-emitted);
+                }
+                
+                if (nextToEmit == totalChunks) {
+                    terminate();
+                    subscriber.onComplete();
+                    return;
+                }
+                
+                // Keep up to min(demand, maxPrefetch) chunks read or in flight
+                long outstanding = nextToIssue - nextToEmit;
+                while (nextToIssue < totalChunks
+                        && outstanding < maxPrefetch
+                        && outstanding < requested.get()) {
+                    readChunk(nextToIssue++);
+                    outstanding++;
+                }
+                
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+        
+        private void readChunk(long index) {
+            long offset = index * chunkSize;
+            ByteBuffer buffer = bufferPool.acquire();
+            buffer.limit((int) Math.min(chunkSize, fileSize - offset));
+            
+            channel.read(buffer, offset, buffer, new CompletionHandler<Integer, ByteBuffer>() {
+                @Override
+                public void completed(Integer bytesRead, ByteBuffer attachment) {
+                    if (bytesRead > 0 && attachment.hasRemaining()) {
+                        // Short read: finish the chunk first
+                        channel.read(attachment, offset + attachment.position(), attachment, this);
+                        return;
+                    }
+                    
+                    attachment.flip();
+                    if (terminated) {
+                        bufferPool.release(attachment);
+                        return;
+                    }
+                    int slot = (int) (index % maxPrefetch);
+                    ready.set(slot, attachment);
+                    if (terminated) {
+                        // terminate() may have swept the slots before the set; whoever takes the buffer releases it
+                        ByteBuffer orphan = ready.getAndSet(slot, null);
+                        if (orphan != null) {
+                            bufferPool.release(orphan);
+                        }
+                        return;
+                    }
+                    drain();
+                }
+                
+                @Override
+                public void failed(Throwable exc, ByteBuffer attachment) {
+                    bufferPool.release(attachment);
+                    if (error == null) {
+                        error = exc;
+                    }
+                    drain();
+                }
+            });
+        }
+        
+        private void terminate() {
+            terminated = true;
+            for (int i = 0; i < ready.length(); i++) {
+                ByteBuffer chunk = ready.getAndSet(i, null);
+                if (chunk != null) {
+                    bufferPool.release(chunk);
+                }
+            }
+            try {
+                if (channel.isOpen()) {
+                    channel.close();
+                    logger.debug("Channel closed");
+                }
+            } catch (IOException e) {
+                logger.error("Error closing channel", e);
+            }
+        }
+    }
+}
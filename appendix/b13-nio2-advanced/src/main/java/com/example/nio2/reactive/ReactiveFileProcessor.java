@@ -1,9 +1,20 @@
 package com.example.nio2.reactive;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Flow.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,6 +38,24 @@ public class ReactiveFileProcessor {
         transformer.subscribe(subscriber);
     }
     
+    /**
+     * Publish the lines of a UTF-8 file, split directly from pooled read buffers.
+     */
+    public static Publisher<String> lines(Path path) {
+        ReactiveByteReader reader = new ReactiveByteReader(path);
+        LineSplitProcessor splitter = new LineSplitProcessor(reader::release);
+        reader.subscribe(splitter);
+        return splitter;
+    }
+    
+    /**
+     * Batching stage: emits lists of up to {@code size} items, or fewer once {@code timeout}
+     * has passed since the first item of the batch.
+     */
+    public static <T> Processor<T, List<T>> buffer(int size, Duration timeout) {
+        return new BufferingProcessor<>(size, timeout);
+    }
+    
     /**
      * Create a line-based subscriber that processes individual lines.
      */
@@ -48,6 +77,25 @@ public class ReactiveFileProcessor {
             this.transformer = transformer;
         }
         
+        /**
+         * Transformation stage that runs {@code transformer} on {@code executor}, at most
+         * {@code parallelism} items at a time, and emits results in arrival order.
+         */
+        public static <T, R> Processor<T, R> parallel(Function<? super T, ? extends R> transformer,
+                                                      int parallelism, Executor executor) {
+            return parallel(transformer, parallelism, executor, true);
+        }
+        
+        /**
+         * As {@link #parallel(Function, int, Executor)}; with {@code ordered == false} results
+         * are emitted as soon as they complete.
+         */
+        public static <T, R> Processor<T, R> parallel(Function<? super T, ? extends R> transformer,
+                                                      int parallelism, Executor executor,
+                                                      boolean ordered) {
+            return new ParallelTransformProcessor<>(transformer, parallelism, executor, ordered);
+        }
+        
         @Override
         public void subscribe(Subscriber<? super R> subscriber) {
             this.downstream = subscriber;
@@ -119,6 +167,247 @@ public class ReactiveFileProcessor {
         }
     }
     
+    /**
+     * Splits UTF-8 byte chunks into lines without assembling intermediate strings.
+     *
+     * <p>Newlines are found on the raw bytes ('\n' never occurs inside a multi-byte UTF-8
+     * sequence), and each line is decoded straight from the chunk into a reusable
+     * {@link CharBuffer}. Only a line that crosses a chunk boundary is copied, into a carry
+     * buffer, so sequences split between chunks decode correctly. Lines are emitted only
+     * against downstream demand; upstream is kept {@code prefetch} chunks ahead and every
+     * exhausted chunk is handed to {@code releaser} for reuse.
+     */
+    public static class LineSplitProcessor implements Processor<ByteBuffer, String> {
+        private final Consumer<ByteBuffer> releaser;
+        private final int prefetch;
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        
+        private final Queue<ByteBuffer> chunks = new ConcurrentLinkedQueue<>();
+        private final AtomicLong requested = new AtomicLong(0);
+        private final AtomicInteger wip = new AtomicInteger(0);
+        private volatile Subscription upstream;
+        private volatile Subscriber<? super String> downstream;
+        private volatile boolean done;
+        private volatile boolean cancelled;
+        private volatile Throwable error;
+        
+        // Only touched inside drain()
+        private boolean started;
+        private boolean terminated;
+        private ByteBuffer carry = ByteBuffer.allocate(256);
+        private CharBuffer chars = CharBuffer.allocate(256);
+        
+        public LineSplitProcessor(Consumer<ByteBuffer> releaser) {
+            this(releaser, 4);
+        }
+        
+        public LineSplitProcessor(Consumer<ByteBuffer> releaser, int prefetch) {
+            if (prefetch <= 0) {
+                throw new IllegalArgumentException("Prefetch must be positive");
+            }
+            this.releaser = releaser;
+            this.prefetch = prefetch;
+        }
+        
+        @Override
+        public void subscribe(Subscriber<? super String> subscriber) {
+            this.downstream = subscriber;
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                    if (n <= 0) {
+                        if (upstream != null) {
+                            upstream.cancel();
+                        }
+                        onError(new IllegalArgumentException("Requested amount must be positive: " + n));
+                        return;
+                    }
+                    requested.getAndUpdate(current -> {
+                        long sum = current + n;
+                        return sum < 0 ? Long.MAX_VALUE : sum;
+                    });
+                    drain();
+                }
+                
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                    if (upstream != null) {
+                        upstream.cancel();
+                    }
+                    drain();
+                }
+            });
+        }
+        
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.upstream = subscription;
+            drain();
+        }
+        
+        @Override
+        public void onNext(ByteBuffer chunk) {
+            chunks.offer(chunk);
+            drain();
+        }
+        
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done = true;
+            drain();
+        }
+        
+        @Override
+        public void onComplete() {
+            done = true;
+            drain();
+        }
+        
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            
+            int missed = 1;
+            do {
+                if (terminated) {
+                    return;
+                }
+                if (cancelled) {
+                    releaseChunks();
+                    terminated = true;
+                    return;
+                }
+                
+                Subscriber<? super String> subscriber = downstream;
+                Subscription source = upstream;
+                if (subscriber != null && source != null) {
+                    if (!started && requested.get() > 0) {
+                        started = true;
+                        source.request(prefetch);
+                    }
+                    
+                    long demand = requested.get();
+                    long emitted = 0;
+                    while (emitted != demand) {
+                        ByteBuffer chunk = chunks.peek();
+                        if (chunk == null) {
+                            break;
+                        }
+                        String line = nextLine(chunk);
+                        if (line == null) {
+                            // Chunk exhausted, its tail is in the carry buffer
+                            chunks.poll();
+                            releaser.accept(chunk);
+                            source.request(1);
+                            continue;
+                        }
+                        subscriber.onNext(line);
+                        emitted++;
+                    }
+                    if (emitted != 0 && demand != Long.MAX_VALUE) {
+                        requested.addAndGet(-emitted);
+                    }
+                    
+                    if (done && (error != null || chunks.isEmpty())) {
+                        if (error != null) {
+                            releaseChunks();
+                            terminated = true;
+                            subscriber.onError(error);
+                            return;
+                        }
+                        if (carry.position() > 0 && requested.get() > 0) {
+                            // Last line without a trailing newline
+                            carry.flip();
+                            String line = decode(carry);
+                            carry.clear();
+                            requested.decrementAndGet();
+                            subscriber.onNext(line);
+                        }
+                        if (carry.position() == 0) {
+                            terminated = true;
+                            subscriber.onComplete();
+                            return;
+                        }
+                    }
+                }
+                
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+        
+        /**
+         * Decode the next complete line of the chunk, or return null once the chunk is
+         * exhausted, moving its unterminated tail into the carry buffer.
+         */
+        private String nextLine(ByteBuffer chunk) {
+            int start = chunk.position();
+            int limit = chunk.limit();
+            for (int i = start; i < limit; i++) {
+                if (chunk.get(i) != '\n') {
+                    continue;
+                }
+                
+                String line;
+                chunk.limit(i);
+                if (carry.position() > 0) {
+                    appendToCarry(chunk);
+                    carry.flip();
+                    line = decode(carry);
+                    carry.clear();
+                } else {
+                    line = decode(chunk);
+                }
+                chunk.limit(limit).position(i + 1);
+                return line;
+            }
+            
+            appendToCarry(chunk);
+            return null;
+        }
+        
+        private void appendToCarry(ByteBuffer bytes) {
+            if (carry.remaining() < bytes.remaining()) {
+                int capacity = Math.max(carry.capacity() * 2, carry.position() + bytes.remaining());
+                ByteBuffer larger = ByteBuffer.allocate(capacity);
+                carry.flip();
+                larger.put(carry);
+                carry = larger;
+            }
+            carry.put(bytes);
+        }
+        
+        private String decode(ByteBuffer bytes) {
+            // Match Files.lines: drop the CR of a CRLF line ending
+            int end = bytes.limit();
+            if (end > bytes.position() && bytes.get(end - 1) == '\r') {
+                bytes.limit(end - 1);
+            }
+            
+            // UTF-8 never yields more chars than bytes, so one pass cannot overflow
+            if (chars.capacity() < bytes.remaining()) {
+                chars = CharBuffer.allocate(Math.max(chars.capacity() * 2, bytes.remaining()));
+            }
+            chars.clear();
+            decoder.reset();
+            decoder.decode(bytes, chars, true);
+            decoder.flush(chars);
+            bytes.limit(end);
+            return chars.flip().toString();
+        }
+        
+        private void releaseChunks() {
+            ByteBuffer chunk;
+            while ((chunk = chunks.poll()) != null) {
+                releaser.accept(chunk);
+            }
+        }
+    }
+    
     /**
      * Subscriber that buffers chunks and emits complete lines.
      */
@@ -2,8 +2,11 @@ package com.example.nio2.reactive;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.channels.AsynchronousFileChannel;
 import java.nio.channels.CompletionHandler;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
@@ -15,6 +18,10 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Reactive file reader implementing the Flow API Publisher interface.
+ *
+ * <p>Emits decoded text chunks. For line processing of large files prefer
+ * {@link ReactiveByteReader} with {@link ReactiveFileProcessor.LineSplitProcessor},
+ * which splits raw bytes without building intermediate strings.
  */
 public class ReactiveFileReader implements Publisher<String> {
     private static final Logger logger = LoggerFactory.getLogger(ReactiveFileReader.class);
@@ -27,6 +34,9 @@ public class ReactiveFileReader implements Publisher<String> {
     }
     
     public ReactiveFileReader(Path path, int bufferSize) {
+        if (bufferSize < 4) {
+            throw new IllegalArgumentException("Buffer must hold at least one UTF-8 sequence");
+        }
         this.path = path;
         this.bufferSize = bufferSize;
         logger.info("Created reactive reader for: {} (buffer: {} bytes)", path, bufferSize);
@@ -58,10 +68,19 @@ public class ReactiveFileReader implements Publisher<String> {
         private final AtomicLong position = new AtomicLong(0);
         private final AtomicBoolean reading = new AtomicBoolean(false);
         
+        // Bytes of a UTF-8 sequence split across reads stay in the buffer for the next read
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private final ByteBuffer buffer;
+        private final CharBuffer chars;
+        
         FileSubscription(Subscriber<? super String> subscriber, Path path, int bufferSize) 
                 throws IOException {
             this.subscriber = subscriber;
             this.bufferSize = bufferSize;
+            this.buffer = ByteBuffer.allocate(bufferSize);
+            this.chars = CharBuffer.allocate(bufferSize);
             this.channel = AsynchronousFileChannel.open(path, StandardOpenOption.READ);
             logger.debug("Subscription created for: {}", path);
         }
@@ -101,7 +120,6 @@ public class ReactiveFileReader implements Publisher<String> {
                 return;
             }
             
-            ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
             long currentPosition = position.get();
             
             channel.read(buffer, currentPosition, buffer, new CompletionHandler<Integer, ByteBuffer>() {
@@ -109,7 +127,11 @@ public class ReactiveFileReader implements Publisher<String> {
                 public void completed(Integer bytesRead, ByteBuffer attachment) {
                     try {
                         if (bytesRead == -1) {
-                            // End of file
+                            // End of file: a truncated sequence decodes to U+FFFD
+                            String tail = decode(true);
+                            if (!tail.isEmpty() && !cancelled.get()) {
+                                subscriber.onNext(tail);
+                            }
                             subscriber.onComplete();
                             closeChannel();
                             return;
@@ -118,9 +140,14 @@ public class ReactiveFileReader implements Publisher<String> {
                         // Update position
                         position.addAndGet(bytesRead);
                         
-                        // Convert to string and emit
-                        attachment.flip();
-                        String chunk = StandardCharsets.UTF_8.decode(attachment).toString();
+                        // Convert complete sequences to string and emit
+                        String chunk = decode(false);
+                        if (chunk.isEmpty()) {
+                            // Only part of a sequence so far
+                            reading.set(false);
+                            readNext();
+                            return;
+                        }
                         
                         if (!cancelled.get()) {
                             subscriber.onNext(chunk);
@@ -150,6 +177,17 @@ public class ReactiveFileReader implements Publisher<String> {
             });
         }
         
+        private String decode(boolean endOfInput) {
+            buffer.flip();
+            chars.clear();
+            decoder.decode(buffer, chars, endOfInput);
+            if (endOfInput) {
+                decoder.flush(chars);
+            }
+            buffer.compact();
+            return chars.flip().toString();
+        }
+        
         private void closeChannel() {
             try {
                 if (channel != null && channel.isOpen()) {
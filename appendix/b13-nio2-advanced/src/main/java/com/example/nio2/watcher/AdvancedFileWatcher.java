@@ -2,34 +2,101 @@ package com.example.nio2.watcher;
 
 import java.io.IOException;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
-import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static java.nio.file.StandardWatchEventKinds.*;
+
 /**
  * Advanced file watcher with debouncing, filtering, and custom processors.
+ *
+ * <p>Events are coalesced per path and debounced on a hashed time wheel: a burst of events
+ * for one file costs a map update each, and a single ticker thread releases everything
+ * that has been quiet for the debounce delay in one batch. Each batch is matched once
+ * against precompiled glob matchers and delivered to processors as lists, grouped by event
+ * kind. When the watch service overflows, the affected directory is rescanned and
+ * reconciled against the last known state of its files.
  */
 public class AdvancedFileWatcher extends FileWatcher {
     private static final Logger logger = LoggerFactory.getLogger(AdvancedFileWatcher.class);
     
-    private final ExecutorService executor;
-    private final Map<String, FileProcessor> processors = new ConcurrentHashMap<>();
-    private final Map<Path, ScheduledFuture<?>> pendingEvents = new ConcurrentHashMap<>();
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final int WHEEL_SIZE = 512; // ~5s per revolution, longer delays go round again
+    
+    private final ThreadPoolExecutor executor;
+    private final List<Registration> registrations = new CopyOnWriteArrayList<>();
     private final ScheduledExecutorService scheduler;
-    private Duration debounceDelay = Duration.ofMillis(500);
+    private volatile long debounceNanos = TimeUnit.MILLISECONDS.toNanos(500);
+    private volatile int maxBatchSize = 256;
+    
+    // Debouncer state: pending events by path, bucketed by the tick they are due
+    private final ConcurrentHashMap<Path, PendingEvent> pendingEvents = new ConcurrentHashMap<>();
+    private final List<Queue<PendingEvent>> wheel;
+    private final Object wheelLock = new Object(); // guards wheel slots and currentTick
+    private final long startNanos = System.nanoTime();
+    private final int maxPendingEvents;
+    private long currentTick;
+    
+    // Last known modification time of every file seen, used to reconcile after overflow
+    private final Map<Path, Long> knownFiles = new ConcurrentHashMap<>();
+    private final Map<Path, Boolean> roots = new ConcurrentHashMap<>(); // root -> recursive
+    private final Set<Path> rescansInProgress = ConcurrentHashMap.newKeySet();
+    
+    private final LongAdder eventsReceived = new LongAdder();
+    private final LongAdder eventsCoalesced = new LongAdder();
+    private final LongAdder eventsDelivered = new LongAdder();
+    private final LongAdder eventsDropped = new LongAdder();
+    private final LongAdder overflows = new LongAdder();
+    private final LongAdder rescans = new LongAdder();
+    private volatile double eventRate;
+    private long rateWindowStart = System.nanoTime();
+    private long rateWindowEvents;
     
     public AdvancedFileWatcher() throws IOException {
         this(Runtime.getRuntime().availableProcessors());
     }
     
     public AdvancedFileWatcher(int threadPoolSize) throws IOException {
+        this(threadPoolSize, 1_000_000, 10_000);
+    }
+    
+    /**
+     * @param threadPoolSize worker threads running processors
+     * @param maxPendingEvents paths that may wait in the debouncer before new ones are dropped
+     * @param maxQueuedBatches batches that may wait for a worker before new ones are dropped
+     */
+    public AdvancedFileWatcher(int threadPoolSize, int maxPendingEvents, int maxQueuedBatches)
+            throws IOException {
         super();
-        this.executor = Executors.newFixedThreadPool(threadPoolSize);
-        this.scheduler = Executors.newScheduledThreadPool(1);
+        this.maxPendingEvents = maxPendingEvents;
+        this.executor = new ThreadPoolExecutor(threadPoolSize, threadPoolSize,
+            0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(maxQueuedBatches));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "AdvancedFileWatcher-Ticker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        this.wheel = new ArrayList<>(WHEEL_SIZE);
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel.add(new ArrayDeque<>());
+        }
+        scheduler.scheduleAtFixedRate(this::tick, TICK_NANOS, TICK_NANOS, TimeUnit.NANOSECONDS);
+        
         logger.info("Advanced FileWatcher initialized with {} worker threads", threadPoolSize);
     }
     
@@ -38,17 +105,31 @@ public class AdvancedFileWatcher extends FileWatcher {
      * @param delay the delay duration
      */
     public void setDebounceDelay(Duration delay) {
-        this.debounceDelay = delay;
+        this.debounceNanos = delay.toNanos();
         logger.info("Debounce delay set to {}ms", delay.toMillis());
     }
     
+    /**
+     * Set the largest list handed to a single {@link FileProcessor#process(List, WatchEvent.Kind)} call.
+     * @param maxBatchSize the batch size limit
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.maxBatchSize = maxBatchSize;
+    }
+    
     /**
      * Register a processor for files matching a pattern.
      * @param pattern file pattern (e.g., "*.log", "*.csv")
      * @param processor the processor to handle matching files
      */
     public void registerProcessor(String pattern, FileProcessor processor) {
-        processors.put(pattern, processor);
+        // Compile once; matching is then a single call per event
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        registrations.removeIf(registration -> registration.pattern.equals(pattern));
+        registrations.add(new Registration(pattern, matcher, processor));
         logger.info("Registered processor for pattern: {}", pattern);
     }
     
@@ -66,61 +147,320 @@ public class AdvancedFileWatcher extends FileWatcher {
         });
     }
     
+    @Override
+    public void watchDirectory(Path directory, boolean recursive) throws IOException {
+        super.watchDirectory(directory, recursive);
+        roots.merge(directory, recursive, Boolean::logicalOr);
+        
+        // Baseline for reconciling after an overflow
+        scan(directory, recursive, (file, modified) -> knownFiles.put(file, modified));
+    }
+    
+    /**
+     * Rescan every watched root and emit events for whatever changed since they were last seen.
+     */
+    public void rescan() {
+        roots.keySet().forEach(this::rescan);
+    }
+    
     @Override
     protected void handleEvent(WatchEvent.Kind<?> kind, Path path) {
-        // Cancel any pending event for this path
-        ScheduledFuture<?> existing = pendingEvents.get(path);
-        if (existing != null && !existing.isDone()) {
-            existing.cancel(false);
-            logger.debug("Cancelled pending event for: {}", path);
-        }
+        eventsReceived.increment();
+        long deadline = System.nanoTime() + debounceNanos;
         
-        // Schedule new event with debounce
-        ScheduledFuture<?> future = scheduler.schedule(() -> {
-            processFileEvent(kind, path);
-            pendingEvents.remove(path);
-        }, debounceDelay.toMillis(), TimeUnit.MILLISECONDS);
+        PendingEvent[] created = new PendingEvent[1];
+        pendingEvents.compute(path, (p, existing) -> {
+            if (existing == null) {
+                if (pendingEvents.size() >= maxPendingEvents) {
+                    eventsDropped.increment();
+                    return null;
+                }
+                created[0] = new PendingEvent(p, kind, deadline);
+                return created[0];
+            }
+            
+            eventsCoalesced.increment();
+            WatchEvent.Kind<?> merged = merge(existing.kind, kind);
+            if (merged == null) {
+                return null; // Created and deleted again within the delay
+            }
+            existing.kind = merged;
+            existing.deadline = deadline; // The wheel re-checks deadlines, no rescheduling needed
+            return existing;
+        });
         
-        pendingEvents.put(path, future);
+        if (created[0] != null) {
+            schedule(created[0]);
+        }
+        
+        // Files created inside a new directory before it was registered produce no events
+        if (kind == ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+            requestRescan(path);
+        }
+    }
+    
+    @Override
+    protected void handleOverflow(Path directory) {
+        overflows.increment();
+        logger.warn("Events lost in {}, rescanning", directory);
+        requestRescan(directory);
+    }
+    
+    /**
+     * Net effect of two consecutive events on the same path.
+     */
+    private static WatchEvent.Kind<?> merge(WatchEvent.Kind<?> previous, WatchEvent.Kind<?> next) {
+        if (previous == ENTRY_CREATE && next == ENTRY_MODIFY) {
+            return ENTRY_CREATE;
+        }
+        if (previous == ENTRY_CREATE && next == ENTRY_DELETE) {
+            return null;
+        }
+        if (previous == ENTRY_DELETE && next == ENTRY_CREATE) {
+            return ENTRY_MODIFY;
+        }
+        return next;
+    }
+    
+    private void schedule(PendingEvent event) {
+        long tick = (event.deadline - startNanos + TICK_NANOS - 1) / TICK_NANOS;
+        // Same lock as tick(): the slot is never one the ticker has already drained
+        synchronized (wheelLock) {
+            tick = Math.max(tick, currentTick + 1);
+            wheel.get((int) (tick % WHEEL_SIZE)).offer(event);
+        }
     }
     
-    private void processFileEvent(WatchEvent.Kind<?> kind, Path path) {
-        String filename = path.getFileName().toString();
+    /**
+     * Advance the wheel to the current time and dispatch every event that is due.
+     */
+    private void tick() {
+        try {
+            long now = System.nanoTime();
+            long target = (now - startNanos) / TICK_NANOS;
+            List<PendingEvent> due = new ArrayList<>();
+            List<PendingEvent> bucket = new ArrayList<>();
+            
+            while (true) {
+                synchronized (wheelLock) {
+                    if (currentTick >= target) {
+                        break;
+                    }
+                    currentTick++;
+                    Queue<PendingEvent> slot = wheel.get((int) (currentTick % WHEEL_SIZE));
+                    bucket.addAll(slot);
+                    slot.clear();
+                }
+                for (PendingEvent pending : bucket) {
+                    if (pending.deadline - now > 0) {
+                        schedule(pending); // Touched again since it was scheduled
+                    } else if (pendingEvents.remove(pending.path, pending)) {
+                        due.add(pending);
+                    }
+                }
+                bucket.clear();
+            }
+            
+            updateEventRate(now);
+            if (!due.isEmpty()) {
+                dispatch(due);
+            }
+        } catch (Exception e) {
+            logger.error("Error in debounce tick", e);
+        }
+    }
+    
+    private void dispatch(List<PendingEvent> due) {
+        // Match each path once against every registration, grouping by processor and kind
+        Map<Registration, Map<WatchEvent.Kind<?>, List<Path>>> batches = new LinkedHashMap<>();
+        for (PendingEvent event : due) {
+            Path filename = event.path.getFileName();
+            boolean matched = false;
+            for (Registration registration : registrations) {
+                if (filename != null && registration.matcher.matches(filename)) {
+                    batches.computeIfAbsent(registration, r -> new LinkedHashMap<>())
+                        .computeIfAbsent(event.kind, k -> new ArrayList<>())
+                        .add(event.path);
+                    matched = true;
+                }
+            }
+            if (!matched) {
+                logger.debug("No processor for {}: {}", event.kind.name(), event.path);
+            }
+        }
+        
+        submit(() -> updateKnownFiles(due), due.size());
+        eventsDelivered.add(due.size());
         
-        // Find matching processors
-        processors.entrySet().stream()
-            .filter(entry -> matchesPattern(filename, entry.getKey()))
-            .forEach(entry -> {
-                logger.debug("Processing {} with handler for pattern: {}", filename, entry.getKey());
-                executor.submit(() -> {
+        int batchSize = maxBatchSize;
+        batches.forEach((registration, byKind) -> byKind.forEach((kind, paths) -> {
+            for (int from = 0; from < paths.size(); from += batchSize) {
+                List<Path> batch = paths.subList(from, Math.min(paths.size(), from + batchSize));
+                logger.debug("Processing {} files with handler for pattern: {}",
+                    batch.size(), registration.pattern);
+                submit(() -> {
                     try {
-                        entry.getValue().process(path, kind);
+                        registration.processor.process(batch, kind);
                     } catch (Exception e) {
-                        logger.error("Error processing file: " + path, e);
+                        logger.error("Error processing batch for pattern: " + registration.pattern, e);
                     }
-                });
+                }, batch.size());
+            }
+        }));
+    }
+    
+    private void submit(Runnable task, int events) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            eventsDropped.add(events);
+            logger.warn("Worker queue full, dropped batch of {} events", events);
+        }
+    }
+    
+    private void updateKnownFiles(List<PendingEvent> events) {
+        for (PendingEvent event : events) {
+            if (event.kind == ENTRY_DELETE) {
+                knownFiles.remove(event.path);
+                continue;
+            }
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(
+                    event.path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                if (!attrs.isDirectory()) {
+                    knownFiles.put(event.path, attrs.lastModifiedTime().toMillis());
+                }
+            } catch (IOException e) {
+                knownFiles.remove(event.path); // Already gone again
+            }
+        }
+    }
+    
+    private void requestRescan(Path directory) {
+        if (!rescansInProgress.add(directory)) {
+            return; // Already queued; it will see the latest state
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    rescan(directory);
+                } finally {
+                    rescansInProgress.remove(directory);
+                }
             });
+        } catch (RejectedExecutionException e) {
+            rescansInProgress.remove(directory);
+            logger.warn("Worker queue full, rescan of {} skipped", directory);
+        }
+    }
+    
+    /**
+     * Compare the directory with the last known state and feed the differences back in as
+     * events, so they are debounced and coalesced with whatever the watch service reports.
+     */
+    private void rescan(Path directory) {
+        rescans.increment();
+        boolean recursive = isUnderRecursiveRoot(directory);
+        Set<Path> seen = new HashSet<>();
+        
+        try {
+            scan(directory, recursive, (file, modified) -> {
+                seen.add(file);
+                Long known = knownFiles.get(file);
+                if (known == null) {
+                    handleEvent(ENTRY_CREATE, file);
+                } else if (known != modified) {
+                    handleEvent(ENTRY_MODIFY, file);
+                }
+            });
+        } catch (IOException e) {
+            logger.error("Rescan failed: " + directory, e);
+            return;
+        }
         
-        // Log unhandled files
-        if (processors.entrySet().stream().noneMatch(entry -> matchesPattern(filename, entry.getKey()))) {
-            logger.info("No processor for {}: {}", kind.name(), path);
+        for (Path file : knownFiles.keySet()) {
+            Path parent = file.getParent();
+            boolean inScope = recursive ? file.startsWith(directory) : directory.equals(parent);
+            if (inScope && !seen.contains(file)) {
+                handleEvent(ENTRY_DELETE, file);
+            }
         }
+        logger.info("Rescanned {} ({} files)", directory, seen.size());
     }
     
-    private boolean matchesPattern(String filename, String pattern) {
-        // Convert simple glob pattern to regex
-        String regex = pattern.replace(".", "\\.")
-                             .replace("*", ".*")
-                             .replace("?", ".");
-        return Pattern.matches(regex, filename);
+    private boolean isUnderRecursiveRoot(Path directory) {
+        for (Map.Entry<Path, Boolean> root : roots.entrySet()) {
+            if (root.getValue() && directory.startsWith(root.getKey())) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Visit the regular files of a directory, registering subdirectories that are not watched yet.
+     */
+    private void scan(Path directory, boolean recursive, FileVisitor visitor) throws IOException {
+        int depth = recursive ? Integer.MAX_VALUE : 1;
+        Files.walkFileTree(directory, EnumSet.noneOf(FileVisitOption.class), depth,
+            new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+                        throws IOException {
+                    if (!isWatched(dir)) {
+                        registerDirectory(dir);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+                
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()) {
+                        visitor.visit(file, attrs.lastModifiedTime().toMillis());
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+                
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    logger.debug("Cannot read {}: {}", file, exc.getMessage());
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+    }
+    
+    private void updateEventRate(long now) {
+        long elapsed = now - rateWindowStart;
+        if (elapsed >= TimeUnit.SECONDS.toNanos(1)) {
+            long received = eventsReceived.sum();
+            eventRate = (received - rateWindowEvents) * 1e9 / elapsed;
+            rateWindowEvents = received;
+            rateWindowStart = now;
+        }
+    }
+    
+    /**
+     * Get a snapshot of the watcher metrics.
+     */
+    public WatcherMetrics getMetrics() {
+        return new WatcherMetrics(
+            eventsReceived.sum(),
+            eventsCoalesced.sum(),
+            eventsDelivered.sum(),
+            eventsDropped.sum(),
+            overflows.sum(),
+            rescans.sum(),
+            eventRate,
+            pendingEvents.size(),
+            executor.getQueue().size()
+        );
     }
     
     @Override
     public void close() {
         super.close();
         
-        // Cancel pending events
-        pendingEvents.values().forEach(future -> future.cancel(false));
+        // Drop pending events
         pendingEvents.clear();
         
         // Shutdown executors
@@ -148,6 +488,83 @@ public class AdvancedFileWatcher extends FileWatcher {
      */
     public interface FileProcessor {
         void process(Path file, WatchEvent.Kind<?> eventType);
+        
+        /**
+         * Process a batch of files that saw the same (coalesced) event. Override this to
+         * amortize per-call work such as opening a connection or a transaction.
+         */
+        default void process(List<Path> files, WatchEvent.Kind<?> eventType) {
+            for (Path file : files) {
+                process(file, eventType);
+            }
+        }
+    }
+    
+    private interface FileVisitor {
+        void visit(Path file, long lastModified);
+    }
+    
+    private static final class Registration {
+        final String pattern;
+        final PathMatcher matcher;
+        final FileProcessor processor;
+        
+        Registration(String pattern, PathMatcher matcher, FileProcessor processor) {
+            this.pattern = pattern;
+            this.matcher = matcher;
+            this.processor = processor;
+        }
+    }
+    
+    private static final class PendingEvent {
+        final Path path;
+        volatile WatchEvent.Kind<?> kind;
+        volatile long deadline;
+        
+        PendingEvent(Path path, WatchEvent.Kind<?> kind, long deadline) {
+            this.path = path;
+            this.kind = kind;
+            this.deadline = deadline;
+        }
+    }
+    
+    /**
+     * Watcher metrics.
+     */
+    public static class WatcherMetrics {
+        public final long eventsReceived;
+        public final long eventsCoalesced;
+        public final long eventsDelivered;
+        public final long eventsDropped;
+        public final long overflows;
+        public final long rescans;
+        public final double eventsPerSecond;
+        public final int pendingEvents;
+        public final int queuedBatches;
+        
+        WatcherMetrics(long eventsReceived, long eventsCoalesced, long eventsDelivered,
+                       long eventsDropped, long overflows, long rescans, double eventsPerSecond,
+                       int pendingEvents, int queuedBatches) {
+            this.eventsReceived = eventsReceived;
+            this.eventsCoalesced = eventsCoalesced;
+            this.eventsDelivered = eventsDelivered;
+            this.eventsDropped = eventsDropped;
+            this.overflows = overflows;
+            this.rescans = rescans;
+            this.eventsPerSecond = eventsPerSecond;
+            this.pendingEvents = pendingEvents;
+            this.queuedBatches = queuedBatches;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format(
+                "WatcherMetrics{received=%d, coalesced=%d, delivered=%d, dropped=%d, " +
+                "overflows=%d, rescans=%d, rate=%.1f/s, pending=%d, queuedBatches=%d}",
+                eventsReceived, eventsCoalesced, eventsDelivered, eventsDropped,
+                overflows, rescans, eventsPerSecond, pendingEvents, queuedBatches
+            );
+        }
     }
     
     /**
@@ -179,4 +596,4 @@ public class AdvancedFileWatcher extends FileWatcher {
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -117,7 +117,7 @@ public class AdvancedWatcherDemo {
                 while (!Thread.currentThread().isInterrupted()) {
                     try {
                         Thread.sleep(10000); // Every 10 seconds
-                        printStatistics(totalEvents, logEvents, csvEvents, jsonEvents);
+                        printStatistics(totalEvents, logEvents, csvEvents, jsonEvents, watcher.getMetrics());
                     } catch (InterruptedException e) {
                         break;
                     }
@@ -173,12 +173,14 @@ public class AdvancedWatcherDemo {
     }
     
     private static void printStatistics(AtomicInteger total, AtomicInteger logs, 
-                                       AtomicInteger csvs, AtomicInteger jsons) {
+                                       AtomicInteger csvs, AtomicInteger jsons,
+                                       AdvancedFileWatcher.WatcherMetrics metrics) {
         System.out.println("\n--- Statistics ---");
         System.out.printf("Total events: %d%n", total.get());
         System.out.printf("Log files: %d%n", logs.get());
         System.out.printf("CSV files: %d%n", csvs.get());
         System.out.printf("JSON files: %d%n", jsons.get());
+        System.out.printf("Watcher: %s%n", metrics);
         System.out.println("------------------\n");
     }
 }
\ No newline at end of file
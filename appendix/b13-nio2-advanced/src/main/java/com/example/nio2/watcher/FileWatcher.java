@@ -3,8 +3,9 @@ package com.example.nio2.watcher;
 import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,7 +20,8 @@ public class FileWatcher implements AutoCloseable {
     private static final Logger logger = LoggerFactory.getLogger(FileWatcher.class);
     
     private final WatchService watchService;
-    private final Map<WatchKey, Path> keyMap = new HashMap<>();
+    private final Map<WatchKey, Path> keyMap = new ConcurrentHashMap<>();
+    private final Set<Path> watchedDirectories = ConcurrentHashMap.newKeySet();
     private final AtomicBoolean running = new AtomicBoolean(false);
     private Thread watchThread;
     
@@ -62,7 +64,12 @@ public class FileWatcher implements AutoCloseable {
         }
     }
     
-    private void registerDirectory(Path directory) throws IOException {
+    /**
+     * Register a single directory. Registering a watched directory again is harmless.
+     * @param directory the directory to watch
+     * @throws IOException if registration fails
+     */
+    protected void registerDirectory(Path directory) throws IOException {
         WatchKey key = directory.register(
             watchService,
             ENTRY_CREATE,
@@ -71,6 +78,7 @@ public class FileWatcher implements AutoCloseable {
         );
         
         Path previous = keyMap.put(key, directory);
+        watchedDirectories.add(directory);
         if (previous == null) {
             logger.info("Watching directory: {}", directory);
         } else {
@@ -78,6 +86,13 @@ public class FileWatcher implements AutoCloseable {
         }
     }
     
+    /**
+     * Whether the directory is currently registered.
+     */
+    protected boolean isWatched(Path directory) {
+        return watchedDirectories.contains(directory);
+    }
+    
     /**
      * Start watching in a separate thread.
      */
@@ -130,7 +145,7 @@ public class FileWatcher implements AutoCloseable {
                 WatchEvent.Kind<?> kind = event.kind();
                 
                 if (kind == OVERFLOW) {
-                    logger.warn("Events may have been lost or discarded");
+                    handleOverflow(dir);
                     continue;
                 }
                 
@@ -156,6 +171,7 @@ public class FileWatcher implements AutoCloseable {
             boolean valid = key.reset();
             if (!valid) {
                 keyMap.remove(key);
+                watchedDirectories.remove(dir);
                 logger.warn("Directory no longer accessible: {}", dir);
                 
                 if (keyMap.isEmpty()) {
@@ -174,6 +190,15 @@ public class FileWatcher implements AutoCloseable {
         logger.info("{}: {}", kind.name(), path);
     }
     
+    /**
+     * Called when the watch service dropped events for a directory. Override this method
+     * to resynchronize with the file system.
+     * @param directory the directory whose events were lost
+     */
+    protected void handleOverflow(Path directory) {
+        logger.warn("Events may have been lost or discarded in: {}", directory);
+    }
+    
     @Override
     public void close() {
         stopWatching();
@@ -1,13 +1,36 @@
 package com.example.nio2;
 
 import com.example.nio2.async.AsyncFileIO;
+import com.example.nio2.async.ParallelFileProcessor;
+import com.example.nio2.benchmark.BenchmarkComparator;
+import com.example.nio2.memory.MappedRecordReader;
 import com.example.nio2.memory.MemoryMappedFile;
+import com.example.nio2.memory.SharedMemoryFile;
+import com.example.nio2.reactive.ReactiveByteReader;
+import com.example.nio2.reactive.ReactiveFileProcessor;
+import com.example.nio2.reactive.ReactiveFileReader;
+import com.example.nio2.watcher.AdvancedFileWatcher;
 import com.example.nio2.watcher.FileWatcher;
 import org.junit.jupiter.api.*;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -127,4 +150,595 @@ public class BasicFunctionalityTest {
         assertEquals(Files.size(source), Files.size(target), "File sizes don't match");
         assertTrue(progressCalled.get(), "Progress listener not called");
     }
+    
+    @Test
+    void testSharedMemoryQueue() throws Exception {
+        Path queueFile = tempDir.resolve("queue.dat");
+        
+        try (SharedMemoryFile.SharedMemoryQueue producer = 
+                 new SharedMemoryFile.SharedMemoryQueue(queueFile, 16, 4);
+             SharedMemoryFile.SharedMemoryQueue consumer = 
+                 new SharedMemoryFile.SharedMemoryQueue(queueFile, 16, 4)) {
+            
+            // Length-prefixed frames keep trailing zero bytes
+            byte[] withZeros = {1, 2, 0, 0};
+            assertTrue(producer.enqueue(withZeros));
+            assertArrayEquals(withZeros, consumer.dequeue());
+            assertNull(consumer.dequeue(), "Queue should be empty");
+            
+            // Batch enqueue stops when the ring is full
+            List<byte[]> batch = List.of(new byte[] {1}, new byte[] {2}, new byte[] {3},
+                                         new byte[] {4}, new byte[] {5});
+            assertEquals(4, producer.enqueue(batch));
+            assertFalse(producer.enqueue(new byte[] {6}), "Queue should be full");
+            
+            List<byte[]> drained = new ArrayList<>();
+            assertEquals(3, consumer.drainTo(drained, 3));
+            assertEquals(1, consumer.size());
+            assertArrayEquals(new byte[] {3}, drained.get(2));
+            assertArrayEquals(new byte[] {4}, consumer.dequeue());
+        }
+    }
+    
+    @Test
+    void testSharedMemoryQueueEmptyBatch() throws Exception {
+        Path queueFile = tempDir.resolve("queue.dat");
+        
+        try (SharedMemoryFile.SharedMemoryQueue queue = 
+                 new SharedMemoryFile.SharedMemoryQueue(queueFile, 16, 4)) {
+            
+            // An empty batch must return immediately, both on an empty and on a non-empty ring
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                assertEquals(0, queue.enqueue(List.of()));
+                assertTrue(queue.enqueue(new byte[] {1}));
+                assertEquals(0, queue.enqueue(new ArrayList<>()));
+            });
+            assertEquals(1, queue.size());
+            assertArrayEquals(new byte[] {1}, queue.dequeue());
+        }
+    }
+    
+    @Test
+    void testMappedRecordReader() throws Exception {
+        Path testFile = tempDir.resolve("records.log");
+        StringBuilder content = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String line = "record-" + i + "-" + "x".repeat(i % 37);
+            expected.add(line);
+            content.append(line).append(i % 2 == 0 ? "\n" : "\r\n");
+        }
+        Files.writeString(testFile, content.toString());
+        
+        // A tiny window forces records to straddle window edges
+        try (MappedRecordReader reader = MappedRecordReader.open(testFile, (byte) '\n', 64)) {
+            List<String> lines = new ArrayList<>();
+            while (reader.next()) {
+                lines.add(reader.text().toString());
+            }
+            assertEquals(expected, lines);
+        }
+        
+        try (MappedRecordReader reader = MappedRecordReader.open(testFile)) {
+            List<String> lines = reader.lines(true)
+                .map(CharSequence::toString)
+                .collect(Collectors.toList());
+            assertEquals(expected, lines);
+        }
+    }
+    
+    @Test
+    void testParallelScans() throws IOException {
+        Path testFile = tempDir.resolve("scan.log");
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            content.append(i % 100 == 0 ? "ERROR abab" : "INFO ok").append('\n');
+        }
+        content.append("ababab");
+        Files.writeString(testFile, content.toString());
+        
+        assertEquals(MemoryMappedFile.countLines(testFile), 
+                     MemoryMappedFile.countLinesParallel(testFile));
+        assertEquals(5000, MemoryMappedFile.countLinesParallel(testFile));
+        
+        long[] matches = MemoryMappedFile.findAllPatterns(testFile, "abab".getBytes());
+        // 50 error lines plus two overlapping matches in the trailing "ababab"
+        assertEquals(52, matches.length);
+        assertEquals(MemoryMappedFile.findPattern(testFile, "abab".getBytes()), matches[0]);
+        assertEquals(Files.size(testFile) - 4, matches[matches.length - 1]);
+        
+        // Small chunks split the file into many pieces, so lines and matches straddle chunk edges
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            long[] expectedMatches = naiveFind(Files.readAllBytes(testFile), "abab".getBytes());
+            for (int chunkSize : new int[] {7, 64, 1000, 4096}) {
+                assertEquals(5000, MemoryMappedFile.countLinesParallel(testFile, pool, chunkSize),
+                             "chunk size " + chunkSize);
+                assertArrayEquals(expectedMatches,
+                                  MemoryMappedFile.findAllPatterns(testFile, "abab".getBytes(), pool, chunkSize),
+                                  "chunk size " + chunkSize);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertThrows(IllegalArgumentException.class,
+                     () -> MemoryMappedFile.countLinesParallel(testFile, ForkJoinPool.commonPool(), 0));
+    }
+    
+    private static long[] naiveFind(byte[] data, byte[] pattern) {
+        List<Long> offsets = new ArrayList<>();
+        for (int i = 0; i + pattern.length <= data.length; i++) {
+            if (Arrays.equals(data, i, i + pattern.length, pattern, 0, pattern.length)) {
+                offsets.add((long) i);
+            }
+        }
+        return offsets.stream().mapToLong(Long::longValue).toArray();
+    }
+    
+    @Test
+    void testAsyncFileIOEngine() throws Exception {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Path file = tempDir.resolve("small-" + i + ".dat");
+            Files.write(file, new byte[] {(byte) i, 1, 2, 3});
+            files.add(file);
+        }
+        
+        // Few permits and a short queue force submitters to wait for completions
+        try (AsyncFileIO engine = new AsyncFileIO(4, 8, 1024)) {
+            List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            for (Path file : files) {
+                futures.add(engine.read(file, buffer -> buffer.remaining()));
+            }
+            
+            for (CompletableFuture<Integer> future : futures) {
+                assertEquals(4, future.get(10, TimeUnit.SECONDS));
+            }
+            
+            AsyncFileIO.IOStatistics stats = engine.getStatistics();
+            assertEquals(200, stats.completedOperations);
+            assertEquals(800, stats.bytesRead);
+            assertEquals(0, stats.queueDepth);
+            assertTrue(stats.bufferPoolHitRate > 0.5, "Buffers should be reused: " + stats);
+        }
+    }
+    
+    @Test
+    void testAsyncFileIOChunkedReads() throws Exception {
+        Path large = tempDir.resolve("large.txt");
+        String content = "0123456789abcdef".repeat(1000) + "tail";
+        Files.writeString(large, content);
+        
+        try (AsyncFileIO engine = new AsyncFileIO(4, 8, 1024)) {
+            // Larger than a pooled buffer: read in pool-sized chunks into a heap buffer
+            ByteBuffer buffer = engine.read(large).get(10, TimeUnit.SECONDS);
+            assertFalse(buffer.isDirect(), "Large files must not get unpooled direct buffers");
+            assertEquals(content, StandardCharsets.UTF_8.decode(buffer).toString());
+            engine.release(buffer);
+            
+            // The explicit buffer size is used as the chunk size, including odd sizes
+            for (int bufferSize : new int[] {1, 7, 1024, 1 << 20}) {
+                assertEquals(content, engine.readFileAsync(large, bufferSize).get(10, TimeUnit.SECONDS),
+                             "buffer size " + bufferSize);
+            }
+            Path empty = tempDir.resolve("empty.txt");
+            Files.createFile(empty);
+            assertEquals("", engine.readFileAsync(empty, 16).get(10, TimeUnit.SECONDS));
+            assertThrows(IllegalArgumentException.class, () -> engine.readFileAsync(large, 0));
+        }
+    }
+    
+    @Test
+    void testAsyncFileIOSubmitFromCompletion() throws Exception {
+        Path file = tempDir.resolve("small.dat");
+        Files.write(file, new byte[] {1, 2, 3});
+        
+        // One permit, a one-slot queue and a single completion thread: the callback below runs
+        // on the only thread that could complete the operations it submits
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (AsyncFileIO engine = new AsyncFileIO(1, 1, 1024, executor)) {
+            List<CompletableFuture<Integer>> nested = new CopyOnWriteArrayList<>();
+            CompletableFuture<Integer> outer = engine.read(file, buffer -> {
+                for (int i = 0; i < 4; i++) {
+                    nested.add(engine.read(file, ByteBuffer::remaining));
+                }
+                return buffer.remaining();
+            });
+            
+            // A blocking submit would wait here forever for the queue to drain
+            assertEquals(3, outer.get(10, TimeUnit.SECONDS));
+            int completed = 0;
+            int rejected = 0;
+            for (CompletableFuture<Integer> future : nested) {
+                try {
+                    assertEquals(3, future.get(10, TimeUnit.SECONDS));
+                    completed++;
+                } catch (ExecutionException e) {
+                    assertInstanceOf(RejectedExecutionException.class, e.getCause());
+                    rejected++;
+                }
+            }
+            // One starts on the freed permit, one waits in the queue, the rest are rejected
+            assertEquals(2, completed);
+            assertEquals(2, rejected);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    void testPipelinedFileCopy() throws Exception {
+        Path source = tempDir.resolve("pipeline-source.dat");
+        Path target = tempDir.resolve("pipeline-target.dat");
+        
+        byte[] data = new byte[1024 * 1024 + 123]; // Last chunk is partial
+        new Random(7).nextBytes(data);
+        Files.write(source, data);
+        
+        try (AsyncFileIO asyncIO = new AsyncFileIO()) {
+            List<Long> progress = new CopyOnWriteArrayList<>();
+            AtomicLong completed = new AtomicLong(-1);
+            
+            Long bytesCopied = asyncIO.copyFileAsync(source, target, 64 * 1024, 8,
+                new AsyncFileIO.ProgressListener() {
+                    @Override
+                    public void onProgress(long bytesTransferred, long totalBytes, double percentage) {
+                        progress.add(bytesTransferred);
+                    }
+                    
+                    @Override
+                    public void onComplete(long totalBytes) {
+                        completed.set(totalBytes);
+                    }
+                }
+            ).get(10, TimeUnit.SECONDS);
+            
+            assertEquals(data.length, bytesCopied);
+            assertEquals(data.length, completed.get());
+            assertTrue(progress.size() >= 1 && progress.size() <= 17, "At most one progress callback per chunk");
+            for (int i = 1; i < progress.size(); i++) {
+                assertTrue(progress.get(i) > progress.get(i - 1), "Progress must increase: " + progress);
+            }
+            assertEquals(data.length, progress.get(progress.size() - 1));
+            assertArrayEquals(data, Files.readAllBytes(target));
+        }
+    }
+    
+    @Test
+    void testCopyAcrossFileSystems() throws Exception {
+        Path source = tempDir.resolve("zip-source.dat");
+        byte[] data = new byte[3 * 1024 * 1024 + 5];
+        new Random(11).nextBytes(data);
+        Files.write(source, data);
+        
+        // The zip provider supports neither AsynchronousFileChannel nor FileChannel.transferTo
+        Path zip = tempDir.resolve("copy.zip");
+        try (FileSystem zipFs = FileSystems.newFileSystem(zip, Map.of("create", "true"));
+             AsyncFileIO asyncIO = new AsyncFileIO()) {
+            Path inZip = zipFs.getPath("/copy.dat");
+            AtomicLong completed = new AtomicLong(-1);
+            AsyncFileIO.ProgressListener listener = new AsyncFileIO.ProgressListener() {
+                @Override
+                public void onProgress(long bytesTransferred, long totalBytes, double percentage) {
+                }
+                
+                @Override
+                public void onComplete(long totalBytes) {
+                    completed.set(totalBytes);
+                }
+            };
+            
+            assertEquals(data.length, asyncIO.copyFileAsync(source, inZip, listener).get(10, TimeUnit.SECONDS));
+            assertEquals(data.length, completed.get());
+            assertArrayEquals(data, Files.readAllBytes(inZip));
+            
+            Path back = tempDir.resolve("zip-target.dat");
+            assertEquals(data.length, asyncIO.copyFileAsync(inZip, back, listener).get(10, TimeUnit.SECONDS));
+            assertArrayEquals(data, Files.readAllBytes(back));
+        }
+    }
+    
+    @Test
+    void testReactiveLineSplitting() throws Exception {
+        Path file = tempDir.resolve("utf8-lines.txt");
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            content.append("行").append(i).append(" ✓ 😀 ").append(i % 7 == 0 ? "\r\n" : "\n");
+        }
+        content.append("最後の行"); // No trailing newline
+        Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+        
+        // 7-byte chunks split most multi-byte sequences
+        ReactiveByteReader reader = new ReactiveByteReader(file, 7, 3);
+        ReactiveFileProcessor.LineSplitProcessor splitter =
+            new ReactiveFileProcessor.LineSplitProcessor(reader::release, 2);
+        reader.subscribe(splitter);
+        
+        List<String> lines = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        splitter.subscribe(new Flow.Subscriber<String>() {
+            private Flow.Subscription subscription;
+            
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(2);
+            }
+            
+            @Override
+            public void onNext(String line) {
+                lines.add(line);
+                if (lines.size() % 2 == 0) {
+                    subscription.request(2);
+                }
+            }
+            
+            @Override
+            public void onError(Throwable throwable) {
+                done.completeExceptionally(throwable);
+            }
+            
+            @Override
+            public void onComplete() {
+                done.complete(null);
+            }
+        });
+        
+        done.get(10, TimeUnit.SECONDS);
+        assertEquals(Files.readAllLines(file, StandardCharsets.UTF_8), lines);
+        assertTrue(reader.getBufferPool().getHitRate() > 0.5, "Chunks should be recycled");
+        
+        // The text reader must not break sequences at buffer boundaries either
+        List<String> chunks = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> textDone = new CompletableFuture<>();
+        new ReactiveFileReader(file, 5).subscribe(new Flow.Subscriber<String>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+            
+            @Override
+            public void onNext(String chunk) {
+                chunks.add(chunk);
+            }
+            
+            @Override
+            public void onError(Throwable throwable) {
+                textDone.completeExceptionally(throwable);
+            }
+            
+            @Override
+            public void onComplete() {
+                textDone.complete(null);
+            }
+        });
+        
+        textDone.get(10, TimeUnit.SECONDS);
+        assertEquals(content.toString(), String.join("", chunks));
+    }
+    
+    @Test
+    void testParallelPipeline() throws Exception {
+        Path file = tempDir.resolve("pipeline-lines.txt");
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            expected.add("line-" + i);
+        }
+        Files.write(file, expected);
+        
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        Random random = new Random(3);
+        int[] delays = random.ints(1000, 0, 3).toArray();
+        
+        try {
+            Flow.Processor<String, String> parallel = ReactiveFileProcessor.TransformProcessor.parallel(
+                line -> {
+                    int now = concurrent.incrementAndGet();
+                    maxConcurrent.accumulateAndGet(now, Math::max);
+                    try {
+                        // Uneven work so results complete out of order
+                        Thread.sleep(delays[Integer.parseInt(line.substring(5))]);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    concurrent.decrementAndGet();
+                    return line.toUpperCase();
+                }, 4, pool);
+            Flow.Processor<String, List<String>> batches =
+                ReactiveFileProcessor.buffer(64, Duration.ofMillis(50));
+            
+            ReactiveFileProcessor.lines(file).subscribe(parallel);
+            parallel.subscribe(batches);
+            
+            List<List<String>> received = new CopyOnWriteArrayList<>();
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            batches.subscribe(new Flow.Subscriber<List<String>>() {
+                private Flow.Subscription subscription;
+                
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    this.subscription = subscription;
+                    subscription.request(1);
+                }
+                
+                @Override
+                public void onNext(List<String> batch) {
+                    received.add(batch);
+                    subscription.request(1);
+                }
+                
+                @Override
+                public void onError(Throwable throwable) {
+                    done.completeExceptionally(throwable);
+                }
+                
+                @Override
+                public void onComplete() {
+                    done.complete(null);
+                }
+            });
+            
+            done.get(30, TimeUnit.SECONDS);
+            
+            List<String> flattened = received.stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+            assertEquals(expected.stream().map(String::toUpperCase).collect(Collectors.toList()),
+                flattened, "Ordered mode must keep arrival order");
+            assertTrue(received.stream().allMatch(batch -> batch.size() <= 64));
+            assertTrue(maxConcurrent.get() > 1, "Work should run on several threads");
+            assertTrue(maxConcurrent.get() <= 4, "Parallelism cap exceeded: " + maxConcurrent.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    @Test
+    void testAdvancedWatcherCoalescingAndRescan() throws Exception {
+        Path watched = Files.createDirectory(tempDir.resolve("watched"));
+        Path existing = Files.writeString(watched.resolve("existing.txt"), "old");
+        
+        Map<WatchEvent.Kind<?>, Set<Path>> delivered = new ConcurrentHashMap<>();
+        AtomicInteger batchCalls = new AtomicInteger();
+        
+        try (AdvancedFileWatcher watcher = new AdvancedFileWatcher(2)) {
+            watcher.setDebounceDelay(Duration.ofMillis(200));
+            watcher.registerProcessor("*.txt", new AdvancedFileWatcher.FileProcessor() {
+                @Override
+                public void process(Path file, WatchEvent.Kind<?> eventType) {
+                    fail("Batched delivery expected");
+                }
+                
+                @Override
+                public void process(List<Path> files, WatchEvent.Kind<?> eventType) {
+                    batchCalls.incrementAndGet();
+                    delivered.computeIfAbsent(eventType, k -> ConcurrentHashMap.newKeySet()).addAll(files);
+                }
+            });
+            watcher.watchDirectory(watched, true);
+            watcher.startWatching();
+            
+            // Several writes per file coalesce into a single CREATE
+            for (int i = 0; i < 50; i++) {
+                Path file = watched.resolve("burst-" + i + ".txt");
+                Files.writeString(file, "a");
+                Files.writeString(file, "b", StandardOpenOption.APPEND);
+            }
+            Files.writeString(watched.resolve("ignored.bin"), "x");
+            
+            waitFor(() -> delivered.getOrDefault(StandardWatchEventKinds.ENTRY_CREATE, Set.of()).size() == 50);
+            Thread.sleep(300);
+            assertFalse(delivered.containsKey(StandardWatchEventKinds.ENTRY_MODIFY),
+                "MODIFY after CREATE must be coalesced");
+            assertTrue(batchCalls.get() < 50, "Files should arrive in batches");
+            
+            // Changes the watch service never reported are found by a rescan
+            watcher.stopWatching();
+            Path missed = Files.writeString(watched.resolve("missed.txt"), "new");
+            Files.delete(existing);
+            watcher.rescan();
+            
+            waitFor(() -> delivered.getOrDefault(StandardWatchEventKinds.ENTRY_CREATE, Set.of()).contains(missed)
+                && delivered.getOrDefault(StandardWatchEventKinds.ENTRY_DELETE, Set.of()).contains(existing));
+            
+            AdvancedFileWatcher.WatcherMetrics metrics = watcher.getMetrics();
+            assertTrue(metrics.eventsCoalesced > 0, metrics.toString());
+            assertEquals(1, metrics.rescans, metrics.toString());
+            assertEquals(0, metrics.eventsDropped, metrics.toString());
+        }
+    }
+    
+    @Test
+    void testParallelTreeProcessing() throws Exception {
+        Path root = Files.createDirectory(tempDir.resolve("tree"));
+        Set<Path> expected = new HashSet<>();
+        for (int d = 0; d < 4; d++) {
+            Path dir = Files.createDirectories(root.resolve("level1-" + d).resolve("level2"));
+            for (int f = 0; f < 50; f++) {
+                expected.add(Files.writeString(dir.resolve("file-" + f + ".txt"), "x".repeat(f)));
+                Files.writeString(dir.resolve("skip-" + f + ".bin"), "y");
+            }
+        }
+        
+        ParallelFileProcessor processor = new ParallelFileProcessor(4);
+        AtomicInteger concurrent = new AtomicInteger();
+        AtomicInteger maxConcurrent = new AtomicInteger();
+        Map<Path, Long> sizes = new ConcurrentHashMap<>();
+        
+        try {
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:**.txt");
+            ParallelFileProcessor.TreeStatistics stats = processor.processTree(root, matcher, file -> {
+                maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(1);
+                    return Files.size(file);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    concurrent.decrementAndGet();
+                }
+            }, sizes::put, 2).get(30, TimeUnit.SECONDS);
+            
+            assertEquals(expected, sizes.keySet());
+            assertEquals(200, stats.filesMatched);
+            assertEquals(200, stats.filesProcessed);
+            assertEquals(9, stats.directories);
+            assertEquals(0, stats.failures);
+            assertTrue(maxConcurrent.get() <= 2, "Per-device cap exceeded: " + maxConcurrent.get());
+            
+            Map<Path, String> found = processor.findAndProcessFiles(root, "**.txt", Path::toString)
+                .get(30, TimeUnit.SECONDS);
+            assertEquals(expected, found.keySet());
+            
+            // A null result is a legitimate "nothing to report", not a failure
+            Map<Path, String> partial = processor.findAndProcessFiles(root, "**.txt",
+                    file -> file.getFileName().toString().startsWith("file-1") ? null : "ok")
+                .get(30, TimeUnit.SECONDS);
+            assertEquals(200 - 4 * 11, partial.size()); // file-1 and file-10..19 in each directory
+        } finally {
+            processor.shutdown();
+        }
+    }
+    
+    @Test
+    void testBenchmarkComparator() throws IOException {
+        String run = "  {\"benchmark\": \"io.%s\", \"mode\": \"%s\", \"threads\": 1,"
+            + " \"params\": {\"fileSize\": \"4K\"},"
+            + " \"primaryMetric\": {\"score\": %s, \"scoreError\": %s, \"scoreUnit\": \"%s\"}}";
+        Path baseline = tempDir.resolve("baseline.json");
+        Path candidate = tempDir.resolve("candidate.json");
+        Files.writeString(baseline, "[\n" + String.join(",\n",
+            String.format(run, "read", "thrpt", "1000.0", "10.0", "ops/s"),
+            String.format(run, "write", "avgt", "50.0", "1.0", "us/op"),
+            String.format(run, "noisy", "thrpt", "100.0", "\"NaN\"", "ops/s"),
+            String.format(run, "jitter", "thrpt", "100.0", "20.0", "ops/s"),
+            String.format(run, "removed", "thrpt", "1.0", "0.0", "ops/s")) + "\n]");
+        Files.writeString(candidate, "[\n" + String.join(",\n",
+            String.format(run, "read", "thrpt", "800.0", "10.0", "ops/s"),
+            String.format(run, "write", "avgt", "40.0", "1.0", "us/op"),
+            String.format(run, "noisy", "thrpt", "102.0", "\"NaN\"", "ops/s"),
+            String.format(run, "jitter", "thrpt", "80.0", "20.0", "ops/s"),
+            String.format(run, "added", "thrpt", "1.0", "0.0", "ops/s")) + "\n]");
+        
+        Map<String, BenchmarkComparator.Verdict> verdicts = BenchmarkComparator.compare(baseline, candidate, 5.0)
+            .stream()
+            .collect(Collectors.toMap(c -> c.key.substring(3, c.key.indexOf(' ')), c -> c.verdict));
+        
+        assertEquals(BenchmarkComparator.Verdict.REGRESSION, verdicts.get("read"));
+        assertEquals(BenchmarkComparator.Verdict.IMPROVEMENT, verdicts.get("write"));
+        assertEquals(BenchmarkComparator.Verdict.UNCHANGED, verdicts.get("noisy"));
+        assertEquals(BenchmarkComparator.Verdict.UNCHANGED, verdicts.get("jitter"));
+        assertEquals(BenchmarkComparator.Verdict.MISSING, verdicts.get("removed"));
+        assertEquals(BenchmarkComparator.Verdict.NEW, verdicts.get("added"));
+    }
+    
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not met in time");
+            Thread.sleep(20);
+        }
+    }
 }
\ No newline at end of file
@@ -12,38 +12,38 @@ public class FalseSharingDemo {
     /**
      * False Sharingが発生する問題のあるクラス
      */
-    static class FalseSharingCounters {
+    public static class FalseSharingCounters {
         // これらの変数は連続したメモリ領域に配置される可能性が高い
         // 同じキャッシュライン（通常64バイト）に収まってしまう
-        volatile long counter1 = 0;
-        volatile long counter2 = 0;
-        volatile long counter3 = 0;
-        volatile long counter4 = 0;
-        volatile long counter5 = 0;
-        volatile long counter6 = 0;
-        volatile long counter7 = 0;
-        volatile long counter8 = 0;
+        public volatile long counter1 = 0;
+        public volatile long counter2 = 0;
+        public volatile long counter3 = 0;
+        public volatile long counter4 = 0;
+        public volatile long counter5 = 0;
+        public volatile long counter6 = 0;
+        public volatile long counter7 = 0;
+        public volatile long counter8 = 0;
     }
     
     /**
      * パディングによってFalse Sharingを回避するクラス
      */
-    static class PaddedCounters {
+    public static class PaddedCounters {
         // CPUキャッシュライン（通常64バイト）を考慮したパディング
         volatile long p1, p2, p3, p4, p5, p6, p7;     // 前パディング（56バイト）
-        volatile long counter1 = 0;                    // 実際のカウンター（8バイト）
+        public volatile long counter1 = 0;             // 実際のカウンター（8バイト）
         volatile long q1, q2, q3, q4, q5, q6, q7;     // 後パディング（56バイト）
         
         volatile long r1, r2, r3, r4, r5, r6, r7;     // 前パディング
-        volatile long counter2 = 0;
+        public volatile long counter2 = 0;
         volatile long s1, s2, s3, s4, s5, s6, s7;     // 後パディング
         
         volatile long t1, t2, t3, t4, t5, t6, t7;     // 前パディング
-        volatile long counter3 = 0;
+        public volatile long counter3 = 0;
         volatile long u1, u2, u3, u4, u5, u6, u7;     // 後パディング
         
         volatile long v1, v2, v3, v4, v5, v6, v7;     // 前パディング
-        volatile long counter4 = 0;
+        public volatile long counter4 = 0;
         volatile long w1, w2, w3, w4, w5, w6, w7;     // 後パディング
     }
     
@@ -51,18 +51,18 @@ public class FalseSharingDemo {
      * @Contendedアノテーションを使用したクラス（Java 8以降）
      * JVMが自動的にパディングを追加する
      */
-    static class ContendedCounters {
+    public static class ContendedCounters {
         @jdk.internal.vm.annotation.Contended
-        volatile long counter1 = 0;
+        public volatile long counter1 = 0;
         
         @jdk.internal.vm.annotation.Contended
-        volatile long counter2 = 0;
+        public volatile long counter2 = 0;
         
         @jdk.internal.vm.annotation.Contended
-        volatile long counter3 = 0;
+        public volatile long counter3 = 0;
         
         @jdk.internal.vm.annotation.Contended
-        volatile long counter4 = 0;
+        public volatile long counter4 = 0;
     }
     
     /**
@@ -132,64 +132,6 @@ public class FalseSharingDemo {
         }
     }
     
-    /**
-     * スケーラブルなカウンター実装（LongAdderの簡易版）
-     */
-    static class StripedCounter {
-        private static final int STRIPE_COUNT = 
-            Runtime.getRuntime().availableProcessors() * 4;
-        
-        @jdk.internal.vm.annotation.Contended
-        static class Cell {
-            volatile long value;
-            
-            Cell(long value) {
-                this.value = value;
-            }
-        }
-        
-        private final Cell[] cells = new Cell[STRIPE_COUNT];
-        
-        public StripedCounter() {
-            for (int i = 0; i < cells.length; i++) {
-                cells[i] = new Cell(0);
-            }
-        }
-        
-        public void increment() {
-            int index = getStripeIndex();
-            cells[index].value++;
-        }
-        
-        public void add(long delta) {
-            int index = getStripeIndex();
-            cells[index].value += delta;
-        }
-        
-        public long sum() {
-            long sum = 0;
-            for (Cell cell : cells) {
-                sum += cell.value;
-            }
-            return sum;
-        }
-        
-        private int getStripeIndex() {
-            // スレッドIDベースの分散（簡易版）
-            return (int) (Thread.currentThread().getId() % STRIPE_COUNT);
-        }
-        
-        public void reset() {
-            for (Cell cell : cells) {
-                cell.value = 0;
-            }
-        }
-        
-        public int getStripeCount() {
-            return STRIPE_COUNT;
-        }
-    }
-    
     /**
      * False Sharingのパフォーマンステスト
      */
@@ -203,7 +145,6 @@ public class FalseSharingDemo {
         System.out.println("\n--- Test 1: False Sharing (Bad) ---");
         FalseSharingCounters falseSharingCounters = new FalseSharingCounters();
         
-        long startTime = System.nanoTime();
         Thread[] threads1 = new Thread[threadCount];
         
         for (int i = 0; i < threadCount; i++) {
@@ -233,20 +174,16 @@ public class FalseSharingDemo {
             }
         }
         
-        long falseSharingTime = System.nanoTime() - startTime;
-        
         System.out.println("Results: " + 
                          falseSharingCounters.counter1 + ", " +
                          falseSharingCounters.counter2 + ", " +
                          falseSharingCounters.counter3 + ", " +
                          falseSharingCounters.counter4);
-        System.out.println("Time: " + TimeUnit.NANOSECONDS.toMillis(falseSharingTime) + "ms");
         
         // パディングでFalse Sharingを回避するケース
         System.out.println("\n--- Test 2: Padded (Good) ---");
         PaddedCounters paddedCounters = new PaddedCounters();
         
-        startTime = System.nanoTime();
         Thread[] threads2 = new Thread[threadCount];
         
         for (int i = 0; i < threadCount; i++) {
@@ -276,17 +213,14 @@ public class FalseSharingDemo {
             }
         }
         
-        long paddedTime = System.nanoTime() - startTime;
-        
         System.out.println("Results: " + 
                          paddedCounters.counter1 + ", " +
                          paddedCounters.counter2 + ", " +
                          paddedCounters.counter3 + ", " +
                          paddedCounters.counter4);
-        System.out.println("Time: " + TimeUnit.NANOSECONDS.toMillis(paddedTime) + "ms");
         
-        double improvement = (double) falseSharingTime / paddedTime;
-        System.out.println("\nPerformance improvement: " + String.format("%.2fx", improvement));
+        // ウォームアップなしの1回計測は信頼できないため、性能差はJMHで測る
+        System.out.println("\nThroughput comparison: run benchmark.FalseSharingBenchmark (JMH)");
     }
     
     /**
@@ -378,7 +312,6 @@ public class FalseSharingDemo {
         final int threadCount = 8;
         final int incrementsPerThread = 1_000_000;
         
-        System.out.println("Stripe count: " + counter.getStripeCount());
         System.out.println("Thread count: " + threadCount);
         System.out.println("Increments per thread: " + incrementsPerThread);
         
@@ -412,6 +345,7 @@ public class FalseSharingDemo {
         
         System.out.println("Expected sum: " + expectedSum);
         System.out.println("Actual sum: " + actualSum);
+        System.out.println("Cell count: " + counter.getCellCount());
         System.out.println("Time: " + TimeUnit.NANOSECONDS.toMillis(elapsedTime) + "ms");
         System.out.println("Operations per second: " + 
                          String.format("%.0f", expectedSum / (elapsedTime / 1_000_000_000.0)));
@@ -1,8 +1,20 @@
 package com.example.memorymodel;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.atomic.AtomicStampedReference;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * ロックフリーアルゴリズムの実装例
@@ -212,8 +224,8 @@ public class LockFreeAlgorithms {
             new AtomicStampedReference<>(null, 0);
         
         public void push(T item) {
+            int[] stampHolder = new int[1]; // リトライごとに確保しない
             while (true) {
-                int[] stampHolder = new int[1];
                 Node<T> currentHead = top.get(stampHolder);
                 int currentStamp = stampHolder[0];
                 
@@ -228,8 +240,8 @@ public class LockFreeAlgorithms {
         }
         
         public T pop() {
+            int[] stampHolder = new int[1]; // リトライごとに確保しない
             while (true) {
-                int[] stampHolder = new int[1];
                 Node<T> currentHead = top.get(stampHolder);
                 int currentStamp = stampHolder[0];
                 
@@ -332,6 +344,330 @@ public class LockFreeAlgorithms {
         }
     }
     
+    /**
+     * 配列ベースの有界MPMCキュー（Dmitry Vyukov のアルゴリズム）
+     *
+     * スロットごとにシーケンス番号を持ち、生産者と消費者は自分の位置のシーケンス番号だけを見て
+     * スロットの状態（書き込み可能・読み出し可能・前の周回が未完了）を判断する。
+     * CAS は位置の確保だけに使い、要素を書き込んだ後にシーケンス番号を release で公開するため、
+     * offer/poll はオブジェクトを一切確保しない。
+     * 生産者側と消費者側の位置は別々のキャッシュラインに置き、互いの更新で無効化されないようにする。
+     *
+     * 容量は2の累乗に切り上げる。満杯の offer は false、空の poll は null を返す（ブロックしない）。
+     */
+    public static class BoundedMpmcQueue<E> extends AbstractQueue<E> {
+        private static final VarHandle SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+        private static final VarHandle ELEMENT = MethodHandles.arrayElementVarHandle(Object[].class);
+        
+        private final long[] sequences;
+        private final Object[] buffer;
+        private final int mask;
+        private final PaddedSequence enqueuePosition = new PaddedSequence(0);
+        private final PaddedSequence dequeuePosition = new PaddedSequence(0);
+        
+        public BoundedMpmcQueue(int capacity) {
+            if (capacity < 2 || capacity > 1 << 30) {
+                throw new IllegalArgumentException("Capacity must be between 2 and 2^30: " + capacity);
+            }
+            int size = 1 << (32 - Integer.numberOfLeadingZeros(capacity - 1));
+            this.sequences = new long[size];
+            for (int i = 0; i < size; i++) {
+                sequences[i] = i; // 位置 i の生産者を待つ状態
+            }
+            this.buffer = new Object[size];
+            this.mask = size - 1;
+        }
+        
+        /**
+         * 要素を追加（満杯なら false）
+         */
+        @Override
+        public boolean offer(E item) {
+            Objects.requireNonNull(item);
+            long position = enqueuePosition.get();
+            while (true) {
+                int index = (int) position & mask;
+                long sequence = (long) SEQUENCE.getAcquire(sequences, index);
+                long difference = sequence - position;
+                if (difference == 0) {
+                    if (enqueuePosition.compareAndSet(position, position + 1)) {
+                        buffer[index] = item;
+                        // シーケンス番号の公開で要素の書き込みも消費者から見えるようになる
+                        SEQUENCE.setRelease(sequences, index, position + 1);
+                        return true;
+                    }
+                    position = enqueuePosition.get();
+                } else if (difference < 0) {
+                    return false; // 1周前の要素がまだ取り出されていない
+                } else {
+                    position = enqueuePosition.get(); // 他の生産者に先を越された
+                }
+            }
+        }
+        
+        /**
+         * 要素を取り出し（空なら null）
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public E poll() {
+            long position = dequeuePosition.get();
+            while (true) {
+                int index = (int) position & mask;
+                long sequence = (long) SEQUENCE.getAcquire(sequences, index);
+                long difference = sequence - (position + 1);
+                if (difference == 0) {
+                    if (dequeuePosition.compareAndSet(position, position + 1)) {
+                        E item = (E) buffer[index];
+                        buffer[index] = null;
+                        // 次の周回の生産者にスロットを渡す
+                        SEQUENCE.setRelease(sequences, index, position + mask + 1);
+                        return item;
+                    }
+                    position = dequeuePosition.get();
+                } else if (difference < 0) {
+                    return null; // まだ書き込まれていない
+                } else {
+                    position = dequeuePosition.get(); // 他の消費者に先を越された
+                }
+            }
+        }
+        
+        @Override
+        @SuppressWarnings("unchecked")
+        public E peek() {
+            while (true) {
+                long position = dequeuePosition.get();
+                int index = (int) position & mask;
+                long sequence = (long) SEQUENCE.getAcquire(sequences, index);
+                if (sequence < position + 1) {
+                    return null;
+                }
+                if (sequence == position + 1) {
+                    Object item = ELEMENT.getAcquire(buffer, index);
+                    // 読んでいる間に取り出されていなければ先頭の要素
+                    if (item != null && dequeuePosition.get() == position) {
+                        return (E) item;
+                    }
+                }
+            }
+        }
+        
+        /**
+         * 現在の要素数（並行更新中は近似値）
+         */
+        @Override
+        public int size() {
+            while (true) {
+                long before = dequeuePosition.get();
+                long tail = enqueuePosition.get();
+                long after = dequeuePosition.get();
+                if (before == after) {
+                    return (int) Math.max(0, Math.min(tail - after, buffer.length));
+                }
+            }
+        }
+        
+        @Override
+        public boolean isEmpty() {
+            return enqueuePosition.get() == dequeuePosition.get();
+        }
+        
+        public int capacity() {
+            return buffer.length;
+        }
+        
+        /**
+         * 呼び出し時点の先頭から最大で容量分のスロットをたどる弱整合イテレーター（remove は未対応）
+         */
+        @Override
+        public Iterator<E> iterator() {
+            return new Iterator<>() {
+                private long position = dequeuePosition.get();
+                private final long end = position + buffer.length;
+                private E next = advance();
+                
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+                
+                @Override
+                public E next() {
+                    E item = next;
+                    if (item == null) {
+                        throw new NoSuchElementException();
+                    }
+                    next = advance();
+                    return item;
+                }
+                
+                @SuppressWarnings("unchecked")
+                private E advance() {
+                    while (position < end) {
+                        int index = (int) position & mask;
+                        long sequence = (long) SEQUENCE.getAcquire(sequences, index);
+                        if (sequence < position + 1) {
+                            return null; // 生産者に追いついた
+                        }
+                        position++;
+                        if (sequence == position) {
+                            Object item = ELEMENT.getAcquire(buffer, index);
+                            if (item != null && (long) SEQUENCE.getAcquire(sequences, index) == sequence) {
+                                return (E) item;
+                            }
+                        }
+                        // すでに取り出されたスロットは飛ばす
+                    }
+                    return null;
+                }
+            };
+        }
+    }
+    
+    /**
+     * 消去バックオフ付きスタック（Hendler, Shavit, Yerushalmi の elimination-backoff stack）
+     *
+     * 通常は Treiber スタックとして先頭を CAS で更新する。
+     * CAS に失敗して競合を検出すると、先頭へ再挑戦する前に消去配列のランダムなスロットで
+     * 対になる操作を待つ。push の待機中に pop が来れば、要素は先頭を経由せずに直接受け渡される
+     * （push の直後に pop したのと同じで、スタック本体の状態は変わらない）。
+     * 待機は短いスピンで打ち切って先頭への CAS に戻り、使うスロットの範囲は消去の成否に応じて増減する。
+     *
+     * push はノードを1つ確保するが、リトライ中は同じノードを使い回す。null は空を表すため格納できない。
+     */
+    public static class EliminationBackoffStack<T> {
+        private static final int DEFAULT_SPINS = 64;
+        private static final int SLOT_STRIDE = 16; // 隣接スロットが同じキャッシュラインに乗らない間隔
+        
+        private static final class Node<T> {
+            final T item;
+            Node<T> next; // 公開前（CAS成功前）にだけ書き換える
+            
+            Node(T item) {
+                this.item = item;
+            }
+        }
+        
+        private final AtomicReference<Node<T>> top = new AtomicReference<>();
+        private final AtomicReferenceArray<Node<T>> eliminationArray;
+        private final int slotCount;
+        private final int spins;
+        private volatile int range = 1; // 現在使うスロット数（競合状況に応じて増減）
+        private final LongAdder eliminations = new LongAdder();
+        
+        public EliminationBackoffStack() {
+            this(Math.max(1, Runtime.getRuntime().availableProcessors() / 2), DEFAULT_SPINS);
+        }
+        
+        /**
+         * @param slotCount 消去配列のスロット数
+         * @param spins 消去スロットで相手を待つスピン回数
+         */
+        public EliminationBackoffStack(int slotCount, int spins) {
+            if (slotCount < 1 || spins < 1) {
+                throw new IllegalArgumentException("slotCount and spins must be positive");
+            }
+            this.slotCount = slotCount;
+            this.spins = spins;
+            this.eliminationArray = new AtomicReferenceArray<>(slotCount * SLOT_STRIDE);
+        }
+        
+        public void push(T item) {
+            Node<T> node = new Node<>(Objects.requireNonNull(item));
+            while (true) {
+                Node<T> currentHead = top.get();
+                node.next = currentHead;
+                if (top.compareAndSet(currentHead, node)) {
+                    return;
+                }
+                // 競合したので消去配列で pop を待つ
+                if (tryEliminatePush(node)) {
+                    return;
+                }
+            }
+        }
+        
+        public T pop() {
+            while (true) {
+                Node<T> currentHead = top.get();
+                if (currentHead == null) {
+                    return null; // スタックが空
+                }
+                if (top.compareAndSet(currentHead, currentHead.next)) {
+                    return currentHead.item;
+                }
+                // 競合したので消去配列で push を待つ
+                Node<T> eliminated = tryEliminatePop();
+                if (eliminated != null) {
+                    return eliminated.item;
+                }
+            }
+        }
+        
+        public boolean isEmpty() {
+            return top.get() == null;
+        }
+        
+        /**
+         * 先頭を経由せずに受け渡された push/pop の組の数
+         */
+        public long getEliminationCount() {
+            return eliminations.sum();
+        }
+        
+        private boolean tryEliminatePush(Node<T> node) {
+            int index = randomSlot();
+            if (!eliminationArray.compareAndSet(index, null, node)) {
+                widen(); // 他の push が使用中なのでスロットを増やす
+                return false;
+            }
+            for (int i = 0; i < spins; i++) {
+                if (eliminationArray.get(index) != node) {
+                    eliminations.increment(); // pop がノードを持ち去った
+                    return true;
+                }
+                Thread.onSpinWait();
+            }
+            if (eliminationArray.compareAndSet(index, node, null)) {
+                narrow(); // 相手が来なかったのでスロットを減らす
+                return false;
+            }
+            eliminations.increment(); // 取り下げる直前に pop が持ち去った
+            return true;
+        }
+        
+        private Node<T> tryEliminatePop() {
+            int index = randomSlot();
+            for (int i = 0; i < spins; i++) {
+                Node<T> offered = eliminationArray.get(index);
+                if (offered != null && eliminationArray.compareAndSet(index, offered, null)) {
+                    return offered;
+                }
+                Thread.onSpinWait();
+            }
+            return null;
+        }
+        
+        private int randomSlot() {
+            return ThreadLocalRandom.current().nextInt(range) * SLOT_STRIDE;
+        }
+        
+        private void widen() {
+            int current = range;
+            if (current < slotCount) {
+                range = current + 1;
+            }
+        }
+        
+        private void narrow() {
+            int current = range;
+            if (current > 1) {
+                range = current - 1;
+            }
+        }
+    }
+    
     /**
      * ロックフリースタックのパフォーマンステスト
      */
@@ -343,7 +679,6 @@ public class LockFreeAlgorithms {
         final int operationsPerThread = 1000;
         
         Thread[] threads = new Thread[threadCount];
-        long startTime = System.nanoTime();
         
         // 各スレッドでpush/pop操作を実行
         for (int i = 0; i < threadCount; i++) {
@@ -374,15 +709,11 @@ public class LockFreeAlgorithms {
             }
         }
         
-        long endTime = System.nanoTime();
-        double elapsedMs = (endTime - startTime) / 1_000_000.0;
-        
         System.out.println("Threads: " + threadCount);
         System.out.println("Operations per thread: " + operationsPerThread);
         System.out.println("Total operations: " + stack.getOperationCount());
-        System.out.println("Elapsed time: " + String.format("%.2f", elapsedMs) + "ms");
-        System.out.println("Operations per second: " + 
-                         String.format("%.0f", stack.getOperationCount() / elapsedMs * 1000));
+        // スループットはJMHで測る（ウォームアップなしの計測は信頼できない）
+        System.out.println("Throughput: run benchmark.LockFreeBenchmark (JMH)");
         
         // 最終的なスタックの状態
         int remainingItems = 0;
@@ -434,7 +765,6 @@ public class LockFreeAlgorithms {
         final int incrementsPerThread = 1000;
         
         Thread[] threads = new Thread[threadCount];
-        long startTime = System.nanoTime();
         
         // 各スレッドでカウンターを操作
         for (int i = 0; i < threadCount; i++) {
@@ -464,19 +794,14 @@ public class LockFreeAlgorithms {
             }
         }
         
-        long endTime = System.nanoTime();
-        double elapsedMs = (endTime - startTime) / 1_000_000.0;
-        
         System.out.println("Threads: " + threadCount);
         System.out.println("Increments per thread: " + incrementsPerThread);
         System.out.println("Final counter value: " + counter.get());
         System.out.println("CAS failures: " + counter.getCasFailures());
-        System.out.println("Elapsed time: " + String.format("%.2f", elapsedMs) + "ms");
         
         int totalOperations = threadCount * incrementsPerThread;
         System.out.println("Total operations: " + totalOperations);
-        System.out.println("Operations per second: " + 
-                         String.format("%.0f", totalOperations / elapsedMs * 1000));
+        System.out.println("Throughput: run benchmark.LockFreeBenchmark (JMH)");
         System.out.println("CAS failure rate: " + 
                          String.format("%.2f", counter.getCasFailures() / (double) totalOperations * 100) + "%");
     }
@@ -513,6 +838,79 @@ public class LockFreeAlgorithms {
         System.out.println("Final value: " + atomicInt.get());
     }
     
+    /**
+     * 有界MPMCキューと消去バックオフ付きスタックの動作確認
+     * 生産者と消費者を同数起動し、取りこぼしや重複がないことを合計値で確認する
+     */
+    public static void testWorkQueues() {
+        System.out.println("\n=== Bounded MPMC Queue / Elimination-Backoff Stack Test ===");
+        
+        final int producerCount = 4;
+        final int itemsPerProducer = 250_000;
+        long expectedSum = (long) producerCount * itemsPerProducer * (itemsPerProducer + 1) / 2;
+        
+        BoundedMpmcQueue<Integer> queue = new BoundedMpmcQueue<>(1024);
+        EliminationBackoffStack<Integer> stack = new EliminationBackoffStack<>();
+        
+        long queueSum = transfer(producerCount, itemsPerProducer, queue::offer, queue::poll);
+        long stackSum = transfer(producerCount, itemsPerProducer, item -> {
+            stack.push(item);
+            return true;
+        }, stack::pop);
+        
+        System.out.println("Queue capacity: " + queue.capacity());
+        System.out.println("Queue sum correct: " + (queueSum == expectedSum));
+        System.out.println("Stack sum correct: " + (stackSum == expectedSum));
+        System.out.println("Eliminated push/pop pairs: " + stack.getEliminationCount());
+        System.out.println("Throughput: run benchmark.WorkQueueBenchmark / benchmark.ConcurrentStackBenchmark (JMH)");
+    }
+    
+    /**
+     * 生産者が 1..itemsPerProducer を投入し、同数の消費者が取り出した値の合計を返す
+     */
+    private static long transfer(int producerCount, int itemsPerProducer,
+                                 Predicate<Integer> offer, Supplier<Integer> poll) {
+        AtomicLong sum = new AtomicLong();
+        AtomicInteger remaining = new AtomicInteger(producerCount * itemsPerProducer);
+        Thread[] threads = new Thread[producerCount * 2];
+        
+        for (int i = 0; i < producerCount; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 1; j <= itemsPerProducer; j++) {
+                    while (!offer.test(j)) {
+                        Thread.yield(); // 満杯なら消費者に譲る（コア数が少なくてもスピンで止まらない）
+                    }
+                }
+            });
+            threads[producerCount + i] = new Thread(() -> {
+                long local = 0;
+                while (remaining.get() > 0) {
+                    Integer item = poll.get();
+                    if (item != null) {
+                        local += item;
+                        remaining.decrementAndGet();
+                    } else {
+                        Thread.yield();
+                    }
+                }
+                sum.addAndGet(local);
+            });
+        }
+        
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return -1;
+            }
+        }
+        return sum.get();
+    }
+    
     /**
      * メインメソッド
      */
@@ -521,6 +919,7 @@ public class LockFreeAlgorithms {
         testLockFreeStackPerformance();
         demonstrateABAProblem();
         testLockFreeCounter();
+        testWorkQueues();
         
         System.out.println("\n=== Lock-Free Programming Summary ===");
         System.out.println("1. CAS (Compare-And-Swap) enables lock-free atomic operations");
@@ -0,0 +1,51 @@
+package com.example.memorymodel;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * キャッシュラインを占有する long カウンター
+ * 生産者側と消費者側のインデックスのように、別々のスレッドが頻繁に書き込む値を分離するために使う
+ * パディングは継承で配置する（サブクラスのフィールドは親クラスのフィールドの後に並ぶ）
+ */
+final class PaddedSequence extends PaddedSequenceValue {
+    long q00, q01, q02, q03, q04, q05, q06, q07;
+    long q08, q09, q10, q11, q12, q13, q14, q15;
+    
+    private static final VarHandle VALUE;
+    
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(PaddedSequenceValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
+    PaddedSequence(long initialValue) {
+        value = initialValue;
+    }
+    
+    long get() {
+        return value;
+    }
+    
+    boolean compareAndSet(long expected, long newValue) {
+        return VALUE.compareAndSet(this, expected, newValue);
+    }
+}
+
+/**
+ * 前パディング（キャッシュライン2本分: 隣接ラインのプリフェッチにも対応）
+ */
+abstract class PaddedSequencePadBefore {
+    long p00, p01, p02, p03, p04, p05, p06, p07;
+    long p08, p09, p10, p11, p12, p13, p14, p15;
+}
+
+/**
+ * 値フィールド（サブクラスのフィールドは親クラスの後に配置される）
+ */
+abstract class PaddedSequenceValue extends PaddedSequencePadBefore {
+    volatile long value;
+}
@@ -0,0 +1,271 @@
+package com.example.memorymodel;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 高競合下でもスケールするストライプ型カウンター（LongAdderと同じ設計）
+ *
+ * 競合がない間は base フィールドだけを CAS で更新する。
+ * CAS の失敗で競合を検出すると、セル配列を遅延生成して更新を分散する。
+ * セル配列は競合が続くたびに2倍に拡張し、CPUコア数以上の最小の2の累乗で止める。
+ *
+ * セルの選択にはスレッドごとの probe 値を使い、CAS に失敗したら probe を再ハッシュして
+ * 別のセルへ移る。Thread.getId() と違って仮想スレッドでも偏らない。
+ * セルは継承によるパディングで前後128バイトずつ離す。
+ * {@code @Contended} は -XX:-RestrictContended なしでは無視されるため使わない。
+ */
+public class StripedCounter {
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+    
+    private static final VarHandle BASE;
+    private static final VarHandle CELLS_BUSY;
+    
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            BASE = lookup.findVarHandle(StripedCounter.class, "base", long.class);
+            CELLS_BUSY = lookup.findVarHandle(StripedCounter.class, "cellsBusy", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+    
+    /**
+     * スレッドごとのセル選択用ハッシュ値
+     */
+    private static final ThreadLocal<Probe> PROBE = ThreadLocal.withInitial(Probe::new);
+    
+    private volatile long base;
+    private volatile int cellsBusy; // セル配列の生成・拡張用スピンロック
+    private volatile Cell[] cells;
+    
+    /**
+     * 値を加算
+     */
+    public void add(long x) {
+        Cell[] cs = cells;
+        if (cs == null) {
+            long b = base;
+            if (BASE.compareAndSet(this, b, b + x)) {
+                return;
+            }
+        } else {
+            Cell c = cs[PROBE.get().hash & (cs.length - 1)];
+            long v;
+            if (c != null && c.compareAndSet(v = c.value, v + x)) {
+                return;
+            }
+        }
+        addContended(x);
+    }
+    
+    public void increment() {
+        add(1L);
+    }
+    
+    public void decrement() {
+        add(-1L);
+    }
+    
+    /**
+     * 現在の合計値（並行更新中はその途中の値になりうる）
+     */
+    public long sum() {
+        long sum = base;
+        Cell[] cs = cells;
+        if (cs != null) {
+            for (Cell c : cs) {
+                if (c != null) {
+                    sum += c.value;
+                }
+            }
+        }
+        return sum;
+    }
+    
+    /**
+     * 合計値を返してゼロに戻す
+     * 各セルを getAndSet で取り出すため、読み取りとリセットの間の加算を失わない
+     */
+    public long sumThenReset() {
+        long sum = (long) BASE.getAndSet(this, 0L);
+        Cell[] cs = cells;
+        if (cs != null) {
+            for (Cell c : cs) {
+                if (c != null) {
+                    sum += c.getAndReset();
+                }
+            }
+        }
+        return sum;
+    }
+    
+    /**
+     * ゼロに戻す（並行更新がない時のみ正確）
+     */
+    public void reset() {
+        sumThenReset();
+    }
+    
+    /**
+     * 生成済みのセル配列の長さ（未生成なら0）
+     */
+    public int getCellCount() {
+        Cell[] cs = cells;
+        return cs == null ? 0 : cs.length;
+    }
+    
+    @Override
+    public String toString() {
+        return Long.toString(sum());
+    }
+    
+    /**
+     * 競合時の更新処理（java.util.concurrent.atomic.Striped64 と同じ手順）
+     */
+    private void addContended(long x) {
+        Probe probe = PROBE.get();
+        int h = probe.hash;
+        boolean collide = false; // 直前のループでセルの衝突があったか
+        for (;;) {
+            Cell[] cs = cells;
+            int n;
+            if (cs != null && (n = cs.length) > 0) {
+                Cell c = cs[(n - 1) & h];
+                long v;
+                if (c == null) {
+                    // 空きスロットにセルを追加
+                    if (cellsBusy == 0) {
+                        Cell created = new Cell(x);
+                        if (cellsBusy == 0 && casCellsBusy()) {
+                            try {
+                                Cell[] rs = cells;
+                                int m;
+                                int j;
+                                if (rs != null && (m = rs.length) > 0 && rs[j = (m - 1) & h] == null) {
+                                    rs[j] = created;
+                                    return;
+                                }
+                            } finally {
+                                cellsBusy = 0;
+                            }
+                            continue; // 他のスレッドが先に埋めた
+                        }
+                    }
+                    collide = false;
+                } else if (c.compareAndSet(v = c.value, v + x)) {
+                    return;
+                } else if (n >= NCPU || cells != cs) {
+                    collide = false; // 上限に達したか、すでに拡張された
+                } else if (!collide) {
+                    collide = true;
+                } else if (cellsBusy == 0 && casCellsBusy()) {
+                    // 再ハッシュしても衝突が続くのでセル配列を2倍に拡張
+                    try {
+                        if (cells == cs) {
+                            cells = Arrays.copyOf(cs, n << 1);
+                        }
+                    } finally {
+                        cellsBusy = 0;
+                    }
+                    collide = false;
+                    continue;
+                }
+                h = probe.advance();
+            } else if (cellsBusy == 0 && cells == cs && casCellsBusy()) {
+                // 最初の競合でセル配列を生成
+                try {
+                    if (cells == cs) {
+                        Cell[] rs = new Cell[2];
+                        rs[h & 1] = new Cell(x);
+                        cells = rs;
+                        return;
+                    }
+                } finally {
+                    cellsBusy = 0;
+                }
+            } else {
+                // 生成中なら base へのCASに戻る
+                long b = base;
+                if (BASE.compareAndSet(this, b, b + x)) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    private boolean casCellsBusy() {
+        return CELLS_BUSY.compareAndSet(this, 0, 1);
+    }
+    
+    /**
+     * スレッドごとの probe 値（xorshiftで再ハッシュ）
+     */
+    private static final class Probe {
+        private static final AtomicInteger SEEDER = new AtomicInteger();
+        
+        int hash;
+        
+        Probe() {
+            int seed = SEEDER.addAndGet(0x9e3779b9); // 黄金比で初期値を散らす
+            hash = seed == 0 ? 1 : seed;
+        }
+        
+        int advance() {
+            int h = hash;
+            h ^= h << 13;
+            h ^= h >>> 17;
+            h ^= h << 5;
+            hash = h;
+            return h;
+        }
+    }
+    
+    /**
+     * 前パディング（キャッシュライン2本分: 隣接ラインのプリフェッチにも対応）
+     */
+    abstract static class CellPadBefore {
+        long p00, p01, p02, p03, p04, p05, p06, p07;
+        long p08, p09, p10, p11, p12, p13, p14, p15;
+    }
+    
+    /**
+     * 値フィールド（サブクラスのフィールドは親クラスの後に配置される）
+     */
+    abstract static class CellValue extends CellPadBefore {
+        volatile long value;
+    }
+    
+    /**
+     * 後パディングを含むセル本体
+     */
+    static final class Cell extends CellValue {
+        private static final VarHandle VALUE;
+        
+        static {
+            try {
+                VALUE = MethodHandles.lookup().findVarHandle(CellValue.class, "value", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+        
+        long q00, q01, q02, q03, q04, q05, q06, q07;
+        long q08, q09, q10, q11, q12, q13, q14, q15;
+        
+        Cell(long x) {
+            value = x;
+        }
+        
+        boolean compareAndSet(long expected, long newValue) {
+            return VALUE.compareAndSet(this, expected, newValue);
+        }
+        
+        long getAndReset() {
+            return (long) VALUE.getAndSet(this, 0L);
+        }
+    }
+}
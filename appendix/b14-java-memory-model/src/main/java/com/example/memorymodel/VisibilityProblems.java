@@ -1,7 +1,5 @@
 package com.example.memorymodel;
 
-import java.util.concurrent.TimeUnit;
-
 /**
  * メモリ可視性問題のデモンストレーション
  * volatile キーワードの重要性と happens-before 関係を学習
@@ -247,7 +245,7 @@ public class VisibilityProblems {
     /**
      * volatileとsynchronizedの違いを説明
      */
-    static class VolatileVsSynchronized {
+    public static class VolatileVsSynchronized {
         private volatile int volatileCounter = 0;
         private int synchronizedCounter = 0;
         
@@ -295,7 +293,6 @@ public class VisibilityProblems {
             });
         }
         
-        long startTime = System.nanoTime();
         for (Thread thread : volatileThreads) {
             thread.start();
         }
@@ -307,7 +304,6 @@ public class VisibilityProblems {
                 Thread.currentThread().interrupt();
             }
         }
-        long volatileTime = System.nanoTime() - startTime;
         
         int expectedCount = threadCount * incrementsPerThread;
         int actualVolatileCount = demo.getVolatileCounter();
@@ -316,7 +312,6 @@ public class VisibilityProblems {
         System.out.println("  Expected: " + expectedCount);
         System.out.println("  Actual: " + actualVolatileCount);
         System.out.println("  Lost updates: " + (expectedCount - actualVolatileCount));
-        System.out.println("  Time: " + TimeUnit.NANOSECONDS.toMillis(volatileTime) + "ms");
         
         // カウンターをリセット
         demo.reset();
@@ -331,7 +326,6 @@ public class VisibilityProblems {
             });
         }
         
-        startTime = System.nanoTime();
         for (Thread thread : syncThreads) {
             thread.start();
         }
@@ -343,7 +337,6 @@ public class VisibilityProblems {
                 Thread.currentThread().interrupt();
             }
         }
-        long syncTime = System.nanoTime() - startTime;
         
         int actualSyncCount = demo.getSynchronizedCounter();
         
@@ -351,12 +344,11 @@ public class VisibilityProblems {
         System.out.println("  Expected: " + expectedCount);
         System.out.println("  Actual: " + actualSyncCount);
         System.out.println("  Lost updates: " + (expectedCount - actualSyncCount));
-        System.out.println("  Time: " + TimeUnit.NANOSECONDS.toMillis(syncTime) + "ms");
         
         System.out.println("\nConclusion:");
         System.out.println("  Volatile provides visibility but not atomicity");
         System.out.println("  Synchronized provides both visibility and atomicity");
-        System.out.println("  Performance cost: " + (syncTime / (double) volatileTime) + "x slower");
+        System.out.println("  Performance cost: run benchmark.VolatileVsSynchronizedBenchmark (JMH)");
     }
     
     /**
@@ -0,0 +1,83 @@
+package com.example.memorymodel.benchmark;
+
+import com.example.memorymodel.LockFreeAlgorithms.ABASafeStack;
+import com.example.memorymodel.LockFreeAlgorithms.EliminationBackoffStack;
+import com.example.memorymodel.LockFreeAlgorithms.LockFreeStack;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 並行スタックのスループットとレイテンシ比較
+ * EliminationBackoffStack、LockFreeStack（Treiber）、ABASafeStack で push と pop を交互に行う
+ *
+ * 競合が増えると LockFreeStack と ABASafeStack は先頭の CAS のリトライが増える。
+ * EliminationBackoffStack は衝突した push/pop を消去配列で直接受け渡すため、
+ * 先頭への CAS が減る（消去が起きるのは実際に複数のコアで同時に動く時だけ）
+ *
+ * {@link #main} はスレッド数ごとのスループットの後、SampleTime モードでレイテンシ分布を計測する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class ConcurrentStackBenchmark {
+    
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32};
+    private static final Integer ELEMENT = 42;
+    
+    EliminationBackoffStack<Integer> eliminationBackoffStack;
+    LockFreeStack<Integer> lockFreeStack;
+    ABASafeStack<Integer> abaSafeStack;
+    
+    @Setup(Level.Iteration)
+    public void setUp() {
+        eliminationBackoffStack = new EliminationBackoffStack<>();
+        lockFreeStack = new LockFreeStack<>();
+        abaSafeStack = new ABASafeStack<>();
+    }
+    
+    @Benchmark
+    public Integer eliminationBackoff() {
+        eliminationBackoffStack.push(ELEMENT);
+        return eliminationBackoffStack.pop();
+    }
+    
+    @Benchmark
+    public Integer lockFree() {
+        lockFreeStack.push(ELEMENT);
+        return lockFreeStack.pop();
+    }
+    
+    @Benchmark
+    public Integer abaSafe() {
+        abaSafeStack.push(ELEMENT);
+        return abaSafeStack.pop();
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREAD_COUNTS) {
+            Options opt = MemoryModelBenchmarks.options(
+                    ConcurrentStackBenchmark.class.getSimpleName(),
+                    "ConcurrentStackBenchmark-t" + threads)
+                    .threads(threads)
+                    .build();
+            
+            new Runner(opt).run();
+        }
+        
+        Options latency = MemoryModelBenchmarks.options(
+                ConcurrentStackBenchmark.class.getSimpleName(),
+                "ConcurrentStackBenchmark-latency")
+                .mode(Mode.SampleTime)
+                .timeUnit(TimeUnit.NANOSECONDS)
+                .threads(4)
+                .build();
+        new Runner(latency).run();
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.memorymodel.benchmark;
+
+import com.example.memorymodel.FalseSharingDemo.ContendedCounters;
+import com.example.memorymodel.FalseSharingDemo.FalseSharingCounters;
+import com.example.memorymodel.FalseSharingDemo.PaddedCounters;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * False Sharing のグループベンチマーク（FalseSharingDemo.testFalseSharingPerformance の置き換え）
+ *
+ * falseSharing、padded、contended の各グループでは4スレッドがそれぞれ別のカウンターを加算する。
+ * 論理的には共有していないため、差はキャッシュラインの共有だけから生じる。
+ * neighbourRead 系のグループは1スレッドが書き込み、3スレッドが隣のフィールドを読む非対称な負荷で、
+ * 読むだけのスレッドも書き込みによるキャッシュラインの無効化で遅くなることを確認する。
+ *
+ * 状態は Scope.Group なので、スレッド数を増やすとグループごとに別のカウンターが割り当てられる。
+ * contended グループは -XX:-RestrictContended を付けたフォークで実行する
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class FalseSharingBenchmark {
+    
+    FalseSharingCounters falseSharingCounters;
+    PaddedCounters paddedCounters;
+    ContendedCounters contendedCounters;
+    
+    @Setup(Level.Iteration)
+    public void setUp() {
+        falseSharingCounters = new FalseSharingCounters();
+        paddedCounters = new PaddedCounters();
+        contendedCounters = new ContendedCounters();
+    }
+    
+    // --- 同じキャッシュラインにある4つのカウンター ---
+    
+    @Benchmark
+    @Group("falseSharing")
+    public void falseSharing1() {
+        falseSharingCounters.counter1++;
+    }
+    
+    @Benchmark
+    @Group("falseSharing")
+    public void falseSharing2() {
+        falseSharingCounters.counter2++;
+    }
+    
+    @Benchmark
+    @Group("falseSharing")
+    public void falseSharing3() {
+        falseSharingCounters.counter3++;
+    }
+    
+    @Benchmark
+    @Group("falseSharing")
+    public void falseSharing4() {
+        falseSharingCounters.counter4++;
+    }
+    
+    // --- 手動パディング ---
+    
+    @Benchmark
+    @Group("padded")
+    public void padded1() {
+        paddedCounters.counter1++;
+    }
+    
+    @Benchmark
+    @Group("padded")
+    public void padded2() {
+        paddedCounters.counter2++;
+    }
+    
+    @Benchmark
+    @Group("padded")
+    public void padded3() {
+        paddedCounters.counter3++;
+    }
+    
+    @Benchmark
+    @Group("padded")
+    public void padded4() {
+        paddedCounters.counter4++;
+    }
+    
+    // --- @Contended ---
+    
+    @Benchmark
+    @Group("contended")
+    @Fork(value = 1, jvmArgsAppend = "-XX:-RestrictContended")
+    public void contended1() {
+        contendedCounters.counter1++;
+    }
+    
+    @Benchmark
+    @Group("contended")
+    @Fork(value = 1, jvmArgsAppend = "-XX:-RestrictContended")
+    public void contended2() {
+        contendedCounters.counter2++;
+    }
+    
+    @Benchmark
+    @Group("contended")
+    @Fork(value = 1, jvmArgsAppend = "-XX:-RestrictContended")
+    public void contended3() {
+        contendedCounters.counter3++;
+    }
+    
+    @Benchmark
+    @Group("contended")
+    @Fork(value = 1, jvmArgsAppend = "-XX:-RestrictContended")
+    public void contended4() {
+        contendedCounters.counter4++;
+    }
+    
+    // --- 1スレッドが書き、3スレッドが隣のフィールドを読む ---
+    
+    @Benchmark
+    @Group("neighbourRead")
+    @GroupThreads(1)
+    public void neighbourWriter() {
+        falseSharingCounters.counter1++;
+    }
+    
+    @Benchmark
+    @Group("neighbourRead")
+    @GroupThreads(3)
+    public long neighbourReader() {
+        return falseSharingCounters.counter2;
+    }
+    
+    @Benchmark
+    @Group("paddedNeighbourRead")
+    @GroupThreads(1)
+    public void paddedNeighbourWriter() {
+        paddedCounters.counter1++;
+    }
+    
+    @Benchmark
+    @Group("paddedNeighbourRead")
+    @GroupThreads(3)
+    public long paddedNeighbourReader() {
+        return paddedCounters.counter2;
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        MemoryModelBenchmarks.runGroupSweep(FalseSharingBenchmark.class);
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.memorymodel.benchmark;
+
+import com.example.memorymodel.LockFreeAlgorithms.ABASafeStack;
+import com.example.memorymodel.LockFreeAlgorithms.EliminationBackoffStack;
+import com.example.memorymodel.LockFreeAlgorithms.LockFreeCounter;
+import com.example.memorymodel.LockFreeAlgorithms.LockFreeStack;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ロックフリー構造のグループベンチマーク
+ * （LockFreeAlgorithms.testLockFreeStackPerformance と testLockFreeCounter の置き換え）
+ *
+ * スタックのグループは push 2スレッド・pop 2スレッドの生産者・消費者構成。
+ * 空のスタックからの pop は成功した pop と区別して補助カウンターに数える。
+ * カウンターのグループはデモと同じく加算2スレッド・減算2スレッドで、
+ * 失敗した CAS も数える LockFreeCounter と AtomicInteger を比較する
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class LockFreeBenchmark {
+    
+    private static final Integer ELEMENT = 42;
+    
+    LockFreeStack<Integer> lockFreeStack;
+    ABASafeStack<Integer> abaSafeStack;
+    EliminationBackoffStack<Integer> eliminationStack;
+    LockFreeCounter lockFreeCounter;
+    AtomicInteger atomicInteger;
+    
+    @Setup(Level.Iteration)
+    public void setUp() {
+        lockFreeStack = new LockFreeStack<>();
+        abaSafeStack = new ABASafeStack<>();
+        eliminationStack = new EliminationBackoffStack<>();
+        lockFreeCounter = new LockFreeCounter();
+        atomicInteger = new AtomicInteger();
+    }
+    
+    /**
+     * pop の成功と空振りの回数
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class PopCounters {
+        public long popped;
+        public long popEmpty;
+        
+        @Setup(Level.Iteration)
+        public void reset() {
+            popped = 0;
+            popEmpty = 0;
+        }
+        
+        void record(Object item) {
+            if (item != null) {
+                popped++;
+            } else {
+                popEmpty++;
+            }
+        }
+    }
+    
+    @Benchmark
+    @Group("lockFreeStack")
+    @GroupThreads(2)
+    public void lockFreeStackPush() {
+        lockFreeStack.push(ELEMENT);
+    }
+    
+    @Benchmark
+    @Group("lockFreeStack")
+    @GroupThreads(2)
+    public void lockFreeStackPop(PopCounters counters) {
+        counters.record(lockFreeStack.pop());
+    }
+    
+    @Benchmark
+    @Group("abaSafeStack")
+    @GroupThreads(2)
+    public void abaSafeStackPush() {
+        abaSafeStack.push(ELEMENT);
+    }
+    
+    @Benchmark
+    @Group("abaSafeStack")
+    @GroupThreads(2)
+    public void abaSafeStackPop(PopCounters counters) {
+        counters.record(abaSafeStack.pop());
+    }
+    
+    @Benchmark
+    @Group("eliminationStack")
+    @GroupThreads(2)
+    public void eliminationStackPush() {
+        eliminationStack.push(ELEMENT);
+    }
+    
+    @Benchmark
+    @Group("eliminationStack")
+    @GroupThreads(2)
+    public void eliminationStackPop(PopCounters counters) {
+        counters.record(eliminationStack.pop());
+    }
+    
+    @Benchmark
+    @Group("lockFreeCounter")
+    @GroupThreads(2)
+    public int lockFreeCounterIncrement() {
+        return lockFreeCounter.incrementAndGet();
+    }
+    
+    @Benchmark
+    @Group("lockFreeCounter")
+    @GroupThreads(2)
+    public int lockFreeCounterDecrement() {
+        return lockFreeCounter.decrementAndGet();
+    }
+    
+    @Benchmark
+    @Group("atomicInteger")
+    @GroupThreads(2)
+    public int atomicIntegerIncrement() {
+        return atomicInteger.incrementAndGet();
+    }
+    
+    @Benchmark
+    @Group("atomicInteger")
+    @GroupThreads(2)
+    public int atomicIntegerDecrement() {
+        return atomicInteger.decrementAndGet();
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        MemoryModelBenchmarks.runGroupSweep(LockFreeBenchmark.class);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.memorymodel.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.profile.LinuxPerfNormProfiler;
+import org.openjdk.jmh.profile.ProfilerException;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * メモリモデル関連ベンチマークの一括実行と共通オプション
+ *
+ * 結果は results/&lt;ベンチマーク名&gt;-t&lt;スレッド数&gt;-jdk&lt;バージョン&gt;.json に JSON で書き出す。
+ * 同じ名前で JDK バージョンだけが異なるファイルを比較すれば、JDK ごとの差を確認できる。
+ *
+ * GC プロファイラ（確保量と GC 回数）は常に有効にし、
+ * perfnorm（1操作あたりのサイクル数・キャッシュミスなど）は Linux の perf が使える場合だけ追加する
+ */
+public final class MemoryModelBenchmarks {
+    
+    /**
+     * グループベンチマークのスレッド数（すべてのグループは4スレッド構成）
+     */
+    static final int GROUP_SIZE = 4;
+    
+    /**
+     * 同時に動かすグループ数（スレッド数は GROUP_SIZE の倍数になる）
+     */
+    static final int[] GROUP_INSTANCES = {1, 2, 4, 8};
+    
+    private static final Path RESULT_DIR = Paths.get("results");
+    
+    private MemoryModelBenchmarks() {
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        FalseSharingBenchmark.main(args);
+        LockFreeBenchmark.main(args);
+        VolatileVsSynchronizedBenchmark.main(args);
+        StripedCounterBenchmark.main(args);
+        WorkQueueBenchmark.main(args);
+        ConcurrentStackBenchmark.main(args);
+    }
+    
+    /**
+     * JSON 出力とプロファイラを設定したオプション
+     *
+     * @param include 実行するベンチマークの正規表現
+     * @param resultName 結果ファイル名（JDK バージョンと拡張子は自動で付く）
+     */
+    static ChainedOptionsBuilder options(String include, String resultName) {
+        try {
+            Files.createDirectories(RESULT_DIR);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        String file = resultName + "-jdk" + Runtime.version().feature() + ".json";
+        ChainedOptionsBuilder builder = new OptionsBuilder()
+                .include(include)
+                .resultFormat(ResultFormatType.JSON)
+                .result(RESULT_DIR.resolve(file).toString())
+                .addProfiler(GCProfiler.class);
+        if (isPerfNormAvailable()) {
+            builder.addProfiler(LinuxPerfNormProfiler.class);
+        }
+        return builder;
+    }
+    
+    /**
+     * グループ数を変えながらクラス内のグループベンチマークを実行
+     */
+    static void runGroupSweep(Class<?> benchmark) throws RunnerException {
+        String name = benchmark.getSimpleName();
+        for (int instances : GROUP_INSTANCES) {
+            int threads = GROUP_SIZE * instances;
+            new Runner(options(name + "\\.", name + "-t" + threads)
+                    .threads(threads)
+                    .build()).run();
+        }
+    }
+    
+    /**
+     * perf がインストールされ、イベントを読める権限があるか
+     */
+    private static boolean isPerfNormAvailable() {
+        try {
+            new LinuxPerfNormProfiler("");
+            return true;
+        } catch (ProfilerException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.memorymodel.benchmark;
+
+import com.example.memorymodel.FalseSharingDemo.PaddedCounters;
+import com.example.memorymodel.StripedCounter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 共有カウンターのスループット比較
+ * StripedCounter、LongAdder、AtomicLong、FalseSharingDemo.PaddedCounters を同じスレッド数で計測する
+ *
+ * PaddedCounters はスレッドごとに4つのカウンターのどれかへ非アトミックに加算するため、
+ * 5スレッド以上では同じカウンターを共有して更新を失う（比較用の下限として残している）
+ *
+ * JMHはスレッド数をパラメータにできないため、{@link #main} でスレッド数ごとに実行する。
+ * コマンドラインでは -t 1、-t 4 のように指定する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class StripedCounterBenchmark {
+    
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64, 128};
+    
+    StripedCounter stripedCounter;
+    LongAdder longAdder;
+    AtomicLong atomicLong;
+    PaddedCounters paddedCounters;
+    final AtomicInteger threadIndexes = new AtomicInteger();
+    
+    /**
+     * PaddedCounters で使うカウンター番号をスレッドごとに割り当てる
+     */
+    @State(Scope.Thread)
+    public static class Slot {
+        int index;
+        
+        @Setup
+        public void setUp(StripedCounterBenchmark benchmark) {
+            index = benchmark.threadIndexes.getAndIncrement() & 3;
+        }
+    }
+    
+    @Setup(Level.Iteration)
+    public void setUp() {
+        stripedCounter = new StripedCounter();
+        longAdder = new LongAdder();
+        atomicLong = new AtomicLong();
+        paddedCounters = new PaddedCounters();
+    }
+    
+    @Benchmark
+    public void stripedCounter() {
+        stripedCounter.increment();
+    }
+    
+    @Benchmark
+    public void longAdder() {
+        longAdder.increment();
+    }
+    
+    @Benchmark
+    public void atomicLong() {
+        atomicLong.incrementAndGet();
+    }
+    
+    @Benchmark
+    public void paddedCounters(Slot slot) {
+        switch (slot.index) {
+            case 0: paddedCounters.counter1++; break;
+            case 1: paddedCounters.counter2++; break;
+            case 2: paddedCounters.counter3++; break;
+            default: paddedCounters.counter4++; break;
+        }
+    }
+    
+    /**
+     * 書き込み中に合計を読み出すコスト（StripedCounterとLongAdderのみ）
+     */
+    @Benchmark
+    @Group("stripedCounterReadWhileWriting")
+    @GroupThreads(3)
+    public void stripedCounterWriter() {
+        stripedCounter.increment();
+    }
+    
+    @Benchmark
+    @Group("stripedCounterReadWhileWriting")
+    @GroupThreads(1)
+    public long stripedCounterReader() {
+        return stripedCounter.sum();
+    }
+    
+    @Benchmark
+    @Group("longAdderReadWhileWriting")
+    @GroupThreads(3)
+    public void longAdderWriter() {
+        longAdder.increment();
+    }
+    
+    @Benchmark
+    @Group("longAdderReadWhileWriting")
+    @GroupThreads(1)
+    public long longAdderReader() {
+        return longAdder.sum();
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREAD_COUNTS) {
+            Options opt = MemoryModelBenchmarks.options(
+                    StripedCounterBenchmark.class.getSimpleName() + "\\.(stripedCounter|longAdder|atomicLong|paddedCounters)$",
+                    "StripedCounterBenchmark-t" + threads)
+                    .threads(threads)
+                    .build();
+            
+            new Runner(opt).run();
+        }
+        
+        Options groups = MemoryModelBenchmarks.options(
+                StripedCounterBenchmark.class.getSimpleName() + "\\..*ReadWhileWriting",
+                "StripedCounterBenchmark-groups")
+                .build();
+        new Runner(groups).run();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.memorymodel.benchmark;
+
+import com.example.memorymodel.VisibilityProblems.VolatileVsSynchronized;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.RunnerException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * volatile と synchronized のグループベンチマーク
+ * （VisibilityProblems.demonstrateVolatileVsSynchronized の置き換え）
+ *
+ * 各グループは書き込み3スレッド・読み出し1スレッドの非対称な構成。
+ * volatile の加算は原子的でないため更新を失うが、コストの比較のために残している。
+ * 正しく、かつロックを使わない基準として AtomicInteger も計測する
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class VolatileVsSynchronizedBenchmark {
+    
+    VolatileVsSynchronized counters;
+    AtomicInteger atomicCounter;
+    
+    @Setup(Level.Iteration)
+    public void setUp() {
+        counters = new VolatileVsSynchronized();
+        atomicCounter = new AtomicInteger();
+    }
+    
+    @Benchmark
+    @Group("volatileCounter")
+    @GroupThreads(3)
+    public void volatileWriter() {
+        counters.incrementVolatile();
+    }
+    
+    @Benchmark
+    @Group("volatileCounter")
+    @GroupThreads(1)
+    public int volatileReader() {
+        return counters.getVolatileCounter();
+    }
+    
+    @Benchmark
+    @Group("synchronizedCounter")
+    @GroupThreads(3)
+    public void synchronizedWriter() {
+        counters.incrementSynchronized();
+    }
+    
+    @Benchmark
+    @Group("synchronizedCounter")
+    @GroupThreads(1)
+    public int synchronizedReader() {
+        return counters.getSynchronizedCounter();
+    }
+    
+    @Benchmark
+    @Group("atomicCounter")
+    @GroupThreads(3)
+    public int atomicWriter() {
+        return atomicCounter.incrementAndGet();
+    }
+    
+    @Benchmark
+    @Group("atomicCounter")
+    @GroupThreads(1)
+    public int atomicReader() {
+        return atomicCounter.get();
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        MemoryModelBenchmarks.runGroupSweep(VolatileVsSynchronizedBenchmark.class);
+    }
+}
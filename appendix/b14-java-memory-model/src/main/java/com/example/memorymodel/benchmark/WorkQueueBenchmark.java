@@ -0,0 +1,133 @@
+package com.example.memorymodel.benchmark;
+
+import com.example.memorymodel.LockFreeAlgorithms.BoundedMpmcQueue;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ワークキューのスループットとレイテンシ比較
+ * LockFreeAlgorithms.BoundedMpmcQueue、ConcurrentLinkedQueue、ArrayBlockingQueue を
+ * Queue インターフェース経由で同じ操作で計測する（フォークごとに実装は1つなので単相呼び出しになる）
+ *
+ * offerPoll は各スレッドが offer と poll を交互に行う対称な負荷、
+ * producerConsumer は生産者2・消費者2スレッドの非対称な負荷。
+ * 後者は満杯・空で失敗した操作もスループットに数えるため、成功数を補助カウンターで出力する。
+ *
+ * {@link #main} はスレッド数ごとのスループットの後、SampleTime モードでレイテンシ分布を計測する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class WorkQueueBenchmark {
+    
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32};
+    private static final Integer ELEMENT = 42; // ボクシングの確保を計測に含めない
+    
+    @Param({"boundedMpmc", "concurrentLinked", "arrayBlocking"})
+    String queueType;
+    
+    @Param({"1024"})
+    int capacity;
+    
+    Queue<Integer> queue;
+    
+    @Setup(Level.Iteration)
+    public void setUp() {
+        switch (queueType) {
+            case "boundedMpmc": queue = new BoundedMpmcQueue<>(capacity); break;
+            case "concurrentLinked": queue = new ConcurrentLinkedQueue<>(); break;
+            case "arrayBlocking": queue = new ArrayBlockingQueue<>(capacity); break;
+            default: throw new IllegalArgumentException("Unknown queue: " + queueType);
+        }
+        // 半分まで埋めて、満杯・空の境界に張り付かないようにする
+        for (int i = 0; i < capacity / 2; i++) {
+            queue.offer(ELEMENT);
+        }
+    }
+    
+    /**
+     * 生産者・消費者の成功と失敗の回数
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long offered;
+        public long offerFailed;
+        public long polled;
+        public long pollEmpty;
+        
+        @Setup(Level.Iteration)
+        public void reset() {
+            offered = 0;
+            offerFailed = 0;
+            polled = 0;
+            pollEmpty = 0;
+        }
+    }
+    
+    @Benchmark
+    public Integer offerPoll() {
+        queue.offer(ELEMENT);
+        return queue.poll();
+    }
+    
+    @Benchmark
+    @Group("producerConsumer")
+    @GroupThreads(2)
+    public void producer(Counters counters) {
+        if (queue.offer(ELEMENT)) {
+            counters.offered++;
+        } else {
+            counters.offerFailed++;
+        }
+    }
+    
+    @Benchmark
+    @Group("producerConsumer")
+    @GroupThreads(2)
+    public void consumer(Counters counters) {
+        if (queue.poll() != null) {
+            counters.polled++;
+        } else {
+            counters.pollEmpty++;
+        }
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREAD_COUNTS) {
+            Options opt = MemoryModelBenchmarks.options(
+                    WorkQueueBenchmark.class.getSimpleName() + "\\.offerPoll$",
+                    "WorkQueueBenchmark-t" + threads)
+                    .threads(threads)
+                    .build();
+            
+            new Runner(opt).run();
+        }
+        
+        Options groups = MemoryModelBenchmarks.options(
+                WorkQueueBenchmark.class.getSimpleName() + "\\.producerConsumer",
+                "WorkQueueBenchmark-groups")
+                .build();
+        new Runner(groups).run();
+        
+        // レイテンシ分布（p50、p99、p99.9 など）
+        Options latency = MemoryModelBenchmarks.options(
+                WorkQueueBenchmark.class.getSimpleName() + "\\.offerPoll$",
+                "WorkQueueBenchmark-latency")
+                .mode(Mode.SampleTime)
+                .timeUnit(TimeUnit.NANOSECONDS)
+                .threads(4)
+                .build();
+        new Runner(latency).run();
+    }
+}
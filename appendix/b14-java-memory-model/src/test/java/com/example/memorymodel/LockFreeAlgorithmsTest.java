@@ -0,0 +1,186 @@
+package com.example.memorymodel;
+
+import com.example.memorymodel.LockFreeAlgorithms.BoundedMpmcQueue;
+import com.example.memorymodel.LockFreeAlgorithms.EliminationBackoffStack;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BoundedMpmcQueue と EliminationBackoffStack の正しさのテスト
+ *
+ * 並行テストでは生産者ごとに重ならない値を流し、すべての値がちょうど1回ずつ
+ * 取り出されたこと（要素の保存）を合計値と出現回数で確かめる。
+ */
+class LockFreeAlgorithmsTest {
+    private static final int PRODUCERS = 4;
+    private static final int CONSUMERS = 4;
+    private static final int ITEMS_PER_PRODUCER = 50_000;
+    private static final int TOTAL = PRODUCERS * ITEMS_PER_PRODUCER;
+    
+    @Test
+    @DisplayName("キュー: 容量は2の累乗に切り上げ、満杯の offer は false")
+    void queueFull() {
+        BoundedMpmcQueue<Integer> queue = new BoundedMpmcQueue<>(5);
+        assertEquals(8, queue.capacity());
+        for (int i = 0; i < 8; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(8));
+        assertEquals(8, queue.size());
+        assertEquals(0, queue.peek());
+        
+        assertEquals(0, queue.poll());
+        assertTrue(queue.offer(8)); // 1つ空けば再び入る
+        assertFalse(queue.offer(9));
+        assertThrows(IllegalArgumentException.class, () -> new BoundedMpmcQueue<Integer>(1));
+        assertThrows(NullPointerException.class, () -> queue.offer(null));
+    }
+    
+    @Test
+    @DisplayName("キュー: 空の poll と peek は null")
+    void queueEmpty() {
+        BoundedMpmcQueue<String> queue = new BoundedMpmcQueue<>(4);
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+        assertNull(queue.peek());
+        assertFalse(queue.iterator().hasNext());
+        
+        queue.offer("a");
+        assertEquals("a", queue.poll());
+        assertNull(queue.poll());
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.size());
+    }
+    
+    @Test
+    @DisplayName("キュー: 何周しても FIFO 順を保つ")
+    void queueWraparound() {
+        BoundedMpmcQueue<Integer> queue = new BoundedMpmcQueue<>(4);
+        int next = 0;
+        int expected = 0;
+        for (int round = 0; round < 1_000; round++) {
+            int batch = round % 4 + 1; // 周回ごとに位置がずれるよう毎回の個数を変える
+            for (int i = 0; i < batch; i++) {
+                assertTrue(queue.offer(next++));
+            }
+            List<Integer> snapshot = new ArrayList<>(queue);
+            assertEquals(batch, snapshot.size());
+            assertEquals(expected, snapshot.get(0));
+            for (int i = 0; i < batch; i++) {
+                assertEquals(expected++, queue.poll());
+            }
+            assertNull(queue.poll());
+        }
+    }
+    
+    @Test
+    @DisplayName("キュー: 複数生産者・複数消費者で要素を失わず重複もしない")
+    void queueConservesElements() throws InterruptedException {
+        BoundedMpmcQueue<Integer> queue = new BoundedMpmcQueue<>(64);
+        runConservationTest(
+            value -> {
+                while (!queue.offer(value)) {
+                    Thread.yield(); // 満杯なら消費者に譲る
+                }
+            },
+            queue::poll);
+        assertTrue(queue.isEmpty());
+    }
+    
+    @Test
+    @DisplayName("スタック: 単一スレッドでは LIFO")
+    void stackIsLifo() {
+        EliminationBackoffStack<Integer> stack = new EliminationBackoffStack<>();
+        assertTrue(stack.isEmpty());
+        assertNull(stack.pop());
+        for (int i = 0; i < 10; i++) {
+            stack.push(i);
+        }
+        for (int i = 9; i >= 0; i--) {
+            assertEquals(i, stack.pop());
+        }
+        assertNull(stack.pop());
+        assertThrows(NullPointerException.class, () -> stack.push(null));
+    }
+    
+    @Test
+    @DisplayName("スタック: 消去による受け渡しを含めて要素を失わず重複もしない")
+    void stackConservesElements() throws InterruptedException {
+        EliminationBackoffStack<Integer> stack = new EliminationBackoffStack<>(4, 16);
+        runConservationTest(stack::push, stack::pop);
+        assertTrue(stack.isEmpty());
+        assertNull(stack.pop());
+    }
+    
+    /**
+     * 生産者は 0 から TOTAL-1 までを分担して投入し、消費者は合計 TOTAL 個を取り出す。
+     * 取り出し側が空（null）を見たら譲って再試行する。
+     */
+    private static void runConservationTest(IntConsumer producer, Supplier<Integer> consumer)
+            throws InterruptedException {
+        AtomicIntegerArray seen = new AtomicIntegerArray(TOTAL);
+        AtomicLong consumed = new AtomicLong();
+        AtomicLong sum = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        
+        for (int p = 0; p < PRODUCERS; p++) {
+            int first = p * ITEMS_PER_PRODUCER;
+            threads.add(startThread(start, () -> {
+                for (int i = 0; i < ITEMS_PER_PRODUCER; i++) {
+                    producer.accept(first + i);
+                }
+            }));
+        }
+        for (int c = 0; c < CONSUMERS; c++) {
+            threads.add(startThread(start, () -> {
+                while (consumed.get() < TOTAL) {
+                    Integer value = consumer.get();
+                    if (value == null) {
+                        Thread.yield();
+                        continue;
+                    }
+                    seen.incrementAndGet(value);
+                    sum.addAndGet(value);
+                    consumed.incrementAndGet();
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join(60_000);
+            assertFalse(thread.isAlive(), "Worker did not finish; consumed " + consumed.get());
+        }
+        
+        assertEquals(TOTAL, consumed.get());
+        assertEquals((long) TOTAL * (TOTAL - 1) / 2, sum.get());
+        for (int i = 0; i < TOTAL; i++) {
+            assertEquals(1, seen.get(i), "Value " + i);
+        }
+    }
+    
+    private static Thread startThread(CountDownLatch start, Runnable body) {
+        Thread thread = new Thread(() -> {
+            try {
+                start.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            body.run();
+        });
+        thread.setDaemon(true); // 失敗時に取り残されても JVM の終了を妨げない
+        thread.start();
+        return thread;
+    }
+}
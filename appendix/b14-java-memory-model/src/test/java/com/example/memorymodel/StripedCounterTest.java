@@ -0,0 +1,105 @@
+package com.example.memorymodel;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StripedCounter の並行更新下での正しさのテスト
+ */
+class StripedCounterTest {
+    private static final int THREADS = 8;
+    private static final int ADDS_PER_THREAD = 100_000;
+    
+    @Test
+    @DisplayName("単一スレッドでの加算・減算・リセット")
+    void singleThreadedOperations() {
+        StripedCounter counter = new StripedCounter();
+        counter.increment();
+        counter.add(41);
+        counter.decrement();
+        assertEquals(41, counter.sum());
+        assertEquals(41, counter.sumThenReset());
+        assertEquals(0, counter.sum());
+        
+        counter.add(-5);
+        counter.reset();
+        assertEquals(0, counter.sum());
+    }
+    
+    @Test
+    @DisplayName("競合下でも加算を失わない")
+    void sumUnderContention() throws InterruptedException {
+        StripedCounter counter = new StripedCounter();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long delta = t % 2 == 0 ? 3 : -1; // 減算も混ぜて、セル間の符号の偏りも確かめる
+            workers.add(startWorker(start, () -> {
+                for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                    counter.add(delta);
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        
+        assertEquals((long) (THREADS / 2) * ADDS_PER_THREAD * (3 - 1), counter.sum());
+    }
+    
+    @Test
+    @DisplayName("並行する sumThenReset は加算を重複も欠落もさせない")
+    void sumThenResetDuringUpdates() throws InterruptedException {
+        StripedCounter counter = new StripedCounter();
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        long[] drained = new long[1];
+        
+        Thread drainer = startWorker(start, () -> {
+            while (running.get()) {
+                drained[0] += counter.sumThenReset();
+            }
+        });
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(startWorker(start, () -> {
+                for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                    counter.increment();
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        running.set(false);
+        drainer.join();
+        
+        // join により drained[0] の書き込みはこのスレッドから見える
+        long total = drained[0] + counter.sumThenReset();
+        assertEquals((long) THREADS * ADDS_PER_THREAD, total);
+        assertEquals(0, counter.sum());
+    }
+    
+    private static Thread startWorker(CountDownLatch start, Runnable body) {
+        Thread thread = new Thread(() -> {
+            try {
+                start.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            body.run();
+        });
+        thread.start();
+        return thread;
+    }
+}